@@ -0,0 +1,548 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+
+/**
+ * Content-addressed store of application archives (e.g. .war or .jar files)
+ * built for deployment. Archives are keyed by a digest of the contents of the
+ * module resources they were built from, so that an archive built for one
+ * Cloud Foundry server can be reused when pushing the same, unchanged
+ * application to another server or space.
+ * <p/>
+ * The total size of the store is bounded. Least recently used archives are
+ * evicted first, except archives handed out to a reader within the last
+ * {@link #DEFAULT_LEASE_PERIOD}, or retained by a reader until it releases
+ * them, so that they can still be uploaded. The store may therefore
+ * temporarily exceed its bound.
+ * <p/>
+ * All operations are thread safe.
+ */
+public class ApplicationArchiveCache {
+
+	/**
+	 * Period after an archive is returned to a reader during which it will
+	 * not be evicted.
+	 */
+	public static final long DEFAULT_LEASE_PERIOD = 10 * 60 * 1000;
+
+	/**
+	 * Number of local file sha1 codes retained to compute content keys. Codes
+	 * of least recently used files are discarded first, and computed again if
+	 * needed.
+	 */
+	public static final int DEFAULT_MAX_FILE_DIGESTS = 20000;
+
+	private static final String TEMP_FILE_PREFIX = "tmp-"; //$NON-NLS-1$
+
+	private static final Charset UTF8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	private final File storeDirectory;
+
+	private final long maxBytes;
+
+	private final long leasePeriod;
+
+	private final int maxFileDigests;
+
+	private long totalBytes = 0;
+
+	/**
+	 * Access ordered, so that iteration starts with least recently used
+	 * archive.
+	 */
+	private final LinkedHashMap<String, CachedArchive> archives = new LinkedHashMap<String, CachedArchive>(16, 0.75f,
+			true);
+
+	/**
+	 * Sha1 codes of local files already computed for content keys. Avoids
+	 * reading files again if they have not changed since. Access ordered and
+	 * bounded, so that files of closed or deleted projects do not accumulate.
+	 */
+	@SuppressWarnings("serial")
+	private final Map<String, FileDigest> fileDigests = new LinkedHashMap<String, FileDigest>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, FileDigest> eldest) {
+			return size() > maxFileDigests;
+		}
+	};
+
+	public ApplicationArchiveCache(File storeDirectory, long maxBytes) {
+		this(storeDirectory, maxBytes, DEFAULT_LEASE_PERIOD);
+	}
+
+	public ApplicationArchiveCache(File storeDirectory, long maxBytes, long leasePeriod) {
+		this(storeDirectory, maxBytes, leasePeriod, DEFAULT_MAX_FILE_DIGESTS);
+	}
+
+	public ApplicationArchiveCache(File storeDirectory, long maxBytes, long leasePeriod, int maxFileDigests) {
+		this.storeDirectory = storeDirectory;
+		this.maxBytes = maxBytes;
+		this.leasePeriod = leasePeriod;
+		this.maxFileDigests = maxFileDigests;
+		loadExisting();
+	}
+
+	/**
+	 * Registers archives from a previous session, least recently modified
+	 * first, and removes any incomplete temporary files.
+	 */
+	private synchronized void loadExisting() {
+		File[] files = storeDirectory.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			public int compare(File file1, File file2) {
+				return Long.valueOf(file1.lastModified()).compareTo(file2.lastModified());
+			}
+		});
+		for (File file : files) {
+			if (file.getName().startsWith(TEMP_FILE_PREFIX)) {
+				file.delete();
+			}
+			else if (file.isFile()) {
+				String key = getKey(file);
+				CachedArchive archive = new CachedArchive(file);
+				archives.put(key, archive);
+				totalBytes += archive.size;
+			}
+		}
+		evict();
+	}
+
+	/**
+	 *
+	 * @param key content key of the archive
+	 * @return archive file for the given key, or null if not in the store.
+	 */
+	public synchronized File getArchive(String key) {
+		if (key == null) {
+			return null;
+		}
+		CachedArchive archive = archives.get(key);
+		if (archive == null) {
+			return null;
+		}
+		if (!archive.file.exists()) {
+			remove(key);
+			return null;
+		}
+		archive.leasedUntil = System.currentTimeMillis() + leasePeriod;
+		return archive.file;
+	}
+
+	/**
+	 * Prevents the given archive from being evicted, regardless of its lease,
+	 * until it is released through {@link #releaseArchive(File)}. Readers
+	 * retain an archive for as long as they upload it, which may take longer
+	 * than the lease period.
+	 * @param archiveFile archive returned by the store
+	 * @return true if the archive was retained, false if it is not in the
+	 * store
+	 */
+	public synchronized boolean retainArchive(File archiveFile) {
+		CachedArchive archive = getCachedArchive(archiveFile);
+		if (archive == null) {
+			return false;
+		}
+		archive.retainCount++;
+		return true;
+	}
+
+	/**
+	 * Releases an archive previously retained through
+	 * {@link #retainArchive(File)}, and evicts archives if the store exceeds
+	 * its bound.
+	 * @param archiveFile archive retained by the reader
+	 */
+	public synchronized void releaseArchive(File archiveFile) {
+		CachedArchive archive = getCachedArchive(archiveFile);
+		if (archive != null && archive.retainCount > 0) {
+			archive.retainCount--;
+			evict();
+		}
+	}
+
+	private CachedArchive getCachedArchive(File archiveFile) {
+		if (archiveFile == null) {
+			return null;
+		}
+		CachedArchive archive = archives.get(getKey(archiveFile));
+		return archive != null && archive.file.equals(archiveFile) ? archive : null;
+	}
+
+	/**
+	 * Copies the given archive into the store under the given content key. If
+	 * another archive was already added for the same key, the existing one is
+	 * returned instead.
+	 * @param key content key for the archive
+	 * @param archiveFile archive built from the content
+	 * @return archive file in the store, or null if it could not be added
+	 */
+	public File addArchive(String key, File archiveFile) {
+		if (key == null || archiveFile == null || !archiveFile.isFile()) {
+			return null;
+		}
+
+		File existing = getArchive(key);
+		if (existing != null) {
+			return existing;
+		}
+
+		if (!storeDirectory.exists() && !storeDirectory.mkdirs()) {
+			return null;
+		}
+
+		// Copy outside the lock, as it may take some time for large archives
+		File tempFile = new File(storeDirectory, TEMP_FILE_PREFIX + key + '-' + Thread.currentThread().getId());
+		try {
+			copy(archiveFile, tempFile);
+		}
+		catch (IOException e) {
+			tempFile.delete();
+			CloudFoundryPlugin.logError(e);
+			return null;
+		}
+
+		synchronized (this) {
+			existing = getArchive(key);
+			if (existing != null) {
+				tempFile.delete();
+				return existing;
+			}
+			File target = new File(storeDirectory, key + getExtension(archiveFile));
+			if (!tempFile.renameTo(target)) {
+				tempFile.delete();
+				return null;
+			}
+			CachedArchive archive = new CachedArchive(target);
+			archive.leasedUntil = System.currentTimeMillis() + leasePeriod;
+			archives.put(key, archive);
+			totalBytes += archive.size;
+			evict();
+			return target;
+		}
+	}
+
+	/**
+	 *
+	 * @return total size of all archives in the store.
+	 */
+	public synchronized long getTotalBytes() {
+		return totalBytes;
+	}
+
+	protected synchronized void evict() {
+		long now = System.currentTimeMillis();
+		Iterator<Map.Entry<String, CachedArchive>> it = archives.entrySet().iterator();
+		while (totalBytes > maxBytes && it.hasNext()) {
+			CachedArchive archive = it.next().getValue();
+			if (archive.leasedUntil > now || archive.retainCount > 0) {
+				continue;
+			}
+			// Deletion may fail if the archive is still open (e.g. on
+			// Windows). Retain it and try again on the next eviction.
+			if (archive.file.delete() || !archive.file.exists()) {
+				it.remove();
+				totalBytes -= archive.size;
+			}
+		}
+	}
+
+	protected synchronized void remove(String key) {
+		CachedArchive archive = archives.remove(key);
+		if (archive != null) {
+			totalBytes -= archive.size;
+			archive.file.delete();
+		}
+	}
+
+	/**
+	 * Creates a new builder of content keys. Content keys are computed from the
+	 * relative name and the sha1 code of the contents of each resource added
+	 * to the builder, as well as optional qualifiers.
+	 */
+	public ContentKeyBuilder newContentKeyBuilder() {
+		return new ContentKeyBuilder();
+	}
+
+	protected byte[] getFileDigest(File file) throws IOException {
+		String path = file.getAbsolutePath();
+		long lastModified = file.lastModified();
+		long size = file.length();
+		synchronized (fileDigests) {
+			FileDigest digest = fileDigests.get(path);
+			if (digest != null && digest.lastModified == lastModified && digest.size == size) {
+				return digest.sha1;
+			}
+		}
+
+		MessageDigest messageDigest = newSha1Digest();
+		byte[] buffer = new byte[8192];
+		InputStream input = new FileInputStream(file);
+		try {
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				messageDigest.update(buffer, 0, read);
+			}
+		}
+		finally {
+			input.close();
+		}
+		byte[] sha1 = messageDigest.digest();
+		synchronized (fileDigests) {
+			fileDigests.put(path, new FileDigest(lastModified, size, sha1));
+		}
+		return sha1;
+	}
+
+	/**
+	 *
+	 * @return number of local file sha1 codes currently retained
+	 */
+	protected int getFileDigestCount() {
+		synchronized (fileDigests) {
+			return fileDigests.size();
+		}
+	}
+
+	protected static MessageDigest newSha1Digest() {
+		try {
+			return MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	protected static void copy(File source, File target) throws IOException {
+		FileInputStream input = new FileInputStream(source);
+		try {
+			FileOutputStream output = new FileOutputStream(target);
+			try {
+				FileChannel inChannel = input.getChannel();
+				FileChannel outChannel = output.getChannel();
+				long size = inChannel.size();
+				long position = 0;
+				while (position < size) {
+					position += inChannel.transferTo(position, size - position, outChannel);
+				}
+			}
+			finally {
+				output.close();
+			}
+		}
+		finally {
+			input.close();
+		}
+	}
+
+	protected static String getKey(File file) {
+		String name = file.getName();
+		int index = name.indexOf('.');
+		return index > 0 ? name.substring(0, index) : name;
+	}
+
+	protected static String getExtension(File file) {
+		String name = file.getName();
+		int index = name.lastIndexOf('.');
+		return index > 0 ? name.substring(index) : ""; //$NON-NLS-1$
+	}
+
+	protected static String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+			builder.append(Character.forDigit(b & 0xF, 16));
+		}
+		return builder.toString();
+	}
+
+	private static class CachedArchive {
+
+		final File file;
+
+		final long size;
+
+		long leasedUntil;
+
+		int retainCount;
+
+		CachedArchive(File file) {
+			this.file = file;
+			this.size = file.length();
+		}
+	}
+
+	private static class FileDigest {
+
+		final long lastModified;
+
+		final long size;
+
+		final byte[] sha1;
+
+		FileDigest(long lastModified, long size, byte[] sha1) {
+			this.lastModified = lastModified;
+			this.size = size;
+			this.sha1 = sha1;
+		}
+	}
+
+	/**
+	 * Computes a content key from a set of module resources. Resource entries
+	 * are sorted by name before the key is computed, so the key does not
+	 * depend on the order in which resources are added. If any file resource
+	 * cannot be resolved to a local file, no key can be computed.
+	 */
+	public class ContentKeyBuilder {
+
+		private final List<String> entries = new ArrayList<String>();
+
+		private boolean resolvable = true;
+
+		/**
+		 * Adds a qualifier, for example a type of archive, or a child module
+		 * URI, that distinguishes archives built from the same resources.
+		 */
+		public ContentKeyBuilder addQualifier(String qualifier) {
+			entries.add("#" + qualifier); //$NON-NLS-1$
+			return this;
+		}
+
+		/**
+		 * Adds the module resources and their members, using the given prefix
+		 * for resource names.
+		 */
+		public ContentKeyBuilder addResources(String prefix, IModuleResource[] resources) throws IOException {
+			if (resources == null || !resolvable) {
+				return this;
+			}
+			for (IModuleResource resource : resources) {
+				if (resource instanceof IModuleFolder) {
+					addResources(prefix, ((IModuleFolder) resource).members());
+				}
+				else if (resource instanceof IModuleFile) {
+					File file = getFile(resource);
+					if (file == null || !file.isFile()) {
+						resolvable = false;
+						return this;
+					}
+					entries.add(prefix + CloudUtil.getZipRelativeName(resource) + ':'
+							+ toHex(getFileDigest(file)));
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * Adds a local file that is not a module resource, for example a
+		 * library packaged with the module, under the given name.
+		 */
+		public ContentKeyBuilder addFile(String name, File file) throws IOException {
+			if (!resolvable) {
+				return this;
+			}
+			if (!file.isFile()) {
+				resolvable = false;
+				return this;
+			}
+			entries.add(name + ':' + toHex(getFileDigest(file)));
+			return this;
+		}
+
+		/**
+		 * Adds all the files in the given local directory and its
+		 * subdirectories, using the given prefix for their relative names. A
+		 * missing directory adds no files.
+		 */
+		public ContentKeyBuilder addDirectory(String prefix, File directory) throws IOException {
+			File[] files = directory.listFiles();
+			if (files == null || !resolvable) {
+				return this;
+			}
+			for (File file : files) {
+				if (file.isDirectory()) {
+					addDirectory(prefix + file.getName() + '/', file);
+				}
+				else {
+					addFile(prefix + file.getName(), file);
+				}
+			}
+			return this;
+		}
+
+		/**
+		 *
+		 * @return content key, or null if a key could not be computed as some
+		 * resources could not be resolved to local files.
+		 */
+		public String build() {
+			if (!resolvable) {
+				return null;
+			}
+			Collections.sort(entries);
+			MessageDigest digest = newSha1Digest();
+			for (String entry : entries) {
+				digest.update(entry.getBytes(UTF8));
+				digest.update((byte) '\n');
+			}
+			return toHex(digest.digest());
+		}
+
+		protected File getFile(IModuleResource resource) {
+			File file = (File) resource.getAdapter(File.class);
+			if (file == null) {
+				IFile iFile = (IFile) resource.getAdapter(IFile.class);
+				if (iFile != null) {
+					IPath location = iFile.getLocation();
+					if (location != null) {
+						file = location.toFile();
+					}
+				}
+			}
+			return file;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+
+/**
+ * Notifies that a single deployed application was added, changed or removed
+ * in the Cloud Foundry space of a server, as found by a module refresh.
+ */
+public class ApplicationChangeEvent extends CloudServerEvent {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String applicationName;
+
+	private final transient CloudApplication application;
+
+	public ApplicationChangeEvent(CloudFoundryServer server, String applicationName, CloudApplication application) {
+		super(server, EVENT_APPLICATION_CHANGED);
+		this.applicationName = applicationName;
+		this.application = application;
+	}
+
+	public String getApplicationName() {
+		return applicationName;
+	}
+
+	/**
+	 *
+	 * @return updated cloud application, or null if the application is no
+	 * longer deployed.
+	 */
+	public CloudApplication getApplication() {
+		return application;
+	}
+
+}
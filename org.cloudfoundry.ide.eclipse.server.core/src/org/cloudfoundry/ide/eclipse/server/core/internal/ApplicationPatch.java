@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudfoundry.client.lib.archive.AbstractApplicationArchiveEntry;
+import org.cloudfoundry.client.lib.archive.ApplicationArchive;
+import org.cloudfoundry.client.lib.archive.ApplicationArchive.Entry;
+import org.cloudfoundry.ide.eclipse.server.core.internal.DeployedResourceCache.DeployedResourceEntry;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Changes made to individual files of a deployed application, for example
+ * from a remote file browser, that are applied to the application archive
+ * before it is pushed again. As the Cloud Foundry client only uploads the
+ * archive entries whose sha1 codes are not already known to the server, only
+ * the changed files are uploaded. Renamed and copied files keep the sha1
+ * code of their source, and are not uploaded at all.
+ * <p/>
+ * Changes are applied to the deployed resources of the application, see
+ * {@link #getDeployedArchive(String, Collection, Map)}, so that only the
+ * patched files need to be available locally.
+ * <p/>
+ * Files are identified by their zip relative name in the archive, for
+ * example "WEB-INF/web.xml". Changes are applied in the order they were
+ * made, and changes to a folder apply to all its members.
+ * <p/>
+ * All operations are thread safe.
+ */
+public class ApplicationPatch {
+
+	private enum Kind {
+		PUT, DELETE, RENAME, COPY
+	}
+
+	private final List<Change> changes = new ArrayList<Change>();
+
+	/**
+	 * Adds or replaces a file with the contents of the given local file. The
+	 * local file is read when the patched archive is uploaded.
+	 * @param name zip relative name of the file
+	 * @param file local file
+	 */
+	public synchronized void putFile(String name, File file) {
+		changes.add(new Change(Kind.PUT, name, null, file));
+	}
+
+	/**
+	 * Deletes a file, or a folder and all its members.
+	 * @param name zip relative name of the file or folder
+	 */
+	public synchronized void delete(String name) {
+		changes.add(new Change(Kind.DELETE, name, null, null));
+	}
+
+	/**
+	 * Renames or moves a file, or a folder and all its members.
+	 * @param oldName zip relative name of the file or folder
+	 * @param newName new zip relative name
+	 */
+	public synchronized void rename(String oldName, String newName) {
+		changes.add(new Change(Kind.RENAME, oldName, newName, null));
+	}
+
+	/**
+	 * Copies a file, or a folder and all its members.
+	 * @param sourceName zip relative name of the file or folder
+	 * @param targetName zip relative name of the copy
+	 */
+	public synchronized void copy(String sourceName, String targetName) {
+		changes.add(new Change(Kind.COPY, sourceName, targetName, null));
+	}
+
+	public synchronized boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	/**
+	 *
+	 * @param archive complete archive of the application
+	 * @return archive containing the entries of the given archive, with all
+	 * the changes applied.
+	 * @throws CoreException if a file or folder that is renamed or copied is
+	 * not in the archive
+	 */
+	public synchronized ApplicationArchive apply(ApplicationArchive archive) throws CoreException {
+		Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+		for (Entry entry : archive.getEntries()) {
+			entries.put(entry.getName(), entry);
+		}
+
+		for (Change change : changes) {
+			switch (change.kind) {
+			case PUT:
+				entries.remove(asFolder(change.name));
+				entries.put(change.name, new LocalFileEntry(change.name, change.file));
+				break;
+			case DELETE:
+				removeEntries(entries, change.name);
+				break;
+			case RENAME:
+			case COPY:
+				Map<String, Entry> copies = new LinkedHashMap<String, Entry>();
+				for (Entry entry : entries.values()) {
+					String newName = getNewName(entry.getName(), change.name, change.target);
+					if (newName != null) {
+						copies.put(newName, new RenamedEntry(newName, entry));
+					}
+				}
+				if (copies.isEmpty()) {
+					throw CloudErrorUtil.toCoreException("Unable to find " + change.name //$NON-NLS-1$
+							+ " in the application archive"); //$NON-NLS-1$
+				}
+				if (change.kind == Kind.RENAME) {
+					removeEntries(entries, change.name);
+				}
+				entries.putAll(copies);
+				break;
+			}
+		}
+		return new PatchedApplicationArchive(archive.getFilename(), new ArrayList<Entry>(entries.values()));
+	}
+
+	/**
+	 * 
+	 * @param fileName name of the archive
+	 * @param deployedResources resources of the application known to the
+	 * server, as recorded by its last incremental publish
+	 * @param localFiles local files of the application module, keyed by zip
+	 * relative name. May be null.
+	 * @return archive of the given resources. The server normally matches
+	 * them by sha1 code, so their contents are not uploaded. If the server
+	 * does not match a resource, for example because it is too small to be
+	 * kept in its resource pool, the contents are read from the local file,
+	 * provided the file has not changed since the resource was recorded.
+	 */
+	public static ApplicationArchive getDeployedArchive(String fileName,
+			Collection<DeployedResourceEntry> deployedResources, Map<String, File> localFiles) {
+		List<Entry> entries = new ArrayList<Entry>(deployedResources.size());
+		for (DeployedResourceEntry resource : deployedResources) {
+			File localFile = localFiles != null ? localFiles.get(resource.getZipRelativeFileName()) : null;
+			entries.add(new DeployedEntry(resource, localFile));
+		}
+		return new PatchedApplicationArchive(fileName, entries);
+	}
+
+	protected static void removeEntries(Map<String, Entry> entries, String name) {
+		String folder = asFolder(name);
+		for (Iterator<String> it = entries.keySet().iterator(); it.hasNext();) {
+			String entryName = it.next();
+			if (entryName.equals(name) || entryName.startsWith(folder)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return new name of the given entry if it is, or is a member of, the
+	 * file or folder being renamed. Null otherwise.
+	 */
+	protected static String getNewName(String entryName, String oldName, String newName) {
+		if (entryName.equals(oldName)) {
+			return entryName.endsWith("/") ? asFolder(newName) : newName; //$NON-NLS-1$
+		}
+		String oldFolder = asFolder(oldName);
+		if (entryName.startsWith(oldFolder)) {
+			return asFolder(newName) + entryName.substring(oldFolder.length());
+		}
+		return null;
+	}
+
+	protected static String asFolder(String name) {
+		return name.endsWith("/") ? name : name + '/'; //$NON-NLS-1$
+	}
+
+	private static class Change {
+
+		final Kind kind;
+
+		final String name;
+
+		final String target;
+
+		final File file;
+
+		Change(Kind kind, String name, String target, File file) {
+			this.kind = kind;
+			this.name = name;
+			this.target = target;
+			this.file = file;
+		}
+	}
+
+	private static class PatchedApplicationArchive implements ApplicationArchive {
+
+		private final String fileName;
+
+		private final List<Entry> entries;
+
+		PatchedApplicationArchive(String fileName, List<Entry> entries) {
+			this.fileName = fileName;
+			this.entries = entries;
+		}
+
+		public String getFilename() {
+			return fileName;
+		}
+
+		public Iterable<Entry> getEntries() {
+			return entries;
+		}
+	}
+
+	/**
+	 * Entry for a local file. The sha1 code and size are computed from the
+	 * file contents when first requested.
+	 */
+	private static class LocalFileEntry extends AbstractApplicationArchiveEntry {
+
+		private final String name;
+
+		private final File file;
+
+		LocalFileEntry(String name, File file) {
+			this.name = name;
+			this.file = file;
+		}
+
+		public boolean isDirectory() {
+			return false;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public InputStream getInputStream() throws IOException {
+			return new FileInputStream(file);
+		}
+	}
+
+	/**
+	 * Entry for a resource of the deployed application. Only its sha1 code and
+	 * size are known, and its contents are only available if the local file of
+	 * the resource is unchanged.
+	 */
+	private static class DeployedEntry implements Entry {
+
+		private final DeployedResourceEntry resource;
+
+		private final File localFile;
+
+		DeployedEntry(DeployedResourceEntry resource, File localFile) {
+			this.resource = resource;
+			this.localFile = localFile;
+		}
+
+		public boolean isDirectory() {
+			return false;
+		}
+
+		public String getName() {
+			return resource.getZipRelativeFileName();
+		}
+
+		public long getSize() {
+			return resource.getFileSize();
+		}
+
+		public byte[] getSha1Digest() {
+			return resource.getSha1();
+		}
+
+		public InputStream getInputStream() throws IOException {
+			if (localFile != null && localFile.isFile() && resource.isCurrent(localFile)) {
+				return new FileInputStream(localFile);
+			}
+			throw new IOException("Contents of " + getName() //$NON-NLS-1$
+					+ " are not known to the server, and its local file is missing or has changed since the application was last published. Publish the application instead."); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Entry of the archive under a different name. The sha1 code, size and
+	 * contents of the original entry are used, so that they need not be
+	 * computed again.
+	 */
+	private static class RenamedEntry implements Entry {
+
+		private final String name;
+
+		private final Entry entry;
+
+		RenamedEntry(String name, Entry entry) {
+			this.name = name;
+			this.entry = entry instanceof RenamedEntry ? ((RenamedEntry) entry).entry : entry;
+		}
+
+		public boolean isDirectory() {
+			return entry.isDirectory();
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getSize() {
+			return entry.getSize();
+		}
+
+		public byte[] getSha1Digest() {
+			return entry.getSha1Digest();
+		}
+
+		public InputStream getInputStream() throws IOException {
+			return entry.getInputStream();
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudEntity.Meta;
+
+/**
+ * Difference between two snapshots of the applications deployed in a Cloud
+ * Foundry space. Applications are compared by name, and by a fingerprint
+ * made of the application's update time stamp and the properties that are
+ * shown for an application module (state, instances, memory, URLs and bound
+ * services), as running instances and state may change without the update
+ * time stamp changing.
+ * <p/>
+ * The fingerprints of the new snapshot are kept in the delta, so that they
+ * can be passed to the next delta computation.
+ */
+public class ApplicationsDelta {
+
+	private final Map<String, CloudApplication> applications;
+
+	private final Map<String, String> fingerprints;
+
+	private final Set<String> added;
+
+	private final Set<String> changed;
+
+	private final Set<String> removed;
+
+	private final boolean full;
+
+	private ApplicationsDelta(Map<String, CloudApplication> applications, Map<String, String> fingerprints,
+			Set<String> added, Set<String> changed, Set<String> removed, boolean full) {
+		this.applications = applications;
+		this.fingerprints = fingerprints;
+		this.added = added;
+		this.changed = changed;
+		this.removed = removed;
+		this.full = full;
+	}
+
+	/**
+	 *
+	 * @param previous delta computed for the last snapshot. If null, all the
+	 * given applications are considered as added, and the delta is a full
+	 * delta.
+	 * @param applications current snapshot of deployed applications
+	 * @return delta between the previous snapshot and the given applications.
+	 * Never null.
+	 */
+	public static ApplicationsDelta compute(ApplicationsDelta previous, List<CloudApplication> applications) {
+		Map<String, CloudApplication> applicationsByName = new LinkedHashMap<String, CloudApplication>();
+		Map<String, String> fingerprints = new HashMap<String, String>();
+		Set<String> added = new HashSet<String>();
+		Set<String> changed = new HashSet<String>();
+
+		Map<String, String> previousFingerprints = previous != null ? previous.fingerprints : Collections
+				.<String, String> emptyMap();
+
+		for (CloudApplication application : applications) {
+			String name = application.getName();
+			String fingerprint = getFingerprint(application);
+			applicationsByName.put(name, application);
+			fingerprints.put(name, fingerprint);
+
+			String previousFingerprint = previousFingerprints.get(name);
+			if (previousFingerprint == null) {
+				added.add(name);
+			}
+			else if (!previousFingerprint.equals(fingerprint)) {
+				changed.add(name);
+			}
+		}
+
+		Set<String> removed = new HashSet<String>(previousFingerprints.keySet());
+		removed.removeAll(fingerprints.keySet());
+
+		return new ApplicationsDelta(applicationsByName, fingerprints, added, changed, removed, previous == null);
+	}
+
+	/**
+	 *
+	 * @return all the deployed applications in the current snapshot, by
+	 * application name, in the order returned by the server. The map can be
+	 * modified by the caller.
+	 */
+	public Map<String, CloudApplication> getApplications() {
+		return new LinkedHashMap<String, CloudApplication>(applications);
+	}
+
+	/**
+	 *
+	 * @return names of applications that were not in the previous snapshot.
+	 */
+	public Set<String> getAdded() {
+		return added;
+	}
+
+	/**
+	 *
+	 * @return names of applications in both snapshots whose fingerprint
+	 * changed.
+	 */
+	public Set<String> getChanged() {
+		return changed;
+	}
+
+	/**
+	 *
+	 * @return names of applications in the previous snapshot that are no
+	 * longer deployed.
+	 */
+	public Set<String> getRemoved() {
+		return removed;
+	}
+
+	/**
+	 *
+	 * @return names of all applications that were added, changed or removed.
+	 */
+	public Set<String> getAffected() {
+		Set<String> affected = new HashSet<String>(added);
+		affected.addAll(changed);
+		affected.addAll(removed);
+		return affected;
+	}
+
+	/**
+	 *
+	 * @return true if there was no previous snapshot, and all the
+	 * applications must be processed.
+	 */
+	public boolean isFull() {
+		return full;
+	}
+
+	/**
+	 *
+	 * @return true if no application was added, changed or removed since the
+	 * previous snapshot
+	 */
+	public boolean isEmpty() {
+		return !full && added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+	}
+
+	protected static String getFingerprint(CloudApplication application) {
+		StringBuilder fingerprint = new StringBuilder();
+		Meta meta = application.getMeta();
+		if (meta != null) {
+			fingerprint.append(meta.getGuid());
+			fingerprint.append('|');
+			fingerprint.append(meta.getUpdated() != null ? meta.getUpdated().getTime() : null);
+		}
+		fingerprint.append('|').append(application.getState());
+		fingerprint.append('|').append(application.getInstances());
+		fingerprint.append('|').append(application.getRunningInstances());
+		fingerprint.append('|').append(application.getMemory());
+		fingerprint.append('|').append(application.getDiskQuota());
+		fingerprint.append('|').append(application.getDebug());
+		fingerprint.append('|').append(application.getUris());
+		fingerprint.append('|').append(application.getServices());
+		return fingerprint.toString();
+	}
+}
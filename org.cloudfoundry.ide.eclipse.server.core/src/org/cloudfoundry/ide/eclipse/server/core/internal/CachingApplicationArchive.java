@@ -29,6 +29,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
@@ -37,7 +43,12 @@ import org.cloudfoundry.client.lib.archive.ApplicationArchive;
 import org.cloudfoundry.ide.eclipse.server.core.internal.DeployedResourceCache.CachedDeployedApplication;
 import org.cloudfoundry.ide.eclipse.server.core.internal.DeployedResourceCache.DeployedResourceEntry;
 import org.cloudfoundry.ide.eclipse.server.core.internal.application.AbstractModuleResourceArchive;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.model.IModuleFile;
 import org.eclipse.wst.server.core.model.IModuleFolder;
@@ -66,7 +77,14 @@ import org.eclipse.wst.server.core.model.IModuleResource;
  * <p/>
  * 2) The second phase involves handling the list of resources that the server
  * indicates have not changed. This is done through a callback handler, which
- * then builds the partial war file with only those resources that have changed.
+ * then restricts the archive to only those resources that have changed or are
+ * missing in the server.
+ * 
+ * <p/>
+ * By default, the contents of the changed resources are streamed directly from
+ * the workspace files when the client uploads the archive. Alternately, a
+ * partial war file containing only the changed resources can be generated
+ * first (see {@link #generatePartialWarFile(Set)}).
  * 
  */
 public class CachingApplicationArchive extends AbstractModuleResourceArchive {
@@ -77,11 +95,35 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 
 	private final CachedDeployedApplication appID;
 
+	/**
+	 * Below this number of entries, sha1 codes are computed in the calling
+	 * thread as the overhead of parallel computation outweighs the gain.
+	 */
+	private static final int MIN_PARALLEL_ENTRIES = 32;
+
+	private final boolean streamResources;
+
 	public CachingApplicationArchive(List<IModuleResource> allResources, List<IModuleResource> changedResources,
-			IModule module, String appName) {
+			IModule module, CachedDeployedApplication appID) {
+		this(allResources, changedResources, module, appID, true);
+	}
+
+	/**
+	 * 
+	 * @param allResources
+	 * @param changedResources
+	 * @param module
+	 * @param appID application whose cached deployed resources are used
+	 * @param streamResources true if changed resources should be streamed
+	 * directly from workspace files. False if a temporary partial war file
+	 * should be generated with the changed resources instead.
+	 */
+	public CachingApplicationArchive(List<IModuleResource> allResources, List<IModuleResource> changedResources,
+			IModule module, CachedDeployedApplication appID, boolean streamResources) {
 		super(module, allResources);
-		this.appID = new CachedDeployedApplication(appName);
+		this.appID = appID;
 		this.changedResources = changedResourcesAsZipNames(changedResources);
+		this.streamResources = streamResources;
 	}
 
 	protected Set<String> changedResourcesAsZipNames(List<IModuleResource> changedResources) {
@@ -106,6 +148,140 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 		return new ZipModuleFileEntryAdapter(file, appID, changed);
 	}
 
+	/**
+	 * Computes sha1 codes and file sizes for all file entries in the archive
+	 * that have changed, or that have no valid cached entry, before the
+	 * archive is handed to the CF client. Computation is distributed across the
+	 * digest threads shared by all archives, see
+	 * {@link CloudFoundryPlugin#getResourceDigestExecutor()}, and the resulting
+	 * entries are added to the {@link DeployedResourceCache} in bulk. Entries that can be resolved
+	 * from the cache are not recomputed.
+	 * @param monitor progress is reported per computed file entry. May be
+	 * null.
+	 * @throws OperationCanceledException if the monitor is cancelled
+	 */
+	public void computeResourceEntries(IProgressMonitor monitor) {
+		List<ZipModuleFileEntryAdapter> toCompute = new ArrayList<ZipModuleFileEntryAdapter>();
+		Set<String> fileNames = new HashSet<String>();
+		for (Entry entry : getEntries()) {
+			if (!entry.isDirectory()) {
+				fileNames.add(entry.getName());
+			}
+			if (entry instanceof ZipModuleFileEntryAdapter && ((ZipModuleFileEntryAdapter) entry).requiresComputation()) {
+				toCompute.add((ZipModuleFileEntryAdapter) entry);
+			}
+		}
+
+		// Drop entries of files that were removed from the application
+		CloudFoundryPlugin.getDefault().getDeployedResourcesCache().retainEntries(appID, fileNames);
+
+		if (toCompute.isEmpty()) {
+			return;
+		}
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, NLS.bind(
+				Messages.CachingApplicationArchive_COMPUTING_RESOURCE_ENTRIES, toCompute.size()), toCompute.size());
+
+		List<DeployedResourceEntry> computed = new ArrayList<DeployedResourceEntry>(toCompute.size());
+
+		if (Runtime.getRuntime().availableProcessors() == 1 || toCompute.size() < MIN_PARALLEL_ENTRIES) {
+			for (ZipModuleFileEntryAdapter adapter : toCompute) {
+				if (subMonitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				DeployedResourceEntry entry = adapter.computeDeployedResourcesEntry();
+				if (entry != null) {
+					computed.add(entry);
+				}
+				subMonitor.worked(1);
+			}
+		}
+		else {
+			ExecutorService executor = CloudFoundryPlugin.getDefault().getResourceDigestExecutor();
+			List<Future<DeployedResourceEntry>> futures = new ArrayList<Future<DeployedResourceEntry>>(
+					toCompute.size());
+			try {
+				CompletionService<DeployedResourceEntry> completionService = new ExecutorCompletionService<DeployedResourceEntry>(
+						executor);
+				for (final ZipModuleFileEntryAdapter adapter : toCompute) {
+					futures.add(completionService.submit(new Callable<DeployedResourceEntry>() {
+						public DeployedResourceEntry call() throws Exception {
+							return adapter.computeDeployedResourcesEntry();
+						}
+					}));
+				}
+
+				// Progress is reported from the calling thread only, as
+				// progress monitors are not meant to be shared across threads
+				for (int i = 0; i < toCompute.size(); i++) {
+					if (subMonitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+					try {
+						DeployedResourceEntry entry = completionService.take().get();
+						if (entry != null) {
+							computed.add(entry);
+						}
+					}
+					catch (ExecutionException e) {
+						// Entry will be computed again on demand by the
+						// client.
+						CloudFoundryPlugin.logError(e.getCause() != null ? e.getCause() : e);
+					}
+					subMonitor.worked(1);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+			finally {
+				// The executor is shared, so only the tasks of this archive
+				// are cancelled if computation is cancelled or fails
+				for (Future<DeployedResourceEntry> future : futures) {
+					future.cancel(true);
+				}
+			}
+		}
+
+		CloudFoundryPlugin.getDefault().getDeployedResourcesCache().addAll(appID, computed);
+		subMonitor.done();
+	}
+
+	/**
+	 * Restricts the archive entries to those resources that have changed or
+	 * are missing in the server, given the list of resources already known to
+	 * the server.
+	 * @param knownResourceNames zip relative names of resources that the
+	 * server already has.
+	 */
+	public void generatePartialArchive(Set<String> knownResourceNames) {
+		if (streamResources) {
+			generatePartialStreamingArchive(knownResourceNames);
+		}
+		else {
+			generatePartialWarFile(knownResourceNames);
+		}
+	}
+
+	/**
+	 * Retains the existing module resource entries for changed and missing
+	 * resources, without generating any intermediate archive file. Contents
+	 * are read from the workspace files only when the client uploads the
+	 * entries, and sha1 codes and sizes already computed for the entries are
+	 * reused.
+	 * @param knownResourceNames
+	 */
+	protected void generatePartialStreamingArchive(Set<String> knownResourceNames) {
+		List<Entry> toDeploy = new ArrayList<ApplicationArchive.Entry>();
+		for (Entry entry : getEntries()) {
+			if (entry.isDirectory() || !knownResourceNames.contains(entry.getName())) {
+				toDeploy.add(entry);
+			}
+		}
+		entries = toDeploy;
+	}
+
 	public void generatePartialWarFile(Set<String> knownResourceNames) {
 		Iterable<Entry> localEntries = getEntries();
 		Map<String, AbstractModuleResourceEntryAdapter> missingChangedEntries = new HashMap<String, AbstractModuleResourceEntryAdapter>();
@@ -240,6 +416,8 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 
 		private final boolean recalculate;
 
+		private volatile DeployedResourceEntry computedEntry;
+
 		public ZipModuleFileEntryAdapter(IModuleFile moduleFile, CachedDeployedApplication appName, boolean recalculate) {
 			super(moduleFile);
 
@@ -247,6 +425,49 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 			this.recalculate = recalculate;
 		}
 
+		/**
+		 * 
+		 * @return true if the sha1 code and file size for this entry cannot be
+		 * resolved from the cache and must be computed from the file contents.
+		 */
+		public boolean requiresComputation() {
+			if (computedEntry != null || !canComputeResourceEntry()) {
+				return false;
+			}
+			if (recalculate) {
+				return true;
+			}
+			DeployedResourceEntry cachedEntry = CloudFoundryPlugin.getDefault().getDeployedResourcesCache()
+					.getEntry(appName, getName());
+			return cachedEntry == null || isStale(cachedEntry);
+		}
+
+		/**
+		 * Computes the sha1 code and file size from the file contents. The
+		 * computed entry is retained by this adapter but NOT added to the
+		 * {@link DeployedResourceCache}.
+		 * @return computed entry, or null if the file is not accessible
+		 */
+		public DeployedResourceEntry computeDeployedResourcesEntry() {
+			if (!canComputeResourceEntry()) {
+				return null;
+			}
+			long lastModified = file.lastModified();
+			byte[] sha1 = super.getSha1Digest();
+			long fileSize = super.getSize();
+			computedEntry = new DeployedResourceEntry(sha1, fileSize, getName(), lastModified);
+			return computedEntry;
+		}
+
+		/**
+		 * Entries restored from the persisted index carry the local file time
+		 * stamp and size, so stale ones can be detected without hashing the
+		 * file. Entries of resources patched on the server are always stale.
+		 */
+		protected boolean isStale(DeployedResourceEntry entry) {
+			return entry.getLastModified() != DeployedResourceEntry.UNDEFINED_TIME_STAMP && !entry.isCurrent(file);
+		}
+
 		@Override
 		public long getSize() {
 			DeployedResourceEntry entry = getDeployedResourcesEntry();
@@ -255,13 +476,16 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 
 		public DeployedResourceEntry getDeployedResourcesEntry() {
 
+			if (computedEntry != null) {
+				return computedEntry;
+			}
+
 			DeployedResourceEntry deployedResourcesEntry = CloudFoundryPlugin.getDefault().getDeployedResourcesCache()
 					.getEntry(appName, getName());
 
-			if (canComputeResourceEntry() && (recalculate || deployedResourcesEntry == null)) {
-				byte[] sha1 = super.getSha1Digest();
-				long fileSize = super.getSize();
-				deployedResourcesEntry = new DeployedResourceEntry(sha1, fileSize, getName());
+			if (canComputeResourceEntry()
+					&& (recalculate || deployedResourcesEntry == null || isStale(deployedResourcesEntry))) {
+				deployedResourcesEntry = computeDeployedResourcesEntry();
 				CloudFoundryPlugin.getDefault().getDeployedResourcesCache().add(appName, deployedResourcesEntry);
 			}
 
@@ -273,6 +497,25 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 			return entry != null ? entry.getSha1() : null;
 		}
 
+		@Override
+		public InputStream getInputStream() throws IOException {
+			InputStream stream = super.getInputStream();
+			if (stream == null) {
+				// Resources that do not map to a local file system file may
+				// still be readable through the workspace
+				IFile iFile = (IFile) getResource().getAdapter(IFile.class);
+				if (iFile != null && iFile.exists()) {
+					try {
+						stream = iFile.getContents();
+					}
+					catch (CoreException e) {
+						throw new IOException(e.getMessage(), e);
+					}
+				}
+			}
+			return stream;
+		}
+
 		protected String computeName(IModuleResource resource) {
 			return CloudUtil.getZipRelativeName(resource);
 		}
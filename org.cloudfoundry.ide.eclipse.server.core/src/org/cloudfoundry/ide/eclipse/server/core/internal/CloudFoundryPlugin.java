@@ -20,14 +20,24 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.core.internal;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cloudfoundry.ide.eclipse.server.core.AbstractAppStateTracker;
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.ClientRequestMetrics;
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryClientFactory;
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.DeploymentConfiguration;
+import org.cloudfoundry.ide.eclipse.server.core.internal.log.CloudTracer;
 import org.cloudfoundry.ide.eclipse.server.core.internal.tunnel.CaldecottTunnelCache;
 import org.cloudfoundry.ide.eclipse.server.core.internal.tunnel.CaldecottTunnelDescriptor;
 import org.cloudfoundry.ide.eclipse.server.core.internal.tunnel.PredefinedServiceCommands;
@@ -44,6 +54,7 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.osgi.util.NLS;
@@ -278,6 +289,25 @@ public class CloudFoundryPlugin extends Plugin {
 
 	public static final boolean DEFAULT_INCREMENTAL_PUBLISH_PREFERENCE_VAL = true;
 
+	public static final String STREAM_INCREMENTAL_PUBLISH_PREFERENCE = PLUGIN_ID + ".publish.incremental.stream"; //$NON-NLS-1$
+
+	public static final boolean DEFAULT_STREAM_INCREMENTAL_PUBLISH_PREFERENCE_VAL = true;
+
+	public static final String PUBLISH_PARALLELISM_PREFERENCE = PLUGIN_ID + ".publish.parallelism"; //$NON-NLS-1$
+
+	/**
+	 * By default, applications are published one at a time.
+	 */
+	public static final int DEFAULT_PUBLISH_PARALLELISM_PREFERENCE_VAL = 1;
+
+	public static final String BULK_OPERATION_PARALLELISM_PREFERENCE = PLUGIN_ID + ".bulk.parallelism"; //$NON-NLS-1$
+
+	/**
+	 * By default, bulk operations like restarting several applications are
+	 * performed on up to four applications at a time.
+	 */
+	public static final int DEFAULT_BULK_OPERATION_PARALLELISM_PREFERENCE_VAL = 4;
+
 	private static CloudFoundryCallback callback;
 
 	// Cached copy of app state tracker
@@ -289,7 +319,45 @@ public class CloudFoundryPlugin extends Plugin {
 
 	private static IProxyService proxyService;
 
-	private DeployedResourceCache sha1Cache = new DeployedResourceCache();
+	private static final String DEPLOYED_RESOURCES_INDEX_FILE = "deployedResources.idx"; //$NON-NLS-1$
+
+	private static final String ARCHIVE_CACHE_FOLDER = "archives"; //$NON-NLS-1$
+
+	/**
+	 * Snapshot of the client request metrics, written when the plug-in is
+	 * stopped.
+	 */
+	private static final String REQUEST_METRICS_FILE = "request-metrics.csv"; //$NON-NLS-1$
+
+	private static final ClientRequestMetrics requestMetrics = new ClientRequestMetrics();
+
+	public static final String ARCHIVE_CACHE_SIZE_PREFERENCE = PLUGIN_ID + ".publish.archive.cache.size"; //$NON-NLS-1$
+
+	/**
+	 * Default maximum size in bytes of built application archives retained
+	 * for reuse across servers.
+	 */
+	public static final long DEFAULT_ARCHIVE_CACHE_SIZE_PREFERENCE_VAL = 512L * 1024 * 1024;
+
+	private ApplicationArchiveCache archiveCache;
+
+	private DeployedResourceCache sha1Cache;
+
+	private Job saveIndexJob;
+
+	/**
+	 * Upper bound on the number of threads used to compute resource sha1
+	 * codes, regardless of the number of available processors, as computation
+	 * is also bound by disk I/O.
+	 */
+	private static final int MAX_DIGEST_THREADS = 8;
+
+	/**
+	 * Time in seconds an idle digest thread is kept alive.
+	 */
+	private static final long DIGEST_THREAD_KEEP_ALIVE = 30;
+
+	private ExecutorService digestExecutor;
 
 	private InstanceScope INSTANCE_SCOPE = new InstanceScope();
 
@@ -360,14 +428,164 @@ public class CloudFoundryPlugin extends Plugin {
 				DEFAULT_INCREMENTAL_PUBLISH_PREFERENCE_VAL);
 	}
 
+	/**
+	 * 
+	 * @return true if incremental publishing should stream changed resources
+	 * directly from the workspace. False if a temporary partial war file
+	 * should be generated instead.
+	 */
+	public synchronized boolean getStreamIncrementalPublish() {
+		return getPreferences().getBoolean(STREAM_INCREMENTAL_PUBLISH_PREFERENCE,
+				DEFAULT_STREAM_INCREMENTAL_PUBLISH_PREFERENCE_VAL);
+	}
+
+	/**
+	 * 
+	 * @return maximum number of independent applications that are published
+	 * in parallel in a server publish. One or less means applications are
+	 * published one at a time.
+	 */
+	public synchronized int getPublishParallelism() {
+		return getPreferences().getInt(PUBLISH_PARALLELISM_PREFERENCE, DEFAULT_PUBLISH_PARALLELISM_PREFERENCE_VAL);
+	}
+
+	public synchronized void setPublishParallelism(int parallelism) {
+		IEclipsePreferences prefs = getPreferences();
+		prefs.putInt(PUBLISH_PARALLELISM_PREFERENCE, parallelism);
+		try {
+			prefs.flush();
+		}
+		catch (BackingStoreException e) {
+			logError(e);
+		}
+	}
+
+	/**
+	 * 
+	 * @return maximum number of applications that are operated on in
+	 * parallel in bulk operations, like restarting, stopping or scaling
+	 * several applications. One or less means applications are operated on
+	 * one at a time.
+	 */
+	public synchronized int getBulkOperationParallelism() {
+		return getPreferences().getInt(BULK_OPERATION_PARALLELISM_PREFERENCE,
+				DEFAULT_BULK_OPERATION_PARALLELISM_PREFERENCE_VAL);
+	}
+
+	public synchronized void setBulkOperationParallelism(int parallelism) {
+		IEclipsePreferences prefs = getPreferences();
+		prefs.putInt(BULK_OPERATION_PARALLELISM_PREFERENCE, parallelism);
+		try {
+			prefs.flush();
+		}
+		catch (BackingStoreException e) {
+			logError(e);
+		}
+	}
+
 	public IEclipsePreferences getPreferences() {
 		return INSTANCE_SCOPE.getNode(PLUGIN_ID);
 	}
 
 	public synchronized DeployedResourceCache getDeployedResourcesCache() {
+		if (sha1Cache == null) {
+			sha1Cache = new DeployedResourceCache();
+			try {
+				sha1Cache.load(getDeployedResourcesIndexFile());
+			}
+			catch (IOException e) {
+				logError("Failed to load deployed resources index. Resource hashes will be recomputed.", e); //$NON-NLS-1$
+			}
+		}
 		return sha1Cache;
 	}
 
+	/**
+	 * 
+	 * @return store of built application archives that can be reused across
+	 * servers if the application resources have not changed. Never null.
+	 */
+	public synchronized ApplicationArchiveCache getApplicationArchiveCache() {
+		if (archiveCache == null) {
+			long maxBytes = getPreferences().getLong(ARCHIVE_CACHE_SIZE_PREFERENCE,
+					DEFAULT_ARCHIVE_CACHE_SIZE_PREFERENCE_VAL);
+			archiveCache = new ApplicationArchiveCache(getStateLocation().append(ARCHIVE_CACHE_FOLDER).toFile(),
+					maxBytes);
+		}
+		return archiveCache;
+	}
+
+	/**
+	 * Schedules writing the deployed resources cache to its index file if it
+	 * changed since it was last saved, so that entries are not lost if the
+	 * workbench does not shut down cleanly. The index is written by a system
+	 * job, so that callers and users of the cache are not blocked by the
+	 * write.
+	 */
+	public synchronized void saveDeployedResourcesCache() {
+		if (sha1Cache == null) {
+			return;
+		}
+		if (saveIndexJob == null) {
+			saveIndexJob = new Job("Saving deployed resources index") { //$NON-NLS-1$
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					DeployedResourceCache cache;
+					synchronized (CloudFoundryPlugin.this) {
+						cache = sha1Cache;
+					}
+					writeDeployedResourcesIndex(cache);
+					return Status.OK_STATUS;
+				}
+			};
+			saveIndexJob.setSystem(true);
+		}
+		saveIndexJob.schedule();
+	}
+
+	protected void writeDeployedResourcesIndex(DeployedResourceCache cache) {
+		if (cache != null) {
+			try {
+				cache.save(getDeployedResourcesIndexFile());
+			}
+			catch (IOException e) {
+				logError("Failed to save deployed resources index.", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @return executor shared by all application archives to compute the
+	 * sha1 codes of their resources, such that concurrent publishes do not
+	 * create more than a bounded number of threads. Threads are released
+	 * when idle. Never null.
+	 */
+	public synchronized ExecutorService getResourceDigestExecutor() {
+		if (digestExecutor == null) {
+			int threads = Math.max(1, Math.min(MAX_DIGEST_THREADS, Runtime.getRuntime().availableProcessors()));
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, DIGEST_THREAD_KEEP_ALIVE,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+						private final AtomicInteger count = new AtomicInteger();
+
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "Cloud Foundry resource digest " //$NON-NLS-1$
+									+ count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			digestExecutor = executor;
+		}
+		return digestExecutor;
+	}
+
+	protected File getDeployedResourcesIndexFile() {
+		return getStateLocation().append(DEPLOYED_RESOURCES_INDEX_FILE).toFile();
+	}
+
 	public static synchronized void setCallback(CloudFoundryCallback callback) {
 		CloudFoundryPlugin.callback = callback;
 	}
@@ -383,6 +601,29 @@ public class CloudFoundryPlugin extends Plugin {
 		return moduleCache;
 	}
 
+	/**
+	 * 
+	 * @return metrics of the client requests made to all servers since the
+	 * plug-in was started. Never null.
+	 */
+	public static ClientRequestMetrics getRequestMetrics() {
+		return requestMetrics;
+	}
+
+	/**
+	 * Writes a snapshot of the client request metrics to the given file.
+	 * @param file
+	 * @throws CoreException if the snapshot could not be written
+	 */
+	public static void exportRequestMetrics(File file) throws CoreException {
+		try {
+			requestMetrics.export(file);
+		}
+		catch (IOException e) {
+			throw CloudErrorUtil.toCoreException(e);
+		}
+	}
+
 	public synchronized TunnelServiceCommandStore getTunnelCommandsStore() {
 		if (serviceCommandsStore == null) {
 			serviceCommandsStore = new TunnelServiceCommandStore(new PredefinedServiceCommands());
@@ -444,6 +685,37 @@ public class CloudFoundryPlugin extends Plugin {
 			moduleCache = null;
 		}
 
+		DeployedResourceCache cache;
+		Job indexJob;
+		synchronized (this) {
+			cache = sha1Cache;
+			sha1Cache = null;
+			indexJob = saveIndexJob;
+			saveIndexJob = null;
+
+			if (digestExecutor != null) {
+				digestExecutor.shutdownNow();
+				digestExecutor = null;
+			}
+		}
+		// Written here rather than by the job, which may not run anymore
+		if (indexJob != null) {
+			indexJob.cancel();
+			indexJob.join();
+		}
+		writeDeployedResourcesIndex(cache);
+
+		if (!requestMetrics.isEmpty()) {
+			try {
+				exportRequestMetrics(getStateLocation().append(REQUEST_METRICS_FILE).toFile());
+			}
+			catch (CoreException e) {
+				logError("Failed to save client request metrics.", e); //$NON-NLS-1$
+			}
+		}
+
+		CloudTracer.stopCurrentCloudTracer();
+
 		plugin = null;
 		super.stop(context);
 	}
@@ -642,6 +642,21 @@ public class CloudFoundryServer extends ServerDelegate implements IURLProvider {
 	 * @throws CoreException
 	 */
 	public void updateModules(Map<String, CloudApplication> deployedApplications) throws CoreException {
+		updateModules(deployedApplications, null);
+	}
+
+	/**
+	 * Same as {@link #updateModules(Map)}, except that the cloud application
+	 * and state of existing modules are only updated for the given changed
+	 * applications. Modules without a cloud application, new applications and
+	 * deleted applications are always processed.
+	 * @param deployedApplications all deployed applications
+	 * @param changedApplications names of deployed applications that changed
+	 * since the last update. If null, all modules are updated.
+	 * @throws CoreException
+	 */
+	public void updateModules(Map<String, CloudApplication> deployedApplications, Set<String> changedApplications)
+			throws CoreException {
 		Server server = (Server) getServer();
 
 		final Set<CloudFoundryApplicationModule> allModules = new HashSet<CloudFoundryApplicationModule>();
@@ -676,7 +691,9 @@ public class CloudFoundryServer extends ServerDelegate implements IURLProvider {
 				// Update the cloud module mapping to the cloud application,
 				// such that the cloud module
 				// has the latest cloud application reference.
-				cloudModule.setCloudApplication(actualApplication);
+				if (requiresUpdate(cloudModule, changedApplications)) {
+					cloudModule.setCloudApplication(actualApplication);
+				}
 
 				// the modules maps to an existing application
 				if (actualApplication != null) {
@@ -709,7 +726,7 @@ public class CloudFoundryServer extends ServerDelegate implements IURLProvider {
 
 			for (IModule module : server.getModules()) {
 				CloudFoundryApplicationModule appModule = getExistingCloudModule(module);
-				if (appModule != null) {
+				if (appModule != null && requiresUpdate(appModule, changedApplications)) {
 					updateState(server, appModule);
 				}
 			}
@@ -737,6 +754,11 @@ public class CloudFoundryServer extends ServerDelegate implements IURLProvider {
 		}
 	}
 
+	private static boolean requiresUpdate(CloudFoundryApplicationModule appModule, Set<String> changedApplications) {
+		return changedApplications == null || appModule.getApplication() == null
+				|| changedApplications.contains(appModule.getDeployedApplicationName());
+	}
+
 	private void deleteModules(final Set<IModule> deletedModules) {
 		Job deleteJob = new Job(Messages.CloudFoundryServer_JOB_UPDATE) {
 			@Override
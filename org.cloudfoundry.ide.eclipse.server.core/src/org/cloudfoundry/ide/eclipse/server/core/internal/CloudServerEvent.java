@@ -39,6 +39,8 @@ public class CloudServerEvent extends EventObject {
 
 	public static final int EVENT_SERVER_REFRESHED = 400;
 
+	public static final int EVENT_APPLICATION_CHANGED = 500;
+
 	private static final long serialVersionUID = 1L;
 
 	private int type = -1;
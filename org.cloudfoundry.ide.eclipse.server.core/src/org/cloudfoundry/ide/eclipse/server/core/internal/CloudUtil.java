@@ -27,8 +27,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -129,6 +134,17 @@ public class CloudUtil {
 
 	public static File createWarFile(IModule[] modules, Server server, IProgressMonitor monitor) throws CoreException {
 		List<IStatus> result = new ArrayList<IStatus>();
+
+		// Reuse a war already built from the same resources, for example for
+		// another server or space
+		ApplicationArchiveCache archiveCache = CloudFoundryPlugin.getDefault() != null ? CloudFoundryPlugin
+				.getDefault().getApplicationArchiveCache() : null;
+		String contentKey = archiveCache != null ? getWarContentKey(archiveCache, modules, server) : null;
+		File cachedWar = archiveCache != null ? archiveCache.getArchive(contentKey) : null;
+		if (cachedWar != null) {
+			return cachedWar;
+		}
+
 		try {
 			File tempFile = getTempFolder(modules[0]);
 			// tempFile needs to be in the same location as the war file
@@ -200,6 +216,14 @@ public class CloudUtil {
 			merge(result, status);
 			throwException(result, "Publishing of " + modules[0].getName() + " failed"); //$NON-NLS-1$ //$NON-NLS-2$
 
+			if (contentKey != null) {
+				File storedWar = archiveCache.addArchive(contentKey, targetFile);
+				if (storedWar != null) {
+					targetFile.delete();
+					return storedWar;
+				}
+			}
+
 			return targetFile;
 		}
 		catch (IOException e) {
@@ -209,6 +233,38 @@ public class CloudUtil {
 
 	}
 
+	/**
+	 * Computes a key from the contents of the resources of the given module
+	 * and its child modules, that identifies the war file built from those
+	 * resources.
+	 * @return content key, or null if one cannot be computed
+	 */
+	protected static String getWarContentKey(ApplicationArchiveCache archiveCache, IModule[] modules, Server server) {
+		try {
+			ApplicationArchiveCache.ContentKeyBuilder builder = archiveCache.newContentKeyBuilder();
+			builder.addQualifier("war"); //$NON-NLS-1$
+			builder.addResources("", server.getResources(modules)); //$NON-NLS-1$
+
+			IWebModule webModule = getWebModule(modules);
+			IModule[] children = webModule != null ? webModule.getModules() : null;
+			if (children != null) {
+				for (IModule child : children) {
+					String childUri = webModule.getURI(child);
+					if (childUri == null) {
+						childUri = child.getName();
+					}
+					builder.addQualifier(childUri);
+					builder.addResources(childUri + '!', server.getResources(new IModule[] { child }));
+				}
+			}
+			return builder.build();
+		}
+		catch (IOException e) {
+			CloudFoundryPlugin.logError(e);
+			return null;
+		}
+	}
+
 	private static IModuleResource processModuleResource(IModuleResource or) {
 		if (or instanceof IModuleFolder) {
 			IModuleFolder of = (IModuleFolder) or;
@@ -247,11 +303,16 @@ public class CloudUtil {
 
 		monitor = ProgressUtil.getMonitorFor(monitor);
 
+		byte[] buffer = acquireBuffer();
 		try {
 			BufferedOutputStream bout = new BufferedOutputStream(new FileOutputStream(tempFile));
 			ZipOutputStream zout = new ZipOutputStream(bout);
-			addZipEntries(zout, allResources, filterInFiles);
-			zout.close();
+			try {
+				addZipEntries(zout, allResources, filterInFiles, buffer);
+			}
+			finally {
+				zout.close();
+			}
 
 		}
 		catch (CoreException e) {
@@ -263,6 +324,7 @@ public class CloudUtil {
 					Messages.ERROR_CREATE_ZIP, tempFile.getName(), e.getLocalizedMessage()), e) };
 		}
 		finally {
+			releaseBuffer(buffer);
 			if (tempFile != null && tempFile.exists())
 				tempFile.deleteOnExit();
 		}
@@ -271,7 +333,40 @@ public class CloudUtil {
 
 	private static final int BUFFER = 65536;
 
-	private static byte[] buf = new byte[BUFFER];
+	/**
+	 * Maximum number of idle copy buffers retained in the pool. Buffers in
+	 * excess of this are left to the garbage collector.
+	 */
+	private static final int MAX_POOLED_BUFFERS = 8;
+
+	/**
+	 * Copy buffers are never shared by concurrent archive operations. Each
+	 * operation takes its own buffer from the pool, and returns it when
+	 * complete. Buffers are heap arrays rather than direct buffers, as entries
+	 * are written through a ZipOutputStream, which only accepts arrays, and a
+	 * direct buffer would add a copy per read.
+	 */
+	private static final Queue<byte[]> BUFFER_POOL = new ConcurrentLinkedQueue<byte[]>();
+
+	private static final AtomicInteger POOLED_BUFFER_COUNT = new AtomicInteger();
+
+	private static byte[] acquireBuffer() {
+		byte[] buffer = BUFFER_POOL.poll();
+		if (buffer != null) {
+			POOLED_BUFFER_COUNT.decrementAndGet();
+			return buffer;
+		}
+		return new byte[BUFFER];
+	}
+
+	private static void releaseBuffer(byte[] buffer) {
+		if (buffer != null && POOLED_BUFFER_COUNT.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+			BUFFER_POOL.offer(buffer);
+		}
+		else if (buffer != null) {
+			POOLED_BUFFER_COUNT.decrementAndGet();
+		}
+	}
 
 	public static String getZipRelativeName(IModuleResource resource) {
 		IPath path = resource.getModuleRelativePath().append(resource.getName());
@@ -284,8 +379,42 @@ public class CloudUtil {
 
 	}
 
+	/**
+	 * 
+	 * @param resources module resources, whose folders are traversed
+	 * @return local files of the given module files, keyed by zip relative
+	 * name. Module files that are not backed by a local file are omitted.
+	 */
+	public static Map<String, File> getLocalFiles(IModuleResource[] resources) {
+		Map<String, File> localFiles = new HashMap<String, File>();
+		addLocalFiles(resources, localFiles);
+		return localFiles;
+	}
+
+	private static void addLocalFiles(IModuleResource[] resources, Map<String, File> localFiles) {
+		if (resources == null) {
+			return;
+		}
+		for (IModuleResource resource : resources) {
+			if (resource instanceof IModuleFolder) {
+				addLocalFiles(((IModuleFolder) resource).members(), localFiles);
+				continue;
+			}
+			File file = (File) resource.getAdapter(File.class);
+			if (file == null) {
+				IFile iFile = (IFile) resource.getAdapter(IFile.class);
+				if (iFile != null && iFile.getLocation() != null) {
+					file = iFile.getLocation().toFile();
+				}
+			}
+			if (file != null) {
+				localFiles.put(getZipRelativeName(resource), file);
+			}
+		}
+	}
+
 	private static void addZipEntries(ZipOutputStream out, List<IModuleResource> allResources,
-			Set<IModuleResource> filterInFiles) throws Exception {
+			Set<IModuleResource> filterInFiles, byte[] buf) throws Exception {
 		if (allResources == null)
 			return;
 
@@ -311,7 +440,7 @@ public class CloudUtil {
 				out.putNextEntry(zipEntry);
 				out.closeEntry();
 
-				addZipEntries(out, Arrays.asList(folderResources), filterInFiles);
+				addZipEntries(out, Arrays.asList(folderResources), filterInFiles, buf);
 				continue;
 			}
 
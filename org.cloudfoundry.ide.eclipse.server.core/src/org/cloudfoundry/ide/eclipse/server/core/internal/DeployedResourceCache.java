@@ -19,19 +19,50 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.core.internal;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 /**
  * Cache for sha1 hash entries and file sizes for incremental publishing of
  * deployed resources. This avoid recalculating hash entries for resources that
  * have not changed in the server. A server poll may still required to obtain a
  * list of unchanged resources.
+ * <p/>
+ * The cache can be persisted to, and restored from, a compact binary index
+ * file so that entries survive workbench restarts. Each entry records the
+ * last modified time stamp and size of the local file it was computed from,
+ * allowing callers to determine whether a restored entry is still valid
+ * without re-reading the file contents.
  * 
  */
 public class DeployedResourceCache {
+
+	private static final int INDEX_MAGIC = 0x43464452;
+
+	private static final int INDEX_VERSION = 2;
+
 	private final Map<CachedDeployedApplication, Map<String, DeployedResourceEntry>> cacheMap = new HashMap<CachedDeployedApplication, Map<String, DeployedResourceEntry>>();
 
+	private boolean dirty = false;
+
+	/**
+	 * Serializes writes of the index, which are done without holding the
+	 * cache lock so that lookups are not blocked by disk I/O.
+	 */
+	private final Object saveLock = new Object();
+
 	public synchronized void add(CachedDeployedApplication applicationID, DeployedResourceEntry entry) {
 		Map<String, DeployedResourceEntry> appEntries = cacheMap.get(applicationID);
 		if (appEntries == null) {
@@ -39,6 +70,49 @@ public class DeployedResourceCache {
 			cacheMap.put(applicationID, appEntries);
 		}
 		appEntries.put(entry.getZipRelativeFileName(), entry);
+		dirty = true;
+	}
+
+	/**
+	 * Adds all the given entries for the application in one operation, rather
+	 * than acquiring the cache lock for each entry.
+	 * @param applicationID
+	 * @param entries
+	 */
+	public synchronized void addAll(CachedDeployedApplication applicationID, Collection<DeployedResourceEntry> entries) {
+		if (entries == null || entries.isEmpty()) {
+			return;
+		}
+		for (DeployedResourceEntry entry : entries) {
+			add(applicationID, entry);
+		}
+	}
+
+	/**
+	 * Removes all entries of the given application, for example when the
+	 * application is deleted.
+	 * @param applicationID
+	 */
+	public synchronized void removeApplication(CachedDeployedApplication applicationID) {
+		if (cacheMap.remove(applicationID) != null) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Removes the entries of the given application whose files are not in the
+	 * given list, for example because they were deleted from the
+	 * application.
+	 * @param applicationID
+	 * @param zipRelativeFileNames names of all files currently in the
+	 * application
+	 */
+	public synchronized void retainEntries(CachedDeployedApplication applicationID,
+			Collection<String> zipRelativeFileNames) {
+		Map<String, DeployedResourceEntry> appEntries = cacheMap.get(applicationID);
+		if (appEntries != null && appEntries.keySet().retainAll(zipRelativeFileNames)) {
+			dirty = true;
+		}
 	}
 
 	public synchronized DeployedResourceEntry getEntry(CachedDeployedApplication applicationID,
@@ -48,17 +122,189 @@ public class DeployedResourceCache {
 		return appEntries != null ? appEntries.get(zipRelativeFileName) : null;
 	}
 
+	/**
+	 * 
+	 * @param applicationID
+	 * @return copy of all the entries of the given application, which are
+	 * the resources of its last incremental publish. Empty if the application
+	 * has no entries.
+	 */
+	public synchronized List<DeployedResourceEntry> getEntries(CachedDeployedApplication applicationID) {
+		Map<String, DeployedResourceEntry> appEntries = cacheMap.get(applicationID);
+		return appEntries != null ? new ArrayList<DeployedResourceEntry>(appEntries.values())
+				: new ArrayList<DeployedResourceEntry>(0);
+	}
+
+	/**
+	 * Restores entries from the given index file, if it exists. Entries
+	 * already in the cache are retained, as they are more recent than those in
+	 * the index. A corrupt or incompatible index is ignored.
+	 * @param indexFile binary index previously written by
+	 * {@link #save(File)}
+	 * @throws IOException if the index file exists but could not be read
+	 */
+	public synchronized void load(File indexFile) throws IOException {
+		if (indexFile == null || !indexFile.isFile()) {
+			return;
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), 65536));
+		try {
+			if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+				return;
+			}
+			int appCount = in.readInt();
+			for (int i = 0; i < appCount; i++) {
+				String space = in.readUTF();
+				CachedDeployedApplication appID = new CachedDeployedApplication(space.length() > 0 ? space : null,
+						in.readUTF());
+				int entryCount = in.readInt();
+				Map<String, DeployedResourceEntry> appEntries = cacheMap.get(appID);
+				if (appEntries == null) {
+					appEntries = new HashMap<String, DeployedResourceEntry>(Math.max(16, entryCount * 4 / 3 + 1));
+					cacheMap.put(appID, appEntries);
+				}
+				for (int j = 0; j < entryCount; j++) {
+					String name = in.readUTF();
+					long fileSize = in.readLong();
+					long lastModified = in.readLong();
+					byte[] sha1 = new byte[in.readUnsignedByte()];
+					in.readFully(sha1);
+					if (!appEntries.containsKey(name)) {
+						appEntries.put(name, new DeployedResourceEntry(sha1, fileSize, name, lastModified));
+					}
+				}
+			}
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes all cached entries to the given index file, replacing any
+	 * existing index. Does nothing if the cache has not changed since it was
+	 * last loaded or saved. The entries are copied under the cache lock, and
+	 * written without holding it.
+	 * @param indexFile
+	 * @throws IOException if the index file could not be written
+	 */
+	public void save(File indexFile) throws IOException {
+		if (indexFile == null) {
+			return;
+		}
+		synchronized (saveLock) {
+			Map<CachedDeployedApplication, List<DeployedResourceEntry>> snapshot;
+			synchronized (this) {
+				if (!dirty) {
+					return;
+				}
+				snapshot = new HashMap<CachedDeployedApplication, List<DeployedResourceEntry>>(cacheMap.size());
+				for (Entry<CachedDeployedApplication, Map<String, DeployedResourceEntry>> appEntries : cacheMap
+						.entrySet()) {
+					snapshot.put(appEntries.getKey(), new ArrayList<DeployedResourceEntry>(appEntries.getValue()
+							.values()));
+				}
+				dirty = false;
+			}
+			try {
+				write(snapshot, indexFile);
+			}
+			catch (IOException e) {
+				synchronized (this) {
+					dirty = true;
+				}
+				throw e;
+			}
+		}
+	}
+
+	private static void write(Map<CachedDeployedApplication, List<DeployedResourceEntry>> snapshot, File indexFile)
+			throws IOException {
+		File tempFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 65536));
+		try {
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(INDEX_VERSION);
+			out.writeInt(snapshot.size());
+			for (Entry<CachedDeployedApplication, List<DeployedResourceEntry>> appEntries : snapshot.entrySet()) {
+				String space = appEntries.getKey().getSpace();
+				out.writeUTF(space != null ? space : ""); //$NON-NLS-1$
+				out.writeUTF(appEntries.getKey().getAppName());
+				out.writeInt(appEntries.getValue().size());
+				for (DeployedResourceEntry entry : appEntries.getValue()) {
+					byte[] sha1 = entry.getSha1() != null ? entry.getSha1() : new byte[0];
+					out.writeUTF(entry.getZipRelativeFileName());
+					out.writeLong(entry.getFileSize());
+					out.writeLong(entry.getLastModified());
+					out.writeByte(sha1.length);
+					out.write(sha1);
+				}
+			}
+		}
+		finally {
+			out.close();
+		}
+		if (indexFile.exists() && !indexFile.delete()) {
+			throw new IOException("Unable to replace deployed resources index file: " + indexFile); //$NON-NLS-1$
+		}
+		if (!tempFile.renameTo(indexFile)) {
+			throw new IOException("Unable to write deployed resources index file: " + indexFile); //$NON-NLS-1$
+		}
+	}
+
 	public static class DeployedResourceEntry {
+
+		/**
+		 * Time stamp used for entries that are not associated with a local
+		 * file time stamp
+		 */
+		public static final long UNDEFINED_TIME_STAMP = -1;
+
+		/**
+		 * Time stamp used for entries whose resource was changed on the server
+		 * only, for example by a patch, so that the local file is never
+		 * considered current with the entry
+		 */
+		public static final long STALE_TIME_STAMP = -2;
+
 		private final byte[] sha1;
 
 		private final long fileSize;
 
 		private final String zipRelativeFileName;
 
+		private final long lastModified;
+
 		public DeployedResourceEntry(byte[] sha1, long fileSize, String zipRelativeFileName) {
+			this(sha1, fileSize, zipRelativeFileName, UNDEFINED_TIME_STAMP);
+		}
+
+		public DeployedResourceEntry(byte[] sha1, long fileSize, String zipRelativeFileName, long lastModified) {
 			this.sha1 = sha1;
 			this.fileSize = fileSize;
 			this.zipRelativeFileName = zipRelativeFileName;
+			this.lastModified = lastModified;
+		}
+
+		/**
+		 * 
+		 * @return the last modified time stamp of the local file when the sha1
+		 * was computed, or {@link #UNDEFINED_TIME_STAMP} or
+		 * {@link #STALE_TIME_STAMP}
+		 */
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * 
+		 * @param file local file from which the entry was originally computed
+		 * @return true if the entry has a time stamp and both the time stamp and
+		 * size still match the given file. False otherwise.
+		 */
+		public boolean isCurrent(File file) {
+			return file != null && lastModified >= 0 && file.lastModified() == lastModified
+					&& file.length() == fileSize;
 		}
 
 		public String getZipRelativeFileName() {
@@ -76,17 +322,31 @@ public class DeployedResourceCache {
 
 	/**
 	 * Light-weight representation of an app only for purposes of caching
-	 * deployed resources for that app.
+	 * deployed resources for that app. Apps with the same name in different
+	 * servers or spaces are distinct.
 	 * 
 	 */
 	public static class CachedDeployedApplication {
 
+		private final String space;
+
 		private final String appName;
 
-		public CachedDeployedApplication(String appName) {
+		/**
+		 * 
+		 * @param space identifies the server and space of the app. May be
+		 * null.
+		 * @param appName
+		 */
+		public CachedDeployedApplication(String space, String appName) {
+			this.space = space;
 			this.appName = appName;
 		}
 
+		public String getSpace() {
+			return space;
+		}
+
 		public String getAppName() {
 			return appName;
 		}
@@ -94,6 +354,7 @@ public class DeployedResourceCache {
 		public int hashCode() {
 			final int prime = 31;
 			int result = 1;
+			result = prime * result + ((space == null) ? 0 : space.hashCode());
 			result = prime * result + ((appName == null) ? 0 : appName.hashCode());
 			return result;
 		}
@@ -110,6 +371,14 @@ public class DeployedResourceCache {
 				return false;
 			}
 			CachedDeployedApplication other = (CachedDeployedApplication) obj;
+			if (space == null) {
+				if (other.space != null) {
+					return false;
+				}
+			}
+			else if (!space.equals(other.space)) {
+				return false;
+			}
 			if (appName == null) {
 				if (other.appName != null) {
 					return false;
@@ -122,7 +391,7 @@ public class DeployedResourceCache {
 		}
 
 		public String toString() {
-			return appName.toString();
+			return space != null ? space + '/' + appName : String.valueOf(appName);
 		}
 
 	}
@@ -105,6 +105,8 @@ public class Messages extends NLS {
 
 	public static String TunnelServiceCommandStore_ERROR_VALUE_CANNOT_SERILIZE;
 
+	public static String CachingApplicationArchive_COMPUTING_RESOURCE_ENTRIES;
+
 	public static String CloudFoundryApplicationModule_STATE_DEPLOYABLE;
 
 	public static String CloudFoundryApplicationModule_STATE_DEPLOYED;
@@ -135,8 +137,42 @@ public class Messages extends NLS {
 
 	public static String CloudFoundryServer_JOB_UPDATE;
 
+	public static String CloudFoundryServerBehaviour_BULK_RESTART;
+
+	public static String CloudFoundryServerBehaviour_BULK_STOP;
+
+	public static String CloudFoundryServerBehaviour_BULK_UPDATE_INSTANCES;
+
 	public static String CommandOptions_DESCRIPTION_VARIABLES_FOR_TUNNEL;
 
+	public static String DeploymentTimeline_PHASE_ARCHIVE;
+
+	public static String DeploymentTimeline_PHASE_CREATE;
+
+	public static String DeploymentTimeline_PHASE_RESOURCE_MATCHING;
+
+	public static String DeploymentTimeline_PHASE_UPLOAD;
+
+	public static String DeploymentTimeline_PHASE_STAGING;
+
+	public static String DeploymentTimeline_PHASE_STARTING;
+
+	public static String DeploymentTimeline_SUMMARY;
+
+	public static String DeploymentTimeline_SUMMARY_FAILED;
+
+	public static String DeploymentTimeline_PHASE;
+
+	public static String DeploymentTimeline_FILES;
+
+	public static String DeploymentTimeline_BYTES;
+
+	public static String DeploymentTimeline_PREVIOUS;
+
+	public static String DeploymentTimeline_STARTED;
+
+	public static String DeploymentTimeline_NO_HISTORY;
+
 	public static String CONSOLE_ERROR_MESSAGE;
 
 	public static String CONSOLE_RESTARTING_APP;
@@ -23,14 +23,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.wst.server.core.IModule;
@@ -45,13 +48,48 @@ import org.osgi.service.prefs.BackingStoreException;
  * disposed every time a working copy is saved. The module cache may be accessed
  * by multiple threads therefore multi-threaded access needs to be taken into
  * account when modifying server data state.
+ * <p/>
+ * Cloud modules are indexed by local module name and by deployed application
+ * name, and the local module to deployed application mapping is kept in
+ * memory once read from the preferences, such that module lookups on a
+ * refresh do not grow with the number of deployed applications. Changes to
+ * the mapping are written to the preferences in the background, in batches.
  * @author Steffen Pingel
  */
 public class ModuleCache {
 
 	public static class ServerData {
 
-		private final List<CloudFoundryApplicationModule> cloudModules = new ArrayList<CloudFoundryApplicationModule>();
+		/**
+		 * Cloud modules in the order they were added, mapped to the deployed
+		 * application name under which they are indexed.
+		 */
+		private final Map<CloudFoundryApplicationModule, String> cloudModules = new LinkedHashMap<CloudFoundryApplicationModule, String>();
+
+		/**
+		 * Modules sharing a name are listed in the order they were added, and
+		 * the first one is found by a lookup.
+		 */
+		private final Map<String, List<CloudFoundryApplicationModule>> cloudModulesByLocalName = new HashMap<String, List<CloudFoundryApplicationModule>>();
+
+		/**
+		 * Kept up to date as modules are added and removed, and as their
+		 * deployed name changes, see
+		 * {@link #updateCloudApplicationModule(CloudFoundryApplicationModule)}
+		 */
+		private final Map<String, List<CloudFoundryApplicationModule>> cloudModulesByDeployedName = new HashMap<String, List<CloudFoundryApplicationModule>>();
+
+		/**
+		 * Local module ID to deployed application name. Read from the
+		 * preferences on first access.
+		 */
+		private Map<String, String> localModuleToCloudModuleMapping;
+
+		private boolean mappingDirty;
+
+		private boolean disposed;
+
+		private final Job saveMappingJob;
 
 		/** Cached password in case secure store fails. */
 		private String password;
@@ -69,10 +107,20 @@ public class ModuleCache {
 
 		ServerData(IServer server) {
 			this.server = server;
+			this.saveMappingJob = new Job("Saving application mappings") { //$NON-NLS-1$
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					saveMapping();
+					return Status.OK_STATUS;
+				}
+			};
+			saveMappingJob.setSystem(true);
 		}
 
 		public synchronized void clear() {
 			cloudModules.clear();
+			cloudModulesByLocalName.clear();
+			cloudModulesByDeployedName.clear();
 		}
 
 		public synchronized CloudFoundryApplicationModule createModule(CloudApplication application) {
@@ -95,8 +143,18 @@ public class ModuleCache {
 			// Update the map of module ID -> Deployed Application name
 			if (module.getLocalModule() != null) {
 				Map<String, String> mapping = getLocalModuleToCloudModuleMapping();
-				mapping.put(module.getLocalModule().getId(), module.getDeployedApplicationName());
-				setLocalModuleToCloudModuleMapping(mapping);
+				String previous = mapping.put(module.getLocalModule().getId(), module.getDeployedApplicationName());
+				if (!module.getDeployedApplicationName().equals(previous)) {
+					mappingChanged();
+				}
+			}
+			if (cloudModules.containsKey(module)) {
+				String deployedName = module.getDeployedApplicationName();
+				String indexedName = cloudModules.put(module, deployedName);
+				if (!deployedName.equals(indexedName)) {
+					removeFromIndex(cloudModulesByDeployedName, indexedName, module);
+					addToIndex(cloudModulesByDeployedName, deployedName, module);
+				}
 			}
 		}
 
@@ -105,7 +163,7 @@ public class ModuleCache {
 		 * @return never null. May be empty
 		 */
 		public synchronized Collection<CloudFoundryApplicationModule> getExistingCloudModules() {
-			return new ArrayList<CloudFoundryApplicationModule>(cloudModules);
+			return new ArrayList<CloudFoundryApplicationModule>(cloudModules.keySet());
 		}
 
 		public synchronized String getPassword() {
@@ -117,17 +175,21 @@ public class ModuleCache {
 		}
 
 		public synchronized void remove(CloudFoundryApplicationModule module) {
-			cloudModules.remove(module);
+			if (cloudModules.containsKey(module)) {
+				String indexedName = cloudModules.remove(module);
+				removeFromIndex(cloudModulesByLocalName, module.getName(), module);
+				removeFromIndex(cloudModulesByDeployedName, indexedName, module);
+			}
 			if (module.getLocalModule() != null) {
-				Map<String, String> mapping = getLocalModuleToCloudModuleMapping();
-				mapping.remove(module.getLocalModule().getId());
-				setLocalModuleToCloudModuleMapping(mapping);
+				if (getLocalModuleToCloudModuleMapping().remove(module.getLocalModule().getId()) != null) {
+					mappingChanged();
+				}
 			}
 		}
 
 		public synchronized void removeObsoleteModules(Set<CloudFoundryApplicationModule> allModules) {
 			HashSet<CloudFoundryApplicationModule> deletedModules = new HashSet<CloudFoundryApplicationModule>(
-					cloudModules);
+					cloudModules.keySet());
 			deletedModules.removeAll(allModules);
 			if (deletedModules.size() > 0) {
 				Map<String, String> mapping = getLocalModuleToCloudModuleMapping();
@@ -138,7 +200,7 @@ public class ModuleCache {
 					}
 				}
 				if (mappingModified) {
-					setLocalModuleToCloudModuleMapping(mapping);
+					mappingChanged();
 				}
 			}
 		}
@@ -165,7 +227,37 @@ public class ModuleCache {
 		}
 
 		private void add(CloudFoundryApplicationModule module) {
-			cloudModules.add(module);
+			if (cloudModules.containsKey(module)) {
+				return;
+			}
+			String deployedName = module.getDeployedApplicationName();
+			cloudModules.put(module, deployedName);
+			addToIndex(cloudModulesByLocalName, module.getName(), module);
+			addToIndex(cloudModulesByDeployedName, deployedName, module);
+		}
+
+		private static void addToIndex(Map<String, List<CloudFoundryApplicationModule>> index, String name,
+				CloudFoundryApplicationModule module) {
+			List<CloudFoundryApplicationModule> modules = index.get(name);
+			if (modules == null) {
+				modules = new ArrayList<CloudFoundryApplicationModule>(1);
+				index.put(name, modules);
+			}
+			modules.add(module);
+		}
+
+		private static void removeFromIndex(Map<String, List<CloudFoundryApplicationModule>> index, String name,
+				CloudFoundryApplicationModule module) {
+			List<CloudFoundryApplicationModule> modules = index.get(name);
+			if (modules != null && modules.remove(module) && modules.isEmpty()) {
+				index.remove(name);
+			}
+		}
+
+		private static CloudFoundryApplicationModule getFirst(
+				Map<String, List<CloudFoundryApplicationModule>> index, String name) {
+			List<CloudFoundryApplicationModule> modules = index.get(name);
+			return modules != null ? modules.get(0) : null;
 		}
 
 		private String convertMapToString(Map<String, String> map) {
@@ -202,15 +294,25 @@ public class ModuleCache {
 		 * application name (value)
 		 */
 		private Map<String, String> getLocalModuleToCloudModuleMapping() {
-			IEclipsePreferences node = new InstanceScope().getNode(CloudFoundryPlugin.PLUGIN_ID);
-			String string = node.get(KEY_MODULE_MAPPING_LIST + ":" + getServerId(), ""); //$NON-NLS-1$ //$NON-NLS-2$
-			return convertStringToMap(string);
+			if (localModuleToCloudModuleMapping == null) {
+				IEclipsePreferences node = new InstanceScope().getNode(CloudFoundryPlugin.PLUGIN_ID);
+				String string = node.get(KEY_MODULE_MAPPING_LIST + ":" + getServerId(), ""); //$NON-NLS-1$ //$NON-NLS-2$
+				localModuleToCloudModuleMapping = convertStringToMap(string);
+			}
+			return localModuleToCloudModuleMapping;
 		}
 
+		/**
+		 * Deployed names of modules with a local module are reindexed when
+		 * they change. Entries of other modules are verified on lookup.
+		 */
 		private CloudFoundryApplicationModule getCloudModuleByDeployedAppName(String deployedApplicationName) {
-			for (CloudFoundryApplicationModule module : cloudModules) {
-				if (deployedApplicationName.equals(module.getDeployedApplicationName())) {
-					return module;
+			List<CloudFoundryApplicationModule> modules = cloudModulesByDeployedName.get(deployedApplicationName);
+			if (modules != null) {
+				for (CloudFoundryApplicationModule module : modules) {
+					if (deployedApplicationName.equals(module.getDeployedApplicationName())) {
+						return module;
+					}
 				}
 			}
 			return null;
@@ -230,23 +332,55 @@ public class ModuleCache {
 		 * @return
 		 */
 		private CloudFoundryApplicationModule getCloudModuleToLocalModuleName(String localName) {
-			for (CloudFoundryApplicationModule module : cloudModules) {
-				if (localName.equals(module.getName())) {
-					return module;
-				}
-			}
-			return null;
+			return getFirst(cloudModulesByLocalName, localName);
 		}
 
 		private String getServerId() {
 			return server.getAttribute(CloudFoundryServer.PROP_SERVER_ID, (String) null);
 		}
 
-		private void setLocalModuleToCloudModuleMapping(Map<String, String> list) {
-			String string = convertMapToString(list);
+		/**
+		 * Schedules the in-memory mapping to be written to the preferences.
+		 * Changes made until the write happens are written together.
+		 */
+		private void mappingChanged() {
+			if (!disposed) {
+				mappingDirty = true;
+				saveMappingJob.schedule(MAPPING_SAVE_DELAY);
+			}
+		}
+
+		/**
+		 * Writes the mapping to the preferences, if it changed since the last
+		 * write.
+		 */
+		void saveMapping() {
+			String string;
+			String serverId;
+			synchronized (this) {
+				if (!mappingDirty || disposed) {
+					return;
+				}
+				string = convertMapToString(localModuleToCloudModuleMapping);
+				serverId = getServerId();
+				mappingDirty = false;
+			}
+			setLocalModuleToCloudModuleMapping(serverId, string);
+		}
+
+		/**
+		 * Discards pending mapping changes. Called when the server is removed.
+		 */
+		synchronized void dispose() {
+			disposed = true;
+			mappingDirty = false;
+			saveMappingJob.cancel();
+		}
+
+		private void setLocalModuleToCloudModuleMapping(String serverId, String string) {
 			IEclipsePreferences node = new InstanceScope().getNode(CloudFoundryPlugin.PLUGIN_ID);
 			CloudFoundryPlugin.trace("Updated mapping: " + string); //$NON-NLS-1$
-			node.put(KEY_MODULE_MAPPING_LIST + ":" + getServerId(), string); //$NON-NLS-1$
+			node.put(KEY_MODULE_MAPPING_LIST + ":" + serverId, string); //$NON-NLS-1$
 			try {
 				node.flush();
 			}
@@ -312,9 +446,17 @@ public class ModuleCache {
 			return appModule;
 		}
 
-		void updateServerId(String oldServerId, String newServerId) {
+		synchronized void updateServerId(String oldServerId, String newServerId) {
 			IEclipsePreferences node = new InstanceScope().getNode(CloudFoundryPlugin.PLUGIN_ID);
-			String string = node.get(KEY_MODULE_MAPPING_LIST + ":" + oldServerId, ""); //$NON-NLS-1$ //$NON-NLS-2$
+			String string;
+			if (localModuleToCloudModuleMapping != null) {
+				// The in-memory mapping includes any change not written yet
+				string = convertMapToString(localModuleToCloudModuleMapping);
+				mappingDirty = false;
+			}
+			else {
+				string = node.get(KEY_MODULE_MAPPING_LIST + ":" + oldServerId, ""); //$NON-NLS-1$ //$NON-NLS-2$
+			}
 			node.remove(KEY_MODULE_MAPPING_LIST + ":" + oldServerId); //$NON-NLS-1$
 			node.put(KEY_MODULE_MAPPING_LIST + ":" + newServerId, string); //$NON-NLS-1$
 		}
@@ -333,6 +475,12 @@ public class ModuleCache {
 	 */
 	static final String KEY_MODULE_MAPPING_LIST = "org.cloudfoundry.ide.eclipse.moduleMapping"; //$NON-NLS-1$
 
+	/**
+	 * Delay in milliseconds before changes to the module mapping are written,
+	 * so that changes made by a refresh are written together.
+	 */
+	static final long MAPPING_SAVE_DELAY = 1000;
+
 	private Map<IServer, ServerData> dataByServer;
 
 	private IServerLifecycleListener listener = new IServerLifecycleListener() {
@@ -358,6 +506,14 @@ public class ModuleCache {
 
 	public void dispose() {
 		ServerCore.removeServerLifecycleListener(listener);
+		// Write pending mapping changes
+		List<ServerData> data;
+		synchronized (this) {
+			data = new ArrayList<ServerData>(dataByServer.values());
+		}
+		for (ServerData serverData : data) {
+			serverData.saveMapping();
+		}
 	}
 
 	public synchronized ServerData getData(IServer server) {
@@ -370,7 +526,10 @@ public class ModuleCache {
 	}
 
 	protected synchronized void remove(IServer server) {
-		dataByServer.remove(server);
+		ServerData data = dataByServer.remove(server);
+		if (data != null) {
+			data.dispose();
+		}
 
 		String serverId = server.getAttribute(CloudFoundryServer.PROP_SERVER_ID, (String) null);
 		if (serverId != null) {
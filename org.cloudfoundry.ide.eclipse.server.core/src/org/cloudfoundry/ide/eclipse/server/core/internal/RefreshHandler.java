@@ -19,6 +19,9 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.core.internal;
 
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudOperationsConstants;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -30,20 +33,66 @@ import org.eclipse.wst.server.core.IServer;
  * Handles refresh operations across the Cloud Foundry Eclipse plugin, including
  * stopping and starting ongoing refresh operations, as well as notifying
  * listeners on a refresh event.
- * 
+ * <p/>
+ * Refresh operations run at a slower {@link #BACKGROUND_INTERVAL} while no
+ * client, like a server editor, is showing the server, so that servers that
+ * are connected but not shown are polled less often but their module state
+ * remains up to date. They are scheduled adaptively. The refresh interval
+ * is shortened for a while after a deployment, when application state is
+ * likely to change, and backs off while nothing changes. A random jitter is
+ * added to each interval, and the number of refresh operations running at
+ * the same time across all servers is limited, so that many servers do not
+ * all refresh at the same moment, for example after the machine wakes up
+ * from sleep.
  */
 public class RefreshHandler {
 
-	protected long interval = -1;
+	/**
+	 * Maximum number of servers that may refresh at the same time.
+	 */
+	public static final int MAX_CONCURRENT_REFRESHES = 3;
 
 	/**
-	 * 
+	 * Period after a deployment during which refresh operations run at
+	 * {@link #FAST_INTERVAL}.
+	 */
+	public static final long FAST_REFRESH_PERIOD = 2 * 60 * 1000;
+
+	public static final long FAST_INTERVAL = CloudOperationsConstants.SHORT_INTERVAL;
+
+	public static final long MAX_INTERVAL = 10 * 60 * 1000;
+
+	/**
+	 * Minimum interval between refresh operations while no client is showing
+	 * the server, other than shortly after a deployment.
+	 */
+	public static final long BACKGROUND_INTERVAL = 5 * 60 * 1000;
+
+	/**
+	 * Maximum number of times the interval is doubled while nothing changes.
 	 */
+	private static final int MAX_UNCHANGED_BACKOFF = 3;
+
+	private static final double JITTER = 0.1;
+
+	private static final Semaphore REFRESH_PERMITS = new Semaphore(MAX_CONCURRENT_REFRESHES);
+
+	private static final Random RANDOM = new Random();
+
+	protected long interval = -1;
 
 	private BehaviourRefreshJob refreshJob;
 
 	private final CloudFoundryServer cloudServer;
 
+	private int activeDeployments;
+
+	private long fastRefreshUntil;
+
+	private int unchangedRefreshes;
+
+	private int refreshClients;
+
 	public RefreshHandler(CloudFoundryServer cloudServer) {
 		this.cloudServer = cloudServer;
 		this.refreshJob = new BehaviourRefreshJob();
@@ -71,13 +120,80 @@ public class RefreshHandler {
 	 * interval time before the operation begins.
 	 */
 	public synchronized void start() {
-		interval = CloudOperationsConstants.DEFAULT_INTERVAL;
-		doStart(interval);
+		doStart(CloudOperationsConstants.DEFAULT_INTERVAL);
 	}
 
 	protected void doStart(long interval) {
-		if (interval > -1) {
-			refreshJob.schedule(interval);
+		this.interval = interval;
+		unchangedRefreshes = 0;
+		if (shouldRefresh()) {
+			refreshJob.schedule(withJitter(interval));
+		}
+		else {
+			refreshJob.cancel();
+		}
+	}
+
+	/**
+	 * Suspends refresh operations while a deployment operation, which may be
+	 * long running, is performed. Must be followed by a call to
+	 * {@link #endDeployment()}.
+	 */
+	public synchronized void beginDeployment() {
+		activeDeployments++;
+		refreshJob.cancel();
+	}
+
+	/**
+	 * Resumes refresh operations once all deployment operations have
+	 * completed, at a shorter interval for a while, as the state of deployed
+	 * applications is likely to change.
+	 */
+	public synchronized void endDeployment() {
+		if (activeDeployments > 0) {
+			activeDeployments--;
+		}
+		fastRefreshUntil = System.currentTimeMillis() + FAST_REFRESH_PERIOD;
+		unchangedRefreshes = 0;
+		if (shouldRefresh()) {
+			refreshJob.schedule(withJitter(FAST_INTERVAL));
+		}
+	}
+
+	/**
+	 * Registers a client that is showing the server, like a server editor.
+	 * Refresh operations run at their regular interval while at least one
+	 * client is registered, and at {@link #BACKGROUND_INTERVAL} once the last
+	 * client is removed.
+	 */
+	public synchronized void addRefreshClient() {
+		refreshClients++;
+		if (refreshClients == 1 && shouldRefresh()) {
+			// Refresh soon, as the server may not have been refreshed for a
+			// while
+			unchangedRefreshes = 0;
+			refreshJob.schedule(withJitter(FAST_INTERVAL));
+		}
+	}
+
+	public synchronized void removeRefreshClient() {
+		if (refreshClients > 0) {
+			refreshClients--;
+		}
+	}
+
+	/**
+	 * Notifies the handler that the application modules were refreshed, so
+	 * that it can adapt the interval of refresh operations.
+	 * @param changed true if any deployed application changed since the
+	 * last refresh
+	 */
+	public synchronized void modulesRefreshed(boolean changed) {
+		if (changed) {
+			unchangedRefreshes = 0;
+		}
+		else if (unchangedRefreshes < MAX_UNCHANGED_BACKOFF) {
+			unchangedRefreshes++;
 		}
 	}
 
@@ -98,12 +214,49 @@ public class RefreshHandler {
 
 	protected void refreshFromJob(IProgressMonitor monitor) {
 		if (shouldRefresh()) {
-			fireRefreshEvent(monitor);
+			cloudServer.getBehaviour().refreshModules(monitor);
+			// Only notify listeners if deployed applications changed, or
+			// shortly after a deployment
+			if (getUnchangedRefreshes() == 0 || isFastRefresh()) {
+				fireRefreshEvent(monitor);
+			}
 		}
 	}
 
 	protected synchronized boolean shouldRefresh() {
-		return interval > -1;
+		return interval > -1 && activeDeployments == 0;
+	}
+
+	protected synchronized int getUnchangedRefreshes() {
+		return unchangedRefreshes;
+	}
+
+	protected synchronized boolean isFastRefresh() {
+		return System.currentTimeMillis() < fastRefreshUntil;
+	}
+
+	/**
+	 * 
+	 * @return delay until the next refresh operation, based on recent
+	 * deployments and changes, and whether a client is showing the server.
+	 */
+	protected synchronized long getNextInterval() {
+		if (isFastRefresh()) {
+			return withJitter(FAST_INTERVAL);
+		}
+		long next = Math.min(interval << unchangedRefreshes, MAX_INTERVAL);
+		if (refreshClients == 0) {
+			next = Math.max(next, BACKGROUND_INTERVAL);
+		}
+		return withJitter(next);
+	}
+
+	protected static long withJitter(long interval) {
+		double jitter;
+		synchronized (RANDOM) {
+			jitter = (RANDOM.nextDouble() * 2 - 1) * JITTER;
+		}
+		return Math.max(0, interval + (long) (interval * jitter));
 	}
 
 	/**
@@ -121,10 +274,25 @@ public class RefreshHandler {
 		@Override
 		public IStatus run(IProgressMonitor monitor) {
 
-			if (RefreshHandler.this.cloudServer.getServer().getServerState() == IServer.STATE_STARTED) {
-				RefreshHandler.this.refreshFromJob(monitor);
-				if (interval > 0) {
-					schedule(interval);
+			if (RefreshHandler.this.cloudServer.getServer().getServerState() == IServer.STATE_STARTED
+					&& shouldRefresh()) {
+
+				// Limit the number of servers refreshing at the same time.
+				// Try again shortly if too many refresh operations are
+				// running.
+				if (!REFRESH_PERMITS.tryAcquire()) {
+					schedule(withJitter(FAST_INTERVAL));
+					return Status.OK_STATUS;
+				}
+				try {
+					RefreshHandler.this.refreshFromJob(monitor);
+				}
+				finally {
+					REFRESH_PERMITS.release();
+				}
+
+				if (shouldRefresh() && !monitor.isCanceled()) {
+					schedule(getNextInterval());
 				}
 			}
 
@@ -134,4 +302,4 @@ public class RefreshHandler {
 
 	}
 
-}
\ No newline at end of file
+}
@@ -22,6 +22,8 @@ package org.cloudfoundry.ide.eclipse.server.core.internal;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+
 /**
  * Fires server refresh events. Only one handler is active per workbench runtime
  * session.
@@ -64,6 +66,11 @@ public class ServerEventHandler {
 		fireServerEvent(new CloudServerEvent(server, CloudServerEvent.EVENT_SERVER_REFRESHED));
 	}
 
+	public void fireApplicationChanged(CloudFoundryServer server, String applicationName,
+			CloudApplication application) {
+		fireServerEvent(new ApplicationChangeEvent(server, applicationName, application));
+	}
+
 	private void fireServerEvent(CloudServerEvent event) {
 		CloudServerListener[] listeners = applicationListeners.toArray(new CloudServerListener[0]);
 		for (CloudServerListener listener : listeners) {
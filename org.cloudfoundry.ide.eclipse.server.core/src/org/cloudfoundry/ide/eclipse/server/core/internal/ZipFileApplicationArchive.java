@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.ZipFile;
+
+import org.cloudfoundry.client.lib.archive.ZipApplicationArchive;
+
+/**
+ * Application archive read from a local zip file, for example a jar packaged
+ * for a Java application. If the zip file is in the
+ * {@link ApplicationArchiveCache}, it is retained in the store until the
+ * archive is closed, so that it cannot be evicted while it is being uploaded.
+ * <p/>
+ * Callers must close the archive once it has been pushed, which also closes
+ * the underlying zip file.
+ */
+public class ZipFileApplicationArchive extends ZipApplicationArchive implements Closeable {
+
+	private final ZipFile zipFile;
+
+	private final File file;
+
+	private final ApplicationArchiveCache archiveCache;
+
+	private boolean closed = false;
+
+	/**
+	 * 
+	 * @param file local zip file
+	 * @param archiveCache store the file may have been obtained from. May be
+	 * null.
+	 * @throws IOException if the zip file cannot be opened
+	 */
+	public static ZipFileApplicationArchive open(File file, ApplicationArchiveCache archiveCache) throws IOException {
+		ZipFile zipFile = new ZipFile(file);
+		boolean retained = archiveCache != null && archiveCache.retainArchive(file);
+		return new ZipFileApplicationArchive(zipFile, file, retained ? archiveCache : null);
+	}
+
+	protected ZipFileApplicationArchive(ZipFile zipFile, File file, ApplicationArchiveCache archiveCache) {
+		super(zipFile);
+		this.zipFile = zipFile;
+		this.file = file;
+		this.archiveCache = archiveCache;
+	}
+
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			zipFile.close();
+		}
+		finally {
+			if (archiveCache != null) {
+				archiveCache.releaseArchive(file);
+			}
+		}
+	}
+}
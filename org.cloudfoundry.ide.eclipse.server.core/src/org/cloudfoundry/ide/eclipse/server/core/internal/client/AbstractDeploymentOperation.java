@@ -37,7 +37,7 @@ public abstract class AbstractDeploymentOperation implements ICloudFoundryOperat
 	public void run(IProgressMonitor monitor) throws CoreException {
 		// Deployment operations may be long running so stop refresh
 		// until operation completes
-		behaviour.getRefreshHandler().stop();
+		behaviour.getRefreshHandler().beginDeployment();
 		try {
 			performOperation(monitor);
 		}
@@ -46,8 +46,13 @@ public abstract class AbstractDeploymentOperation implements ICloudFoundryOperat
 			// even
 			// if an exception is thrown. It may, for example, allow listeners
 			// to update the UI in case an app failed to deploy
-			behaviour.refreshModules(monitor);
-			behaviour.getRefreshHandler().fireRefreshEvent(monitor);
+			try {
+				behaviour.refreshModules(monitor);
+				behaviour.getRefreshHandler().fireRefreshEvent(monitor);
+			}
+			finally {
+				behaviour.getRefreshHandler().endDeployment();
+			}
 		}
 	}
 
@@ -61,6 +61,11 @@ public abstract class AbstractWaitForStateOperation extends WaitWithProgressJob
 
 	}
 
+	@Override
+	protected String getWaitKey() {
+		return cloudServer.getBehaviour().getApplicationWaitKey(appModule.getDeployedApplicationName());
+	}
+
 	protected boolean shouldRetryOnError(Throwable t) {
 		// If cloud application cannot be resolved due to any errors, stop any
 		// further attempts to check app state.
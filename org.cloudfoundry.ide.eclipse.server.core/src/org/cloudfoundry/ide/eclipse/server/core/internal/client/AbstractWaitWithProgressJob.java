@@ -22,6 +22,7 @@ package org.cloudfoundry.ide.eclipse.server.core.internal.client;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudErrorUtil;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 
 /**
  * Performs an operation that is expect to return a result. The result is
@@ -33,6 +34,9 @@ import org.eclipse.core.runtime.IProgressMonitor;
  * A check is also performed on the progress monitor, if it is cancelled before
  * the maximum number of attempts is reached, the operation is cancelled,
  * regardless of whether a valid result was obtained or not.
+ * <p/>
+ * The waiting period between attempts ends early if the wait key, if any, is
+ * signalled through {@link BackoffWait#signal(String)}.
  */
 public abstract class AbstractWaitWithProgressJob<T> {
 
@@ -61,6 +65,15 @@ public abstract class AbstractWaitWithProgressJob<T> {
 		return result != null;
 	}
 
+	/**
+	 * 
+	 * @return key under which the waiting period between attempts can be
+	 * signalled to end early, or null if it cannot be signalled.
+	 */
+	protected String getWaitKey() {
+		return null;
+	}
+
 	/**
 	 * Returns a result, or throws an exception ONLY if the result is invalid
 	 * AND an exception was thrown after all attempts have been exhausted. Will
@@ -99,10 +112,10 @@ public abstract class AbstractWaitWithProgressJob<T> {
 
 			if (reattempt) {
 				try {
-					Thread.sleep(sleepTime);
+					BackoffWait.sleep(getWaitKey(), sleepTime, monitor);
 				}
-				catch (InterruptedException e) {
-					// Ignore and proceed
+				catch (OperationCanceledException e) {
+					break;
 				}
 			}
 			else {
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Waits for a condition, typically the state of a deployed application, by
+ * checking it in the calling thread at increasing intervals until it is met
+ * or the wait times out. The first check is done immediately, so that the
+ * wait completes as soon as the condition is observed.
+ * <p/>
+ * A wait may be registered under a key, for example an application name. Any
+ * component that observes a relevant change, like an application log message
+ * or a running application instance, can {@link #signal(String)} the key to
+ * have all waits under that key check their condition right away, instead
+ * of at the end of their current interval.
+ * <p/>
+ * No thread other than the waiting thread is used. Waits are steps of
+ * operations that already run in a Job and need the outcome before they can
+ * continue, so the calling thread blocks in {@link Object#wait(long)} between
+ * checks, rather than handing the checks to another Job it would have to
+ * join. An interrupt of the waiting thread cancels the wait and is preserved
+ * for the caller.
+ */
+public class BackoffWait {
+
+	public static final long DEFAULT_INITIAL_INTERVAL = 500;
+
+	public static final long DEFAULT_MAX_INTERVAL = CloudOperationsConstants.SHORT_INTERVAL;
+
+	private static final double BACKOFF_FACTOR = 1.5;
+
+	/**
+	 * Maximum time spent waiting without checking the progress monitor for
+	 * cancellation.
+	 */
+	private static final long CANCEL_CHECK_INTERVAL = 250;
+
+	/**
+	 * Minimum time between two checks of the condition, even if the wait is
+	 * signalled more often, for example by a chatty application log.
+	 */
+	private static final long MIN_SIGNALLED_INTERVAL = 200;
+
+	private static final Map<String, List<BackoffWait>> WAITS = new HashMap<String, List<BackoffWait>>();
+
+	/**
+	 * Condition checked by a wait.
+	 */
+	public interface Condition {
+
+		/**
+		 *
+		 * @param monitor
+		 * @return true if the condition is met and the wait should complete.
+		 * @throws CoreException if the condition cannot be checked. This
+		 * terminates the wait.
+		 */
+		public boolean isMet(IProgressMonitor monitor) throws CoreException;
+
+	}
+
+	private final long initialInterval;
+
+	private final long maxInterval;
+
+	private final long timeout;
+
+	private boolean signalled;
+
+	/**
+	 *
+	 * @param timeout total time in milliseconds to wait for the condition
+	 */
+	public BackoffWait(long timeout) {
+		this(DEFAULT_INITIAL_INTERVAL, DEFAULT_MAX_INTERVAL, timeout);
+	}
+
+	/**
+	 *
+	 * @param initialInterval time in milliseconds to wait after the first
+	 * check of the condition. The interval grows by half after each check.
+	 * @param maxInterval maximum time in milliseconds between two checks
+	 * @param timeout total time in milliseconds to wait for the condition
+	 */
+	public BackoffWait(long initialInterval, long maxInterval, long timeout) {
+		this.initialInterval = initialInterval;
+		this.maxInterval = maxInterval;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Waits until the given condition is met or the wait times out.
+	 * @param key under which the wait can be signalled. May be null.
+	 * @param condition
+	 * @param monitor may be null
+	 * @return true if condition was met, false if the wait timed out.
+	 * @throws CoreException if the condition could not be checked
+	 * @throws OperationCanceledException if the monitor is cancelled or the
+	 * waiting thread interrupted
+	 */
+	public boolean waitFor(String key, Condition condition, IProgressMonitor monitor) throws CoreException {
+		register(key);
+		try {
+			long deadline = System.currentTimeMillis() + timeout;
+			long interval = initialInterval;
+			while (true) {
+				checkCanceled(monitor);
+				if (condition.isMet(monitor)) {
+					return true;
+				}
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				sleep(Math.min(interval, remaining), monitor);
+				interval = Math.min(maxInterval, (long) (interval * BACKOFF_FACTOR));
+			}
+		}
+		finally {
+			unregister(key);
+		}
+	}
+
+	/**
+	 * Sleeps up to the given time, or until the given key is signalled.
+	 * @param key may be null, in which case the full time is slept
+	 * @param time in milliseconds
+	 * @param monitor may be null
+	 * @throws OperationCanceledException if the monitor is cancelled or the
+	 * waiting thread interrupted
+	 */
+	public static void sleep(String key, long time, IProgressMonitor monitor) {
+		BackoffWait wait = new BackoffWait(time, time, time);
+		wait.register(key);
+		try {
+			wait.sleep(time, monitor);
+		}
+		finally {
+			wait.unregister(key);
+		}
+	}
+
+	/**
+	 * Has all waits registered under the given key check their condition
+	 * without further delay.
+	 * @param key
+	 * @return true if there was at least one wait registered under the key,
+	 * false otherwise
+	 */
+	public static boolean signal(String key) {
+		if (key == null) {
+			return false;
+		}
+		List<BackoffWait> waits;
+		synchronized (WAITS) {
+			waits = WAITS.get(key);
+			if (waits == null) {
+				return false;
+			}
+			waits = new ArrayList<BackoffWait>(waits);
+		}
+		for (BackoffWait wait : waits) {
+			wait.wakeUp();
+		}
+		return true;
+	}
+
+	protected synchronized void wakeUp() {
+		signalled = true;
+		notifyAll();
+	}
+
+	protected synchronized void sleep(long time, IProgressMonitor monitor) {
+		long start = System.currentTimeMillis();
+		long wakeUpTime = start + time;
+		long earliestSignalledWakeUp = start + Math.min(time, MIN_SIGNALLED_INTERVAL);
+		long remaining = time;
+		while (remaining > 0 && !(signalled && System.currentTimeMillis() >= earliestSignalledWakeUp)) {
+			try {
+				long waitTime = Math.min(remaining, CANCEL_CHECK_INTERVAL);
+				if (signalled) {
+					waitTime = Math.min(waitTime, earliestSignalledWakeUp - System.currentTimeMillis());
+				}
+				if (waitTime > 0) {
+					wait(waitTime);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+			checkCanceled(monitor);
+			remaining = wakeUpTime - System.currentTimeMillis();
+		}
+		signalled = false;
+	}
+
+	protected void register(String key) {
+		if (key == null) {
+			return;
+		}
+		synchronized (WAITS) {
+			List<BackoffWait> waits = WAITS.get(key);
+			if (waits == null) {
+				waits = new ArrayList<BackoffWait>(1);
+				WAITS.put(key, waits);
+			}
+			waits.add(this);
+		}
+	}
+
+	protected void unregister(String key) {
+		if (key == null) {
+			return;
+		}
+		synchronized (WAITS) {
+			List<BackoffWait> waits = WAITS.get(key);
+			if (waits != null) {
+				waits.remove(this);
+				if (waits.isEmpty()) {
+					WAITS.remove(key);
+				}
+			}
+		}
+	}
+
+	protected static void checkCanceled(IProgressMonitor monitor) {
+		if (monitor != null && monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+	}
+}
@@ -21,6 +21,7 @@ package org.cloudfoundry.ide.eclipse.server.core.internal.client;
 
 import org.cloudfoundry.client.lib.CloudFoundryOperations;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudErrorUtil;
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.server.core.internal.Messages;
 import org.cloudfoundry.ide.eclipse.server.core.internal.log.HttpTracer;
 import org.eclipse.core.runtime.Assert;
@@ -37,6 +38,11 @@ import org.eclipse.osgi.util.NLS;
  * <p/>
  * By default, operations are performed only once and any error thrown will not
  * result in further attempts. Subclasses can override this behaviour.
+ * <p/>
+ * Requests are run synchronously through {@link #run(IProgressMonitor)}, or
+ * asynchronously by submitting them to a {@link ClientRequestExecutor}. When
+ * run asynchronously, the thread is not slept between reattempts, which are
+ * scheduled by the executor instead.
  */
 public abstract class BaseClientRequest<T> {
 
@@ -45,6 +51,34 @@ public abstract class BaseClientRequest<T> {
 	 */
 	private final String label;
 
+	/**
+	 * True if the request is run by a {@link ClientRequestExecutor}.
+	 */
+	private boolean asynchronous;
+
+	/**
+	 * Time left for reattempts when run asynchronously, carried over from one
+	 * attempt to the next. Negative if no attempt was made yet.
+	 */
+	private long asynchronousTimeLeft = -1;
+
+	/**
+	 * Time in milliseconds of the first attempt of the request, kept across
+	 * asynchronous attempts. Negative if no attempt was made yet.
+	 */
+	private long startTime = -1;
+
+	/**
+	 * Number of reattempts since the first attempt.
+	 */
+	private int retries;
+
+	/**
+	 * True if the client operation was performed, false if the result was
+	 * obtained from the request cache.
+	 */
+	private boolean performed;
+
 	public BaseClientRequest(String label) {
 		Assert.isNotNull(label);
 		this.label = label;
@@ -57,6 +91,44 @@ public abstract class BaseClientRequest<T> {
 	 * client operation.
 	 */
 	public T run(IProgressMonitor monitor) throws CoreException {
+		if (startTime < 0) {
+			startTime = System.currentTimeMillis();
+		}
+		performed = false;
+		boolean complete = true;
+		Throwable error = null;
+		try {
+			return doRunRequest(monitor);
+		}
+		catch (ReattemptRequestException e) {
+			// Not complete yet, the request is attempted again later
+			complete = false;
+			throw e;
+		}
+		catch (CoreException e) {
+			error = e;
+			throw e;
+		}
+		catch (RuntimeException e) {
+			error = e;
+			throw e;
+		}
+		catch (Error e) {
+			error = e;
+			throw e;
+		}
+		finally {
+			if (complete) {
+				long latency = System.currentTimeMillis() - startTime;
+				CloudFoundryPlugin.getRequestMetrics().record(this, latency, retries, !performed && error == null,
+						error);
+				startTime = -1;
+				retries = 0;
+			}
+		}
+	}
+
+	private T doRunRequest(IProgressMonitor monitor) throws CoreException {
 
 		SubMonitor subProgress = SubMonitor.convert(monitor, label, 100);
 
@@ -67,7 +139,7 @@ public abstract class BaseClientRequest<T> {
 
 		HttpTracer.getCurrent().trace(client);
 		try {
-			return runAndWait(client, subProgress);
+			return runCached(client, subProgress);
 		}
 		catch (CoreException ce) {
 			// See if it is a connection error. If so, parse it into readable
@@ -86,6 +158,36 @@ public abstract class BaseClientRequest<T> {
 
 	}
 
+	/**
+	 * Performs one attempt of the request. Used by
+	 * {@link ClientRequestExecutor}.
+	 * @throws ReattemptRequestException if the attempt failed and the
+	 * request must be attempted again after an interval
+	 */
+	T runAttempt(IProgressMonitor monitor) throws CoreException {
+		asynchronous = true;
+		return run(monitor);
+	}
+
+	/**
+	 * Performs the client operation through the request cache, if the request
+	 * specifies a cache key and a cache is available. Otherwise the operation
+	 * is performed directly.
+	 * @see #getCacheKey()
+	 */
+	protected T runCached(final CloudFoundryOperations client, final SubMonitor subProgress) throws CoreException {
+		ClientRequestCache cache = getRequestCache();
+		ClientRequestCache.Key key = cache != null ? getCacheKey() : null;
+		if (key == null) {
+			return runAndWait(client, subProgress);
+		}
+		return cache.get(key, getCacheTTL(), new ClientRequestCache.Loader<T>() {
+			public T load() throws CoreException {
+				return runAndWait(client, subProgress);
+			}
+		}, subProgress);
+	}
+
 	/**
 	 * Performs a client operation, and if necessary, re-attempts the operation
 	 * after a certain interval IFF an error occurs based on
@@ -113,12 +215,14 @@ public abstract class BaseClientRequest<T> {
 		Throwable error = null;
 
 		boolean reattempt = true;
-		long timeLeft = getTotalTimeWait();
+		long timeLeft = asynchronous && asynchronousTimeLeft >= 0 ? asynchronousTimeLeft : getTotalTimeWait();
 
 		// Either this operation returns a result during the waiting period or
 		// an error occurred, and error
 		// gets thrown
 
+		performed = true;
+
 		while (reattempt) {
 
 			long interval = -1;
@@ -134,6 +238,12 @@ public abstract class BaseClientRequest<T> {
 			timeLeft -= interval;
 			reattempt = !subProgress.isCanceled() && timeLeft >= 0 && interval > 0;
 			if (reattempt) {
+				retries++;
+
+				if (asynchronous) {
+					asynchronousTimeLeft = timeLeft;
+					throw new ReattemptRequestException(interval, error);
+				}
 
 				try {
 					Thread.sleep(interval);
@@ -206,4 +316,57 @@ public abstract class BaseClientRequest<T> {
 		return CloudOperationsConstants.DEFAULT_CF_CLIENT_REQUEST_TIMEOUT;
 	}
 
+	/**
+	 * Read-only requests can return a key to have identical concurrent
+	 * requests coalesced, and their result cached for a short time. Requests
+	 * that modify the target must not specify a key. By default, results are
+	 * not cached.
+	 * @return key identifying the request in the cache, or null if the
+	 * request should not be cached.
+	 */
+	protected ClientRequestCache.Key getCacheKey() {
+		return null;
+	}
+
+	/**
+	 * 
+	 * @return cache used for requests that specify a cache key, or null if
+	 * no cache is available.
+	 */
+	protected ClientRequestCache getRequestCache() {
+		return null;
+	}
+
+	/**
+	 * 
+	 * @return time in milliseconds the result of the request is cached.
+	 */
+	protected long getCacheTTL() {
+		return ClientRequestCache.DEFAULT_TTL;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * Records a reattempt of the request that is not made by
+	 * {@link #runAndWait(CloudFoundryOperations, SubMonitor)}, for example
+	 * after logging in again.
+	 */
+	protected void reattempted() {
+		retries++;
+	}
+
+	/**
+	 * 
+	 * @return name of the server the request is run against, under which
+	 * its metrics are recorded, or null if it is not run against a specific
+	 * server.
+	 * @see ClientRequestMetrics
+	 */
+	protected String getMetricsScope() {
+		return null;
+	}
+
 }
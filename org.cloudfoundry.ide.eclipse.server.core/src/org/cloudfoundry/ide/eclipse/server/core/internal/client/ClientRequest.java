@@ -70,6 +70,7 @@ public abstract class ClientRequest<T> extends BaseClientRequest<T> {
 			if (handler.shouldAttemptClientLogin(ce)) {
 				int attempts = 3;
 				handler.login(subProgress, attempts, CloudOperationsConstants.LOGIN_INTERVAL);
+				reattempted();
 				return runAndWait(client, subProgress);
 			}
 			throw ce;
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.client;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudErrorUtil;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Caches results of read-only client requests for a short period, and
+ * coalesces identical requests that are performed concurrently, such that
+ * only one of them is sent to the Cloud Foundry server and the others wait
+ * for, and share, its result.
+ * <p/>
+ * Results are cached by {@link Key}, which identifies the type of request and
+ * the application it applies to, if any. Operations that modify an
+ * application or service must invalidate the corresponding entries. Errors
+ * are never cached, although requests that are waiting on a request that
+ * fails receive the same error.
+ * <p/>
+ * Note that cached results are shared between callers, and must not be
+ * modified.
+ * <p/>
+ * If a request run asynchronously must be attempted again later, requests waiting
+ * for it are released and load the result themselves.
+ */
+public class ClientRequestCache {
+
+	/**
+	 * Default time a result is cached.
+	 */
+	public static final long DEFAULT_TTL = 2000;
+
+	public static final String APPLICATIONS = "applications"; //$NON-NLS-1$
+
+	public static final String APPLICATION = "application"; //$NON-NLS-1$
+
+	public static final String APPLICATION_STATS = "applicationStats"; //$NON-NLS-1$
+
+	public static final String INSTANCES_INFO = "instancesInfo"; //$NON-NLS-1$
+
+	public static final String SERVICES = "services"; //$NON-NLS-1$
+
+	public static final String DOMAINS_FOR_SPACE = "domainsForSpace"; //$NON-NLS-1$
+
+	public static final String DOMAINS_FOR_ORGS = "domainsForOrgs"; //$NON-NLS-1$
+
+	private static final long WAIT_INTERVAL = 100;
+
+	private static final Object ABANDONED = new Object();
+
+	private final Map<Key, Entry> entries = new HashMap<Key, Entry>();
+
+	/**
+	 * Loads the result of a request on a cache miss.
+	 */
+	public interface Loader<T> {
+		public T load() throws CoreException;
+	}
+
+	/**
+	 * Returns the cached result for the given key if it has not expired. If
+	 * an identical request is already in progress, waits for its result.
+	 * Otherwise the given loader performs the request, and its result is
+	 * cached.
+	 * @param key of the request
+	 * @param ttl time in milliseconds the result is cached
+	 * @param loader performs the request on a cache miss
+	 * @param monitor used to cancel waiting for a request in progress. May be
+	 * null.
+	 * @return result of the request
+	 * @throws CoreException if the request failed
+	 * @throws OperationCanceledException if waiting was cancelled, or the
+	 * request in progress was cancelled
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(Key key, long ttl, Loader<T> loader, IProgressMonitor monitor) throws CoreException {
+		while (true) {
+			Entry entry;
+			boolean load = false;
+			synchronized (this) {
+				entry = entries.get(key);
+				if (entry != null && entry.isExpired()) {
+					entries.remove(key);
+					entry = null;
+				}
+				if (entry == null) {
+					entry = new Entry();
+					entries.put(key, entry);
+					load = true;
+				}
+			}
+
+			if (load) {
+				try {
+					T result = loader.load();
+					entry.setResult(result, ttl);
+					return result;
+				}
+				catch (CoreException e) {
+					removeFailed(key, entry, e);
+					throw e;
+				}
+				catch (ReattemptRequestException e) {
+					removeFailed(key, entry, null);
+					throw e;
+				}
+				catch (RuntimeException e) {
+					removeFailed(key, entry, e);
+					throw e;
+				}
+				catch (Error e) {
+					removeFailed(key, entry, e);
+					throw e;
+				}
+			}
+			Object result = entry.getResult(monitor);
+			if (result != ABANDONED) {
+				return (T) result;
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @param error error of the failed request, or null if the request was
+	 * abandoned, and waiting requests must load the result themselves.
+	 */
+	protected synchronized void removeFailed(Key key, Entry entry, Throwable error) {
+		if (error != null) {
+			entry.setError(error);
+		}
+		else {
+			entry.setResult(ABANDONED, 0);
+		}
+		if (entries.get(key) == entry) {
+			entries.remove(key);
+		}
+	}
+
+	/**
+	 *
+	 * @return true if a result for the given key is cached and has not
+	 * expired, or the request is in progress.
+	 */
+	public synchronized boolean contains(Key key) {
+		Entry entry = entries.get(key);
+		return entry != null && !entry.isExpired();
+	}
+
+	/**
+	 * Invalidates the cached result for the given key, if any.
+	 */
+	public synchronized void invalidate(Key key) {
+		entries.remove(key);
+	}
+
+	/**
+	 * Invalidates all cached results for the given type of request.
+	 */
+	public synchronized void invalidate(String operation) {
+		for (Iterator<Key> it = entries.keySet().iterator(); it.hasNext();) {
+			if (it.next().operation.equals(operation)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Invalidates all cached results for the given application, as well as
+	 * the cached list of applications.
+	 */
+	public synchronized void invalidateApplication(String applicationName) {
+		for (Iterator<Key> it = entries.keySet().iterator(); it.hasNext();) {
+			Key key = it.next();
+			if (APPLICATIONS.equals(key.operation)
+					|| (applicationName != null && applicationName.equals(key.application))) {
+				it.remove();
+			}
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		entries.clear();
+	}
+
+	/**
+	 * Identifies a type of request and the application it applies to.
+	 */
+	public static class Key {
+
+		private final String operation;
+
+		private final String application;
+
+		/**
+		 *
+		 * @param operation type of request
+		 * @param application name of the application the request applies
+		 * to, or null if it does not apply to a specific application
+		 */
+		public Key(String operation, String application) {
+			this.operation = operation;
+			this.application = application;
+		}
+
+		@Override
+		public int hashCode() {
+			return operation.hashCode() * 31 + (application != null ? application.hashCode() : 0);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return operation.equals(other.operation)
+					&& (application != null ? application.equals(other.application) : other.application == null);
+		}
+
+		@Override
+		public String toString() {
+			return application != null ? operation + ':' + application : operation;
+		}
+	}
+
+	static class Entry {
+
+		private boolean done;
+
+		private Object result;
+
+		private Throwable error;
+
+		private long expiresAt;
+
+		synchronized boolean isExpired() {
+			return done && System.currentTimeMillis() >= expiresAt;
+		}
+
+		synchronized void setResult(Object result, long ttl) {
+			this.result = result;
+			this.expiresAt = System.currentTimeMillis() + ttl;
+			this.done = true;
+			notifyAll();
+		}
+
+		synchronized void setError(Throwable error) {
+			this.error = error;
+			this.done = true;
+			notifyAll();
+		}
+
+		synchronized Object getResult(IProgressMonitor monitor) throws CoreException {
+			while (!done) {
+				if (monitor != null && monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				try {
+					wait(WAIT_INTERVAL);
+				}
+				catch (InterruptedException e) {
+					// Keep the interrupt visible to the caller
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				}
+			}
+			if (error instanceof CoreException) {
+				throw (CoreException) error;
+			}
+			else if (error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			}
+			else if (error instanceof Error) {
+				throw (Error) error;
+			}
+			else if (error != null) {
+				throw CloudErrorUtil.toCoreException(error);
+			}
+			return result;
+		}
+	}
+}
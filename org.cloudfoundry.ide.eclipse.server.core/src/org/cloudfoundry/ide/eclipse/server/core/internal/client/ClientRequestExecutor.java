@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.client;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudErrorUtil;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Runs client requests asynchronously for one Cloud Foundry server, on a
+ * bounded pool of threads, such that a slow request does not block the
+ * caller, and a server cannot be sent more than a fixed number of concurrent
+ * requests from the asynchronous API.
+ * <p/>
+ * Requests that fail and must be reattempted do not sleep a pool thread
+ * while waiting for the next attempt. The next attempt is instead scheduled
+ * on a timer shared by all executors, which submits it back to the pool when
+ * the interval elapses.
+ */
+public class ClientRequestExecutor {
+
+	/**
+	 * Maximum number of requests to the same server that run concurrently.
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+	private static final long KEEP_ALIVE = 60;
+
+	private static ScheduledExecutorService reattemptTimer;
+
+	/**
+	 * Notified when an asynchronous request completes. Callbacks are invoked
+	 * in a request thread, and should not perform long running operations.
+	 */
+	public interface Callback<T> {
+
+		public void onSuccess(T result);
+
+		/**
+		 * 
+		 * @param error typically a {@link org.eclipse.core.runtime.CoreException}
+		 * , or {@link OperationCanceledException} if the request was
+		 * cancelled.
+		 */
+		public void onFailure(Throwable error);
+	}
+
+	private final ThreadPoolExecutor pool;
+
+	/**
+	 * 
+	 * @param name used in the name of request threads, typically the server
+	 * name
+	 * @param maxConcurrentRequests maximum number of requests that run
+	 * concurrently. Further requests are queued.
+	 */
+	public ClientRequestExecutor(final String name, int maxConcurrentRequests) {
+		pool = new ThreadPoolExecutor(maxConcurrentRequests, maxConcurrentRequests, KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "Cloud Foundry requests (" + name + ") " //$NON-NLS-1$ //$NON-NLS-2$
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		pool.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Submits a request to run asynchronously.
+	 * @param request
+	 * @param monitor may be null. If cancelled, no further attempts of the
+	 * request are made.
+	 * @param callback notified when the request completes. May be null.
+	 * @return future result of the request
+	 */
+	public <T> ClientRequestFuture<T> submit(BaseClientRequest<T> request, IProgressMonitor monitor,
+			Callback<T> callback) {
+		ClientRequestFuture<T> future = new ClientRequestFuture<T>(monitor != null ? monitor
+				: new NullProgressMonitor(), callback);
+		execute(new Attempt<T>(request, future));
+		return future;
+	}
+
+	/**
+	 * Cancels queued requests and stops the request threads once running
+	 * requests complete. Further submitted requests fail.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	protected void execute(Attempt<?> attempt) {
+		try {
+			pool.execute(attempt);
+		}
+		catch (RejectedExecutionException e) {
+			attempt.future.setError(CloudErrorUtil.toCoreException(e));
+		}
+	}
+
+	protected void scheduleReattempt(final Attempt<?> attempt, long interval) {
+		try {
+			getReattemptTimer().schedule(new Runnable() {
+				public void run() {
+					execute(attempt);
+				}
+			}, interval, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException e) {
+			attempt.future.setError(CloudErrorUtil.toCoreException(e));
+		}
+	}
+
+	protected static synchronized ScheduledExecutorService getReattemptTimer() {
+		if (reattemptTimer == null) {
+			ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "Cloud Foundry request reattempts"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			reattemptTimer = timer;
+		}
+		return reattemptTimer;
+	}
+
+	/**
+	 * One attempt of a request. The request keeps track of the time left for
+	 * reattempts across attempts.
+	 */
+	protected class Attempt<T> implements Runnable {
+
+		private final BaseClientRequest<T> request;
+
+		private final ClientRequestFuture<T> future;
+
+		Attempt(BaseClientRequest<T> request, ClientRequestFuture<T> future) {
+			this.request = request;
+			this.future = future;
+		}
+
+		public void run() {
+			if (future.isDone()) {
+				return;
+			}
+			try {
+				future.setResult(request.runAttempt(future.getMonitor()));
+			}
+			catch (ReattemptRequestException e) {
+				scheduleReattempt(this, e.getInterval());
+			}
+			catch (Throwable t) {
+				future.setError(t);
+			}
+		}
+	}
+}
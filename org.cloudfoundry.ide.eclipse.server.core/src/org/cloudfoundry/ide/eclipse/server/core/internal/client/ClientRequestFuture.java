@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.client;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudErrorUtil;
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Result of a client request submitted to a {@link ClientRequestExecutor}.
+ * Errors thrown by the request are available as the cause of the
+ * {@link ExecutionException} thrown by {@link #get()}, or directly through
+ * {@link #getResult(IProgressMonitor)}.
+ */
+public class ClientRequestFuture<T> implements Future<T> {
+
+	private static final long WAIT_INTERVAL = 100;
+
+	private final IProgressMonitor monitor;
+
+	private final ClientRequestExecutor.Callback<T> callback;
+
+	private boolean done;
+
+	private boolean cancelled;
+
+	private T result;
+
+	private Throwable error;
+
+	ClientRequestFuture(IProgressMonitor monitor, ClientRequestExecutor.Callback<T> callback) {
+		this.monitor = monitor;
+		this.callback = callback;
+	}
+
+	/**
+	 * 
+	 * @return monitor of the request. Cancelling the future cancels the
+	 * monitor.
+	 */
+	IProgressMonitor getMonitor() {
+		return monitor;
+	}
+
+	void setResult(T result) {
+		synchronized (this) {
+			if (done) {
+				return;
+			}
+			this.result = result;
+			done = true;
+			notifyAll();
+		}
+		if (callback != null) {
+			try {
+				callback.onSuccess(result);
+			}
+			catch (RuntimeException e) {
+				CloudFoundryPlugin.logError(e);
+			}
+		}
+	}
+
+	void setError(Throwable error) {
+		synchronized (this) {
+			if (done) {
+				return;
+			}
+			this.error = error;
+			done = true;
+			notifyAll();
+		}
+		if (callback != null) {
+			try {
+				callback.onFailure(error);
+			}
+			catch (RuntimeException e) {
+				CloudFoundryPlugin.logError(e);
+			}
+		}
+	}
+
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		synchronized (this) {
+			if (done) {
+				return false;
+			}
+			cancelled = true;
+		}
+		monitor.setCanceled(true);
+		setError(new OperationCanceledException());
+		return true;
+	}
+
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	public synchronized boolean isDone() {
+		return done;
+	}
+
+	public synchronized T get() throws InterruptedException, ExecutionException {
+		while (!done) {
+			wait();
+		}
+		return getOrThrow();
+	}
+
+	public synchronized T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+			TimeoutException {
+		long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+		while (!done) {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				throw new TimeoutException();
+			}
+			wait(remaining);
+		}
+		return getOrThrow();
+	}
+
+	/**
+	 * Waits for the result of the request.
+	 * @param monitor cancels waiting, but not the request. May be null.
+	 * @return result of the request
+	 * @throws CoreException if the request failed
+	 * @throws OperationCanceledException if the request or the wait was
+	 * cancelled
+	 */
+	public synchronized T getResult(IProgressMonitor monitor) throws CoreException {
+		while (!done) {
+			if (monitor != null && monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			try {
+				wait(WAIT_INTERVAL);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+		}
+		if (error instanceof CoreException) {
+			throw (CoreException) error;
+		}
+		else if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		}
+		else if (error != null) {
+			throw CloudErrorUtil.toCoreException(error);
+		}
+		return result;
+	}
+
+	private T getOrThrow() throws ExecutionException {
+		if (cancelled) {
+			throw new CancellationException();
+		}
+		if (error != null) {
+			throw new ExecutionException(error);
+		}
+		return result;
+	}
+}
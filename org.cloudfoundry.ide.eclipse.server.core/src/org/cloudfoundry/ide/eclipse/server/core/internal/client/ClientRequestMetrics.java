@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.client;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Records the number of client requests, errors, reattempts and latencies,
+ * per server and per operation.
+ * <p/>
+ * Operations are identified by the method that creates the request, for
+ * example <code>CloudFoundryServerBehaviour.getApplications</code>, rather
+ * than by the request label, as labels typically include application names.
+ * Requests that are not created in a method are identified by their label.
+ * <p/>
+ * The latency of a request is measured from its first attempt to its
+ * completion, and therefore includes reattempts and, for requests run
+ * asynchronously, the intervals between attempts. Requests answered by the
+ * {@link ClientRequestCache} are counted as cache hits, and not included in
+ * the latencies.
+ */
+public class ClientRequestMetrics {
+
+	/**
+	 * Scope of requests that are not run against a specific server, like
+	 * requests validating credentials.
+	 */
+	public static final String NO_SERVER = "-"; //$NON-NLS-1$
+
+	private static final String SEPARATOR = "\u0000"; //$NON-NLS-1$
+
+	private static final String EXPORT_HEADER = "server,operation,count,errors,cancelled,retries,cacheHits,meanMs,p50Ms,p90Ms,p99Ms,maxMs"; //$NON-NLS-1$
+
+	private final ConcurrentMap<String, OperationMetrics> metrics = new ConcurrentHashMap<String, OperationMetrics>();
+
+	private final ConcurrentMap<Class<?>, String> operationNames = new ConcurrentHashMap<Class<?>, String>();
+
+	/**
+	 * Metrics of one operation against one server.
+	 */
+	public static class OperationMetrics {
+
+		private final String server;
+
+		private final String operation;
+
+		private final AtomicLong count = new AtomicLong();
+
+		private final AtomicLong errors = new AtomicLong();
+
+		private final AtomicLong cancelled = new AtomicLong();
+
+		private final AtomicLong retries = new AtomicLong();
+
+		private final AtomicLong cacheHits = new AtomicLong();
+
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		OperationMetrics(String server, String operation) {
+			this.server = server;
+			this.operation = operation;
+		}
+
+		public String getServer() {
+			return server;
+		}
+
+		public String getOperation() {
+			return operation;
+		}
+
+		/**
+		 * 
+		 * @return number of completed requests, including failed, cancelled
+		 * and cached requests
+		 */
+		public long getCount() {
+			return count.get();
+		}
+
+		public long getErrors() {
+			return errors.get();
+		}
+
+		public long getCancelled() {
+			return cancelled.get();
+		}
+
+		/**
+		 * 
+		 * @return number of reattempts, including reattempts after logging in
+		 * again
+		 */
+		public long getRetries() {
+			return retries.get();
+		}
+
+		public long getCacheHits() {
+			return cacheHits.get();
+		}
+
+		/**
+		 * 
+		 * @return latencies in milliseconds of requests that were not answered
+		 * from the cache
+		 */
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+	}
+
+	/**
+	 * Records the completion of a request.
+	 * @param request
+	 * @param latency time in milliseconds from the first attempt to the
+	 * completion of the request
+	 * @param retries number of reattempts
+	 * @param cacheHit true if the result was obtained from the request cache
+	 * @param error error thrown by the request, or null if it completed
+	 * successfully
+	 */
+	public void record(BaseClientRequest<?> request, long latency, int retries, boolean cacheHit, Throwable error) {
+		OperationMetrics operationMetrics = getMetrics(request.getMetricsScope(), getOperationName(request));
+		operationMetrics.count.incrementAndGet();
+		operationMetrics.retries.addAndGet(retries);
+		if (error instanceof OperationCanceledException) {
+			operationMetrics.cancelled.incrementAndGet();
+		}
+		else if (error != null) {
+			operationMetrics.errors.incrementAndGet();
+		}
+		if (cacheHit) {
+			operationMetrics.cacheHits.incrementAndGet();
+		}
+		else {
+			operationMetrics.latency.record(latency);
+		}
+	}
+
+	/**
+	 * 
+	 * @param server name of the server, or null for requests not run against
+	 * a specific server
+	 * @param operation
+	 * @return metrics of the given operation against the given server,
+	 * created if none were recorded yet. Never null.
+	 */
+	public OperationMetrics getMetrics(String server, String operation) {
+		if (server == null) {
+			server = NO_SERVER;
+		}
+		String key = server + SEPARATOR + operation;
+		OperationMetrics operationMetrics = metrics.get(key);
+		if (operationMetrics == null) {
+			operationMetrics = new OperationMetrics(server, operation);
+			OperationMetrics existing = metrics.putIfAbsent(key, operationMetrics);
+			if (existing != null) {
+				operationMetrics = existing;
+			}
+		}
+		return operationMetrics;
+	}
+
+	/**
+	 * 
+	 * @return metrics of all operations, sorted by server and operation.
+	 * Never null.
+	 */
+	public List<OperationMetrics> getAllMetrics() {
+		List<OperationMetrics> all = new ArrayList<OperationMetrics>(metrics.values());
+		Collections.sort(all, new Comparator<OperationMetrics>() {
+			public int compare(OperationMetrics o1, OperationMetrics o2) {
+				int result = o1.getServer().compareTo(o2.getServer());
+				return result != 0 ? result : o1.getOperation().compareTo(o2.getOperation());
+			}
+		});
+		return all;
+	}
+
+	public boolean isEmpty() {
+		return metrics.isEmpty();
+	}
+
+	public void reset() {
+		metrics.clear();
+	}
+
+	/**
+	 * Writes a snapshot of all metrics as comma separated values, one line
+	 * per server and operation, with latencies in milliseconds.
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void export(Writer writer) throws IOException {
+		writer.write(EXPORT_HEADER);
+		writer.write('\n');
+		for (OperationMetrics operationMetrics : getAllMetrics()) {
+			LatencyHistogram latency = operationMetrics.getLatency();
+			writer.write(escape(operationMetrics.getServer()));
+			writer.write(',');
+			writer.write(escape(operationMetrics.getOperation()));
+			writer.write(',');
+			writer.write(operationMetrics.getCount() + "," + operationMetrics.getErrors() + "," //$NON-NLS-1$ //$NON-NLS-2$
+					+ operationMetrics.getCancelled() + "," + operationMetrics.getRetries() + "," //$NON-NLS-1$ //$NON-NLS-2$
+					+ operationMetrics.getCacheHits() + ","); //$NON-NLS-1$
+			writer.write(String.format(Locale.ENGLISH, "%.1f", latency.getMean())); //$NON-NLS-1$
+			writer.write("," + latency.getValueAtPercentile(50) + "," + latency.getValueAtPercentile(90) + "," //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ latency.getValueAtPercentile(99) + "," + latency.getMax()); //$NON-NLS-1$
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Writes a snapshot of all metrics to the given file, replacing its
+	 * content.
+	 * @see #export(Writer)
+	 */
+	public void export(File file) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")); //$NON-NLS-1$
+		try {
+			export(writer);
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * 
+	 * @return name of the method that creates the given request, prefixed by
+	 * the simple name of its class, or the simple name of the request class
+	 * if it is a named class, or the label of the request otherwise.
+	 */
+	protected String getOperationName(BaseClientRequest<?> request) {
+		Class<?> requestClass = request.getClass();
+		String name = operationNames.get(requestClass);
+		if (name == null) {
+			Method method = requestClass.getEnclosingMethod();
+			if (method != null) {
+				name = method.getDeclaringClass().getSimpleName() + '.' + method.getName();
+			}
+			else if (!requestClass.isAnonymousClass()) {
+				name = requestClass.getSimpleName();
+			}
+			if (name == null) {
+				// Not cached, as the label may differ between instances
+				return request.getLabel();
+			}
+			operationNames.put(requestClass, name);
+		}
+		return name;
+	}
+
+	protected static String escape(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"'; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -19,6 +19,11 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.core.internal.client;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
 import org.cloudfoundry.client.lib.StartingInfo;
 import org.cloudfoundry.client.lib.domain.ApplicationStats;
 import org.cloudfoundry.client.lib.domain.CloudApplication;
@@ -133,6 +138,11 @@ public class CloudFoundryApplicationModule extends ExternalModule implements ICl
 
 	private static final String MODULE_VERSION = "1.0"; //$NON-NLS-1$
 
+	/**
+	 * Maximum number of deployment timelines kept per application.
+	 */
+	private static final int MAX_DEPLOYMENT_HISTORY = 20;
+
 	private CloudApplication application;
 
 	private String deployedAppName;
@@ -151,6 +161,8 @@ public class CloudFoundryApplicationModule extends ExternalModule implements ICl
 
 	private CoreException error;
 
+	private final LinkedList<DeploymentTimeline> deploymentHistory = new LinkedList<DeploymentTimeline>();
+
 	/**
 	 * Creates a cloud module that has a corresponding local module. This should
 	 * be used if there is an accessible workspace project for the deployed app
@@ -356,6 +368,42 @@ public class CloudFoundryApplicationModule extends ExternalModule implements ICl
 		return error.getMessage();
 	}
 
+	/**
+	 * Adds the timeline of a deployment of the application to its deployment
+	 * history. Only the most recent deployments are kept.
+	 * @param timeline
+	 */
+	public synchronized void addDeploymentTimeline(DeploymentTimeline timeline) {
+		deploymentHistory.addLast(timeline);
+		while (deploymentHistory.size() > MAX_DEPLOYMENT_HISTORY) {
+			deploymentHistory.removeFirst();
+		}
+	}
+
+	/**
+	 * 
+	 * @return timelines of the most recent deployments of the application
+	 * since the module was created, oldest first. Never null.
+	 */
+	public synchronized List<DeploymentTimeline> getDeploymentHistory() {
+		return new ArrayList<DeploymentTimeline>(deploymentHistory);
+	}
+
+	/**
+	 * 
+	 * @return timeline of the most recent successful deployment, or null if
+	 * there is none in the deployment history.
+	 */
+	public synchronized DeploymentTimeline getLastSuccessfulDeployment() {
+		for (Iterator<DeploymentTimeline> it = deploymentHistory.descendingIterator(); it.hasNext();) {
+			DeploymentTimeline timeline = it.next();
+			if (timeline.isSucceeded()) {
+				return timeline;
+			}
+		}
+		return null;
+	}
+
 	public synchronized void setApplicationStats(ApplicationStats applicationStats) {
 		this.applicationStats = applicationStats;
 	}
@@ -20,20 +20,31 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.core.internal.client;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cloudfoundry.client.lib.ApplicationLogListener;
 import org.cloudfoundry.client.lib.CloudCredentials;
@@ -41,6 +52,7 @@ import org.cloudfoundry.client.lib.CloudFoundryException;
 import org.cloudfoundry.client.lib.CloudFoundryOperations;
 import org.cloudfoundry.client.lib.NotFinishedStagingException;
 import org.cloudfoundry.client.lib.StartingInfo;
+import org.cloudfoundry.client.lib.StreamingLogToken;
 import org.cloudfoundry.client.lib.UploadStatusCallback;
 import org.cloudfoundry.client.lib.archive.ApplicationArchive;
 import org.cloudfoundry.client.lib.domain.ApplicationLog;
@@ -52,6 +64,8 @@ import org.cloudfoundry.client.lib.domain.CloudRoute;
 import org.cloudfoundry.client.lib.domain.CloudService;
 import org.cloudfoundry.client.lib.domain.CloudServiceOffering;
 import org.cloudfoundry.client.lib.domain.CloudSpace;
+import org.cloudfoundry.client.lib.domain.InstanceInfo;
+import org.cloudfoundry.client.lib.domain.InstanceState;
 import org.cloudfoundry.client.lib.domain.InstancesInfo;
 import org.cloudfoundry.client.lib.domain.Staging;
 import org.cloudfoundry.ide.eclipse.server.core.AbstractAppStateTracker;
@@ -59,19 +73,26 @@ import org.cloudfoundry.ide.eclipse.server.core.AbstractApplicationDelegate;
 import org.cloudfoundry.ide.eclipse.server.core.ApplicationDeploymentInfo;
 import org.cloudfoundry.ide.eclipse.server.core.ICloudFoundryApplicationModule;
 import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationAction;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationArchiveCache;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationPatch;
 import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationUrlLookupService;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationsDelta;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CachingApplicationArchive;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudErrorUtil;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryLoginHandler;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudUtil;
+import org.cloudfoundry.ide.eclipse.server.core.internal.DeployedResourceCache;
+import org.cloudfoundry.ide.eclipse.server.core.internal.DeployedResourceCache.CachedDeployedApplication;
+import org.cloudfoundry.ide.eclipse.server.core.internal.DeployedResourceCache.DeployedResourceEntry;
 import org.cloudfoundry.ide.eclipse.server.core.internal.Messages;
 import org.cloudfoundry.ide.eclipse.server.core.internal.ModuleResourceDeltaWrapper;
 import org.cloudfoundry.ide.eclipse.server.core.internal.RefreshHandler;
 import org.cloudfoundry.ide.eclipse.server.core.internal.ServerEventHandler;
 import org.cloudfoundry.ide.eclipse.server.core.internal.application.ApplicationRegistry;
 import org.cloudfoundry.ide.eclipse.server.core.internal.application.EnvironmentVariable;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.DeploymentTimeline.PhaseType;
 import org.cloudfoundry.ide.eclipse.server.core.internal.debug.CloudFoundryProperties;
 import org.cloudfoundry.ide.eclipse.server.core.internal.debug.DebugModeType;
 import org.cloudfoundry.ide.eclipse.server.core.internal.spaces.CloudFoundrySpace;
@@ -79,6 +100,7 @@ import org.cloudfoundry.ide.eclipse.server.core.internal.spaces.CloudOrgsAndSpac
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
@@ -148,10 +170,55 @@ import org.springframework.web.client.RestClientException;
 @SuppressWarnings("restriction")
 public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
-	private CloudFoundryOperations client;
+	private volatile CloudFoundryOperations client;
+
+	/**
+	 * Guards the creation of the client, separately from other behaviour
+	 * state, so that requests do not wait on unrelated operations.
+	 */
+	private final Object clientLock = new Object();
+
+	private ClientRequestExecutor requestExecutor;
 
 	private RefreshHandler refreshHandler;
 
+	/**
+	 * Delta computed on the last module refresh. Guarded by
+	 * {@link #refreshModulesLock}.
+	 */
+	private ApplicationsDelta lastApplicationsDelta;
+
+	private int lastRefreshedModuleCount = -1;
+
+	private final Object refreshModulesLock = new Object();
+
+	private final ClientRequestCache requestCache = new ClientRequestCache();
+
+	/**
+	 * Size in bytes of the ranges in which files are downloaded.
+	 */
+	public static final int FILE_DOWNLOAD_RANGE_SIZE = 256 * 1024;
+
+	/**
+	 * Number of times a range of a file is requested before a download
+	 * fails.
+	 */
+	private static final int MAX_FILE_RANGE_ATTEMPTS = 3;
+
+	/**
+	 * Charset of downloaded files, used to recover their bytes if the server
+	 * declares a charset for them.
+	 */
+	private static final Charset FILE_DOWNLOAD_CHARSET = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	/**
+	 * Number of waits for an application to start in progress. When several
+	 * applications start at the same time, for example in a bulk restart, the
+	 * waits share the cached list of applications rather than each requesting
+	 * its own application.
+	 */
+	private final AtomicInteger startWaits = new AtomicInteger();
+
 	private ApplicationUrlLookupService applicationUrlLookup;
 	
 	public static String INTERNAL_ERROR_NO_WST_MODULE = "Internal Error: No WST IModule specified - Unable to deploy or start application"; //$NON-NLS-1$
@@ -210,6 +277,8 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		getApplicationUrlLookup().refreshDomains(monitor);
 
 		refreshModules(monitor);
+
+		getRefreshHandler().start();
 	}
 
 	/**
@@ -230,6 +299,53 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		return refreshHandler;
 	}
 
+	/**
+	 * 
+	 * @return cache of read-only client requests performed by this behaviour.
+	 * Operations that modify applications or services through the client
+	 * directly must invalidate the affected entries.
+	 */
+	public ClientRequestCache getRequestCache() {
+		return requestCache;
+	}
+
+	/**
+	 * 
+	 * @return executor of asynchronous requests to this server. The number of
+	 * asynchronous requests running concurrently for the server is bounded.
+	 */
+	public synchronized ClientRequestExecutor getRequestExecutor() {
+		if (requestExecutor == null) {
+			requestExecutor = new ClientRequestExecutor(getServer().getName(),
+					ClientRequestExecutor.DEFAULT_MAX_CONCURRENT_REQUESTS);
+		}
+		return requestExecutor;
+	}
+
+	/**
+	 * 
+	 * @param appName
+	 * @return key under which waits for the state of the given application are
+	 * registered, and can be signalled.
+	 * @see BackoffWait
+	 */
+	protected String getApplicationWaitKey(String appName) {
+		return getServer().getId() + '/' + appName;
+	}
+
+	/**
+	 * Notifies any wait on the state of the given application that the state
+	 * may have changed, for example because an application log message or a
+	 * running instance was observed. Cached results for the application are
+	 * invalidated, so that the waits see the current state.
+	 * @param appName
+	 */
+	protected void signalApplicationState(String appName) {
+		if (BackoffWait.signal(getApplicationWaitKey(appName))) {
+			requestCache.invalidateApplication(appName);
+		}
+	}
+
 	/**
 	 * Creates the given list of services
 	 * @param services
@@ -249,27 +365,42 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 				return null;
 			}
+
+			@Override
+			protected void invalidateCache(ClientRequestCache cache) {
+				cache.invalidate(ClientRequestCache.SERVICES);
+			}
 		}.run(monitor);
 		ServerEventHandler.getDefault().fireServicesUpdated(getCloudFoundryServer());
 	}
 
-	public synchronized List<CloudDomain> getDomainsFromOrgs(IProgressMonitor monitor) throws CoreException {
+	public List<CloudDomain> getDomainsFromOrgs(IProgressMonitor monitor) throws CoreException {
 		return new BehaviourRequest<List<CloudDomain>>("Getting domains for orgs") { //$NON-NLS-1$
 			@Override
 			protected List<CloudDomain> doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
 				return client.getDomainsForOrg();
 			}
+
+			@Override
+			protected ClientRequestCache.Key getCacheKey() {
+				return new ClientRequestCache.Key(ClientRequestCache.DOMAINS_FOR_ORGS, null);
+			}
 		}.run(monitor);
 
 	}
 
-	public synchronized List<CloudDomain> getDomainsForSpace(IProgressMonitor monitor) throws CoreException {
+	public List<CloudDomain> getDomainsForSpace(IProgressMonitor monitor) throws CoreException {
 
 		return new BehaviourRequest<List<CloudDomain>>("Getting domains for current space") { //$NON-NLS-1$
 			@Override
 			protected List<CloudDomain> doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
 				return client.getDomains();
 			}
+
+			@Override
+			protected ClientRequestCache.Key getCacheKey() {
+				return new ClientRequestCache.Key(ClientRequestCache.DOMAINS_FOR_SPACE, null);
+			}
 		}.run(monitor);
 	}
 
@@ -292,13 +423,48 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 			@Override
 			protected Void doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
 				client.deleteApplication(applicationName);
+				removeDeployedResources(applicationName);
 
 				return null;
 			}
+			@Override
+			protected void invalidateCache(ClientRequestCache cache) {
+				cache.invalidateApplication(applicationName);
+			}
 		}.run(monitor);
 
 	}
 
+	/**
+	 * Removes the cached sha1 codes of the resources of a deleted
+	 * application.
+	 * @param appName
+	 */
+	protected void removeDeployedResources(String appName) {
+		CloudFoundryPlugin.getDefault().getDeployedResourcesCache()
+				.removeApplication(getCachedDeployedApplication(appName));
+	}
+
+	/**
+	 * 
+	 * @param appName deployed name of the application
+	 * @return identifier of the application in the deployed resources cache.
+	 * Applications with the same name in other servers or spaces have
+	 * different identifiers.
+	 */
+	protected CachedDeployedApplication getCachedDeployedApplication(String appName) {
+		CloudFoundryServer cloudServer = (CloudFoundryServer) getServer().loadAdapter(CloudFoundryServer.class, null);
+		String space = null;
+		if (cloudServer != null) {
+			space = cloudServer.getUrl();
+			CloudFoundrySpace cloudSpace = cloudServer.getCloudFoundrySpace();
+			if (cloudSpace != null) {
+				space += '/' + cloudSpace.getOrgName() + '/' + cloudSpace.getSpaceName();
+			}
+		}
+		return new CachedDeployedApplication(space, appName);
+	}
+
 	/**
 	 * Deletes the list of services.
 	 * @param services
@@ -321,6 +487,11 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 						}
 						return null;
 					}
+
+					@Override
+					protected void invalidateCache(ClientRequestCache cache) {
+						cache.invalidate(ClientRequestCache.SERVICES);
+					}
 				}.run(monitor);
 			}
 		};
@@ -416,6 +587,12 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		super.dispose();
 		getServer().removeServerListener(serverListener);
 		closeCaldecottTunnelsAsynch();
+		synchronized (this) {
+			if (requestExecutor != null) {
+				requestExecutor.shutdown();
+				requestExecutor = null;
+			}
+		}
 	}
 
 	/**
@@ -432,42 +609,123 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 	}
 
 	public CloudApplication getApplication(final String applicationId, IProgressMonitor monitor) throws CoreException {
+		return getApplicationRequest(applicationId).run(monitor);
+	}
+
+	/**
+	 * Asynchronously gets the deployed application with the given name.
+	 * @see #getApplication(String, IProgressMonitor)
+	 */
+	public ClientRequestFuture<CloudApplication> getApplicationAsync(String applicationId, IProgressMonitor monitor,
+			ClientRequestExecutor.Callback<CloudApplication> callback) {
+		return getRequestExecutor().submit(getApplicationRequest(applicationId), monitor, callback);
+	}
+
+	protected BaseClientRequest<CloudApplication> getApplicationRequest(final String applicationId) {
 		return new BehaviourRequest<CloudApplication>("Getting Application " + applicationId) { //$NON-NLS-1$
 			@Override
 			protected CloudApplication doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
 				return client.getApplication(applicationId);
 			}
-		}.run(monitor);
+
+			@Override
+			protected ClientRequestCache.Key getCacheKey() {
+				return new ClientRequestCache.Key(ClientRequestCache.APPLICATION, applicationId);
+			}
+		};
 	}
 
 	public List<CloudApplication> getApplications(IProgressMonitor monitor) throws CoreException {
+		return getApplicationsRequest().run(monitor);
+	}
+
+	/**
+	 * Asynchronously gets all the deployed applications.
+	 * @see #getApplications(IProgressMonitor)
+	 */
+	public ClientRequestFuture<List<CloudApplication>> getApplicationsAsync(IProgressMonitor monitor,
+			ClientRequestExecutor.Callback<List<CloudApplication>> callback) {
+		return getRequestExecutor().submit(getApplicationsRequest(), monitor, callback);
+	}
+
+	protected BaseClientRequest<List<CloudApplication>> getApplicationsRequest() {
 		return new BehaviourRequest<List<CloudApplication>>("Getting applications") { //$NON-NLS-1$
 			@Override
 			protected List<CloudApplication> doRun(CloudFoundryOperations client, SubMonitor progress)
 					throws CoreException {
 				return client.getApplications();
 			}
-		}.run(monitor);
+
+			@Override
+			protected ClientRequestCache.Key getCacheKey() {
+				return new ClientRequestCache.Key(ClientRequestCache.APPLICATIONS, null);
+			}
+		};
 	}
 
 	public ApplicationStats getApplicationStats(final String applicationId, IProgressMonitor monitor)
 			throws CoreException {
+		return getApplicationStatsRequest(applicationId).run(monitor);
+	}
+
+	/**
+	 * Asynchronously gets statistics of the given application.
+	 * @see #getApplicationStats(String, IProgressMonitor)
+	 */
+	public ClientRequestFuture<ApplicationStats> getApplicationStatsAsync(String applicationId, IProgressMonitor monitor,
+			ClientRequestExecutor.Callback<ApplicationStats> callback) {
+		return getRequestExecutor().submit(getApplicationStatsRequest(applicationId), monitor, callback);
+	}
+
+	protected BaseClientRequest<ApplicationStats> getApplicationStatsRequest(final String applicationId) {
 		return new StagingAwareRequest<ApplicationStats>("Getting application statistics for " + //$NON-NLS-1$
 				applicationId) {
 			@Override
 			protected ApplicationStats doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
 				return client.getApplicationStats(applicationId);
 			}
-		}.run(monitor);
+
+			@Override
+			protected ClientRequestCache.Key getCacheKey() {
+				return new ClientRequestCache.Key(ClientRequestCache.APPLICATION_STATS, applicationId);
+			}
+		};
 	}
 
 	public InstancesInfo getInstancesInfo(final String applicationId, IProgressMonitor monitor) throws CoreException {
+		return getInstancesInfoRequest(applicationId).run(monitor);
+	}
+
+	/**
+	 * Asynchronously gets instances of the given application.
+	 * @see #getInstancesInfo(String, IProgressMonitor)
+	 */
+	public ClientRequestFuture<InstancesInfo> getInstancesInfoAsync(String applicationId, IProgressMonitor monitor,
+			ClientRequestExecutor.Callback<InstancesInfo> callback) {
+		return getRequestExecutor().submit(getInstancesInfoRequest(applicationId), monitor, callback);
+	}
+
+	protected BaseClientRequest<InstancesInfo> getInstancesInfoRequest(final String applicationId) {
 		return new StagingAwareRequest<InstancesInfo>("Getting application statistics for " + applicationId) { //$NON-NLS-1$
 			@Override
 			protected InstancesInfo doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
-				return client.getApplicationInstances(applicationId);
+				InstancesInfo info = client.getApplicationInstances(applicationId);
+				if (info != null && info.getInstances() != null) {
+					for (InstanceInfo instance : info.getInstances()) {
+						if (instance.getState() == InstanceState.RUNNING) {
+							signalApplicationState(applicationId);
+							break;
+						}
+					}
+				}
+				return info;
 			}
-		}.run(monitor);
+
+			@Override
+			protected ClientRequestCache.Key getCacheKey() {
+				return new ClientRequestCache.Key(ClientRequestCache.INSTANCES_INFO, applicationId);
+			}
+		};
 	}
 
 	public String getFile(final String applicationId, final int instanceIndex, final String path,
@@ -490,6 +748,214 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		}.run(monitor);
 	}
 
+	/**
+	 * Gets the given byte range of a file of an application instance. Each
+	 * character of the returned content is one byte of the range, see
+	 * {@link FileContentDecoder} to recover the bytes or decode the text.
+	 * @param startPosition first byte of the range
+	 * @param endPosition last byte of the range, inclusive. If past the end of
+	 * the file, the content up to the end of the file is returned.
+	 */
+	public String getFile(final String applicationId, final int instanceIndex, final String filePath,
+			final int startPosition, final int endPosition, IProgressMonitor monitor) throws CoreException {
+		return new FileRequest<String>() {
+			@Override
+			protected String doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
+				return client.getFile(applicationId, instanceIndex, filePath, startPosition, endPosition);
+			}
+		}.run(monitor);
+	}
+
+	/**
+	 * Downloads a file of an application instance from the given position,
+	 * by ranges of {@link #FILE_DOWNLOAD_RANGE_SIZE} bytes. Each range is
+	 * written to the given channel as soon as it is received, so that the file
+	 * is never held in memory as a whole. Binary content is preserved, and if
+	 * the server declares a charset for the file, the bytes of the text are
+	 * recovered by encoding it as UTF-8, see {@link FileContentDecoder}. A
+	 * range that fails is requested again a few times before the download
+	 * fails.
+	 * <p/>
+	 * A failed download can be resumed by calling this method again with the
+	 * number of bytes already written as start position.
+	 * @param startPosition position of the first byte to download
+	 * @param size expected size of the file in bytes, only used to report
+	 * progress. Zero or less if unknown.
+	 * @param out channel the content of the file is written to. It is not
+	 * closed.
+	 * @param monitor
+	 * @return position after the last byte written, which is the size of the
+	 * file
+	 * @throws CoreException if the file does not exist, a range could not be
+	 * downloaded, or writing to the channel failed
+	 * @throws OperationCanceledException if the download was cancelled
+	 */
+	public long getFile(String applicationId, int instanceIndex, String path, long startPosition, long size,
+			WritableByteChannel out, IProgressMonitor monitor) throws CoreException {
+		int ranges = size > startPosition ? (int) ((size - startPosition) / FILE_DOWNLOAD_RANGE_SIZE) + 1 : 100;
+		SubMonitor progress = SubMonitor.convert(monitor, path, ranges);
+		long position = startPosition;
+		FileContentDecoder decoder = new FileContentDecoder(FILE_DOWNLOAD_CHARSET);
+		try {
+			while (true) {
+				if (progress.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				long endPosition = position + FILE_DOWNLOAD_RANGE_SIZE - 1;
+				if (endPosition > Integer.MAX_VALUE) {
+					throw CloudErrorUtil.toCoreException("Unable to download " + path //$NON-NLS-1$
+							+ " as files larger than 2GB are not supported"); //$NON-NLS-1$
+				}
+				String content = getFileRange(applicationId, instanceIndex, path, (int) position, (int) endPosition,
+						progress);
+				if (content == null || content.length() == 0) {
+					break;
+				}
+				byte[] bytes = decoder.getBytes(content);
+				ByteBuffer buffer = ByteBuffer.wrap(bytes);
+				while (buffer.hasRemaining()) {
+					out.write(buffer);
+				}
+				position += bytes.length;
+
+				if (size <= startPosition) {
+					progress.setWorkRemaining(100);
+				}
+				progress.worked(1);
+
+				// A short range is the end of the file, unless the client
+				// decoded it, in which case the end of the file is the first
+				// range past it
+				if (!decoder.isDecodedByClient() && bytes.length < FILE_DOWNLOAD_RANGE_SIZE) {
+					break;
+				}
+			}
+		}
+		catch (IOException e) {
+			throw CloudErrorUtil.toCoreException(e);
+		}
+		finally {
+			progress.done();
+		}
+		return position;
+	}
+
+	/**
+	 * 
+	 * @return content of the given range of a file, or null if the range
+	 * starts past the end of the file.
+	 */
+	private String getFileRange(String applicationId, int instanceIndex, String path, int startPosition,
+			int endPosition, IProgressMonitor monitor) throws CoreException {
+		for (int attempt = 1;; attempt++) {
+			try {
+				return getFile(applicationId, instanceIndex, path, startPosition, endPosition, monitor);
+			}
+			catch (CoreException e) {
+				CloudFoundryException cfe = e.getCause() instanceof CloudFoundryException ? (CloudFoundryException) e
+						.getCause() : null;
+				if (CloudErrorUtil.isRequestedFileRangeNotSatisfiable(cfe)) {
+					return null;
+				}
+				if (attempt >= MAX_FILE_RANGE_ATTEMPTS
+						|| (cfe != null && CloudErrorUtil.isFileNotFoundForInstance(cfe))) {
+					throw e;
+				}
+				BackoffWait.sleep(null, attempt * CloudOperationsConstants.ONE_SECOND_INTERVAL, monitor);
+			}
+		}
+	}
+
+	/**
+	 * Applies changes made to individual files of a deployed application to
+	 * the resources of the application, pushes them, and restarts the
+	 * application if it is running.
+	 * <p/>
+	 * The changes are applied to the resources recorded by the last
+	 * incremental publish of the application, rather than to an archive
+	 * generated from the workspace, so only the changed files are read and
+	 * uploaded. The recorded resources are updated once the changes are
+	 * pushed. The changes are not applied to the workspace, and are reverted
+	 * by the next publish of the module.
+	 * @param appModule deployed application
+	 * @param patch changes to apply
+	 * @param monitor
+	 * @throws CoreException if the resources of the application are not
+	 * known, the changes could not be applied to them, or the application
+	 * failed to be pushed or restarted
+	 */
+	public void patchApplication(CloudFoundryApplicationModule appModule, ApplicationPatch patch,
+			IProgressMonitor monitor) throws CoreException {
+		final String appName = appModule.getDeployedApplicationName();
+		final CachedDeployedApplication appID = getCachedDeployedApplication(appName);
+		List<DeployedResourceEntry> deployedResources = CloudFoundryPlugin.getDefault().getDeployedResourcesCache()
+				.getEntries(appID);
+		if (deployedResources.isEmpty()) {
+			throw CloudErrorUtil.toCoreException("Unable to update files of application " + appName //$NON-NLS-1$
+					+ " as its resources are not known. Publish the application first."); //$NON-NLS-1$
+		}
+		CloudApplication application = appModule.getApplication();
+		boolean started = application != null && AppState.STARTED.equals(application.getState());
+
+		SubMonitor progress = SubMonitor.convert(monitor, 10);
+		Map<String, File> localFiles = appModule.getLocalModule() != null ? CloudUtil
+				.getLocalFiles(getResources(new IModule[] { appModule.getLocalModule() })) : null;
+		final ApplicationArchive archive = patch.apply(ApplicationPatch.getDeployedArchive(appName,
+				deployedResources, localFiles));
+
+		new BehaviourRequest<Void>("Updating files of application " + appName) { //$NON-NLS-1$
+			@Override
+			protected Void doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
+				try {
+					client.uploadApplication(appName, archive);
+				}
+				catch (IOException e) {
+					throw CloudErrorUtil.toCoreException(e);
+				}
+				return null;
+			}
+
+			@Override
+			protected void invalidateCache(ClientRequestCache cache) {
+				cache.invalidateApplication(appName);
+			}
+		}.run(progress.newChild(5));
+		updateDeployedResources(appID, archive);
+
+		if (started) {
+			IModule module = appModule.getLocalModule() != null ? appModule.getLocalModule() : appModule;
+			restartModule(new IModule[] { module }, progress.newChild(5));
+		}
+	}
+
+	/**
+	 * Records the resources of the given archive, once pushed, as the
+	 * resources of the application. Entries of unchanged resources are kept,
+	 * so that the sha1 codes of their local files are not computed again by
+	 * the next publish. Entries of changed resources are marked stale, as
+	 * their local files no longer match the deployed resources, so that the
+	 * next publish computes them again from the local files.
+	 * @param appID
+	 * @param archive pushed archive
+	 */
+	protected void updateDeployedResources(CachedDeployedApplication appID, ApplicationArchive archive) {
+		DeployedResourceCache cache = CloudFoundryPlugin.getDefault().getDeployedResourcesCache();
+		List<String> names = new ArrayList<String>();
+		for (ApplicationArchive.Entry entry : archive.getEntries()) {
+			if (entry.isDirectory()) {
+				continue;
+			}
+			names.add(entry.getName());
+			DeployedResourceEntry deployed = cache.getEntry(appID, entry.getName());
+			if (deployed == null || !Arrays.equals(deployed.getSha1(), entry.getSha1Digest())) {
+				cache.add(appID, new DeployedResourceEntry(entry.getSha1Digest(), entry.getSize(), entry.getName(),
+						DeployedResourceEntry.STALE_TIME_STAMP));
+			}
+		}
+		cache.retainEntries(appID, names);
+		CloudFoundryPlugin.getDefault().saveDeployedResourcesCache();
+	}
+
 	public List<CloudServiceOffering> getServiceOfferings(IProgressMonitor monitor) throws CoreException {
 		return new BehaviourRequest<List<CloudServiceOffering>>("Getting available service options") { //$NON-NLS-1$
 			@Override
@@ -510,16 +976,39 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				client.deleteAllApplications();
 				return null;
 			}
+
+			@Override
+			protected void invalidateCache(ClientRequestCache cache) {
+				cache.invalidateAll();
+			}
 		}.run(monitor);
 	}
 
 	public List<CloudService> getServices(IProgressMonitor monitor) throws CoreException {
+		return getServicesRequest().run(monitor);
+	}
+
+	/**
+	 * Asynchronously gets the services of the current space.
+	 * @see #getServices(IProgressMonitor)
+	 */
+	public ClientRequestFuture<List<CloudService>> getServicesAsync(IProgressMonitor monitor,
+			ClientRequestExecutor.Callback<List<CloudService>> callback) {
+		return getRequestExecutor().submit(getServicesRequest(), monitor, callback);
+	}
+
+	protected BaseClientRequest<List<CloudService>> getServicesRequest() {
 		return new BehaviourRequest<List<CloudService>>("Getting available services") { //$NON-NLS-1$
 			@Override
 			protected List<CloudService> doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
 				return client.getServices();
 			}
-		}.run(monitor);
+
+			@Override
+			protected ClientRequestCache.Key getCacheKey() {
+				return new ClientRequestCache.Key(ClientRequestCache.SERVICES, null);
+			}
+		};
 	}
 
 	/**
@@ -527,23 +1016,61 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 	 * job to execute at certain intervals. This will synch all local
 	 * application modules with the actual deployed applications. This may be a
 	 * long running operation.
+	 * <p/>
+	 * Only modules of applications that were added, changed or removed since
+	 * the last refresh are updated, and an application change event is fired
+	 * for each of them.
 	 * @param monitor
 	 */
 	public void refreshModules(IProgressMonitor monitor) {
 		try {
 			final CloudFoundryServer cloudServer = getCloudFoundryServer();
 
-			// Get updated list of cloud applications from the server
-			List<CloudApplication> applications = getApplications(monitor);
+			// Get updated list of cloud applications from the server. The
+			// request runs on the request executor of the server, so that
+			// refresh operations of many servers, and other asynchronous
+			// requests, do not exceed its concurrent request limit.
+			ClientRequestFuture<List<CloudApplication>> applicationsFuture = getApplicationsAsync(null, null);
+			List<CloudApplication> applications;
+			try {
+				applications = applicationsFuture.getResult(monitor);
+			}
+			finally {
+				// Stops the request if waiting was cancelled
+				applicationsFuture.cancel(true);
+			}
+
+			ApplicationsDelta delta;
+			synchronized (refreshModulesLock) {
+				delta = ApplicationsDelta.compute(lastApplicationsDelta, applications);
+
+				// Local modules may have been added or removed without any
+				// change in the deployed applications
+				int moduleCount = cloudServer.getServer().getModules().length;
+				if (delta.isEmpty() && moduleCount == lastRefreshedModuleCount) {
+					lastApplicationsDelta = delta;
+					notifyModulesRefreshed(false);
+					return;
+				}
 
-			// update applications and deployments from server
-			Map<String, CloudApplication> deployedApplicationsByName = new LinkedHashMap<String, CloudApplication>();
+				// update applications and deployments from server
+				cloudServer.updateModules(delta.getApplications(), delta.isFull() ? null : delta.getAffected());
 
-			for (CloudApplication application : applications) {
-				deployedApplicationsByName.put(application.getName(), application);
+				lastApplicationsDelta = delta;
+				lastRefreshedModuleCount = cloudServer.getServer().getModules().length;
 			}
+			notifyModulesRefreshed(true);
 
-			cloudServer.updateModules(deployedApplicationsByName);
+			Map<String, CloudApplication> deployedApplications = delta.getApplications();
+			for (String appName : delta.getAffected()) {
+				CloudApplication application = deployedApplications.get(appName);
+				if (application != null && AppState.STARTED.equals(application.getState())) {
+					signalApplicationState(appName);
+				}
+				if (!delta.isFull()) {
+					ServerEventHandler.getDefault().fireApplicationChanged(cloudServer, appName, application);
+				}
+			}
 		}
 		catch (Throwable t) {
 			// refresh operations MUST not block any other operation.
@@ -552,6 +1079,12 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		}
 	}
 
+	private void notifyModulesRefreshed(boolean changed) {
+		if (refreshHandler != null) {
+			refreshHandler.modulesRefreshed(changed);
+		}
+	}
+
 	/**
 	 * Resets the client. Note that any cached information used by the previous
 	 * client will be cleared. Credentials used to reset the client will be
@@ -582,8 +1115,15 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 	}
 
 	protected void internalResetClient() {
-		client = null;
+		synchronized (clientLock) {
+			client = null;
+		}
 		applicationUrlLookup = null;
+		requestCache.invalidateAll();
+		synchronized (refreshModulesLock) {
+			// Client may be connected to another space
+			lastApplicationsDelta = null;
+		}
 	}
 
 	/**
@@ -769,25 +1309,63 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		return doDebugModule(true, modules, isIncrementalPublishing, monitor);
 	}
 
-	public void addApplicationLogListener(final String appName, final ApplicationLogListener listener) {
+	/**
+	 * Streams the logs of the given application to the given listener. Errors
+	 * establishing the stream are logged.
+	 * @param appName
+	 * @param listener
+	 * @return token to stop streaming, or null if the stream could not be
+	 * established
+	 */
+	public StreamingLogToken addApplicationLogListener(final String appName, final ApplicationLogListener listener) {
 		if (appName == null || listener == null) {
-			return;
+			return null;
 		}
 
 		try {
-			new BehaviourRequest<Void>("Adding application log listener") //$NON-NLS-1$
-			{
-				@Override
-				protected Void doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
-					client.streamLogs(appName, listener);
-					return null;
-				}
-
-			}.run(new NullProgressMonitor());
+			return streamApplicationLogs(appName, listener, new NullProgressMonitor());
 		}
 		catch (CoreException e) {
 			CloudFoundryPlugin.logError(NLS.bind(Messages.ERROR_APPLICATION_LOG_LISTENER, appName, e.getMessage()), e);
 		}
+		return null;
+	}
+
+	/**
+	 * Streams the logs of the given application to the given listener.
+	 * @param appName
+	 * @param listener
+	 * @param monitor
+	 * @return token to stop streaming
+	 * @throws CoreException if the stream could not be established
+	 */
+	public StreamingLogToken streamApplicationLogs(final String appName, final ApplicationLogListener listener,
+			IProgressMonitor monitor) throws CoreException {
+		return new BehaviourRequest<StreamingLogToken>("Adding application log listener") //$NON-NLS-1$
+		{
+			@Override
+			protected StreamingLogToken doRun(CloudFoundryOperations client, SubMonitor progress)
+					throws CoreException {
+				return client.streamLogs(appName, new ApplicationLogListener() {
+
+					public void onMessage(ApplicationLog log) {
+						// Staging and application output are signs that
+						// the application state is changing
+						signalApplicationState(appName);
+						listener.onMessage(log);
+					}
+
+					public void onComplete() {
+						listener.onComplete();
+					}
+
+					public void onError(Throwable exception) {
+						listener.onError(exception);
+					}
+				});
+			}
+
+		}.run(monitor);
 	}
 
 	public List<ApplicationLog> getRecentApplicationLogs(final String appName) {
@@ -902,6 +1480,13 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 	 */
 	public void updateApplicationInstances(final CloudFoundryApplicationModule module, final int instanceCount,
 			IProgressMonitor monitor) throws CoreException {
+		doUpdateApplicationInstances(module, instanceCount, monitor);
+
+		ServerEventHandler.getDefault().fireInstancesUpdated(getCloudFoundryServer());
+	}
+
+	protected void doUpdateApplicationInstances(final CloudFoundryApplicationModule module, final int instanceCount,
+			IProgressMonitor monitor) throws CoreException {
 		final String appName = module.getApplication().getName();
 		new AppInStoppedStateAwareRequest<Void>("Updating application instances") { //$NON-NLS-1$
 			@Override
@@ -909,9 +1494,134 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				client.updateApplicationInstances(appName, instanceCount);
 				return null;
 			}
+			@Override
+			protected void invalidateCache(ClientRequestCache cache) {
+				cache.invalidateApplication(appName);
+			}
 		}.run(monitor);
+	}
 
-		ServerEventHandler.getDefault().fireInstancesUpdated(getCloudFoundryServer());
+	/**
+	 * Restarts the given applications concurrently, each in the mode it is
+	 * currently running in, bounded by the bulk operation parallelism
+	 * preference. Waits for all the applications to start.
+	 * @param appModules
+	 * @param monitor
+	 * @return status containing the errors of the applications that failed
+	 * to restart. OK if all the applications restarted.
+	 * @see #restartModule(IModule[], IProgressMonitor)
+	 * @see CloudFoundryPlugin#getBulkOperationParallelism()
+	 */
+	public IStatus restartApplications(Collection<CloudFoundryApplicationModule> appModules, IProgressMonitor monitor) {
+		return runOnApplications(Messages.CloudFoundryServerBehaviour_BULK_RESTART, appModules, new ApplicationTask() {
+			public void run(CloudFoundryApplicationModule appModule, IProgressMonitor monitor) throws CoreException {
+				restartModule(new IModule[] { appModule.getLocalModule() }, monitor);
+			}
+		}, monitor);
+	}
+
+	/**
+	 * Stops the given applications concurrently, bounded by the bulk
+	 * operation parallelism preference.
+	 * @param appModules
+	 * @param monitor
+	 * @return status containing the errors of the applications that failed to
+	 * stop. OK if all the applications stopped.
+	 * @see CloudFoundryPlugin#getBulkOperationParallelism()
+	 */
+	public IStatus stopApplications(Collection<CloudFoundryApplicationModule> appModules, IProgressMonitor monitor) {
+		return runOnApplications(Messages.CloudFoundryServerBehaviour_BULK_STOP, appModules, new ApplicationTask() {
+			public void run(CloudFoundryApplicationModule appModule, IProgressMonitor monitor) throws CoreException {
+				getStopAppOperation(new IModule[] { appModule.getLocalModule() }).run(monitor);
+			}
+		}, monitor);
+	}
+
+	/**
+	 * Updates the number of instances of the given applications concurrently,
+	 * bounded by the bulk operation parallelism preference. Listeners are
+	 * notified once, after all the applications are updated.
+	 * @param appModules deployed applications
+	 * @param instanceCount must be 1 or higher
+	 * @param monitor
+	 * @return status containing the errors of the applications that failed to
+	 * be updated. OK if all the applications were updated.
+	 * @see CloudFoundryPlugin#getBulkOperationParallelism()
+	 */
+	public IStatus updateApplicationInstances(Collection<CloudFoundryApplicationModule> appModules,
+			final int instanceCount, IProgressMonitor monitor) {
+		IStatus status = runOnApplications(Messages.CloudFoundryServerBehaviour_BULK_UPDATE_INSTANCES, appModules,
+				new ApplicationTask() {
+					public void run(CloudFoundryApplicationModule appModule, IProgressMonitor monitor)
+							throws CoreException {
+						doUpdateApplicationInstances(appModule, instanceCount, monitor);
+					}
+				}, monitor);
+		try {
+			ServerEventHandler.getDefault().fireInstancesUpdated(getCloudFoundryServer());
+		}
+		catch (CoreException e) {
+			CloudFoundryPlugin.logError(e);
+		}
+		return status;
+	}
+
+	/**
+	 * Operation performed on one application of a bulk operation.
+	 */
+	protected interface ApplicationTask {
+		public void run(CloudFoundryApplicationModule appModule, IProgressMonitor monitor) throws CoreException;
+	}
+
+	/**
+	 * Runs the given task on each of the given applications concurrently,
+	 * bounded by the bulk operation parallelism preference, and waits until
+	 * the task completed on all the applications.
+	 * @param message task name, bound to the number of applications
+	 * @param appModules
+	 * @param task
+	 * @param monitor
+	 * @return status containing the errors of the applications on which the
+	 * task failed, or a cancel status if the operation was cancelled. OK if
+	 * the task succeeded on all the applications.
+	 */
+	protected IStatus runOnApplications(String message, Collection<CloudFoundryApplicationModule> appModules,
+			final ApplicationTask task, IProgressMonitor monitor) {
+		String taskName = NLS.bind(message, appModules.size());
+		SubMonitor subMonitor = SubMonitor.convert(monitor, taskName, appModules.size());
+		MultiStatus multi = new MultiStatus(CloudFoundryPlugin.PLUGIN_ID, 0, taskName, null);
+
+		final IProgressMonitor cancelMonitor = getCancelMonitor(subMonitor);
+		List<Callable<IStatus>> tasks = new ArrayList<Callable<IStatus>>(appModules.size());
+		for (final CloudFoundryApplicationModule appModule : appModules) {
+			tasks.add(new Callable<IStatus>() {
+				public IStatus call() throws Exception {
+					try {
+						task.run(appModule, cancelMonitor);
+					}
+					catch (CoreException e) {
+						return e.getStatus();
+					}
+					catch (OperationCanceledException e) {
+						return Status.CANCEL_STATUS;
+					}
+					return Status.OK_STATUS;
+				}
+			});
+		}
+
+		int parallelism = CloudFoundryPlugin.getDefault() != null ? CloudFoundryPlugin.getDefault()
+				.getBulkOperationParallelism() : CloudFoundryPlugin.DEFAULT_BULK_OPERATION_PARALLELISM_PREFERENCE_VAL;
+		try {
+			runConcurrently("Cloud Foundry bulk operation", tasks, parallelism, multi, subMonitor); //$NON-NLS-1$
+		}
+		finally {
+			subMonitor.done();
+		}
+		if (multi.isOK() && subMonitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+		return multi;
 	}
 
 	public void updatePassword(final String newPassword, IProgressMonitor monitor) throws CoreException {
@@ -948,6 +1658,10 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				client.updateApplicationMemory(appName, memory);
 				return null;
 			}
+			@Override
+			protected void invalidateCache(ClientRequestCache cache) {
+				cache.invalidateApplication(appName);
+			}
 		}.run(monitor);
 	}
 
@@ -959,6 +1673,10 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				client.updateApplicationUris(appName, uris);
 				return null;
 			}
+			@Override
+			protected void invalidateCache(ClientRequestCache cache) {
+				cache.invalidateApplication(appName);
+			}
 		}.run(monitor);
 	}
 
@@ -1063,6 +1781,10 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 				return null;
 			}
+			@Override
+			protected void invalidateCache(ClientRequestCache cache) {
+				cache.invalidateApplication(appName);
+			}
 		}.run(monitor);
 	}
 
@@ -1087,9 +1809,17 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 	 * This API is not suitable to changing credentials. User appropriate API
 	 * for the latter like {@link #updatePassword(String, IProgressMonitor)}
 	 */
-	protected synchronized CloudFoundryOperations getClient(CloudCredentials credentials, IProgressMonitor monitor)
+	protected CloudFoundryOperations getClient(CloudCredentials credentials, IProgressMonitor monitor)
 			throws CoreException {
-		if (client == null) {
+		CloudFoundryOperations client = this.client;
+		if (client != null) {
+			return client;
+		}
+		synchronized (clientLock) {
+			client = this.client;
+			if (client != null) {
+				return client;
+			}
 			CloudFoundryServer cloudServer = getCloudFoundryServer();
 
 			String url = cloudServer.getUrl();
@@ -1109,8 +1839,9 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				client = createClient(url, userName, password, cloudFoundrySpace,
 						cloudServer.getSelfSignedCertificate());
 			}
+			this.client = client;
+			return client;
 		}
-		return client;
 	}
 
 	/**
@@ -1120,7 +1851,7 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 	 * @return
 	 * @throws CoreException
 	 */
-	protected synchronized CloudFoundryOperations getClient(IProgressMonitor monitor) throws CoreException {
+	protected CloudFoundryOperations getClient(IProgressMonitor monitor) throws CoreException {
 		return getClient((CloudCredentials) null, monitor);
 	}
 
@@ -1159,6 +1890,7 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 					}
 
 					client.updateApplicationEnv(appModule.getDeployedApplicationName(), varsMap);
+					requestCache.invalidateApplication(appModule.getDeployedApplicationName());
 
 					// Update the cloud application which contains the updated
 					// environment variables.
@@ -1189,41 +1921,74 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		return AppState.STARTED.equals(application.getState());
 	}
 
-	private boolean waitForStart(CloudFoundryOperations client, String deploymentId, IProgressMonitor monitor)
-			throws InterruptedException {
-		long initialInterval = CloudOperationsConstants.SHORT_INTERVAL;
-		Thread.sleep(initialInterval);
-		long timeLeft = CloudOperationsConstants.DEPLOYMENT_TIMEOUT - initialInterval;
-		while (timeLeft > 0) {
-			CloudApplication deploymentDetails = client.getApplication(deploymentId);
-			if (isApplicationReady(deploymentDetails)) {
-				return true;
-			}
-			Thread.sleep(CloudOperationsConstants.ONE_SECOND_INTERVAL);
-			timeLeft -= CloudOperationsConstants.ONE_SECOND_INTERVAL;
+	/**
+	 * Waits for the application to start. The application is checked at
+	 * increasing intervals, or as soon as its log or instances indicate that
+	 * its state may have changed.
+	 * @return true if the application started, false if the wait timed out
+	 * @throws OperationCanceledException if the wait was cancelled
+	 */
+	private boolean waitForStart(final CloudFoundryOperations client, final String deploymentId,
+			IProgressMonitor monitor) throws CoreException {
+		startWaits.incrementAndGet();
+		try {
+			return new BackoffWait(CloudOperationsConstants.DEPLOYMENT_TIMEOUT).waitFor(
+					getApplicationWaitKey(deploymentId), new BackoffWait.Condition() {
+						public boolean isMet(IProgressMonitor monitor) throws CoreException {
+							if (startWaits.get() > 1) {
+								CloudApplication application = getSharedApplicationState(client, deploymentId,
+										monitor);
+								return application != null && isApplicationReady(application);
+							}
+							return isApplicationReady(client.getApplication(deploymentId));
+						}
+					}, monitor);
+		}
+		finally {
+			startWaits.decrementAndGet();
 		}
-		return false;
 	}
 
-	private CloudApplication getDeployedCloudApplication(CloudFoundryOperations client, String applicationId,
-			IProgressMonitor monitor) {
-		long timeLeft = CloudOperationsConstants.UPLOAD_TIMEOUT;
-		while (timeLeft > 0) {
-			CloudApplication application = client.getApplication(applicationId);
-			if (applicationId.equals(application.getName())) {
+	/**
+	 * Obtains the state of an application from the list of all applications,
+	 * which is cached for a short time and shared by concurrent callers, such
+	 * that several applications waiting to start are checked with one
+	 * request.
+	 * @return application with the given name, or null if it is not deployed
+	 */
+	private CloudApplication getSharedApplicationState(final CloudFoundryOperations client, String appName,
+			IProgressMonitor monitor) throws CoreException {
+		List<CloudApplication> applications = requestCache.get(new ClientRequestCache.Key(
+				ClientRequestCache.APPLICATIONS, null), ClientRequestCache.DEFAULT_TTL,
+				new ClientRequestCache.Loader<List<CloudApplication>>() {
+					public List<CloudApplication> load() throws CoreException {
+						return client.getApplications();
+					}
+				}, monitor);
+		for (CloudApplication application : applications) {
+			if (appName.equals(application.getName())) {
 				return application;
 			}
-			try {
-				Thread.sleep(CloudOperationsConstants.SHORT_INTERVAL);
-			}
-			catch (InterruptedException e) {
-				// Ignore. Try again until time runs out
-			}
-			timeLeft -= CloudOperationsConstants.SHORT_INTERVAL;
 		}
 		return null;
 	}
 
+	private CloudApplication getDeployedCloudApplication(final CloudFoundryOperations client,
+			final String applicationId, IProgressMonitor monitor) throws CoreException {
+		final CloudApplication[] application = new CloudApplication[1];
+		new BackoffWait(CloudOperationsConstants.UPLOAD_TIMEOUT).waitFor(null, new BackoffWait.Condition() {
+			public boolean isMet(IProgressMonitor monitor) throws CoreException {
+				CloudApplication deployed = client.getApplication(applicationId);
+				if (applicationId.equals(deployed.getName())) {
+					application[0] = deployed;
+					return true;
+				}
+				return false;
+			}
+		}, monitor);
+		return application[0];
+	}
+
 	/**
 	 * Will fetch the latest list of cloud applications from the server, and
 	 * update the local module mappings accordingly.
@@ -1349,8 +2114,13 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 						@Override
 						protected Void doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
 							client.deleteApplication(cloudModule.getDeployedApplicationName());
+							removeDeployedResources(cloudModule.getDeployedApplicationName());
 							return null;
 						}
+						@Override
+						protected void invalidateCache(ClientRequestCache cache) {
+							cache.invalidateApplication(cloudModule.getDeployedApplicationName());
+						}
 					}.run(monitor);
 				}
 
@@ -1397,6 +2167,153 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		}
 	}
 
+	/**
+	 * If concurrent publishing is enabled, independent root modules are
+	 * published in parallel, bounded by the publish parallelism preference.
+	 * Each module is published through the WST module publish, which records
+	 * its publish status. Child modules are published afterward, one at a
+	 * time. Otherwise, modules are published serially by the WST framework.
+	 * @see CloudFoundryPlugin#getPublishParallelism()
+	 */
+	@SuppressWarnings("rawtypes")
+	@Override
+	protected void publishModules(int kind, List modules, List deltaKind, MultiStatus multi, IProgressMonitor monitor) {
+		int parallelism = CloudFoundryPlugin.getDefault() != null ? CloudFoundryPlugin.getDefault()
+				.getPublishParallelism() : CloudFoundryPlugin.DEFAULT_PUBLISH_PARALLELISM_PREFERENCE_VAL;
+		if (parallelism <= 1 || modules == null || modules.size() < 2) {
+			super.publishModules(kind, modules, deltaKind, multi, monitor);
+			return;
+		}
+
+		List<IModule[]> rootModules = new ArrayList<IModule[]>();
+		List<Integer> rootDeltaKinds = new ArrayList<Integer>();
+		List<IModule[]> childModules = new ArrayList<IModule[]>();
+		List<Integer> childDeltaKinds = new ArrayList<Integer>();
+
+		for (int i = 0; i < modules.size(); i++) {
+			IModule[] module = (IModule[]) modules.get(i);
+			Integer moduleDeltaKind = (Integer) deltaKind.get(i);
+			if (module.length == 1) {
+				rootModules.add(module);
+				rootDeltaKinds.add(moduleDeltaKind);
+			}
+			else {
+				childModules.add(module);
+				childDeltaKinds.add(moduleDeltaKind);
+			}
+		}
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, modules.size());
+
+		final IProgressMonitor cancelMonitor = getCancelMonitor(subMonitor);
+		List<Callable<IStatus>> tasks = new ArrayList<Callable<IStatus>>(rootModules.size());
+		for (int i = 0; i < rootModules.size(); i++) {
+			final IModule[] module = rootModules.get(i);
+			final int moduleKind = getModulePublishKind(kind, module);
+			final int moduleDeltaKind = rootDeltaKinds.get(i);
+			tasks.add(new Callable<IStatus>() {
+				public IStatus call() throws Exception {
+					return publishModule(moduleKind, module, moduleDeltaKind, cancelMonitor);
+				}
+			});
+		}
+		runConcurrently("Cloud Foundry publish", tasks, parallelism, multi, subMonitor); //$NON-NLS-1$
+
+		for (int i = 0; i < childModules.size() && !subMonitor.isCanceled(); i++) {
+			IModule[] module = childModules.get(i);
+			IStatus status = publishModule(getModulePublishKind(kind, module), module, childDeltaKinds.get(i),
+					subMonitor.newChild(1));
+			if (status != null && !status.isOK()) {
+				multi.add(status);
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @return full publish for modules whose publish state is unknown, as
+	 * done by the WST framework. The given kind otherwise.
+	 */
+	private int getModulePublishKind(int kind, IModule[] module) {
+		return getServer().getModulePublishState(module) == IServer.PUBLISH_STATE_UNKNOWN ? IServer.PUBLISH_FULL
+				: kind;
+	}
+
+	/**
+	 * Progress monitors are not shared across threads. Tasks run concurrently
+	 * only check the calling monitor for cancellation, and progress is
+	 * reported as each task completes.
+	 * @param monitor calling monitor
+	 * @return monitor that is cancelled when the calling monitor is
+	 * cancelled, and that can be used from any thread.
+	 */
+	protected IProgressMonitor getCancelMonitor(final IProgressMonitor monitor) {
+		return new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+	}
+
+	/**
+	 * Runs the given tasks in parallel, and waits until all of them have
+	 * completed. Errors are collected in the given status, and one unit of
+	 * work is reported to the given monitor as each task completes.
+	 * @param threadName prefix of the names of the threads running the tasks
+	 * @param tasks return the status of their execution. Cancelled tasks
+	 * return a status of severity {@link IStatus#CANCEL}, which is not
+	 * collected.
+	 * @param parallelism maximum number of tasks run at the same time
+	 * @param multi
+	 * @param monitor
+	 */
+	protected void runConcurrently(final String threadName, List<Callable<IStatus>> tasks, int parallelism,
+			MultiStatus multi, SubMonitor monitor) {
+		if (tasks.isEmpty()) {
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, tasks.size())),
+				new ThreadFactory() {
+
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, threadName + ' ' + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+
+		try {
+			CompletionService<IStatus> completionService = new ExecutorCompletionService<IStatus>(executor);
+			for (Callable<IStatus> task : tasks) {
+				completionService.submit(task);
+			}
+
+			for (int i = 0; i < tasks.size(); i++) {
+				try {
+					IStatus status = completionService.take().get();
+					if (status != null && !status.isOK() && status.getSeverity() != IStatus.CANCEL) {
+						multi.add(status);
+					}
+				}
+				catch (ExecutionException e) {
+					multi.add(CloudFoundryPlugin.getErrorStatus(e.getCause() != null ? e.getCause() : e));
+				}
+				monitor.worked(1);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			multi.add(Status.CANCEL_STATUS);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
 	private boolean isChildModuleChanged(IModule[] module, IProgressMonitor monitor) {
 		if (module == null || module.length == 0) {
 			return false;
@@ -1631,9 +2548,26 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 			throw CloudErrorUtil.toCoreException(Messages.ERROR_NO_CLOUD_APPLICATION_FOUND);
 		}
 
-		InstancesInfo info = internalUpdateInstancesInfo(appModule, monitor);
-		ApplicationStats stats = internalUpdateStats(appModule, monitor);
-		return info != null && stats != null;
+		// Instances and statistics are independent, so both are requested at
+		// the same time
+		String appName = appModule.getDeployedApplicationName();
+		ClientRequestFuture<InstancesInfo> instancesFuture = getInstancesInfoAsync(appName, null, null);
+		ClientRequestFuture<ApplicationStats> statsFuture = getApplicationStatsAsync(appName, null, null);
+		try {
+			InstancesInfo info = instancesFuture.getResult(monitor);
+			appModule.setInstancesInfo(info);
+
+			ApplicationStats stats = statsFuture.getResult(monitor);
+			appModule.setApplicationStats(stats);
+
+			return info != null && stats != null;
+		}
+		finally {
+			// Stops the remaining request if the other failed, or if waiting
+			// was cancelled. Has no effect on completed requests.
+			instancesFuture.cancel(true);
+			statsFuture.cancel(true);
+		}
 	}
 
 	protected ApplicationStats internalUpdateStats(CloudFoundryApplicationModule appModule, IProgressMonitor monitor)
@@ -1968,6 +2902,11 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 		private DeploymentConfiguration configuration;
 
+		/**
+		 * Timeline of the phases of the current deployment.
+		 */
+		protected DeploymentTimeline timeline = new DeploymentTimeline();
+
 		protected ApplicationOperation(IModule[] modules) {
 			super(CloudFoundryServerBehaviour.this);
 			this.modules = modules;
@@ -2027,7 +2966,15 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 				}
 
-				performDeployment(appModule, monitor);
+				timeline = new DeploymentTimeline();
+				boolean deployed = false;
+				try {
+					performDeployment(appModule, monitor);
+					deployed = true;
+				}
+				finally {
+					completeTimeline(appModule, deployed);
+				}
 
 				// Refresh the application instance stats as well
 				try {
@@ -2051,6 +2998,29 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 		}
 
+		/**
+		 * Completes the timeline of the current deployment, prints it to the
+		 * application console, and adds it to the deployment history of the
+		 * application. Deployments that did not go through any phase, like
+		 * deployments of applications in stopped mode, are ignored.
+		 * @param appModule
+		 * @param succeeded
+		 */
+		protected void completeTimeline(CloudFoundryApplicationModule appModule, boolean succeeded) {
+			if (timeline.isEmpty()) {
+				return;
+			}
+			timeline.complete(succeeded);
+			DeploymentTimeline previous = appModule.getLastSuccessfulDeployment();
+			appModule.addDeploymentTimeline(timeline);
+			try {
+				printlnToConsole(appModule, timeline.format(previous));
+			}
+			catch (CoreException e) {
+				CloudFoundryPlugin.logError(e);
+			}
+		}
+
 		/**
 		 * Prepares an application to either be deployed, started or restarted.
 		 * The main purpose to ensure that the application's deployment
@@ -2179,6 +3149,7 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 					printlnToConsole(appModule, Messages.CONSOLE_GENERATING_ARCHIVE);
 
+					DeploymentTimeline.Phase archivePhase = timeline.beginPhase(PhaseType.ARCHIVE);
 					final ApplicationArchive applicationArchive = generateApplicationArchiveFile(
 							appModule.getDeploymentInfo(), appModule, modules, server, incrementalPublish, monitor);
 					File warFile = null;
@@ -2191,7 +3162,12 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 						}
 
 						CloudFoundryPlugin.trace("War file " + warFile.getName() + " created"); //$NON-NLS-1$ //$NON-NLS-2$
+						archivePhase.setBytes(warFile.length());
 					}
+					else {
+						countFiles(applicationArchive, archivePhase);
+					}
+					timeline.endPhase();
 					// Tell webtools the module has been published
 					setModulePublishState(modules, IServer.PUBLISH_STATE_NONE);
 
@@ -2212,24 +3188,51 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 					final File warFileFin = warFile;
 					final CloudFoundryApplicationModule appModuleFin = appModule;
-					// Now push the application resources to the server
 
-					new BehaviourRequest<Void>("Pushing the application " + deploymentName) { //$NON-NLS-1$
-						@Override
-						protected Void doRun(final CloudFoundryOperations client, SubMonitor progress)
-								throws CoreException {
+					// Keep a cached war from being evicted until it is
+					// uploaded
+					ApplicationArchiveCache archiveCache = CloudFoundryPlugin.getDefault().getApplicationArchiveCache();
+					boolean warRetained = warFile != null && archiveCache.retainArchive(warFile);
+					try {
+						// Now push the application resources to the server
+						new BehaviourRequest<Void>("Pushing the application " + deploymentName) { //$NON-NLS-1$
+							@Override
+							protected Void doRun(final CloudFoundryOperations client, SubMonitor progress)
+									throws CoreException {
 
-							pushApplication(client, appModuleFin, warFileFin, applicationArchive, progress);
+								pushApplication(client, appModuleFin, warFileFin, applicationArchive, progress);
+								timeline.endPhase();
 
-							CloudFoundryPlugin.trace("Application " + deploymentName //$NON-NLS-1$
-									+ " pushed to Cloud Foundry server."); //$NON-NLS-1$
+								CloudFoundryPlugin.trace("Application " + deploymentName //$NON-NLS-1$
+										+ " pushed to Cloud Foundry server."); //$NON-NLS-1$
 
-							cloudServer.tagAsDeployed(module);
+								cloudServer.tagAsDeployed(module);
 
-							return null;
-						}
+								return null;
+							}
 
-					}.run(monitor);
+							@Override
+							protected void invalidateCache(ClientRequestCache cache) {
+								cache.invalidateApplication(deploymentName);
+							}
+
+						}.run(monitor);
+					}
+					finally {
+						if (warRetained) {
+							archiveCache.releaseArchive(warFile);
+						}
+						// Archives read from a local file, such as a
+						// packaged jar, release the file once pushed
+						if (applicationArchive instanceof Closeable) {
+							try {
+								((Closeable) applicationArchive).close();
+							}
+							catch (IOException e) {
+								CloudFoundryPlugin.logError(e);
+							}
+						}
+					}
 
 					printlnToConsole(appModule, Messages.CONSOLE_APP_PUSHED_MESSAGE);
 
@@ -2303,81 +3306,115 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				printlnToConsole(appModule, Messages.CONSOLE_APP_PUSH_MESSAGE);
 				// Now push the application content.
 				if (warFile != null) {
+					timeline.beginPhase(PhaseType.UPLOAD).setBytes(warFile.length());
 					client.uploadApplication(appName, warFile);
 				}
 				else if (applicationArchive != null) {
-					// Handle the incremental publish case separately as it
-					// requires
-					// a partial war file generation of only the changed
-					// resources
-					// AFTER
-					// the server determines the list of missing file names.
-					if (applicationArchive instanceof CachingApplicationArchive) {
-						final CachingApplicationArchive cachingArchive = (CachingApplicationArchive) applicationArchive;
-						client.uploadApplication(appName, cachingArchive, new UploadStatusCallback() {
-
-							public void onProcessMatchedResources(int length) {
-
-							}
-
-							public void onMatchedFileNames(Set<String> matchedFileNames) {
-								cachingArchive.generatePartialWarFile(matchedFileNames);
-							}
-
-							public void onCheckResources() {
-
-							}
-
-							public boolean onProgress(String status) {
-								return false;
-							}
-						});
+					// In the incremental publish case, a partial archive of
+					// only the changed resources is generated AFTER the server
+					// determines the list of missing file names.
+					client.uploadApplication(appName, applicationArchive, new TimelineUploadStatusCallback(
+							applicationArchive));
+					// Persist the sha1 codes computed for the archive now,
+					// rather than only at shutdown
+					CloudFoundryPlugin.getDefault().saveDeployedResourcesCache();
+				}
+				else {
+					throw CloudErrorUtil
+							.toCoreException("Failed to deploy application " + appModule.getDeploymentInfo().getDeploymentName() + //$NON-NLS-1$
+									" since no deployable war or application archive file was generated."); //$NON-NLS-1$
+				}
+			}
+			catch (IOException e) {
+				throw new CoreException(CloudFoundryPlugin.getErrorStatus("Failed to deploy application " + //$NON-NLS-1$ 
+						appModule.getDeploymentInfo().getDeploymentName() + 
+						" due to " + e.getMessage(), e)); //$NON-NLS-1$
+			}
 
-						// Once the application has run, do a clean up of the
-						// sha1
-						// cache for deleted resources
+		}
 
-					}
-					else {
-						client.uploadApplication(appName, applicationArchive, new UploadStatusCallback() {
+		/**
+		 * Records the number of files in the given archive, and their total
+		 * size, in the given phase.
+		 */
+		protected void countFiles(ApplicationArchive archive, DeploymentTimeline.Phase phase) {
+			int files = 0;
+			long bytes = 0;
+			for (ApplicationArchive.Entry entry : archive.getEntries()) {
+				if (!entry.isDirectory()) {
+					files++;
+					bytes += Math.max(entry.getSize(), 0);
+				}
+			}
+			phase.setFiles(files);
+			phase.setBytes(bytes);
+		}
 
-							public void onProcessMatchedResources(int length) {
+		/**
+		 * Records the resource matching and upload phases of an application
+		 * archive upload in the deployment timeline. If the archive is a
+		 * {@link CachingApplicationArchive}, it is restricted to the resources
+		 * that are not known to the server before being uploaded.
+		 */
+		protected class TimelineUploadStatusCallback implements UploadStatusCallback {
 
-							}
+			private final ApplicationArchive archive;
 
-							public void onMatchedFileNames(Set<String> matchedFileNames) {
-								// try {
-								// printlnToConsole(appModule, ".", false,
-								// false, monitor);
-								// }
-								// catch (CoreException e) {
-								// CloudFoundryPlugin.logError(e);
-								// }
-							}
+			private DeploymentTimeline.Phase matchingPhase;
 
-							public void onCheckResources() {
+			private DeploymentTimeline.Phase uploadPhase;
 
-							}
+			public TimelineUploadStatusCallback(ApplicationArchive archive) {
+				this.archive = archive;
+			}
 
-							public boolean onProgress(String status) {
-								return false;
-							}
-						});
+			public void onCheckResources() {
+				matchingPhase = timeline.beginPhase(PhaseType.RESOURCE_MATCHING);
+			}
 
+			public void onMatchedFileNames(Set<String> matchedFileNames) {
+				if (matchedFileNames == null) {
+					matchedFileNames = Collections.emptySet();
+				}
+				int matchedFiles = 0;
+				long matchedBytes = 0;
+				int uploadedFiles = 0;
+				for (ApplicationArchive.Entry entry : archive.getEntries()) {
+					if (entry.isDirectory()) {
+						continue;
+					}
+					if (matchedFileNames.contains(entry.getName())) {
+						matchedFiles++;
+						matchedBytes += Math.max(entry.getSize(), 0);
+					}
+					else {
+						uploadedFiles++;
 					}
 				}
-				else {
-					throw CloudErrorUtil
-							.toCoreException("Failed to deploy application " + appModule.getDeploymentInfo().getDeploymentName() + //$NON-NLS-1$
-									" since no deployable war or application archive file was generated."); //$NON-NLS-1$
+				if (matchingPhase != null) {
+					matchingPhase.setFiles(matchedFiles);
+					matchingPhase.setBytes(matchedBytes);
+				}
+
+				if (archive instanceof CachingApplicationArchive) {
+					((CachingApplicationArchive) archive).generatePartialArchive(matchedFileNames);
 				}
+
+				// The number of bytes to upload is known once the client has
+				// processed the matched resources
+				uploadPhase = timeline.beginPhase(PhaseType.UPLOAD);
+				uploadPhase.setFiles(uploadedFiles);
 			}
-			catch (IOException e) {
-				throw new CoreException(CloudFoundryPlugin.getErrorStatus("Failed to deploy application " + //$NON-NLS-1$ 
-						appModule.getDeploymentInfo().getDeploymentName() + 
-						" due to " + e.getMessage(), e)); //$NON-NLS-1$
+
+			public void onProcessMatchedResources(int length) {
+				if (uploadPhase != null) {
+					uploadPhase.setBytes(length);
+				}
 			}
 
+			public boolean onProgress(String status) {
+				return false;
+			}
 		}
 	}
 
@@ -2473,6 +3510,7 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 			if (!found) {
 
 				printlnToConsole(appModule, Messages.CONSOLE_APP_CREATION);
+				timeline.beginPhase(PhaseType.CREATE);
 
 				Staging staging = appModule.getDeploymentInfo().getStaging();
 				List<String> uris = appModule.getDeploymentInfo().getUris() != null ? appModule.getDeploymentInfo()
@@ -2484,6 +3522,7 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 					staging = new Staging();
 				}
 				client.createApplication(appName, staging, appModule.getDeploymentInfo().getMemory(), uris, services);
+				timeline.endPhase();
 			}
 			super.pushApplication(client, appModule, warFile, applicationArchive, monitor);
 		}
@@ -2559,6 +3598,12 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 			// builds
 
 			archive = getIncrementalPublishArchive(deploymentInfo, modules);
+
+			// Compute sha1 codes for changed or uncached resources in parallel
+			// now, rather than one at a time when the client requests them
+			if (archive instanceof CachingApplicationArchive) {
+				((CachingApplicationArchive) archive).computeResourceEntries(monitor);
+			}
 		}
 		return archive;
 
@@ -2613,7 +3658,8 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		IModuleResourceDelta[] deltas = getPublishedResourceDelta(modules);
 		List<IModuleResource> changedResources = getChangedResources(deltas);
 		ApplicationArchive moduleArchive = new CachingApplicationArchive(Arrays.asList(allResources), changedResources,
-				modules[0], deploymentInfo.getDeploymentName());
+				modules[0], getCachedDeployedApplication(deploymentInfo.getDeploymentName()), CloudFoundryPlugin
+						.getDefault().getStreamIncrementalPublish());
 
 		return moduleArchive;
 	}
@@ -2675,6 +3721,7 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 					CloudFoundryPlugin.getCallback().startApplicationConsole(getCloudFoundryServer(), cloudModule, 0,
 							monitor);
 
+					timeline.beginPhase(PhaseType.STAGING);
 					new BehaviourRequest<Void>("Starting application " +deploymentName) { //$NON-NLS-1$
 						@Override
 						protected Void doRun(final CloudFoundryOperations client, SubMonitor progress)
@@ -2704,11 +3751,17 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 							}
 							return null;
 						}
+
+						@Override
+						protected void invalidateCache(ClientRequestCache cache) {
+							cache.invalidateApplication(deploymentName);
+						}
 					}.run(monitor);
 
 					// This should be staging aware, in order to reattempt on
 					// staging related issues when checking if an app has
 					// started or not
+					timeline.beginPhase(PhaseType.STARTING);
 					new StagingAwareRequest<Void>("Waiting for application to start: }" + deploymentName) { //$NON-NLS-1$
 						@Override
 						protected Void doRun(final CloudFoundryOperations client, SubMonitor progress)
@@ -2723,12 +3776,12 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 											"Starting of " + cloudModule.getDeployedApplicationName() + " timed out")); //$NON-NLS-1$ //$NON-NLS-2$
 								}
 							}
-							catch (InterruptedException e) {
+							catch (OperationCanceledException e) {
 								server.setModuleState(modules, IServer.STATE_STOPPED);
-								throw new OperationCanceledException();
+								throw e;
 							}
 
-							AbstractAppStateTracker curTracker = CloudFoundryPlugin.getAppStateTracker(getServer()
+							final AbstractAppStateTracker curTracker = CloudFoundryPlugin.getAppStateTracker(getServer()
 									.getServerType().getId(), cloudModule);
 							if (curTracker != null) {
 								curTracker.setServer(getServer());
@@ -2741,22 +3794,24 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 							if (curTracker != null) {
 								// Wait for application to be ready or getting
-								// out of the starting state.
-								boolean isAppStarting = true;
-								while (isAppStarting && !progress.isCanceled()) {
-									if (curTracker.getApplicationState(cloudModule) == IServer.STATE_STARTING) {
-										try {
-											Thread.sleep(200);
-										}
-										catch (InterruptedException e) {
-											// Do nothing
-										}
-									}
-									else {
-										isAppStarting = false;
-									}
+								// out of the starting state. The tracker is
+								// updated locally from the application output,
+								// so it can be checked often.
+								try {
+									new BackoffWait(200, CloudOperationsConstants.ONE_SECOND_INTERVAL,
+											CloudOperationsConstants.DEPLOYMENT_TIMEOUT).waitFor(
+											getApplicationWaitKey(deploymentName), new BackoffWait.Condition() {
+												public boolean isMet(IProgressMonitor monitor) {
+													return curTracker.getApplicationState(cloudModule) != IServer.STATE_STARTING;
+												}
+											}, progress);
+								}
+								catch (OperationCanceledException e) {
+									// Stop waiting, the application is started
+								}
+								finally {
+									curTracker.stopTracking(cloudModule);
 								}
-								curTracker.stopTracking(cloudModule);
 							}
 
 							server.setModuleState(modules, IServer.STATE_STARTED);
@@ -2764,6 +3819,7 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 							return null;
 						}
 					}.run(monitor);
+					timeline.endPhase();
 				}
 				else {
 					// User has selected to deploy the app in STOP mode
@@ -2831,6 +3887,10 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 						client.stopApplication(cloudModule.getDeployedApplicationName());
 						return null;
 					}
+					@Override
+					protected void invalidateCache(ClientRequestCache cache) {
+						cache.invalidateApplication(cloudModule.getDeployedApplicationName());
+					}
 				}.run(monitor);
 
 				server.setModuleState(modules, IServer.STATE_STOPPED);
@@ -2915,6 +3975,31 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 			super(label);
 		}
 
+		@Override
+		public T run(IProgressMonitor monitor) throws CoreException {
+			try {
+				return super.run(monitor);
+			}
+			finally {
+				invalidateCache(requestCache);
+			}
+		}
+
+		/**
+		 * Invalidates cached results of other requests that are affected by
+		 * this request, once this request completes, whether it succeeded or
+		 * not. Requests that modify applications or services must override.
+		 * @param cache request cache of the behaviour. Never null.
+		 */
+		protected void invalidateCache(ClientRequestCache cache) {
+			// Nothing by default
+		}
+
+		@Override
+		protected ClientRequestCache getRequestCache() {
+			return requestCache;
+		}
+
 		@Override
 		protected CloudFoundryOperations getClient(IProgressMonitor monitor) throws CoreException {
 			return CloudFoundryServerBehaviour.this.getClient(monitor);
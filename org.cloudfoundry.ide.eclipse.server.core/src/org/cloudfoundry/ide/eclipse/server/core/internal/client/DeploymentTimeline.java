@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.client;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.Messages;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Timeline of the phases of one deployment of an application, like generating
+ * the application archive, matching resources already known to the server,
+ * uploading the remaining resources, staging and waiting for the application
+ * to start, with their durations and, where applicable, the number of files
+ * and bytes they processed.
+ * <p/>
+ * Phases are sequential: beginning a phase ends the current one. A phase may
+ * appear more than once, for example if an upload is attempted again after
+ * logging in.
+ * <p/>
+ * Timelines of past deployments are kept in the
+ * {@link CloudFoundryApplicationModule} so that deployments can be compared.
+ */
+public class DeploymentTimeline {
+
+	public enum PhaseType {
+		ARCHIVE(Messages.DeploymentTimeline_PHASE_ARCHIVE),
+		CREATE(Messages.DeploymentTimeline_PHASE_CREATE),
+		RESOURCE_MATCHING(Messages.DeploymentTimeline_PHASE_RESOURCE_MATCHING),
+		UPLOAD(Messages.DeploymentTimeline_PHASE_UPLOAD),
+		STAGING(Messages.DeploymentTimeline_PHASE_STAGING),
+		STARTING(Messages.DeploymentTimeline_PHASE_STARTING);
+
+		private final String label;
+
+		private PhaseType(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	public static class Phase {
+
+		private final PhaseType type;
+
+		private final long startTime;
+
+		private long endTime = -1;
+
+		private int files = -1;
+
+		private long bytes = -1;
+
+		Phase(PhaseType type) {
+			this.type = type;
+			this.startTime = System.currentTimeMillis();
+		}
+
+		public PhaseType getType() {
+			return type;
+		}
+
+		/**
+		 * 
+		 * @return duration of the phase in milliseconds, or the time elapsed
+		 * since the phase began if it has not ended yet.
+		 */
+		public synchronized long getDuration() {
+			return (endTime >= 0 ? endTime : System.currentTimeMillis()) - startTime;
+		}
+
+		synchronized void end() {
+			if (endTime < 0) {
+				endTime = System.currentTimeMillis();
+			}
+		}
+
+		/**
+		 * 
+		 * @return number of files processed in this phase, or -1 if not
+		 * applicable or unknown
+		 */
+		public synchronized int getFiles() {
+			return files;
+		}
+
+		public synchronized void setFiles(int files) {
+			this.files = files;
+		}
+
+		/**
+		 * 
+		 * @return number of bytes processed in this phase, or -1 if not
+		 * applicable or unknown
+		 */
+		public synchronized long getBytes() {
+			return bytes;
+		}
+
+		public synchronized void setBytes(long bytes) {
+			this.bytes = bytes;
+		}
+	}
+
+	private final long startTime = System.currentTimeMillis();
+
+	private long endTime = -1;
+
+	private boolean succeeded;
+
+	private final List<Phase> phases = new ArrayList<Phase>();
+
+	private Phase currentPhase;
+
+	/**
+	 * Ends the current phase, if any, and begins a new phase.
+	 * @param type
+	 * @return the new phase. Never null.
+	 */
+	public synchronized Phase beginPhase(PhaseType type) {
+		endPhase();
+		currentPhase = new Phase(type);
+		phases.add(currentPhase);
+		return currentPhase;
+	}
+
+	/**
+	 * Ends the current phase, if any.
+	 */
+	public synchronized void endPhase() {
+		if (currentPhase != null) {
+			currentPhase.end();
+			currentPhase = null;
+		}
+	}
+
+	/**
+	 * Ends the current phase, if any, and the deployment.
+	 * @param succeeded true if the deployment completed successfully
+	 */
+	public synchronized void complete(boolean succeeded) {
+		endPhase();
+		if (endTime < 0) {
+			endTime = System.currentTimeMillis();
+			this.succeeded = succeeded;
+		}
+	}
+
+	public synchronized boolean isSucceeded() {
+		return succeeded;
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * 
+	 * @return duration of the deployment in milliseconds, or the time
+	 * elapsed since the deployment began if it is not complete.
+	 */
+	public synchronized long getDuration() {
+		return (endTime >= 0 ? endTime : System.currentTimeMillis()) - startTime;
+	}
+
+	/**
+	 * 
+	 * @return copy of the phases, in the order they began. Never null.
+	 */
+	public synchronized List<Phase> getPhases() {
+		return new ArrayList<Phase>(phases);
+	}
+
+	public synchronized boolean isEmpty() {
+		return phases.isEmpty();
+	}
+
+	/**
+	 * 
+	 * @param type
+	 * @return total duration in milliseconds of all the phases of the given
+	 * type, or -1 if there is no such phase.
+	 */
+	public synchronized long getDuration(PhaseType type) {
+		long duration = -1;
+		for (Phase phase : phases) {
+			if (phase.getType() == type) {
+				duration = Math.max(duration, 0) + phase.getDuration();
+			}
+		}
+		return duration;
+	}
+
+	/**
+	 * Formats the timeline for display in the application console, one line
+	 * per phase.
+	 * @param previous timeline of an earlier deployment whose durations are
+	 * shown for comparison. May be null.
+	 * @return formatted timeline, without trailing line separator
+	 */
+	public synchronized String format(DeploymentTimeline previous) {
+		StringBuilder builder = new StringBuilder();
+		builder.append(NLS.bind(succeeded ? Messages.DeploymentTimeline_SUMMARY
+				: Messages.DeploymentTimeline_SUMMARY_FAILED, getDuration()));
+		appendPrevious(builder, previous != null ? previous.getDuration() : -1);
+
+		for (Phase phase : phases) {
+			builder.append('\n');
+			builder.append("  "); //$NON-NLS-1$
+			builder.append(NLS.bind(Messages.DeploymentTimeline_PHASE, phase.getType().getLabel(), phase.getDuration()));
+			if (phase.getFiles() >= 0) {
+				builder.append(", "); //$NON-NLS-1$
+				builder.append(NLS.bind(Messages.DeploymentTimeline_FILES, phase.getFiles()));
+			}
+			if (phase.getBytes() >= 0) {
+				builder.append(", "); //$NON-NLS-1$
+				builder.append(NLS.bind(Messages.DeploymentTimeline_BYTES, phase.getBytes()));
+			}
+			appendPrevious(builder, previous != null ? previous.getDuration(phase.getType()) : -1);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Formats the deployment history of an application for display in the
+	 * application console. Each timeline is preceded by the time its
+	 * deployment started, and compared with the previous successful
+	 * deployment in the history.
+	 * @param history timelines, oldest first, as returned by
+	 * {@link CloudFoundryApplicationModule#getDeploymentHistory()}
+	 * @return formatted history, without trailing line separator
+	 */
+	public static String formatHistory(List<DeploymentTimeline> history) {
+		if (history.isEmpty()) {
+			return Messages.DeploymentTimeline_NO_HISTORY;
+		}
+		DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.MEDIUM);
+		StringBuilder builder = new StringBuilder();
+		DeploymentTimeline previous = null;
+		for (DeploymentTimeline timeline : history) {
+			if (builder.length() > 0) {
+				builder.append('\n');
+			}
+			builder.append(NLS.bind(Messages.DeploymentTimeline_STARTED,
+					dateFormat.format(new Date(timeline.getStartTime()))));
+			builder.append('\n');
+			builder.append(timeline.format(previous));
+			if (timeline.isSucceeded()) {
+				previous = timeline;
+			}
+		}
+		return builder.toString();
+	}
+
+	protected static void appendPrevious(StringBuilder builder, long previousDuration) {
+		if (previousDuration >= 0) {
+			builder.append(" ("); //$NON-NLS-1$
+			builder.append(NLS.bind(Messages.DeploymentTimeline_PREVIOUS, previousDuration));
+			builder.append(')');
+		}
+	}
+}
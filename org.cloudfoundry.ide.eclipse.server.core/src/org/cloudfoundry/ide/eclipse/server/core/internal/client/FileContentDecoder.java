@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.client;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Recovers the bytes of successive ranges of a file fetched by byte range
+ * from {@link CloudFoundryServerBehaviour}, or decodes successive ranges of a
+ * text file.
+ * <p/>
+ * The content of a range is returned by the client as a string. If the file
+ * server does not declare a charset for the file, which is the usual case,
+ * the client decodes the bytes of the range as {@link #CONTENT_CHARSET}, so
+ * that each character is exactly one byte of the file and binary content is
+ * preserved. Such content is recognised by all its characters being at most
+ * <code>0xFF</code>, and its bytes are decoded incrementally, so that a
+ * character split between two ranges is returned once the range holding its
+ * last bytes is decoded. Malformed input is replaced.
+ * <p/>
+ * Otherwise the server declared a charset, and the client already decoded the
+ * content with it. The content is then returned as is, and its number of
+ * bytes is that of its encoding with the charset of the file. A character
+ * split at the end of the range, which the client decoded as replacement
+ * characters, is left out, so that the next range starts at its first byte.
+ * As the server treats all ranges of a file alike, once a range of a file is
+ * found to be decoded, so are the following ones, even if all their
+ * characters are at most <code>0xFF</code>. Ranges decoded by the client
+ * before that, which only contain such characters, cannot be told apart from
+ * bytes.
+ */
+public class FileContentDecoder {
+
+	/**
+	 * Charset the content of file ranges is decoded with by the client, if
+	 * the file server does not declare one.
+	 */
+	public static final Charset CONTENT_CHARSET = Charset.forName("ISO-8859-1"); //$NON-NLS-1$
+
+	private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+	/**
+	 * Maximum number of replacement characters a character split at the end
+	 * of a range may be decoded as.
+	 */
+	private static final int MAX_SPLIT_CHARACTER_LENGTH = 3;
+
+	private final Charset charset;
+
+	private final CharsetDecoder decoder;
+
+	/**
+	 * Bytes of a character that is not complete yet.
+	 */
+	private byte[] pending = new byte[0];
+
+	private int byteCount;
+
+	/**
+	 * Whether ranges of the file are known to be decoded by the client.
+	 */
+	private boolean decodedByClient;
+
+	/**
+	 *
+	 * @param charset charset of the file, used to decode text. Must not be
+	 * null.
+	 */
+	public FileContentDecoder(Charset charset) {
+		this.charset = charset;
+		decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	/**
+	 * Decodes the content of the next range of a text file.
+	 * @param content range of the file as returned by the client. Must not be
+	 * null.
+	 * @return decoded text. May be empty if the range only contained part of
+	 * a character.
+	 */
+	public synchronized String decode(String content) {
+		if (decodedByClient || !isByteContent(content)) {
+			// Already decoded by the client
+			decodedByClient = true;
+			decoder.reset();
+			pending = new byte[0];
+			String text = trimSplitCharacter(content);
+			byteCount = text.getBytes(charset).length;
+			return text;
+		}
+
+		byte[] bytes = content.getBytes(CONTENT_CHARSET);
+		byteCount = bytes.length;
+
+		ByteBuffer in = ByteBuffer.allocate(pending.length + bytes.length);
+		in.put(pending).put(bytes).flip();
+		CharBuffer out = CharBuffer.allocate((int) (in.remaining() * decoder.maxCharsPerByte()) + 1);
+		CoderResult result = decoder.decode(in, out, false);
+		while (result.isOverflow()) {
+			CharBuffer larger = CharBuffer.allocate(out.capacity() * 2);
+			out.flip();
+			larger.put(out);
+			out = larger;
+			result = decoder.decode(in, out, false);
+		}
+
+		// Bytes of a character that is not complete yet are decoded with the
+		// next range
+		pending = new byte[in.remaining()];
+		in.get(pending);
+		out.flip();
+		return out.toString();
+	}
+
+	/**
+	 *
+	 * @return number of bytes of the file contained in the last decoded
+	 * range, including those of a character that is not complete yet. The
+	 * next range starts after them.
+	 */
+	public synchronized int getByteCount() {
+		return byteCount;
+	}
+
+	/**
+	 * Discards bytes of a character that is not complete yet, when the next
+	 * range does not follow the last decoded one. Whether ranges of the file
+	 * are decoded by the client is kept.
+	 */
+	public synchronized void reset() {
+		decoder.reset();
+		pending = new byte[0];
+		byteCount = 0;
+	}
+
+	/**
+	 * Recovers the bytes of the next range of a file, which may be binary.
+	 * If the client already decoded the content, a character split at the end
+	 * of the range is left out, unless the range holds nothing else, so that
+	 * the end of the file is always reached.
+	 * @param content range of the file as returned by the client. Must not be
+	 * null.
+	 * @return bytes of the range. The next range starts after them.
+	 */
+	public synchronized byte[] getBytes(String content) {
+		byte[] bytes;
+		if (decodedByClient || !isByteContent(content)) {
+			decodedByClient = true;
+			String text = trimSplitCharacter(content);
+			bytes = (text.length() > 0 ? text : content).getBytes(charset);
+		}
+		else {
+			bytes = content.getBytes(CONTENT_CHARSET);
+		}
+		byteCount = bytes.length;
+		return bytes;
+	}
+
+	/**
+	 *
+	 * @return true if ranges of the file are known to be decoded by the
+	 * client, in which case the number of bytes of a range may differ from the
+	 * requested size even if the file does not end there.
+	 */
+	public synchronized boolean isDecodedByClient() {
+		return decodedByClient;
+	}
+
+	/**
+	 *
+	 * @param content range of a file as returned by the client
+	 * @return true if each character of the content is one byte of the file,
+	 * false if the client decoded the content with a charset declared by the
+	 * server
+	 */
+	public static boolean isByteContent(String content) {
+		for (int i = 0; i < content.length(); i++) {
+			if (content.charAt(i) > 0xFF) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 *
+	 * @param content range of a file already decoded by the client
+	 * @return content without the replacement characters a character split at
+	 * the end of the range was decoded as. May be empty.
+	 */
+	public static String trimSplitCharacter(String content) {
+		int end = content.length();
+		while (end > 0 && content.length() - end < MAX_SPLIT_CHARACTER_LENGTH
+				&& content.charAt(end - 1) == REPLACEMENT_CHARACTER) {
+			end--;
+		}
+		return content.substring(0, end);
+	}
+}
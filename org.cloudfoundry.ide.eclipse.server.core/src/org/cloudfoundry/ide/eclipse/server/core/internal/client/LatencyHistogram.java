@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in milliseconds, with buckets whose width grows with
+ * the recorded value, such that any recorded value is known within 12.5%
+ * while using a fixed, small amount of memory, regardless of the range of
+ * values. Values below 8 are recorded exactly.
+ * <p/>
+ * Recording is lock free and can be done concurrently. Reading percentiles
+ * while values are recorded returns approximate results.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+
+	/**
+	 * Number of buckets per power of two.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong total = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * 
+	 * @param value in milliseconds. Negative values are recorded as 0.
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		buckets.incrementAndGet(getBucket(value));
+		count.incrementAndGet();
+		total.addAndGet(value);
+		long currentMax;
+		while (value > (currentMax = max.get())) {
+			if (max.compareAndSet(currentMax, value)) {
+				break;
+			}
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * 
+	 * @return mean of the recorded values, or 0 if no value was recorded
+	 */
+	public double getMean() {
+		long currentCount = count.get();
+		return currentCount > 0 ? (double) total.get() / currentCount : 0;
+	}
+
+	/**
+	 * 
+	 * @param percentile between 0 and 100
+	 * @return the highest value, within the precision of the histogram, below
+	 * which the given percentage of recorded values fall, or 0 if no value was
+	 * recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long currentCount = count.get();
+		if (currentCount == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(percentile / 100 * currentCount));
+		long cumulative = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			cumulative += buckets.get(i);
+			if (cumulative >= target) {
+				return Math.min(getBucketUpperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	static int getBucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		// Position of the highest bit, which is at least SUB_BUCKET_BITS
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+		return (shift + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long getBucketUpperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowerBound = ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS)) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+}
@@ -91,6 +91,16 @@ public abstract class LocalServerRequest<T> extends ClientRequest<T> {
 		return getCloudServer().getBehaviour().getClient(monitor);
 	}
 
+	@Override
+	protected String getMetricsScope() {
+		try {
+			return getCloudServer().getServer().getName();
+		}
+		catch (CoreException e) {
+			return null;
+		}
+	}
+
 	/**
 	 * 
 	 * @return non-null Cloud Foundry server instance. If it cannot be resolved,
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.client;
+
+/**
+ * Thrown by a client request that runs asynchronously, instead of sleeping
+ * the current thread, when the request failed and must be attempted again
+ * after an interval. The {@link ClientRequestExecutor} catches it and
+ * schedules the next attempt.
+ */
+class ReattemptRequestException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long interval;
+
+	ReattemptRequestException(long interval, Throwable cause) {
+		super(cause);
+		this.interval = interval;
+	}
+
+	/**
+	 * 
+	 * @return time in milliseconds to wait before the next attempt.
+	 */
+	long getInterval() {
+		return interval;
+	}
+}
@@ -19,6 +19,7 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.core.internal.client;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -26,6 +27,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cloudfoundry.caldecott.TunnelException;
 import org.cloudfoundry.caldecott.client.HttpTunnelFactory;
@@ -42,13 +48,15 @@ import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryCallback;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
 import org.cloudfoundry.ide.eclipse.server.core.internal.tunnel.CaldecottTunnelDescriptor;
+import org.cloudfoundry.ide.eclipse.server.core.internal.tunnel.InstrumentedTunnelFactory;
+import org.cloudfoundry.ide.eclipse.server.core.internal.tunnel.TunnelMetrics;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.wst.server.core.IModule;
 import org.springframework.core.task.TaskExecutor;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
 
 /**
  * Primary handler for all Caldecott operations, like starting and stopping a
@@ -80,6 +88,28 @@ public class TunnelBehaviour {
 
 	public static final int MAX_PORT = 49150;
 
+	/**
+	 * Number of ephemeral ports tried if the preferred local port of a new
+	 * tunnel is taken.
+	 */
+	private static final int EPHEMERAL_PORT_ATTEMPTS = 3;
+
+	/**
+	 * Maximum number of threads used by all tunnel servers together. Each
+	 * tunnel server uses one thread to accept connections, and each open
+	 * connection uses two threads to relay data in both directions.
+	 */
+	private static final int MAX_TUNNEL_THREADS = 256;
+
+	/**
+	 * Time in seconds an idle tunnel thread is kept alive.
+	 */
+	private static final long TUNNEL_THREAD_KEEP_ALIVE = 60;
+
+	private static final TunnelPortAllocator PORT_ALLOCATOR = new TunnelPortAllocator(BASE_PORT, MAX_PORT);
+
+	private static ThreadPoolExecutor tunnelThreadPool;
+
 	public TunnelBehaviour(CloudFoundryServer cloudServer) {
 		this.cloudServer = cloudServer;
 	}
@@ -251,15 +281,16 @@ public class TunnelBehaviour {
 					// Unable to handle proxy URL. Attempt to connect anyway.
 				}
 
-				TunnelFactory tunnelFactory = new HttpTunnelFactory(url, host, port, auth, proxyConfiguration);
+				TunnelMetrics metrics = new TunnelMetrics();
+				TunnelFactory tunnelFactory = new InstrumentedTunnelFactory(new HttpTunnelFactory(url, host, port,
+						auth, proxyConfiguration), metrics);
 
 				List<TunnelServer> tunnelServers = new ArrayList<TunnelServer>(1);
 				int localPort = getTunnelServer(tunnelFactory, tunnelServers);
 
 				if (tunnelServers.isEmpty() || localPort == -1) {
 					CloudFoundryPlugin.logError("Tunnel information obtained for " + serviceName + //$NON-NLS-1$
-							", but failed to create tunnel server for ports between: " + new Integer(BASE_PORT)
-							+ " and " + new Integer(MAX_PORT)); //$NON-NLS-1$ //$NON-NLS-2$
+							", but failed to create tunnel server on a local port"); //$NON-NLS-1$
 					return null;
 				}
 
@@ -269,7 +300,7 @@ public class TunnelBehaviour {
 				tunnelServer.start();
 
 				CaldecottTunnelDescriptor descriptor = new CaldecottTunnelDescriptor(serviceUserName, servicePassword,
-						name, serviceName, dataBase, tunnelServer, localPort);
+						name, serviceName, dataBase, tunnelServer, localPort, metrics);
 
 				CloudFoundryPlugin.getCaldecottTunnelCache().addDescriptor(cloudServer, descriptor);
 				tunnel.add(descriptor);
@@ -314,40 +345,44 @@ public class TunnelBehaviour {
 	}
 
 	/**
-	 * 
+	 * Creates a tunnel server on the port following the last port used for a
+	 * tunnel, between {@link #BASE_PORT} and {@link #MAX_PORT}. If that port is
+	 * taken, a few ephemeral ports chosen by the operating system are tried
+	 * instead, rather than probing the whole range port by port.
 	 * @param tunnelFactory
 	 * @param server non null, where created tunnel will be stored.
-	 * @return -1 if port failed to open
-	 * @throws CoreException
+	 * @return local port of the tunnel server
+	 * @throws CoreException if no port could be opened
 	 */
 	protected int getTunnelServer(TunnelFactory tunnelFactory, List<TunnelServer> tunnelServers) throws CoreException {
 
-		RuntimeException se = null;
+		Exception error = null;
 
-		int port = -1;
-		TunnelServer tunnelServer = null;
-		for (int i = BASE_PORT; i <= MAX_PORT; i++) {
+		int port = PORT_ALLOCATOR.getNextPort();
+		for (int attempt = 0; attempt <= EPHEMERAL_PORT_ATTEMPTS; attempt++) {
 
 			try {
-				InetSocketAddress local = new InetSocketAddress(LOCAL_HOST, i);
-				tunnelServer = new TunnelServer(local, tunnelFactory, getTunnelServerThreadExecutor());
+				if (attempt > 0) {
+					port = TunnelPortAllocator.getEphemeralPort(LOCAL_HOST);
+				}
+				InetSocketAddress local = new InetSocketAddress(LOCAL_HOST, port);
+				TunnelServer tunnelServer = new TunnelServer(local, tunnelFactory, getTunnelServerThreadExecutor());
 				tunnelServers.add(tunnelServer);
-				port = i;
-				break;
+				PORT_ALLOCATOR.setLastPort(port);
+				return port;
 			}
 			catch (TunnelException e) {
-				se = e;
+				error = e;
 			}
 			catch (SecurityException e) {
-				se = e;
+				error = e;
+			}
+			catch (IOException e) {
+				error = e;
 			}
 
 		}
-		// Only rethrow security exception if all ports have failed
-		if (tunnelServer == null && se != null) {
-			throw new CoreException(CloudFoundryPlugin.getErrorStatus(se));
-		}
-		return port;
+		throw new CoreException(CloudFoundryPlugin.getErrorStatus(error));
 
 	}
 
@@ -397,13 +432,38 @@ public class TunnelBehaviour {
 		return serviceChanges;
 	}
 
+	/**
+	 * Returns an executor backed by a thread pool that is shared by all tunnel
+	 * servers. Threads are created as connections are opened, and are
+	 * released after being idle for a while, so no threads are kept for
+	 * tunnels that are not in use. The pool is not shut down when a tunnel
+	 * server is stopped, as the tunnel server only shuts down executors it
+	 * initialises itself.
+	 * <p/>
+	 * Tunnel threads block on socket I/O, so tasks are never queued, as a
+	 * queued relay task would stall its connection. A connection that exceeds
+	 * the maximum number of threads is rejected instead.
+	 * @return non-null executor for a tunnel server
+	 */
 	protected TaskExecutor getTunnelServerThreadExecutor() {
-		int defaultPoolSize = 20;
-		ThreadPoolTaskExecutor te = new ThreadPoolTaskExecutor();
-		te.setCorePoolSize(defaultPoolSize);
-		te.setMaxPoolSize(defaultPoolSize * 2);
-		te.setQueueCapacity(100);
-		return te;
+		return new ConcurrentTaskExecutor(getTunnelThreadPool());
+	}
+
+	protected static synchronized ThreadPoolExecutor getTunnelThreadPool() {
+		if (tunnelThreadPool == null) {
+			tunnelThreadPool = new ThreadPoolExecutor(0, MAX_TUNNEL_THREADS, TUNNEL_THREAD_KEEP_ALIVE,
+					TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+
+						private final AtomicInteger count = new AtomicInteger();
+
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "Cloud Foundry tunnel " + count.incrementAndGet()); //$NON-NLS-1$
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+		return tunnelThreadPool;
 	}
 
 	protected String getServiceVendor(String serviceName, IProgressMonitor monitor) throws CoreException {
@@ -486,7 +546,7 @@ public class TunnelBehaviour {
 		return tunnelDescriptor;
 	}
 
-	public synchronized boolean hasCaldecottTunnels() {
+	public boolean hasCaldecottTunnels() {
 		Collection<CaldecottTunnelDescriptor> descriptors = CloudFoundryPlugin.getCaldecottTunnelCache()
 				.getDescriptors(cloudServer);
 		return descriptors != null && descriptors.size() > 0;
@@ -498,12 +558,12 @@ public class TunnelBehaviour {
 	 * @param serviceName
 	 * @return
 	 */
-	public synchronized CaldecottTunnelDescriptor getCaldecottTunnel(String serviceName) {
+	public CaldecottTunnelDescriptor getCaldecottTunnel(String serviceName) {
 
 		return CloudFoundryPlugin.getCaldecottTunnelCache().getDescriptor(cloudServer, serviceName);
 	}
 
-	public synchronized boolean hasCaldecottTunnel(String serviceName) {
+	public boolean hasCaldecottTunnel(String serviceName) {
 		return getCaldecottTunnel(serviceName) != null;
 	}
 
@@ -575,12 +635,13 @@ public class TunnelBehaviour {
 		// refresh the list of modules to create a module for the
 		// deployed Caldecott App
 		if (deployed) {
+			cloudServer.getBehaviour().getRequestCache().invalidateApplication(TunnelHelper.getTunnelAppName());
 			cloudServer.getBehaviour().refreshModules(monitor);
 		}
 
 	}
 
-	public synchronized CloudFoundryApplicationModule getCaldecottModule(IProgressMonitor monitor) throws CoreException {
+	public CloudFoundryApplicationModule getCaldecottModule(IProgressMonitor monitor) throws CoreException {
 		return cloudServer.getExistingCloudModule(TunnelHelper.getTunnelAppName());
 	}
 }
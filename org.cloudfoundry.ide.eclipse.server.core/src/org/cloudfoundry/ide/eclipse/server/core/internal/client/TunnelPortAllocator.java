@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.client;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+/**
+ * Chooses local ports for tunnel servers. Ports are handed out sequentially
+ * from a preferred range, starting after the last port that was successfully
+ * bound, so that a free port is normally found on the first attempt. If the
+ * preferred port is taken, callers should fall back to an ephemeral port
+ * chosen by the operating system rather than probe the range port by port.
+ * <p/>
+ * All operations are thread safe.
+ */
+public class TunnelPortAllocator {
+
+	private final int basePort;
+
+	private final int maxPort;
+
+	private int lastPort;
+
+	/**
+	 *
+	 * @param basePort first port of the preferred range
+	 * @param maxPort last port of the preferred range
+	 */
+	public TunnelPortAllocator(int basePort, int maxPort) {
+		this.basePort = basePort;
+		this.maxPort = maxPort;
+		this.lastPort = basePort - 1;
+	}
+
+	/**
+	 *
+	 * @return port in the preferred range that follows the last successfully
+	 * bound port. Wraps around to the base port at the end of the range, or if
+	 * the last port was outside of the range.
+	 */
+	public synchronized int getNextPort() {
+		return lastPort >= basePort && lastPort < maxPort ? lastPort + 1 : basePort;
+	}
+
+	/**
+	 * Records a port that was successfully bound, so that the next port is
+	 * chosen after it.
+	 * @param port
+	 */
+	public synchronized void setLastPort(int port) {
+		lastPort = port;
+	}
+
+	/**
+	 * Has the operating system choose a free port on the given host. The port
+	 * is released before it is returned, so there is a small chance that it
+	 * is taken by another process before the caller binds it.
+	 * @param host local address to bind
+	 * @return free ephemeral port
+	 * @throws IOException if no port could be bound
+	 */
+	public static int getEphemeralPort(String host) throws IOException {
+		ServerSocket socket = new ServerSocket(0, 1, InetAddress.getByName(host));
+		try {
+			return socket.getLocalPort();
+		}
+		finally {
+			socket.close();
+		}
+	}
+}
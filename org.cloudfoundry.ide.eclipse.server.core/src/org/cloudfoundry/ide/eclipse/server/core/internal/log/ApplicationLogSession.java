@@ -0,0 +1,398 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudfoundry.client.lib.ApplicationLogListener;
+import org.cloudfoundry.client.lib.StreamingLogToken;
+import org.cloudfoundry.client.lib.domain.ApplicationLog;
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryServerBehaviour;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Streams the logs of an application, and delivers them to a listener in
+ * batches, in timestamp order, without duplicates.
+ * <p/>
+ * If the log stream completes or fails while the session is running, the
+ * session reconnects with an increasing delay. Before reconnecting, recent
+ * logs are fetched, so that logs emitted while disconnected are not lost.
+ * Recent logs can also be fetched on demand with {@link #fetchRecentLogs()},
+ * in which case they are all delivered again.
+ * <p/>
+ * Logs are identified by timestamp, source and message, and logs that have
+ * already been delivered are dropped. Logs received within a batch interval
+ * are sorted by timestamp before being delivered. Logs older than the
+ * {@link #DEDUP_WINDOW} preceding the most recent delivered log can no longer
+ * be delivered in order, and are dropped as well, as they typically are
+ * recent logs that were already delivered. Logs without a timestamp are
+ * delivered after the others of their batch, and identified by source and
+ * message only.
+ */
+public class ApplicationLogSession {
+
+	/**
+	 * Receives the logs of the session.
+	 */
+	public interface Listener {
+
+		/**
+		 * Invoked in a job with the next batch of logs, sorted by timestamp.
+		 * Never invoked concurrently.
+		 * @param logs never empty
+		 */
+		public void onLogs(List<ApplicationLog> logs);
+
+		/**
+		 * Invoked when the log stream fails, before the session reconnects.
+		 * Not invoked again for failures to reconnect, until logs are
+		 * received.
+		 * @param error
+		 */
+		public void onError(Throwable error);
+	}
+
+	/**
+	 * Time during which received logs are collected in a batch.
+	 */
+	private static final long BATCH_INTERVAL = 200;
+
+	private static final long INITIAL_RECONNECT_DELAY = 1000;
+
+	private static final long MAX_RECONNECT_DELAY = 60000;
+
+	/**
+	 * Time in milliseconds, relative to the most recent delivered log, during
+	 * which delivered logs are remembered to drop duplicates.
+	 */
+	private static final long DEDUP_WINDOW = 10000;
+
+	/**
+	 * Maximum number of delivered logs without timestamp that are remembered
+	 * to drop duplicates.
+	 */
+	private static final int MAX_UNTIMED_IDS = 1000;
+
+	/**
+	 * Orders logs by timestamp, with logs without timestamp last.
+	 */
+	private static final Comparator<ApplicationLog> TIMESTAMP_ORDER = new Comparator<ApplicationLog>() {
+
+		public int compare(ApplicationLog log1, ApplicationLog log2) {
+			if (log1.getTimestamp() == null) {
+				return log2.getTimestamp() == null ? 0 : 1;
+			}
+			return log2.getTimestamp() == null ? -1 : log1.getTimestamp().compareTo(log2.getTimestamp());
+		}
+	};
+
+	private final CloudFoundryServerBehaviour behaviour;
+
+	private final String appName;
+
+	private final Listener listener;
+
+	private final List<ApplicationLog> pending = new ArrayList<ApplicationLog>();
+
+	/**
+	 * Identifiers of delivered logs, with their timestamp.
+	 */
+	private final Map<String, Long> delivered = new HashMap<String, Long>();
+
+	/**
+	 * Identifiers of delivered logs without timestamp, oldest first.
+	 */
+	@SuppressWarnings("serial")
+	private final Map<String, Boolean> deliveredUntimed = new LinkedHashMap<String, Boolean>() {
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+			return size() > MAX_UNTIMED_IDS;
+		}
+	};
+
+	/**
+	 * Timestamp of the most recent delivered log, or 0 if none was delivered.
+	 */
+	private long lastDeliveredTime;
+
+	private StreamingLogToken token;
+
+	/**
+	 * Identifies the current connection, so that late notifications from a
+	 * previous connection are ignored.
+	 */
+	private int connection;
+
+	private long reconnectDelay = INITIAL_RECONNECT_DELAY;
+
+	private boolean reconnecting;
+
+	private boolean stopped;
+
+	private final Job flushJob;
+
+	private final Job connectJob;
+
+	public ApplicationLogSession(CloudFoundryServerBehaviour behaviour, String appName, Listener listener) {
+		this.behaviour = behaviour;
+		this.appName = appName;
+		this.listener = listener;
+
+		flushJob = new Job("Writing application logs for: " + appName) { //$NON-NLS-1$
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				flush();
+				return Status.OK_STATUS;
+			}
+		};
+		flushJob.setSystem(true);
+
+		connectJob = new Job("Streaming application logs for: " + appName) { //$NON-NLS-1$
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				connect(monitor);
+				return Status.OK_STATUS;
+			}
+		};
+		connectJob.setSystem(true);
+	}
+
+	/**
+	 * Starts streaming logs asynchronously.
+	 */
+	public synchronized void start() {
+		if (!stopped) {
+			connectJob.schedule();
+		}
+	}
+
+	/**
+	 * Stops streaming logs. Logs that have not been delivered yet are
+	 * discarded.
+	 */
+	public void stop() {
+		StreamingLogToken toCancel;
+		synchronized (this) {
+			stopped = true;
+			connection++;
+			pending.clear();
+			toCancel = token;
+			token = null;
+		}
+		connectJob.cancel();
+		flushJob.cancel();
+		if (toCancel != null) {
+			toCancel.cancel();
+		}
+	}
+
+	/**
+	 * Fetches the recent logs of the application, and delivers all of them,
+	 * including those that were already delivered, for example because the
+	 * console they were written to was cleared. Logs streamed afterwards that
+	 * are part of the recent logs are not delivered again. This is a long
+	 * running operation.
+	 */
+	public void fetchRecentLogs() {
+		List<ApplicationLog> logs = behaviour.getRecentApplicationLogs(appName);
+		synchronized (this) {
+			reset();
+			add(logs);
+		}
+	}
+
+	/**
+	 * Forgets which logs were delivered, so that logs received afterwards are
+	 * delivered even if they were delivered before. Logs that are pending
+	 * delivery are kept.
+	 */
+	public synchronized void reset() {
+		delivered.clear();
+		deliveredUntimed.clear();
+		lastDeliveredTime = 0;
+	}
+
+	protected void connect(IProgressMonitor monitor) {
+		int id;
+		boolean reconnect;
+		synchronized (this) {
+			if (stopped) {
+				return;
+			}
+			id = ++connection;
+			reconnect = reconnecting;
+		}
+
+		// Logs emitted while disconnected are only available as recent
+		// logs. Fetch them before streaming, so that they are delivered
+		// before new logs.
+		if (reconnect) {
+			add(behaviour.getRecentApplicationLogs(appName));
+		}
+
+		try {
+			StreamingLogToken newToken = behaviour.streamApplicationLogs(appName, new ConnectionListener(id),
+					monitor);
+			boolean cancel = false;
+			synchronized (this) {
+				if (id == connection && !stopped) {
+					token = newToken;
+				}
+				else {
+					cancel = true;
+				}
+			}
+			if (cancel && newToken != null) {
+				newToken.cancel();
+			}
+		}
+		catch (CoreException e) {
+			disconnected(id, e);
+		}
+	}
+
+	protected void disconnected(int id, Throwable error) {
+		boolean notify;
+		long delay;
+		synchronized (this) {
+			if (id != connection || stopped) {
+				return;
+			}
+			token = null;
+			notify = !reconnecting && error != null;
+			reconnecting = true;
+			delay = reconnectDelay;
+			reconnectDelay = Math.min(MAX_RECONNECT_DELAY, reconnectDelay * 2);
+			connectJob.schedule(delay);
+		}
+		if (notify) {
+			listener.onError(error);
+		}
+	}
+
+	protected synchronized void received(int id, ApplicationLog log) {
+		if (id != connection || stopped) {
+			return;
+		}
+		reconnectDelay = INITIAL_RECONNECT_DELAY;
+		reconnecting = false;
+		add(Collections.singletonList(log));
+	}
+
+	protected synchronized void add(List<ApplicationLog> logs) {
+		if (stopped || logs == null || logs.isEmpty()) {
+			return;
+		}
+		pending.addAll(logs);
+		// Has no effect if the job is already waiting to run
+		flushJob.schedule(BATCH_INTERVAL);
+	}
+
+	protected void flush() {
+		List<ApplicationLog> batch = new ArrayList<ApplicationLog>();
+		synchronized (this) {
+			if (stopped || pending.isEmpty()) {
+				return;
+			}
+			Collections.sort(pending, TIMESTAMP_ORDER);
+			for (ApplicationLog log : pending) {
+				if (log.getTimestamp() == null) {
+					if (deliveredUntimed.put(getId(log), Boolean.TRUE) == null) {
+						batch.add(log);
+					}
+					continue;
+				}
+				long time = log.getTimestamp().getTime();
+				if (time < lastDeliveredTime - DEDUP_WINDOW) {
+					continue;
+				}
+				String id = getId(log);
+				if (delivered.containsKey(id)) {
+					continue;
+				}
+				delivered.put(id, time);
+				lastDeliveredTime = Math.max(lastDeliveredTime, time);
+				batch.add(log);
+			}
+			pending.clear();
+
+			for (Iterator<Long> it = delivered.values().iterator(); it.hasNext();) {
+				if (it.next() < lastDeliveredTime - DEDUP_WINDOW) {
+					it.remove();
+				}
+			}
+		}
+
+		if (!batch.isEmpty()) {
+			try {
+				listener.onLogs(batch);
+			}
+			catch (RuntimeException e) {
+				CloudFoundryPlugin.logError("Failed to write logs for application: " + appName + " due to - " //$NON-NLS-1$ //$NON-NLS-2$
+						+ e.getMessage(), e);
+			}
+		}
+	}
+
+	protected static String getId(ApplicationLog log) {
+		StringBuilder id = new StringBuilder();
+		if (log.getTimestamp() != null) {
+			id.append(log.getTimestamp().getTime());
+		}
+		return id.append('|').append(log.getSourceName()).append('|').append(log.getSourceId()).append('|')
+				.append(log.getMessageType()).append('|').append(log.getMessage()).toString();
+	}
+
+	class ConnectionListener implements ApplicationLogListener {
+
+		private final int id;
+
+		ConnectionListener(int id) {
+			this.id = id;
+		}
+
+		public void onMessage(ApplicationLog log) {
+			received(id, log);
+		}
+
+		public void onComplete() {
+			disconnected(id, null);
+		}
+
+		public void onError(Throwable exception) {
+			disconnected(id, exception);
+		}
+	}
+}
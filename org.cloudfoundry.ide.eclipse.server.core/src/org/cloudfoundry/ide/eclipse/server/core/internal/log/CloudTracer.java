@@ -29,6 +29,8 @@ import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
  */
 public abstract class CloudTracer implements ICloudTracer {
 
+	private static final DefaultCloudTracer DEFAULT_TRACER = new DefaultCloudTracer();
+
 	public void traceNewLogEntry(RestLogEntry restLogEntry) {
 
 		if (restLogEntry == null || !HttpTracer.getCurrent().isEnabled()) {
@@ -73,8 +75,17 @@ public abstract class CloudTracer implements ICloudTracer {
 	 */
 	public static ICloudTracer getCurrentCloudTracer() {
 		// Add option for Framework here to load third-party tracers. For now,
-		// just return a default tracer
-		return new DefaultCloudTracer();
+		// just return a default tracer. The same tracer is returned on each
+		// call, as it queues entries to trace them asynchronously.
+		return DEFAULT_TRACER;
+	}
+
+	/**
+	 * Stops the current cloud tracer, releasing any resources it holds, such
+	 * as an open trace file. Invoked when the plug-in is stopped.
+	 */
+	public static void stopCurrentCloudTracer() {
+		DEFAULT_TRACER.stop();
 	}
 
 }
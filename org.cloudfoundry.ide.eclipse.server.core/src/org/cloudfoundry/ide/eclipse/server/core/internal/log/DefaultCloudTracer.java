@@ -19,14 +19,35 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.core.internal.log;
 
-import java.io.StringWriter;
+import java.io.File;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.cloudfoundry.client.lib.RestLogEntry;
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 /**
  * General-purpose tracer that parses a {@link RestLogEntry} into various String
  * traces, and assigns a {@link LogContentType} to each section of the log entry.
- *
+ * <p/>
+ * Tracing is invoked in the thread of the client request being traced.
+ * Therefore entries are only queued there, and are formatted and sent to the
+ * trace listeners by a job. At most {@link #BUFFER_CAPACITY} entries are
+ * queued, after which entries are dropped until the job catches up, and the
+ * number of dropped entries is traced instead.
+ * <p/>
+ * Successful requests can be sampled, such that only one in
+ * {@link HttpTracer#getSampleRate()} requests is traced. Errors are always
+ * traced. If enabled in {@link HttpTracer}, entries are also written to a
+ * rolling trace file in the plug-in state location, which is closed when the
+ * tracer is stopped.
  */
 public class DefaultCloudTracer extends CloudTracer {
 
@@ -40,44 +61,196 @@ public class DefaultCloudTracer extends CloudTracer {
 
 	static final String SPACE = " "; //$NON-NLS-1$
 
+	static final String TRACE_FOLDER = "http-trace"; //$NON-NLS-1$
+
+	/**
+	 * Maximum number of entries waiting to be traced.
+	 */
+	static final int BUFFER_CAPACITY = 10000;
+
+	private final Queue<Trace> queue = new ConcurrentLinkedQueue<Trace>();
+
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final AtomicInteger dropped = new AtomicInteger();
+
+	private final AtomicLong sampled = new AtomicLong();
+
+	private volatile boolean stopped;
+
+	/**
+	 * Only accessed by the trace job.
+	 */
+	private final StringBuilder buffer = new StringBuilder();
+
+	/**
+	 * Only accessed by the trace job.
+	 */
+	private TraceFileWriter fileWriter;
+
+	private final Job traceJob = new Job("Tracing HTTP requests") { //$NON-NLS-1$
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			processQueue();
+			return Status.OK_STATUS;
+		}
+	};
+
+	public DefaultCloudTracer() {
+		traceJob.setSystem(true);
+	}
+
 	protected void doTrace(RestLogEntry restLogEntry) {
+		if (stopped) {
+			return;
+		}
+		if (!isError(restLogEntry)) {
+			int sampleRate = HttpTracer.getCurrent().getSampleRate();
+			if (sampleRate > 1 && sampled.incrementAndGet() % sampleRate != 0) {
+				return;
+			}
+		}
+
+		if (queued.incrementAndGet() > BUFFER_CAPACITY) {
+			queued.decrementAndGet();
+			dropped.incrementAndGet();
+		}
+		else {
+			queue.offer(new Trace(System.currentTimeMillis(), restLogEntry));
+		}
+		traceJob.schedule();
+	}
+
+	protected void processQueue() {
+		int droppedCount = dropped.getAndSet(0);
+		if (droppedCount > 0) {
+			fireTraceEvent(getCloudLog(SPACE + TRACE_SEPARATOR + SPACE + droppedCount
+					+ " request(s) not traced: requests were made faster than they could be traced\n", //$NON-NLS-1$
+					TraceType.HTTP_ERROR));
+		}
+
+		boolean traceToFile = HttpTracer.getCurrent().isTraceFileEnabled();
+		Trace trace;
+		while ((trace = queue.poll()) != null) {
+			queued.decrementAndGet();
+			RestLogEntry restLogEntry = trace.entry;
+			boolean isError = isError(restLogEntry);
+
+			buffer.setLength(0);
+			buffer.append(restLogEntry.getStatus());
 
-		StringWriter writer = new StringWriter();
-		boolean isError = restLogEntry.getStatus() != null && ERROR_STATUS.equals(restLogEntry.getStatus());
+			buffer.append(SPACE);
+			buffer.append(TRACE_SEPARATOR);
+			buffer.append(SPACE);
 
-		writer.append(restLogEntry.getStatus());
+			buffer.append(HTTP_TRACE_STATUS);
+			buffer.append(':');
+			buffer.append(SPACE);
+			buffer.append(restLogEntry.getHttpStatus().name());
 
-		writer.append(SPACE);
-		writer.append(TRACE_SEPARATOR);
-		writer.append(SPACE);
+			fireTraceEvent(getCloudLog(buffer.toString(), isError ? TraceType.HTTP_ERROR : TraceType.HTTP_OK));
 
-		writer.append(HTTP_TRACE_STATUS);
-		writer.append(':');
-		writer.append(SPACE);
-		writer.append(restLogEntry.getHttpStatus().name());
+			buffer.setLength(0);
+			buffer.append(SPACE);
+			buffer.append(TRACE_SEPARATOR);
+			buffer.append(SPACE);
+			buffer.append(HTTP_TRACE_REQUEST);
+			buffer.append(':');
+			buffer.append(SPACE);
+			buffer.append(restLogEntry.getMethod().toString());
 
-		fireTraceEvent(getCloudLog(writer.toString(), isError ? TraceType.HTTP_ERROR : TraceType.HTTP_OK));
+			buffer.append(' ');
+			buffer.append(restLogEntry.getUri().toString());
+			buffer.append(TRACE_SEPARATOR);
+			buffer.append(restLogEntry.getMessage());
+			buffer.append('\n');
 
-		writer = new StringWriter();
-		writer.append(SPACE);
-		writer.append(TRACE_SEPARATOR);
-		writer.append(SPACE);
-		writer.append(HTTP_TRACE_REQUEST);
-		writer.append(':');
-		writer.append(SPACE);
-		writer.append(restLogEntry.getMethod().toString());
+			fireTraceEvent(getCloudLog(buffer.toString(), TraceType.HTTP_GENERAL));
 
-		writer.append(' ');
-		writer.append(restLogEntry.getUri().toString());
-		writer.append(TRACE_SEPARATOR);
-		writer.append(restLogEntry.getMessage());
-		writer.append('\n');
+			if (traceToFile) {
+				traceToFile = writeToFile(trace);
+			}
+		}
+
+		try {
+			if (traceToFile) {
+				fileWriter.flush();
+			}
+			else if (fileWriter != null) {
+				fileWriter.close();
+				fileWriter = null;
+			}
+		}
+		catch (IOException e) {
+			CloudFoundryPlugin.logError(e);
+		}
+	}
+
+	/**
+	 * Stops tracing, and closes the trace file once the entries being traced
+	 * are written. Entries that are still queued are discarded.
+	 */
+	public void stop() {
+		stopped = true;
+		traceJob.cancel();
+		try {
+			traceJob.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		queue.clear();
+		queued.set(0);
+		if (fileWriter != null) {
+			try {
+				fileWriter.close();
+			}
+			catch (IOException e) {
+				CloudFoundryPlugin.logError(e);
+			}
+			fileWriter = null;
+		}
+	}
 
-		fireTraceEvent(getCloudLog(writer.toString(), TraceType.HTTP_GENERAL));
+	/**
+	 * 
+	 * @return true if the entry was written, false if writing to the trace
+	 * file failed.
+	 */
+	protected boolean writeToFile(Trace trace) {
+		try {
+			if (fileWriter == null) {
+				File folder = CloudFoundryPlugin.getDefault().getStateLocation().append(TRACE_FOLDER).toFile();
+				fileWriter = new TraceFileWriter(folder);
+			}
+			fileWriter.write(trace.time, trace.entry);
+			return true;
+		}
+		catch (IOException e) {
+			CloudFoundryPlugin.logError("Failed to write HTTP trace file due to - " + e.getMessage(), e); //$NON-NLS-1$
+			return false;
+		}
+	}
+
+	protected static boolean isError(RestLogEntry restLogEntry) {
+		return restLogEntry.getStatus() != null && ERROR_STATUS.equals(restLogEntry.getStatus());
 	}
 
 	protected CloudLog getCloudLog(String log, LogContentType type) {
 		return new CloudLog(log, type);
 	}
 
+	static class Trace {
+
+		final long time;
+
+		final RestLogEntry entry;
+
+		Trace(long time, RestLogEntry entry) {
+			this.time = time;
+			this.entry = entry;
+		}
+	}
+
 }
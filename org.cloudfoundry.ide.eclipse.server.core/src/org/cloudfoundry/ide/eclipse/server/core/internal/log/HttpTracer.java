@@ -37,10 +37,26 @@ public class HttpTracer {
 
 	public static final String PREFERENCE_TRACE = CloudFoundryPlugin.PLUGIN_ID + ".http.tracing"; //$NON-NLS-1$
 
+	/**
+	 * Only one in this number of successful requests is traced. Errors are
+	 * always traced.
+	 */
+	public static final String PREFERENCE_TRACE_SAMPLE_RATE = CloudFoundryPlugin.PLUGIN_ID + ".http.tracing.sample.rate"; //$NON-NLS-1$
+
+	/**
+	 * Whether traced requests are also written to a rolling JSON Lines file in
+	 * the plug-in state location.
+	 */
+	public static final String PREFERENCE_TRACE_FILE = CloudFoundryPlugin.PLUGIN_ID + ".http.tracing.file"; //$NON-NLS-1$
+
 	private RestLogCallback activeListener = null;
 
 	private static boolean isEnabled;
 
+	private static volatile int sampleRate = 1;
+
+	private static volatile boolean isTraceFileEnabled;
+
 	public static synchronized HttpTracer getCurrent() {
 		if (currentTracer == null) {
 			currentTracer = new HttpTracer();
@@ -102,6 +118,56 @@ public class HttpTracer {
 		}
 	}
 
+	/**
+	 * 
+	 * @param rate only one in this number of successful requests is traced.
+	 * Values lower than 1 trace all requests.
+	 */
+	public void setSampleRate(int rate) {
+		sampleRate = Math.max(1, rate);
+		putPreference(PREFERENCE_TRACE_SAMPLE_RATE, sampleRate);
+	}
+
+	/**
+	 * 
+	 * @return only one in this number of successful requests is traced.
+	 * Errors are always traced.
+	 */
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * 
+	 * @param enable true if traced requests should also be written to a trace
+	 * file.
+	 */
+	public void enableTraceFile(boolean enable) {
+		isTraceFileEnabled = enable;
+		IEclipsePreferences prefs = CloudFoundryPlugin.getDefault().getPreferences();
+		prefs.putBoolean(PREFERENCE_TRACE_FILE, enable);
+		flush(prefs);
+	}
+
+	public boolean isTraceFileEnabled() {
+		return isTraceFileEnabled;
+	}
+
+	protected void putPreference(String key, int value) {
+		IEclipsePreferences prefs = CloudFoundryPlugin.getDefault().getPreferences();
+		prefs.putInt(key, value);
+		flush(prefs);
+	}
+
+	protected void flush(IEclipsePreferences prefs) {
+		try {
+			prefs.flush();
+		}
+		catch (BackingStoreException e) {
+			CloudFoundryPlugin.logError(e);
+		}
+	}
+
 	/**
 	 * 
 	 * @return true if tracing is enabled for all clients and all servers. False
@@ -118,7 +184,10 @@ public class HttpTracer {
 	 * otherwise.
 	 */
 	public synchronized boolean loadTracePreference() {
-		isEnabled = CloudFoundryPlugin.getDefault().getPreferences().getBoolean(PREFERENCE_TRACE, false);
+		IEclipsePreferences prefs = CloudFoundryPlugin.getDefault().getPreferences();
+		isEnabled = prefs.getBoolean(PREFERENCE_TRACE, false);
+		sampleRate = Math.max(1, prefs.getInt(PREFERENCE_TRACE_SAMPLE_RATE, 1));
+		isTraceFileEnabled = prefs.getBoolean(PREFERENCE_TRACE_FILE, false);
 		// When loading from preference store, if tracing is enabled, also show
 		// the tracing view (e.g. a console)
 		if (isEnabled) {
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import org.cloudfoundry.client.lib.RestLogEntry;
+
+/**
+ * Writes HTTP trace entries to a rolling set of JSON Lines files, one JSON
+ * object per request, for offline analysis. When the current file exceeds
+ * a maximum size, {@link #MAX_FILE_SIZE} by default, it is renamed with a
+ * numbered suffix and a new file is started. At most {@link #MAX_FILES} files
+ * are kept.
+ * <p/>
+ * Not thread safe.
+ */
+public class TraceFileWriter {
+
+	public static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
+
+	public static final int MAX_FILES = 5;
+
+	public static final String FILE_NAME = "http-trace"; //$NON-NLS-1$
+
+	public static final String FILE_EXTENSION = ".jsonl"; //$NON-NLS-1$
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	private final File folder;
+
+	private final long maxFileSize;
+
+	private final StringBuilder line = new StringBuilder();
+
+	private OutputStream out;
+
+	private long size;
+
+	/**
+	 * 
+	 * @param folder where trace files are written. Created if it does not
+	 * exist.
+	 */
+	public TraceFileWriter(File folder) {
+		this(folder, MAX_FILE_SIZE);
+	}
+
+	/**
+	 * 
+	 * @param folder where trace files are written. Created if it does not
+	 * exist.
+	 * @param maxFileSize size in bytes after which a new file is started
+	 */
+	public TraceFileWriter(File folder, long maxFileSize) {
+		this.folder = folder;
+		this.maxFileSize = maxFileSize;
+	}
+
+	public void write(long time, RestLogEntry entry) throws IOException {
+		write(time, entry.getStatus(), entry.getHttpStatus() != null ? entry.getHttpStatus().value() : -1,
+				entry.getMethod() != null ? entry.getMethod().name() : null, entry.getUri() != null ? entry.getUri()
+						.toString() : null, entry.getMessage());
+	}
+
+	/**
+	 * Writes a trace entry as one line of JSON. Null values are written as
+	 * null.
+	 * @param time
+	 * @param status
+	 * @param httpStatus HTTP status code, or -1 if none, in which case it is
+	 * omitted
+	 * @param method
+	 * @param uri
+	 * @param message
+	 * @throws IOException
+	 */
+	public void write(long time, String status, int httpStatus, String method, String uri, String message)
+			throws IOException {
+		line.setLength(0);
+		line.append("{\"time\":").append(time); //$NON-NLS-1$
+		appendField("status", status); //$NON-NLS-1$
+		if (httpStatus >= 0) {
+			line.append(",\"httpStatus\":").append(httpStatus); //$NON-NLS-1$
+		}
+		appendField("method", method); //$NON-NLS-1$
+		appendField("uri", uri); //$NON-NLS-1$
+		appendField("message", message); //$NON-NLS-1$
+		line.append("}\n"); //$NON-NLS-1$
+
+		if (out == null || size >= maxFileSize) {
+			roll();
+		}
+		byte[] bytes = line.toString().getBytes(UTF_8);
+		out.write(bytes);
+		size += bytes.length;
+	}
+
+	public void flush() throws IOException {
+		if (out != null) {
+			out.flush();
+		}
+	}
+
+	public void close() throws IOException {
+		if (out != null) {
+			try {
+				out.close();
+			}
+			finally {
+				out = null;
+			}
+		}
+	}
+
+	protected void roll() throws IOException {
+		close();
+		if (!folder.exists()) {
+			folder.mkdirs();
+		}
+		File current = getFile(0);
+		if (current.exists() && current.length() >= maxFileSize) {
+			getFile(MAX_FILES - 1).delete();
+			for (int i = MAX_FILES - 2; i >= 0; i--) {
+				File file = getFile(i);
+				if (file.exists()) {
+					file.renameTo(getFile(i + 1));
+				}
+			}
+		}
+		size = current.exists() ? current.length() : 0;
+		out = new BufferedOutputStream(new FileOutputStream(current, true));
+	}
+
+	/**
+	 * 
+	 * @param index 0 for the current file, or the number of the rolled file,
+	 * higher numbers being older
+	 * @return trace file with the given index, which may not exist
+	 */
+	public File getFile(int index) {
+		return new File(folder, index == 0 ? FILE_NAME + FILE_EXTENSION : FILE_NAME + '.' + index + FILE_EXTENSION);
+	}
+
+	protected void appendField(String name, String value) {
+		line.append(",\"").append(name).append("\":"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (value == null) {
+			line.append("null"); //$NON-NLS-1$
+			return;
+		}
+		line.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				line.append("\\\""); //$NON-NLS-1$
+				break;
+			case '\\':
+				line.append("\\\\"); //$NON-NLS-1$
+				break;
+			case '\n':
+				line.append("\\n"); //$NON-NLS-1$
+				break;
+			case '\r':
+				line.append("\\r"); //$NON-NLS-1$
+				break;
+			case '\t':
+				line.append("\\t"); //$NON-NLS-1$
+				break;
+			default:
+				if (c < 0x20) {
+					line.append(String.format("\\u%04x", (int) c)); //$NON-NLS-1$
+				}
+				else {
+					line.append(c);
+				}
+			}
+		}
+		line.append('"');
+	}
+}
@@ -54,6 +54,18 @@ public class CaldecottTunnelCache {
 		return null;
 	}
 
+	/**
+	 * Returns the live metrics of the tunnel opened for the given service,
+	 * or null if no tunnel is open for the service.
+	 * @param server
+	 * @param serviceName
+	 * @return metrics of the tunnel, or null if no tunnel exists
+	 */
+	public synchronized TunnelMetrics getMetrics(CloudFoundryServer server, String serviceName) {
+		CaldecottTunnelDescriptor descriptor = getDescriptor(server, serviceName);
+		return descriptor != null ? descriptor.getMetrics() : null;
+	}
+
 	public synchronized CaldecottTunnelDescriptor removeDescriptor(CloudFoundryServer server, String serviceName) {
 		String id = server.getServerId();
 		Map<String, CaldecottTunnelDescriptor> descriptors = caldecottTunnels.get(id);
@@ -38,8 +38,20 @@ public class CaldecottTunnelDescriptor {
 
 	private final String databaseName;
 
+	private final TunnelMetrics metrics;
+
 	public CaldecottTunnelDescriptor(String userName, String password, String databaseName, String serviceName,
 			String serviceVendor, TunnelServer server, int tunnelPort) {
+		this(userName, password, databaseName, serviceName, serviceVendor, server, tunnelPort, new TunnelMetrics());
+	}
+
+	/**
+	 * 
+	 * @param metrics recorded by the tunnel server of this tunnel, typically
+	 * through an {@link InstrumentedTunnelFactory}
+	 */
+	public CaldecottTunnelDescriptor(String userName, String password, String databaseName, String serviceName,
+			String serviceVendor, TunnelServer server, int tunnelPort, TunnelMetrics metrics) {
 		this.server = server;
 		this.userName = userName;
 		this.password = password;
@@ -47,6 +59,7 @@ public class CaldecottTunnelDescriptor {
 		this.serviceName = serviceName;
 		this.serviceVendor = serviceVendor;
 		this.databaseName = databaseName;
+		this.metrics = metrics;
 	}
 
 	public String getDatabaseName() {
@@ -143,6 +156,15 @@ public class CaldecottTunnelDescriptor {
 		return server;
 	}
 
+	/**
+	 * 
+	 * @return connections, bytes transferred, latencies and errors of this
+	 * tunnel. Never null.
+	 */
+	public TunnelMetrics getMetrics() {
+		return metrics;
+	}
+
 	public enum ServiceVendor {
 		postgresql, mysql, mongodb
 	}
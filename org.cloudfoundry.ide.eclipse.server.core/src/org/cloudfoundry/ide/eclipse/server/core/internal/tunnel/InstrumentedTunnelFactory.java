@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.tunnel;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.cloudfoundry.caldecott.client.Tunnel;
+import org.cloudfoundry.caldecott.client.TunnelFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Tunnel factory that records the connections created by another factory,
+ * and the data transferred through them, in {@link TunnelMetrics}. It is
+ * passed to the tunnel server in place of the factory it wraps.
+ * <p/>
+ * Reads and writes that fail after their connection was closed are not
+ * counted as errors.
+ */
+public class InstrumentedTunnelFactory implements TunnelFactory {
+
+	private final TunnelFactory factory;
+
+	private final TunnelMetrics metrics;
+
+	public InstrumentedTunnelFactory(TunnelFactory factory, TunnelMetrics metrics) {
+		this.factory = factory;
+		this.metrics = metrics;
+	}
+
+	public TunnelMetrics getMetrics() {
+		return metrics;
+	}
+
+	public Tunnel createTunnel() {
+		long start = System.currentTimeMillis();
+		Tunnel tunnel;
+		try {
+			tunnel = factory.createTunnel();
+		}
+		catch (RuntimeException e) {
+			metrics.error();
+			throw e;
+		}
+		if (tunnel == null) {
+			metrics.error();
+			return null;
+		}
+		metrics.connectionOpened(System.currentTimeMillis() - start);
+		return new InstrumentedTunnel(tunnel);
+	}
+
+	/**
+	 *
+	 * @return true if the given error is a timeout the tunnel server expects
+	 * while polling an idle connection, and retries.
+	 */
+	protected static boolean isPollingTimeout(RuntimeException e) {
+		if (e instanceof HttpStatusCodeException) {
+			HttpStatus status = ((HttpStatusCodeException) e).getStatusCode();
+			return status == HttpStatus.GATEWAY_TIMEOUT || status == HttpStatus.BAD_GATEWAY;
+		}
+		return e instanceof ResourceAccessException && e.getCause() instanceof SocketTimeoutException;
+	}
+
+	private class InstrumentedTunnel implements Tunnel {
+
+		private final Tunnel tunnel;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		InstrumentedTunnel(Tunnel tunnel) {
+			this.tunnel = tunnel;
+		}
+
+		public void write(byte[] data) {
+			long start = System.currentTimeMillis();
+			try {
+				tunnel.write(data);
+			}
+			catch (RuntimeException e) {
+				if (!closed.get()) {
+					metrics.error();
+				}
+				throw e;
+			}
+			metrics.sent(data.length, System.currentTimeMillis() - start);
+		}
+
+		public byte[] read(boolean retry) {
+			byte[] data;
+			try {
+				data = tunnel.read(retry);
+			}
+			catch (RuntimeException e) {
+				// Reads pending when the connection is closed fail as well
+				if (!closed.get() && !isPollingTimeout(e)) {
+					metrics.error();
+				}
+				throw e;
+			}
+			if (data != null) {
+				metrics.received(data.length);
+			}
+			return data;
+		}
+
+		public void close() {
+			// Set before closing, as closing fails pending reads
+			if (closed.compareAndSet(false, true)) {
+				metrics.connectionClosed();
+			}
+			tunnel.close();
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal.tunnel;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.LatencyHistogram;
+
+/**
+ * Records the connections, bytes transferred, latencies and errors of one
+ * tunnel, as observed by the local tunnel server, to tell whether slow
+ * access to a service is caused by the tunnel or by the service itself.
+ * <p/>
+ * Bytes sent are those written by local clients, like a database tool, to
+ * the service, and bytes received those read from the service. The connect
+ * latency is the time taken to open a tunnel connection through the
+ * Caldecott application, and the write latency the round trip time of
+ * sending data through the tunnel. Reads are not timed, as the tunnel
+ * server polls for data, and read times reflect how long the service was
+ * idle rather than the speed of the tunnel.
+ * <p/>
+ * Recording is lock free and can be done concurrently.
+ */
+public class TunnelMetrics {
+
+	private final long startTime = System.currentTimeMillis();
+
+	private final AtomicLong connections = new AtomicLong();
+
+	private final AtomicLong activeConnections = new AtomicLong();
+
+	private final AtomicLong bytesSent = new AtomicLong();
+
+	private final AtomicLong bytesReceived = new AtomicLong();
+
+	private final AtomicLong errors = new AtomicLong();
+
+	private final LatencyHistogram connectLatency = new LatencyHistogram();
+
+	private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+	/**
+	 *
+	 * @return time in milliseconds at which recording started
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 *
+	 * @return number of connections opened since recording started
+	 */
+	public long getConnections() {
+		return connections.get();
+	}
+
+	/**
+	 *
+	 * @return number of connections currently open
+	 */
+	public long getActiveConnections() {
+		return activeConnections.get();
+	}
+
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	/**
+	 *
+	 * @return number of connections that could not be opened, and of reads
+	 * and writes that failed. Timeouts of reads polling an idle connection
+	 * are not errors.
+	 */
+	public long getErrors() {
+		return errors.get();
+	}
+
+	/**
+	 *
+	 * @return latencies in milliseconds of opening tunnel connections
+	 */
+	public LatencyHistogram getConnectLatency() {
+		return connectLatency;
+	}
+
+	/**
+	 *
+	 * @return latencies in milliseconds of writes through the tunnel
+	 */
+	public LatencyHistogram getWriteLatency() {
+		return writeLatency;
+	}
+
+	void connectionOpened(long latency) {
+		connections.incrementAndGet();
+		activeConnections.incrementAndGet();
+		connectLatency.record(latency);
+	}
+
+	void connectionClosed() {
+		activeConnections.decrementAndGet();
+	}
+
+	void sent(int bytes, long latency) {
+		bytesSent.addAndGet(bytes);
+		writeLatency.record(latency);
+	}
+
+	void received(int bytes) {
+		bytesReceived.addAndGet(bytes);
+	}
+
+	void error() {
+		errors.incrementAndGet();
+	}
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.rse.internal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationPatch;
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Pushes the changes made to the files of an application from the remote file
+ * browser. Changes made within {@link #DELAY} milliseconds of each other are
+ * batched, and pushed with a single upload and restart of the application.
+ * Each change returns the {@link Batch} it is pushed with, which callers wait
+ * on for the result of the push.
+ * <p/>
+ * Local files added to the job are owned by the job, and deleted once the
+ * changes are pushed. Once it has pushed all the changes added to it, the job
+ * is discarded by the file service.
+ */
+public class ApplicationPatchJob extends Job {
+
+	/**
+	 * Time in milliseconds the job waits for further changes before pushing
+	 * the changes to the application.
+	 */
+	public static final long DELAY = 2000;
+
+	/**
+	 * Interval in milliseconds at which a caller waiting for a push checks
+	 * whether it was cancelled.
+	 */
+	private static final long CANCEL_CHECK_INTERVAL = 200;
+
+	private final CloudFoundryServer server;
+
+	private final String appName;
+
+	private final CloudFoundryFileService fileService;
+
+	private Batch batch = new Batch();
+
+	public ApplicationPatchJob(CloudFoundryServer server, String appName, CloudFoundryFileService fileService) {
+		super(NLS.bind(Messages.ApplicationPatchJob_UPDATING_FILES, appName));
+		this.server = server;
+		this.appName = appName;
+		this.fileService = fileService;
+	}
+
+	public Batch putFile(String name, File file) {
+		Batch current;
+		synchronized (this) {
+			batch.patch.putFile(name, file);
+			batch.files.add(file);
+			current = batch;
+		}
+		schedule(DELAY);
+		return current;
+	}
+
+	public Batch delete(String name) {
+		Batch current;
+		synchronized (this) {
+			batch.patch.delete(name);
+			current = batch;
+		}
+		schedule(DELAY);
+		return current;
+	}
+
+	public Batch rename(String oldName, String newName) {
+		Batch current;
+		synchronized (this) {
+			batch.patch.rename(oldName, newName);
+			current = batch;
+		}
+		schedule(DELAY);
+		return current;
+	}
+
+	public Batch copy(String sourceName, String targetName) {
+		Batch current;
+		synchronized (this) {
+			batch.patch.copy(sourceName, targetName);
+			current = batch;
+		}
+		schedule(DELAY);
+		return current;
+	}
+
+	/**
+	 * 
+	 * @return true if changes were added that are not being pushed yet
+	 */
+	public synchronized boolean hasChanges() {
+		return !batch.patch.isEmpty();
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		Batch toPush;
+		synchronized (this) {
+			toPush = batch;
+			batch = new Batch();
+		}
+		IStatus status = Status.OK_STATUS;
+		try {
+			if (!toPush.patch.isEmpty()) {
+				status = push(toPush.patch, monitor);
+			}
+		}
+		finally {
+			for (File file : toPush.files) {
+				file.delete();
+			}
+			toPush.done(status);
+			fileService.removePatchJob(this);
+			if (!toPush.patch.isEmpty()) {
+				fileService.refresh();
+			}
+		}
+		return status;
+	}
+
+	protected IStatus push(ApplicationPatch patch, IProgressMonitor monitor) {
+		try {
+			CloudFoundryApplicationModule appModule = server.getExistingCloudModule(appName);
+			if (appModule == null) {
+				return new Status(IStatus.ERROR, CloudFoundryRsePlugin.PLUGIN_ID, NLS.bind(
+						Messages.ApplicationPatchJob_ERROR_NO_APPLICATION, appName));
+			}
+			server.getBehaviour().patchApplication(appModule, patch, monitor);
+			return Status.OK_STATUS;
+		}
+		catch (CoreException e) {
+			return new Status(IStatus.ERROR, CloudFoundryRsePlugin.PLUGIN_ID, NLS.bind(
+					Messages.ApplicationPatchJob_ERROR_UPDATING_FILES, appName, e.getMessage()), e);
+		}
+		catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
+		}
+		catch (RuntimeException e) {
+			return new Status(IStatus.ERROR, CloudFoundryRsePlugin.PLUGIN_ID, NLS.bind(
+					Messages.ApplicationPatchJob_ERROR_UPDATING_FILES, appName, e.getMessage()), e);
+		}
+	}
+
+	/**
+	 * Changes pushed together, and the result of pushing them.
+	 */
+	public static class Batch {
+
+		private final ApplicationPatch patch = new ApplicationPatch();
+
+		private final List<File> files = new ArrayList<File>();
+
+		private final CountDownLatch pushed = new CountDownLatch(1);
+
+		private volatile IStatus status;
+
+		private void done(IStatus status) {
+			this.status = status;
+			pushed.countDown();
+		}
+
+		/**
+		 * Waits until the changes are pushed.
+		 * @param monitor
+		 * @return result of pushing the changes, or null if the monitor was
+		 * cancelled before. The changes are still pushed in that case.
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		public IStatus await(IProgressMonitor monitor) throws InterruptedException {
+			while (!pushed.await(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+				if (monitor != null && monitor.isCanceled()) {
+					return null;
+				}
+			}
+			return status;
+		}
+	}
+}
@@ -19,9 +19,7 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.rse.internal;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
@@ -41,15 +39,12 @@ public class ApplicationResource extends CloudFoundryHostFile {
 
 	private CloudFoundryServer server;
 
-	private Map<String, List<FileResource>> fileMap;
-
 	public ApplicationResource(CloudFoundryServer server, CloudApplication app, int id) {
 		super();
 		this.app = app;
 		this.server = server;
 		this.id = id;
 		provider = new FilesContentProvider(server, app, id);
-		fileMap = new HashMap<String, List<FileResource>>();
 	}
 
 	public boolean canRead() {
@@ -65,18 +60,16 @@ public class ApplicationResource extends CloudFoundryHostFile {
 	}
 
 	/**
-	 * Fetches the list of children for the given path over the network. Do not
-	 * call this method from a UI thread, call
-	 * {@link #getChildren(String, IProgressMonitor)} instead.
+	 * Fetches the list of children for the given path over the network,
+	 * unless it was fetched recently. Do not call this method from a UI
+	 * thread.
 	 * 
 	 * @param path
 	 * @param monitor
 	 * @return
 	 */
 	public List<FileResource> fetchChildren(String path, IProgressMonitor monitor) {
-		List<FileResource> files = provider.getElements(path, monitor);
-		fileMap.put(path, files);
-		return files;
+		return provider.getElements(path, monitor);
 	}
 
 	public String getAbsolutePath() {
@@ -98,14 +91,16 @@ public class ApplicationResource extends CloudFoundryHostFile {
 	}
 
 	/**
-	 * Returns the cached list of children for the given path.
+	 * Returns the list of children for the given path, which is fetched over
+	 * the network if it is not cached. Do not call this method from a UI
+	 * thread.
 	 * 
 	 * @param path
 	 * @param monitor
 	 * @return
 	 */
 	public List<FileResource> getChildren(String path, IProgressMonitor monitor) {
-		return fileMap.get(path);
+		return provider.getElements(path, monitor);
 	}
 
 	@Override
@@ -142,6 +137,14 @@ public class ApplicationResource extends CloudFoundryHostFile {
 		return 0;
 	}
 
+	/**
+	 * Discards the cached lists of children, so that they are fetched again
+	 * over the network.
+	 */
+	public void refreshChildren() {
+		provider.refresh();
+	}
+
 	public boolean isArchive() {
 		return false;
 	}
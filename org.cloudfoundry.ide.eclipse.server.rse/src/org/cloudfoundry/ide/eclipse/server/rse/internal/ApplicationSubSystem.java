@@ -67,6 +67,7 @@ public class ApplicationSubSystem extends FileServiceSubSystem implements CloudS
 	public void serverChanged(CloudServerEvent event) {
 		int type = event.getType();
 		if (type == CloudServerEvent.EVENT_UPDATE_INSTANCES) {
+			refreshFiles();
 			fireEventChangeChildren();
 		}
 	}
@@ -81,6 +82,7 @@ public class ApplicationSubSystem extends FileServiceSubSystem implements CloudS
 		if (CloudFoundryRsePlugin.doesServerBelongToHost(event.getServer(), getHost())) {
 			if ((event.getKind() & ServerEvent.MODULE_CHANGE) != 0 && (event.getKind() & ServerEvent.STATE_CHANGE) != 0) {
 				if (event.getState() == IServer.STATE_STARTED || event.getState() == IServer.STATE_STOPPED) {
+					refreshFiles();
 					fireEventChangeChildren();
 				}
 			}
@@ -104,6 +106,17 @@ public class ApplicationSubSystem extends FileServiceSubSystem implements CloudS
 		}
 	}
 
+	/**
+	 * Discards cached file listings, as the files of restarted or scaled
+	 * applications may have changed.
+	 */
+	private void refreshFiles() {
+		IFileService fileService = getFileService();
+		if (fileService instanceof CloudFoundryFileService) {
+			((CloudFoundryFileService) fileService).refresh();
+		}
+	}
+
 	private void fireEventChangeChildren() {
 		fireEvent(new SystemResourceChangeEvent(null, ISystemResourceChangeEvents.EVENT_CHANGE_CHILDREN, this));
 	}
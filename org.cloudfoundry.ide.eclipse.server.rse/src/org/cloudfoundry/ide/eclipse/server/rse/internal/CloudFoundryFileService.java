@@ -19,20 +19,30 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.rse.internal;
 
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.rse.core.model.IHost;
+import org.eclipse.rse.services.clientserver.messages.SimpleSystemMessage;
 import org.eclipse.rse.services.clientserver.messages.SystemMessageException;
+import org.eclipse.rse.services.clientserver.messages.SystemOperationCancelledException;
 import org.eclipse.rse.services.files.AbstractFileService;
 import org.eclipse.rse.services.files.IHostFile;
 import org.eclipse.wst.server.core.IServer;
@@ -43,6 +53,15 @@ import org.eclipse.wst.server.core.ServerCore;
  */
 public class CloudFoundryFileService extends AbstractFileService implements ICloudFoundryFileService {
 
+	/**
+	 * Suffix of the file a download is written to until it completes.
+	 */
+	private static final String PARTIAL_DOWNLOAD_SUFFIX = ".part"; //$NON-NLS-1$
+
+	private static final String PATCH_FILE_PREFIX = "cf-patch"; //$NON-NLS-1$
+
+	private final Map<String, ApplicationPatchJob> patchJobs = new HashMap<String, ApplicationPatchJob>();
+
 	private List<AccountResource> accounts;
 
 	private List<ApplicationResource> applications;
@@ -56,14 +75,37 @@ public class CloudFoundryFileService extends AbstractFileService implements IClo
 
 	public void copy(String srcParent, String srcName, String tgtParent, String tgtName, IProgressMonitor monitor)
 			throws SystemMessageException {
-		// TODO Auto-generated method stub
-
+		waitForPatch(addCopy(srcParent, srcName, tgtParent, tgtName), monitor);
 	}
 
+	/**
+	 * Copies all the files before waiting for the changes to be pushed, so
+	 * that they are pushed together.
+	 */
 	public void copyBatch(String[] srcParents, String[] srcNames, String tgtParent, IProgressMonitor monitor)
 			throws SystemMessageException {
-		// TODO Auto-generated method stub
+		List<ApplicationPatchJob.Batch> batches = new ArrayList<ApplicationPatchJob.Batch>();
+		for (int i = 0; i < srcParents.length; i++) {
+			ApplicationPatchJob.Batch batch = addCopy(srcParents[i], srcNames[i], tgtParent, srcNames[i]);
+			if (!batches.contains(batch)) {
+				batches.add(batch);
+			}
+		}
+		for (ApplicationPatchJob.Batch batch : batches) {
+			waitForPatch(batch, monitor);
+		}
+	}
 
+	private ApplicationPatchJob.Batch addCopy(String srcParent, String srcName, String tgtParent, String tgtName)
+			throws SystemMessageException {
+		Object[] source = getApplicationFolder(srcParent);
+		Object[] target = getApplicationFolder(tgtParent);
+		ApplicationResource app = getSameApplication(source, target, srcName);
+		String sourceName = getArchiveName((String) source[1], srcName);
+		String targetName = getArchiveName((String) target[1], tgtName);
+		synchronized (patchJobs) {
+			return getPatchJob(app).copy(sourceName, targetName);
+		}
 	}
 
 	public IHostFile createFile(String remoteParent, String fileName, IProgressMonitor monitor)
@@ -79,8 +121,34 @@ public class CloudFoundryFileService extends AbstractFileService implements IClo
 	}
 
 	public void delete(String remoteParent, String fileName, IProgressMonitor monitor) throws SystemMessageException {
-		// TODO Auto-generated method stub
+		waitForPatch(addDelete(remoteParent, fileName), monitor);
+	}
 
+	/**
+	 * Deletes all the files before waiting for the changes to be pushed, so
+	 * that they are pushed together.
+	 */
+	public void deleteBatch(String[] remoteParents, String[] fileNames, IProgressMonitor monitor)
+			throws SystemMessageException {
+		List<ApplicationPatchJob.Batch> batches = new ArrayList<ApplicationPatchJob.Batch>();
+		for (int i = 0; i < remoteParents.length; i++) {
+			ApplicationPatchJob.Batch batch = addDelete(remoteParents[i], fileNames[i]);
+			if (!batches.contains(batch)) {
+				batches.add(batch);
+			}
+		}
+		for (ApplicationPatchJob.Batch batch : batches) {
+			waitForPatch(batch, monitor);
+		}
+	}
+
+	private ApplicationPatchJob.Batch addDelete(String remoteParent, String fileName) throws SystemMessageException {
+		Object[] parent = getApplicationFolder(remoteParent);
+		ApplicationResource app = (ApplicationResource) parent[0];
+		String name = getArchiveName((String) parent[1], fileName);
+		synchronized (patchJobs) {
+			return getPatchJob(app).delete(name);
+		}
 	}
 
 	public void download(String remoteParent, String remoteFile, File localFile, boolean isBinary, String hostEncoding,
@@ -92,26 +160,30 @@ public class CloudFoundryFileService extends AbstractFileService implements IClo
 			CloudFoundryServer server = app.getServer();
 			String appName = app.getCloudApplication().getName();
 			int instance = app.getInstanceId();
+			// The file is downloaded to a partial file first, so that a failed
+			// or cancelled download can be resumed from where it stopped
+			File partialFile = new File(localFile.getPath() + PARTIAL_DOWNLOAD_SUFFIX);
 			try {
-				String content = server.getBehaviour().getFile(appName, instance, path.concat(remoteFile).substring(1),
-						monitor);
-				if (content != null) {
-					if (!localFile.exists()) {
-						localFile.getParentFile().mkdirs();
-					}
-					ByteArrayInputStream inStream = new ByteArrayInputStream(content.getBytes());
-					OutputStream outStream = new BufferedOutputStream(new FileOutputStream(localFile));
-					int byteCount = 0;
-					byte[] buffer = new byte[4096];
-					int bytesRead = -1;
-					while ((bytesRead = inStream.read(buffer)) != -1) {
-						outStream.write(buffer, 0, bytesRead);
-						byteCount += bytesRead;
-					}
-					outStream.flush();
-					inStream.close();
+				if (!localFile.exists()) {
+					localFile.getParentFile().mkdirs();
+				}
+				FileResource remote = getFileResource(app, path, remoteFile, monitor);
+				if (partialFile.exists() && !canResume(partialFile, remote, app.getCloudApplication())) {
+					partialFile.delete();
+				}
+				FileOutputStream outStream = new FileOutputStream(partialFile, true);
+				try {
+					FileChannel channel = outStream.getChannel();
+					server.getBehaviour().getFile(appName, instance, path.concat(remoteFile).substring(1),
+							channel.size(), remote != null ? remote.getSize() : -1, channel, monitor);
+				}
+				finally {
 					outStream.close();
 				}
+				Files.move(partialFile.toPath(), localFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (OperationCanceledException e) {
+				throw new SystemOperationCancelledException();
 			}
 			catch (Exception e) {
 				CloudFoundryRsePlugin.logError("An error occurred while opening file: " + remoteFile //$NON-NLS-1$
@@ -121,6 +193,49 @@ public class CloudFoundryFileService extends AbstractFileService implements IClo
 
 	}
 
+	/**
+	 * 
+	 * @return the given file as listed in its parent folder, or null if the
+	 * file is not listed
+	 */
+	private FileResource getFileResource(ApplicationResource app, String path, String name, IProgressMonitor monitor) {
+		List<FileResource> files = app.getChildren(path, monitor);
+		if (files != null) {
+			for (FileResource file : files) {
+				if (name.equals(file.getName())) {
+					return file;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Determines whether a partial download is still a prefix of the remote
+	 * file. It is not if it is longer than the remote file, for example
+	 * because a log file was rotated, or if the application was updated or
+	 * restarted since, which replaces the files of its instances.
+	 * @param partialFile partial download
+	 * @param remote remote file as listed, or null if unknown
+	 * @param application application the file belongs to
+	 * @return true if the download can be resumed from the end of the partial
+	 * file, false if it must start over
+	 */
+	protected static boolean canResume(File partialFile, FileResource remote, CloudApplication application) {
+		long maxSize = remote != null ? remote.getMaxSize() : -1;
+		if (maxSize >= 0 && partialFile.length() > maxSize) {
+			return false;
+		}
+		if (application != null && application.getMeta() != null) {
+			Date updated = application.getMeta().getUpdated() != null ? application.getMeta().getUpdated()
+					: application.getMeta().getCreated();
+			if (updated != null && partialFile.lastModified() < updated.getTime()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public String getDescription() {
 		return Messages.CloudFoundryFileService_DESCRIPTION_FILE_SERVICES;
@@ -185,20 +300,52 @@ public class CloudFoundryFileService extends AbstractFileService implements IClo
 
 	public void move(String srcParent, String srcName, String tgtParent, String tgtName, IProgressMonitor monitor)
 			throws SystemMessageException {
-		// TODO Auto-generated method stub
+		Object[] source = getApplicationFolder(srcParent);
+		Object[] target = getApplicationFolder(tgtParent);
+		ApplicationResource app = getSameApplication(source, target, srcName);
+		String sourceName = getArchiveName((String) source[1], srcName);
+		String targetName = getArchiveName((String) target[1], tgtName);
+		ApplicationPatchJob.Batch batch;
+		synchronized (patchJobs) {
+			batch = getPatchJob(app).rename(sourceName, targetName);
+		}
+		waitForPatch(batch, monitor);
+	}
 
+	/**
+	 * Discards the cached file listings of all application instances, so
+	 * that they are fetched again from the server.
+	 */
+	public void refresh() {
+		List<ApplicationResource> apps = applications;
+		if (apps != null) {
+			for (ApplicationResource app : apps.toArray(new ApplicationResource[apps.size()])) {
+				app.refreshChildren();
+			}
+		}
 	}
 
 	public void rename(String remoteParent, String oldName, String newName, IHostFile oldFile, IProgressMonitor monitor)
 			throws SystemMessageException {
-		// TODO Auto-generated method stub
-
+		rename(remoteParent, oldName, newName, monitor);
+		String oldPath = oldFile.getAbsolutePath();
+		if (oldPath != null && oldPath.endsWith(oldName)) {
+			oldFile.renameTo(oldPath.substring(0, oldPath.length() - oldName.length()) + newName);
+		}
 	}
 
 	public void rename(String remoteParent, String oldName, String newName, IProgressMonitor monitor)
 			throws SystemMessageException {
-		// TODO Auto-generated method stub
-
+		Object[] parent = getApplicationFolder(remoteParent);
+		ApplicationResource app = (ApplicationResource) parent[0];
+		String path = (String) parent[1];
+		String sourceName = getArchiveName(path, oldName);
+		String targetName = getArchiveName(path, newName);
+		ApplicationPatchJob.Batch batch;
+		synchronized (patchJobs) {
+			batch = getPatchJob(app).rename(sourceName, targetName);
+		}
+		waitForPatch(batch, monitor);
 	}
 
 	public void setLastModified(String parent, String name, long timestamp, IProgressMonitor monitor)
@@ -213,16 +360,169 @@ public class CloudFoundryFileService extends AbstractFileService implements IClo
 
 	}
 
+	/**
+	 * Uploads the contents of the local file to the application once changes
+	 * to its files stop for {@link ApplicationPatchJob#DELAY} milliseconds,
+	 * and waits until they are pushed. The contents are uploaded as is,
+	 * without encoding conversion.
+	 */
 	public void upload(File localFile, String remoteParent, String remoteFile, boolean isBinary, String srcEncoding,
 			String hostEncoding, IProgressMonitor monitor) throws SystemMessageException {
-		// TODO Auto-generated method stub
-
+		InputStream stream;
+		try {
+			stream = new FileInputStream(localFile);
+		}
+		catch (IOException e) {
+			throw newSystemMessageException(
+					NLS.bind(Messages.CloudFoundryFileService_ERROR_READING_FILE, localFile, e.getMessage()), e);
+		}
+		upload(stream, remoteParent, remoteFile, isBinary, hostEncoding, monitor);
 	}
 
+	/**
+	 * Uploads the contents of the stream to the application once changes to
+	 * its files stop for {@link ApplicationPatchJob#DELAY} milliseconds, and
+	 * waits until they are pushed. The contents are uploaded as is, without
+	 * encoding conversion. The stream is closed.
+	 */
 	public void upload(InputStream stream, String remoteParent, String remoteFile, boolean isBinary,
 			String hostEncoding, IProgressMonitor monitor) throws SystemMessageException {
-		// TODO Auto-generated method stub
+		ApplicationPatchJob.Batch batch;
+		try {
+			Object[] parent = getApplicationFolder(remoteParent);
+			ApplicationResource app = (ApplicationResource) parent[0];
+			String name = getArchiveName((String) parent[1], remoteFile);
+
+			// The contents are read when the changes are pushed, so they are
+			// copied in case the source changes or is deleted meanwhile
+			File copy;
+			try {
+				copy = File.createTempFile(PATCH_FILE_PREFIX, null);
+				Files.copy(stream, copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (IOException e) {
+				throw newSystemMessageException(
+						NLS.bind(Messages.CloudFoundryFileService_ERROR_READING_FILE, remoteFile, e.getMessage()), e);
+			}
+			synchronized (patchJobs) {
+				batch = getPatchJob(app).putFile(name, copy);
+			}
+		}
+		finally {
+			try {
+				stream.close();
+			}
+			catch (IOException e) {
+				// Ignore
+			}
+		}
+		waitForPatch(batch, monitor);
+	}
+
+	/**
+	 * 
+	 * @return the application and the path of the given folder in the
+	 * application instance.
+	 * @throws SystemMessageException if the folder is not a folder of an
+	 * application instance
+	 */
+	private Object[] getApplicationFolder(String remoteParent) throws SystemMessageException {
+		Object[] array = parseNestedFiles(remoteParent.endsWith("/") ? remoteParent : remoteParent + '/'); //$NON-NLS-1$
+		if (array == null) {
+			throw newSystemMessageException(
+					NLS.bind(Messages.CloudFoundryFileService_ERROR_NOT_APPLICATION_FILE, remoteParent), null);
+		}
+		return array;
+	}
+
+	private ApplicationResource getSameApplication(Object[] source, Object[] target, String name)
+			throws SystemMessageException {
+		ApplicationResource app = (ApplicationResource) source[0];
+		ApplicationResource targetApp = (ApplicationResource) target[0];
+		if (app.getServer() != targetApp.getServer()
+				|| !app.getCloudApplication().getName().equals(targetApp.getCloudApplication().getName())) {
+			throw newSystemMessageException(
+					NLS.bind(Messages.CloudFoundryFileService_ERROR_DIFFERENT_APPLICATIONS, name), null);
+		}
+		return app;
+	}
+
+	/**
+	 * 
+	 * @return name of the given file in the application archive
+	 * @throws SystemMessageException if the file is not in the app folder of
+	 * the application instance, which is the only folder that contains files
+	 * of the application archive
+	 */
+	private String getArchiveName(String path, String name) throws SystemMessageException {
+		String filePath = path + name;
+		if (!filePath.startsWith(FilesContentProvider.APPLICATION_FOLDER)
+				|| filePath.length() == FilesContentProvider.APPLICATION_FOLDER.length()) {
+			throw newSystemMessageException(
+					NLS.bind(Messages.CloudFoundryFileService_ERROR_NOT_APPLICATION_FILE, filePath), null);
+		}
+		return filePath.substring(FilesContentProvider.APPLICATION_FOLDER.length());
+	}
+
+	/**
+	 * Changes must be added to the returned job while holding the lock of
+	 * {@link #patchJobs}, so that the job is not discarded meanwhile.
+	 * @return job pushing the changes made to the files of the given
+	 * application. All the instances of an application share the same job.
+	 */
+	private ApplicationPatchJob getPatchJob(ApplicationResource app) {
+		CloudFoundryServer server = app.getServer();
+		String appName = app.getCloudApplication().getName();
+		String key = server.getServer().getId() + '/' + appName;
+		synchronized (patchJobs) {
+			ApplicationPatchJob job = patchJobs.get(key);
+			if (job == null) {
+				job = new ApplicationPatchJob(server, appName, this);
+				patchJobs.put(key, job);
+			}
+			return job;
+		}
+	}
+
+	/**
+	 * Discards the given job if it has pushed all the changes added to it.
+	 * Called by the job each time it completes.
+	 */
+	void removePatchJob(ApplicationPatchJob job) {
+		synchronized (patchJobs) {
+			if (!job.hasChanges()) {
+				patchJobs.values().remove(job);
+			}
+		}
+	}
+
+	/**
+	 * Waits until the given changes are pushed to the application.
+	 * @throws SystemMessageException if the changes failed to be pushed
+	 * @throws SystemOperationCancelledException if the monitor is cancelled
+	 * before the changes are pushed, or the push is cancelled
+	 */
+	private void waitForPatch(ApplicationPatchJob.Batch batch, IProgressMonitor monitor)
+			throws SystemMessageException {
+		IStatus status;
+		try {
+			status = batch.await(monitor);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SystemOperationCancelledException();
+		}
+		if (status == null || status.getSeverity() == IStatus.CANCEL) {
+			throw new SystemOperationCancelledException();
+		}
+		if (!status.isOK()) {
+			throw newSystemMessageException(status.getMessage(), status.getException());
+		}
+	}
 
+	private static SystemMessageException newSystemMessageException(String message, Throwable cause) {
+		return new SystemMessageException(new SimpleSystemMessage(CloudFoundryRsePlugin.PLUGIN_ID, IStatus.ERROR,
+				message, cause));
 	}
 
 	private AccountResource parseAccount(String path) {
@@ -34,6 +34,8 @@ public class FileResource extends CloudFoundryHostFile {
 
 	private boolean isFile = true;
 
+	private boolean canWrite = false;
+
 	private long modifiedDate;
 
 	private String name;
@@ -53,7 +55,7 @@ public class FileResource extends CloudFoundryHostFile {
 	}
 
 	public boolean canWrite() {
-		return false;
+		return canWrite;
 	}
 
 	public boolean exists() {
@@ -117,6 +119,32 @@ public class FileResource extends CloudFoundryHostFile {
 		return l;
 	}
 
+	/**
+	 * 
+	 * @return upper bound of the size of the file in bytes, as the listed
+	 * size is rounded, or -1 if the size is unknown
+	 */
+	public long getMaxSize() {
+		try {
+			if (size.endsWith("B")) { //$NON-NLS-1$
+				return Long.parseLong(size.substring(0, size.length() - 1));
+			}
+			// Listed sizes have at most one decimal, and may be in multiples
+			// of 1000 or of 1024
+			double num = Double.parseDouble(size.substring(0, size.length() - 1)) + 0.1;
+			if (size.endsWith("K")) { //$NON-NLS-1$
+				return (long) (num * 1024);
+			}
+			else if (size.endsWith("M")) { //$NON-NLS-1$
+				return (long) (num * 1024 * 1024);
+			}
+		}
+		catch (Exception e) {
+			// Unknown size
+		}
+		return -1;
+	}
+
 	public boolean isArchive() {
 		return false;
 	}
@@ -138,8 +166,14 @@ public class FileResource extends CloudFoundryHostFile {
 	}
 
 	public void renameTo(String newAbsolutePath) {
-		// TODO Auto-generated method stub
+		path = newAbsolutePath;
+		String newName = newAbsolutePath.endsWith("/") ? newAbsolutePath.substring(0, newAbsolutePath.length() - 1) //$NON-NLS-1$
+				: newAbsolutePath;
+		name = newName.substring(newName.lastIndexOf('/') + 1);
+	}
 
+	public void setCanWrite(boolean canWrite) {
+		this.canWrite = canWrite;
 	}
 
 	public void setAbsolutePath(String path) {
@@ -21,68 +21,253 @@ package org.cloudfoundry.ide.eclipse.server.rse.internal;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Semaphore;
 
 import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.ClientRequestCache;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.ClientRequestCache.Key;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 /**
+ * Lists the files of an application instance. Listings are cached for
+ * {@link #LISTING_TTL} milliseconds, and concurrent requests for the same
+ * directory share a single request to the server.
+ * <p/>
+ * When a directory is listed, its subdirectories that are not cached yet are
+ * listed in the background, so that expanding one of them does not wait for
+ * the server. At most {@link #MAX_PREFETCH_REQUESTS} background listings are
+ * in progress at any time, across all applications.
+ * 
  * @author Leo Dos Santos
  * @author Christian Dupuis
  */
 public class FilesContentProvider {
 
+	/**
+	 * Folder of an application instance containing the files of the
+	 * application archive. Files in this folder can be changed.
+	 */
+	public static final String APPLICATION_FOLDER = "/app/"; //$NON-NLS-1$
+
+	/**
+	 * Time in milliseconds a directory listing is cached.
+	 */
+	public static final long LISTING_TTL = 30000;
+
+	/**
+	 * Maximum number of directory listings requested in the background at
+	 * the same time.
+	 */
+	public static final int MAX_PREFETCH_REQUESTS = 4;
+
+	/**
+	 * Maximum number of subdirectories listed in the background after a
+	 * directory is listed.
+	 */
+	private static final int MAX_PREFETCH_DIRECTORIES = 8;
+
+	private static final Semaphore PREFETCH_REQUESTS = new Semaphore(MAX_PREFETCH_REQUESTS);
+
+	private static final String FILES = "files"; //$NON-NLS-1$
+
 	private CloudApplication app;
 
 	private int id;
 
 	private CloudFoundryServer server;
 
+	private final ClientRequestCache cache = new ClientRequestCache();
+
 	public FilesContentProvider(CloudFoundryServer server, CloudApplication app, int id) {
 		this.app = app;
 		this.server = server;
 		this.id = id;
 	}
 
+	/**
+	 * Returns the files in the given directory, from the cache if it was
+	 * listed recently. Do not call this method from a UI thread.
+	 * @param inputElement path of the directory, relative to the application
+	 * instance, and starting with a slash
+	 * @param monitor
+	 * @return files in the directory. The list is shared and cannot be
+	 * modified.
+	 */
 	public List<FileResource> getElements(Object inputElement, IProgressMonitor monitor) {
-		List<FileResource> list = new ArrayList<FileResource>();
 		if (inputElement instanceof String) {
-			String parent = (String) inputElement;
+			String parent = getDirectoryPath((String) inputElement);
 			try {
-				if (AppState.STARTED.equals(app.getState())) {
-					String blob = server.getBehaviour().getFile(app.getName(), id, parent.substring(1), monitor);
-					String[] files = blob.split("\n"); //$NON-NLS-1$
-					long timestamp = Calendar.getInstance().getTimeInMillis();
-					for (int i = 0; i < files.length; i++) {
-						String[] content = files[i].split("\\s+"); //$NON-NLS-1$
-						String name = content[0];
-						if (name.trim().length() > 0) {
-							FileResource resource = new FileResource();
-							if (name.endsWith("/")) { //$NON-NLS-1$
-								resource.setIsDirectory(true);
-								resource.setIsFile(false);
-								name = name.substring(0, name.length() - 1);
-							}
-							resource.setName(name);
-							resource.setModifiedDate(timestamp);
-							String parentPath = ApplicationResource.getAbsolutePath(app, id + parent);
-							resource.setParentPath(parentPath);
-							resource.setAbsolutePath(parentPath.concat(content[0]));
-							if (content.length > 1) {
-								resource.setSize(content[1]);
-							}
-							list.add(resource);
-						}
-					}
-				}
+				List<FileResource> files = getListing(parent, monitor);
+				prefetch(parent, files);
+				return files;
 			}
 			catch (CoreException e) {
 				CloudFoundryRsePlugin.logError("An error occurred while retrieving files for application " + app.getName(), e); //$NON-NLS-1$
 			}
 		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Discards the cached listing of the given directory, so that it is
+	 * requested from the server the next time it is needed.
+	 * @param path of the directory
+	 */
+	public void refresh(String path) {
+		cache.invalidate(new Key(FILES, getDirectoryPath(path)));
+	}
+
+	/**
+	 * Discards all the cached listings of the application instance.
+	 */
+	public void refresh() {
+		cache.invalidateAll();
+	}
+
+	protected List<FileResource> getListing(final String parent, IProgressMonitor monitor) throws CoreException {
+		final IProgressMonitor loadMonitor = monitor;
+		return cache.get(new Key(FILES, parent), LISTING_TTL, new ClientRequestCache.Loader<List<FileResource>>() {
+			public List<FileResource> load() throws CoreException {
+				if (!AppState.STARTED.equals(app.getState())) {
+					return Collections.emptyList();
+				}
+				String blob = requestListing(parent, loadMonitor);
+				return Collections.unmodifiableList(parseListing(parent, blob));
+			}
+		}, monitor);
+	}
+
+	/**
+	 * Requests the listing of the given directory from the server.
+	 * @param parent path of the directory, starting and ending with a slash
+	 * @return listing of the directory, as parsed by
+	 * {@link #parseListing(String, String)}
+	 */
+	protected String requestListing(String parent, IProgressMonitor monitor) throws CoreException {
+		return server.getBehaviour().getFile(app.getName(), id, parent.substring(1), monitor);
+	}
+
+	/**
+	 * Lists in the background the subdirectories of the given directory that
+	 * are not cached, as they are likely to be expanded next. Subdirectories
+	 * are skipped if too many background listings are in progress.
+	 */
+	protected void prefetch(String parent, List<FileResource> files) {
+		int scheduled = 0;
+		for (FileResource file : files) {
+			if (scheduled == MAX_PREFETCH_DIRECTORIES) {
+				return;
+			}
+			if (file.isDirectory()) {
+				String path = parent + file.getName() + '/';
+				if (!cache.contains(new Key(FILES, path))) {
+					if (!PREFETCH_REQUESTS.tryAcquire()) {
+						return;
+					}
+					schedulePrefetch(path);
+					scheduled++;
+				}
+			}
+		}
+	}
+
+	private void schedulePrefetch(final String path) {
+		Job job = new Job("Listing files of application: " + app.getName()) { //$NON-NLS-1$
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					getListing(path, monitor);
+				}
+				catch (CoreException e) {
+					// Not reported, as the directory is listed again if it is
+					// expanded
+				}
+				catch (OperationCanceledException e) {
+					// Ignore
+				}
+				finally {
+					PREFETCH_REQUESTS.release();
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.schedule();
+	}
+
+	/**
+	 * Parses a directory listing returned by the server, made of one line per
+	 * file with the name of the file followed by blanks and its size.
+	 * Directory names end with a slash.
+	 */
+	protected List<FileResource> parseListing(String parent, String blob) {
+		List<FileResource> list = new ArrayList<FileResource>();
+		if (blob == null) {
+			return list;
+		}
+		long timestamp = Calendar.getInstance().getTimeInMillis();
+		String parentPath = ApplicationResource.getAbsolutePath(app, id + parent);
+		boolean writable = parent.startsWith(APPLICATION_FOLDER);
+		int length = blob.length();
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = blob.indexOf('\n', lineStart);
+			if (lineEnd < 0) {
+				lineEnd = length;
+			}
+			int nameStart = skipWhitespace(blob, lineStart, lineEnd);
+			int nameEnd = skipToken(blob, nameStart, lineEnd);
+			if (nameEnd > nameStart) {
+				String entry = blob.substring(nameStart, nameEnd);
+				String name = entry;
+				FileResource resource = new FileResource();
+				if (name.endsWith("/")) { //$NON-NLS-1$
+					resource.setIsDirectory(true);
+					resource.setIsFile(false);
+					name = name.substring(0, name.length() - 1);
+				}
+				resource.setName(name);
+				resource.setModifiedDate(timestamp);
+				resource.setCanWrite(writable);
+				resource.setParentPath(parentPath);
+				resource.setAbsolutePath(parentPath.concat(entry));
+				int sizeStart = skipWhitespace(blob, nameEnd, lineEnd);
+				int sizeEnd = skipToken(blob, sizeStart, lineEnd);
+				if (sizeEnd > sizeStart) {
+					resource.setSize(blob.substring(sizeStart, sizeEnd));
+				}
+				list.add(resource);
+			}
+			lineStart = lineEnd + 1;
+		}
 		return list;
 	}
+
+	private static int skipWhitespace(String blob, int index, int end) {
+		while (index < end && Character.isWhitespace(blob.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	private static int skipToken(String blob, int index, int end) {
+		while (index < end && !Character.isWhitespace(blob.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	private static String getDirectoryPath(String path) {
+		return path.endsWith("/") ? path : path + '/'; //$NON-NLS-1$
+	}
 }
@@ -24,11 +24,23 @@ import org.eclipse.osgi.util.NLS;
 public class Messages extends NLS {
 	private static final String BUNDLE_NAME = CloudFoundryRsePlugin.PLUGIN_ID + ".internal.Messages"; //$NON-NLS-1$
 
+	public static String ApplicationPatchJob_ERROR_NO_APPLICATION;
+
+	public static String ApplicationPatchJob_ERROR_UPDATING_FILES;
+
+	public static String ApplicationPatchJob_UPDATING_FILES;
+
 	public static String ApplicationSubSystem_DESCRIPTION;
 
 	public static String CloudFoundryFileService_DESCRIPTION_FILE_SERVICE_NAME;
 
 	public static String CloudFoundryFileService_DESCRIPTION_FILE_SERVICES;
+
+	public static String CloudFoundryFileService_ERROR_DIFFERENT_APPLICATIONS;
+
+	public static String CloudFoundryFileService_ERROR_NOT_APPLICATION_FILE;
+
+	public static String CloudFoundryFileService_ERROR_READING_FILE;
 	static {
 		// initialize resource bundle
 		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
@@ -27,14 +27,14 @@ import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
-import java.util.zip.ZipFile;
 
 import org.cloudfoundry.client.lib.archive.ApplicationArchive;
-import org.cloudfoundry.client.lib.archive.ZipApplicationArchive;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationArchiveCache;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudErrorUtil;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryProjectUtil;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ZipFileApplicationArchive;
 import org.cloudfoundry.ide.eclipse.server.core.internal.application.ManifestParser;
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
 import org.cloudfoundry.ide.eclipse.server.standalone.internal.Messages;
@@ -42,6 +42,7 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -57,6 +58,7 @@ import org.eclipse.jdt.ui.jarpackager.IJarExportRunnable;
 import org.eclipse.jdt.ui.jarpackager.JarPackageData;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.model.IModuleResource;
 import org.springframework.boot.loader.tools.Libraries;
 import org.springframework.boot.loader.tools.Library;
 import org.springframework.boot.loader.tools.LibraryCallback;
@@ -79,6 +81,8 @@ public class JavaCloudFoundryArchiver {
 
 	private final CloudFoundryServer cloudServer;
 
+	private final IModuleResource[] moduleResources;
+
 	private static final String META_FOLDER_NAME = "META-INF"; //$NON-NLS-1$
 
 	private static final String MANIFEST_FILE = "MANIFEST.MF"; //$NON-NLS-1$
@@ -87,8 +91,22 @@ public class JavaCloudFoundryArchiver {
 
 	public JavaCloudFoundryArchiver(CloudFoundryApplicationModule appModule,
 			CloudFoundryServer cloudServer) {
+		this(appModule, cloudServer, null);
+	}
+
+	/**
+	 * 
+	 * @param appModule
+	 * @param cloudServer
+	 * @param moduleResources resources of the application module. If not
+	 * null, they are used to reuse a jar previously packaged from the same
+	 * content.
+	 */
+	public JavaCloudFoundryArchiver(CloudFoundryApplicationModule appModule,
+			CloudFoundryServer cloudServer, IModuleResource[] moduleResources) {
 		this.appModule = appModule;
 		this.cloudServer = cloudServer;
+		this.moduleResources = moduleResources;
 	}
 
 	public ApplicationArchive getApplicationArchive(IProgressMonitor monitor)
@@ -113,6 +131,7 @@ public class JavaCloudFoundryArchiver {
 		}
 
 		File packagedFile = null;
+		ApplicationArchiveCache archiveCache = null;
 		if (archivePath != null) {
 			// URLs should be project relative
 			IPath path = new Path(archivePath);
@@ -213,25 +232,43 @@ public class JavaCloudFoundryArchiver {
 				jarPackageData.setGenerateManifest(true);
 			}
 
-			try {
-				packagedFile = packageApplication(jarPackageData, monitor);
-			} catch (CoreException e) {
-				handleApplicationDeploymentFailure(NLS.bind(Messages.JavaCloudFoundryArchiver_ERROR_JAVA_APP_PACKAGE,
-						e.getMessage()));
-			}
+			archiveCache = CloudFoundryPlugin.getDefault()
+					.getApplicationArchiveCache();
+			String contentKey = getContentKey(archiveCache, roots, mainType,
+					isBoot);
+			packagedFile = archiveCache.getArchive(contentKey);
+
+			if (packagedFile == null) {
+				try {
+					packagedFile = packageApplication(jarPackageData, monitor);
+				} catch (CoreException e) {
+					handleApplicationDeploymentFailure(NLS.bind(Messages.JavaCloudFoundryArchiver_ERROR_JAVA_APP_PACKAGE,
+							e.getMessage()));
+				}
 
-			if (packagedFile == null || !packagedFile.exists()) {
-				handleApplicationDeploymentFailure(Messages.JavaCloudFoundryArchiver_ERROR_NO_PACKAGED_FILE_CREATED);
-			}
+				if (packagedFile == null || !packagedFile.exists()) {
+					handleApplicationDeploymentFailure(Messages.JavaCloudFoundryArchiver_ERROR_NO_PACKAGED_FILE_CREATED);
+				}
 
-			if (isBoot) {
-				bootRepackage(roots, packagedFile);
+				if (isBoot) {
+					bootRepackage(roots, packagedFile);
+				}
+
+				if (contentKey != null) {
+					File storedFile = archiveCache.addArchive(contentKey,
+							packagedFile);
+					if (storedFile != null) {
+						packagedFile = storedFile;
+					}
+				}
 			}
 		}
 
-		// At this stage a packaged file should have been created or found
+		// At this stage a packaged file should have been created or found.
+		// The archive retains the file in the cache until it is closed once
+		// pushed.
 		try {
-			return new ZipApplicationArchive(new ZipFile(packagedFile));
+			return ZipFileApplicationArchive.open(packagedFile, archiveCache);
 		} catch (IOException ioe) {
 			handleApplicationDeploymentFailure(NLS.bind(Messages.JavaCloudFoundryArchiver_ERROR_CREATE_CF_ARCHIVE, ioe.getMessage()));
 		}
@@ -301,6 +338,79 @@ public class JavaCloudFoundryArchiver {
 		return new JavaPackageFragmentRootHandler(javaProject, null);
 	}
 
+	/**
+	 * Computes a key that identifies the jar packaged from the current
+	 * application module resources and the contents of every package fragment
+	 * root packaged into the jar, including the source and output folders of
+	 * required projects.
+	 * 
+	 * @return content key, or null if no module resources are available or
+	 * the key cannot be computed
+	 */
+	protected String getContentKey(ApplicationArchiveCache archiveCache,
+			IPackageFragmentRoot[] roots, IType mainType, boolean isBoot) {
+		if (moduleResources == null) {
+			return null;
+		}
+		try {
+			ApplicationArchiveCache.ContentKeyBuilder builder = archiveCache
+					.newContentKeyBuilder();
+			builder.addQualifier("jar"); //$NON-NLS-1$
+			builder.addQualifier(String.valueOf(isBoot));
+			if (mainType != null) {
+				builder.addQualifier(mainType.getFullyQualifiedName());
+			}
+			builder.addResources("", moduleResources); //$NON-NLS-1$
+
+			// Required projects and libraries packaged into the jar are not
+			// part of the module resources
+			for (IPackageFragmentRoot root : roots) {
+				addRootContent(builder, root);
+			}
+			return builder.build();
+		} catch (IOException e) {
+			CloudFoundryPlugin.logError(e);
+			return null;
+		} catch (CoreException e) {
+			CloudFoundryPlugin.logError(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Adds the content the jar packager exports for the given root: the
+	 * archive itself, or the resources of a source folder and the class files
+	 * in its output folder.
+	 */
+	protected void addRootContent(
+			ApplicationArchiveCache.ContentKeyBuilder builder,
+			IPackageFragmentRoot root) throws IOException, CoreException {
+		String prefix = root.getPath().toString() + '!';
+		IResource resource = root.getResource();
+		File rootFile = resource != null && resource.getLocation() != null ? resource
+				.getLocation().toFile() : root.getPath().toFile();
+		if (root.isArchive()) {
+			builder.addFile(prefix, rootFile);
+			return;
+		}
+
+		builder.addDirectory(prefix + "src/", rootFile); //$NON-NLS-1$
+
+		if (root.getKind() == IPackageFragmentRoot.K_SOURCE) {
+			IPath outputLocation = root.getRawClasspathEntry()
+					.getOutputLocation();
+			if (outputLocation == null) {
+				outputLocation = root.getJavaProject().getOutputLocation();
+			}
+			IResource output = ResourcesPlugin.getWorkspace().getRoot()
+					.findMember(outputLocation);
+			if (output != null && output.getLocation() != null) {
+				builder.addDirectory(prefix + "bin/", output.getLocation() //$NON-NLS-1$
+						.toFile());
+			}
+		}
+	}
+
 	protected void bootRepackage(final IPackageFragmentRoot[] roots,
 			File packagedFile) throws CoreException {
 		Repackager bootRepackager = new Repackager(packagedFile);
@@ -68,8 +68,8 @@ public class StandaloneApplicationDelegate extends
 			CloudFoundryApplicationModule appModule,
 			CloudFoundryServer cloudServer, IModuleResource[] moduleResources,
 			IProgressMonitor monitor) throws CoreException {
-		return new JavaCloudFoundryArchiver(appModule, cloudServer)
-				.getApplicationArchive(monitor);
+		return new JavaCloudFoundryArchiver(appModule, cloudServer,
+				moduleResources).getApplicationArchive(monitor);
 	}
 
 }
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class ApplicationArchiveCacheTest extends TestCase {
+
+	private File storeDirectory;
+
+	private File archiveFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		storeDirectory = File.createTempFile("archives", "");
+		storeDirectory.delete();
+		storeDirectory.mkdirs();
+		archiveFile = File.createTempFile("archive", ".war");
+		FileOutputStream out = new FileOutputStream(archiveFile);
+		try {
+			out.write(new byte[] { 1, 2, 3, 4 });
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = storeDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		storeDirectory.delete();
+		archiveFile.delete();
+	}
+
+	public void testAddAndGetArchive() throws Exception {
+		ApplicationArchiveCache cache = new ApplicationArchiveCache(storeDirectory, 1024);
+		assertNull(cache.getArchive("key1"));
+
+		File stored = cache.addArchive("key1", archiveFile);
+		assertNotNull(stored);
+		assertEquals("key1.war", stored.getName());
+		assertEquals(4, stored.length());
+		assertEquals(stored, cache.getArchive("key1"));
+		assertEquals(4, cache.getTotalBytes());
+
+		// Existing archives are found by a new store in the same directory
+		ApplicationArchiveCache restored = new ApplicationArchiveCache(storeDirectory, 1024);
+		assertEquals(stored, restored.getArchive("key1"));
+	}
+
+	public void testEvictLeastRecentlyUsed() throws Exception {
+		ApplicationArchiveCache cache = new ApplicationArchiveCache(storeDirectory, 8, 0);
+		File first = cache.addArchive("key1", archiveFile);
+		cache.addArchive("key2", archiveFile);
+		assertNotNull(cache.getArchive("key1"));
+
+		cache.addArchive("key3", archiveFile);
+		assertEquals(8, cache.getTotalBytes());
+		assertNull(cache.getArchive("key2"));
+		assertEquals(first, cache.getArchive("key1"));
+		assertNotNull(cache.getArchive("key3"));
+	}
+
+	public void testLeasedArchiveNotEvicted() throws Exception {
+		ApplicationArchiveCache cache = new ApplicationArchiveCache(storeDirectory, 4, 60 * 1000);
+		File first = cache.addArchive("key1", archiveFile);
+		File second = cache.addArchive("key2", archiveFile);
+		assertTrue(first.exists());
+		assertTrue(second.exists());
+		assertEquals(8, cache.getTotalBytes());
+	}
+
+	public void testRetainedArchiveNotEvicted() throws Exception {
+		ApplicationArchiveCache cache = new ApplicationArchiveCache(storeDirectory, 4, 0);
+		File first = cache.addArchive("key1", archiveFile);
+		assertTrue(cache.retainArchive(first));
+		assertFalse(cache.retainArchive(archiveFile));
+
+		// The lease has expired, but the archive is still being read
+		cache.addArchive("key2", archiveFile);
+		assertTrue(first.exists());
+		assertNull(cache.getArchive("key2"));
+		assertEquals(4, cache.getTotalBytes());
+
+		cache.releaseArchive(first);
+		cache.addArchive("key3", archiveFile);
+		assertFalse(first.exists());
+		assertNull(cache.getArchive("key1"));
+		assertEquals(4, cache.getTotalBytes());
+	}
+
+	public void testContentKeyOfDirectory() throws Exception {
+		ApplicationArchiveCache cache = new ApplicationArchiveCache(storeDirectory, 1024);
+		File directory = File.createTempFile("output", "");
+		directory.delete();
+		File subDirectory = new File(directory, "pkg");
+		subDirectory.mkdirs();
+		File classFile = new File(subDirectory, "Main.class");
+		try {
+			FileOutputStream out = new FileOutputStream(classFile);
+			try {
+				out.write(1);
+			}
+			finally {
+				out.close();
+			}
+			String key = cache.newContentKeyBuilder().addDirectory("bin/", directory).build();
+			assertNotNull(key);
+			assertEquals(key, cache.newContentKeyBuilder().addDirectory("bin/", directory).build());
+
+			// A change in a dependent project output changes the key
+			out = new FileOutputStream(classFile);
+			try {
+				out.write(new byte[] { 1, 2 });
+			}
+			finally {
+				out.close();
+			}
+			assertFalse(key.equals(cache.newContentKeyBuilder().addDirectory("bin/", directory).build()));
+
+			// Missing files cannot be keyed
+			assertNull(cache.newContentKeyBuilder().addFile("lib.jar", new File(directory, "lib.jar")).build());
+		}
+		finally {
+			classFile.delete();
+			subDirectory.delete();
+			directory.delete();
+		}
+	}
+
+	public void testFileDigestsBounded() throws Exception {
+		ApplicationArchiveCache cache = new ApplicationArchiveCache(storeDirectory, 1024, 0, 2);
+		File[] files = new File[3];
+		try {
+			for (int i = 0; i < files.length; i++) {
+				files[i] = File.createTempFile("resource", ".txt");
+				FileOutputStream out = new FileOutputStream(files[i]);
+				try {
+					out.write(i);
+				}
+				finally {
+					out.close();
+				}
+			}
+			byte[] first = cache.getFileDigest(files[0]);
+			cache.getFileDigest(files[1]);
+			assertEquals(2, cache.getFileDigestCount());
+
+			cache.getFileDigest(files[2]);
+			assertEquals(2, cache.getFileDigestCount());
+
+			// Evicted digests are computed again
+			assertTrue(Arrays.equals(first, cache.getFileDigest(files[0])));
+			assertEquals(2, cache.getFileDigestCount());
+		}
+		finally {
+			for (File file : files) {
+				if (file != null) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+}
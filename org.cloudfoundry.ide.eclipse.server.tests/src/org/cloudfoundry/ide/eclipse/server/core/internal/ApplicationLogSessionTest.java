@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.domain.ApplicationLog;
+import org.cloudfoundry.client.lib.domain.ApplicationLog.MessageType;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryServerBehaviour;
+import org.cloudfoundry.ide.eclipse.server.core.internal.log.ApplicationLogSession;
+
+public class ApplicationLogSessionTest extends TestCase {
+
+	private static final long TIME = 1000000;
+
+	private TestBehaviour behaviour;
+
+	private RecordingListener listener;
+
+	private TestSession session;
+
+	@Override
+	protected void setUp() throws Exception {
+		behaviour = new TestBehaviour();
+		listener = new RecordingListener();
+		session = new TestSession(behaviour, listener);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		session.stop();
+	}
+
+	public void testDuplicatesDropped() throws Exception {
+		ApplicationLog first = log(TIME, "first");
+		ApplicationLog second = log(TIME + 1, "second");
+		session.add(first, second, log(TIME, "first"));
+		session.flush();
+		assertEquals(Arrays.asList(first, second), listener.next());
+
+		ApplicationLog third = log(TIME + 2, "third");
+		session.add(log(TIME + 1, "second"), third);
+		session.flush();
+		assertEquals(Collections.singletonList(third), listener.next());
+		assertTrue(listener.batches.isEmpty());
+	}
+
+	public void testSortedByTimestamp() throws Exception {
+		ApplicationLog first = log(TIME, "first");
+		ApplicationLog second = log(TIME + 1, "second");
+		ApplicationLog third = log(TIME + 2, "third");
+		session.add(third, first, second);
+		session.flush();
+		assertEquals(Arrays.asList(first, second, third), listener.next());
+	}
+
+	public void testOldLogsDropped() throws Exception {
+		session.add(log(TIME, "recent"));
+		session.flush();
+		listener.next();
+
+		session.add(log(TIME - 60000, "old"));
+		session.flush();
+		assertTrue(listener.batches.isEmpty());
+	}
+
+	public void testNullTimestamps() throws Exception {
+		ApplicationLog untimed = log(null, "untimed");
+		ApplicationLog first = log(TIME, "first");
+		ApplicationLog second = log(TIME + 1, "second");
+		session.add(untimed, second, log(null, "untimed"), first);
+		session.flush();
+		assertEquals(Arrays.asList(first, second, untimed), listener.next());
+
+		// Identified by source and message
+		ApplicationLog otherSource = new ApplicationLog("app", "untimed", null, MessageType.STDOUT, "RTR", "0");
+		session.add(log(null, "untimed"), otherSource);
+		session.flush();
+		assertEquals(Collections.singletonList(otherSource), listener.next());
+		assertTrue(listener.batches.isEmpty());
+	}
+
+	public void testReset() throws Exception {
+		session.add(log(TIME, "recent"), log(null, "untimed"));
+		session.flush();
+		listener.next();
+
+		session.reset();
+		ApplicationLog old = log(TIME - 60000, "old");
+		ApplicationLog recent = log(TIME, "recent");
+		ApplicationLog untimed = log(null, "untimed");
+		session.add(old, recent, untimed);
+		session.flush();
+		assertEquals(Arrays.asList(old, recent, untimed), listener.next());
+	}
+
+	public void testFetchRecentLogs() throws Exception {
+		ApplicationLog first = log(TIME, "first");
+		ApplicationLog second = log(TIME + 1, "second");
+		session.add(first);
+		session.flush();
+		listener.next();
+
+		// Recent logs are all delivered again
+		behaviour.recentLogs = Arrays.asList(first, second);
+		session.fetchRecentLogs();
+		session.flush();
+		assertEquals(Arrays.asList(first, second), listener.next());
+
+		// Streamed logs that were part of the recent logs are not
+		ApplicationLog third = log(TIME + 2, "third");
+		session.add(log(TIME + 1, "second"), third);
+		session.flush();
+		assertEquals(Collections.singletonList(third), listener.next());
+	}
+
+	private static ApplicationLog log(Long time, String message) {
+		return new ApplicationLog("app", message, time != null ? new Date(time) : null, MessageType.STDOUT, "App",
+				"0");
+	}
+
+	/**
+	 * Session that is not started, to which logs are added by the test.
+	 */
+	static class TestSession extends ApplicationLogSession {
+
+		TestSession(CloudFoundryServerBehaviour behaviour, ApplicationLogSession.Listener listener) {
+			super(behaviour, "app", listener);
+		}
+
+		void add(ApplicationLog... logs) {
+			add(Arrays.asList(logs));
+		}
+
+		@Override
+		protected void flush() {
+			super.flush();
+		}
+	}
+
+	static class TestBehaviour extends CloudFoundryServerBehaviour {
+
+		List<ApplicationLog> recentLogs = Collections.emptyList();
+
+		@Override
+		public List<ApplicationLog> getRecentApplicationLogs(String appName) {
+			return recentLogs;
+		}
+	}
+
+	static class RecordingListener implements ApplicationLogSession.Listener {
+
+		final List<List<ApplicationLog>> batches = new ArrayList<List<ApplicationLog>>();
+
+		public void onLogs(List<ApplicationLog> logs) {
+			batches.add(new ArrayList<ApplicationLog>(logs));
+		}
+
+		public void onError(Throwable error) {
+			fail("Unexpected error: " + error);
+		}
+
+		List<ApplicationLog> next() {
+			assertFalse(batches.isEmpty());
+			return batches.remove(0);
+		}
+	}
+}
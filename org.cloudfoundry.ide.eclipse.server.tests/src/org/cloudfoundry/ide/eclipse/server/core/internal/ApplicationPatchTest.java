@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.archive.ApplicationArchive;
+import org.cloudfoundry.client.lib.archive.ApplicationArchive.Entry;
+import org.cloudfoundry.ide.eclipse.server.core.internal.DeployedResourceCache.DeployedResourceEntry;
+import org.eclipse.core.runtime.CoreException;
+
+public class ApplicationPatchTest extends TestCase {
+
+	public void testEmptyPatch() throws Exception {
+		ApplicationPatch patch = new ApplicationPatch();
+		assertTrue(patch.isEmpty());
+		ApplicationArchive patched = patch.apply(createArchive());
+		assertEquals(Arrays.asList("WEB-INF/", "WEB-INF/web.xml", "index.jsp", "css/", "css/style.css"),
+				getNames(patched));
+	}
+
+	public void testPutFile() throws Exception {
+		File file = File.createTempFile("patch", null);
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(new byte[] { 1, 2, 3 });
+			out.close();
+
+			ApplicationPatch patch = new ApplicationPatch();
+			patch.putFile("index.jsp", file);
+			patch.putFile("new.jsp", file);
+			assertFalse(patch.isEmpty());
+
+			Map<String, Entry> entries = getEntries(patch.apply(createArchive()));
+			assertEquals(6, entries.size());
+			assertEquals(3, entries.get("index.jsp").getSize());
+			assertNotNull(entries.get("index.jsp").getSha1Digest());
+			assertEquals(3, entries.get("new.jsp").getSize());
+			assertEquals(1, entries.get("css/style.css").getSize());
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	public void testDeleteFolder() throws Exception {
+		ApplicationPatch patch = new ApplicationPatch();
+		patch.delete("css");
+		patch.delete("index.jsp");
+		assertEquals(Arrays.asList("WEB-INF/", "WEB-INF/web.xml"), getNames(patch.apply(createArchive())));
+	}
+
+	public void testRenameKeepsSha1() throws Exception {
+		ApplicationArchive archive = createArchive();
+		Entry original = getEntries(archive).get("css/style.css");
+
+		ApplicationPatch patch = new ApplicationPatch();
+		patch.rename("css/", "styles");
+		patch.rename("index.jsp", "home.jsp");
+
+		Map<String, Entry> entries = getEntries(patch.apply(archive));
+		assertEquals(Arrays.asList("WEB-INF/", "WEB-INF/web.xml", "styles/", "styles/style.css", "home.jsp"),
+				new ArrayList<String>(entries.keySet()));
+		assertSame(original.getSha1Digest(), entries.get("styles/style.css").getSha1Digest());
+		assertTrue(entries.get("styles/").isDirectory());
+	}
+
+	public void testCopy() throws Exception {
+		ApplicationPatch patch = new ApplicationPatch();
+		patch.copy("index.jsp", "copy.jsp");
+		patch.rename("copy.jsp", "other.jsp");
+
+		Map<String, Entry> entries = getEntries(patch.apply(createArchive()));
+		assertTrue(entries.containsKey("index.jsp"));
+		assertFalse(entries.containsKey("copy.jsp"));
+		assertEquals(entries.get("index.jsp").getSize(), entries.get("other.jsp").getSize());
+	}
+
+	public void testRenameMissingFile() throws Exception {
+		ApplicationPatch patch = new ApplicationPatch();
+		patch.rename("missing.jsp", "other.jsp");
+		try {
+			patch.apply(createArchive());
+			fail("Expected CoreException");
+		}
+		catch (CoreException e) {
+			// Expected
+		}
+	}
+
+	public void testDeployedArchive() throws Exception {
+		List<DeployedResourceEntry> resources = new ArrayList<DeployedResourceEntry>();
+		resources.add(new DeployedResourceEntry(new byte[] { 1 }, 7, "index.jsp"));
+		resources.add(new DeployedResourceEntry(new byte[] { 2 }, 1, "css/style.css"));
+
+		ApplicationPatch patch = new ApplicationPatch();
+		patch.rename("css", "styles");
+		patch.delete("index.jsp");
+		ApplicationArchive deployed = ApplicationPatch.getDeployedArchive("app", resources, null);
+		Map<String, Entry> entries = getEntries(patch.apply(deployed));
+		assertEquals(Arrays.asList("styles/style.css"), new ArrayList<String>(entries.keySet()));
+		assertEquals(1, entries.get("styles/style.css").getSize());
+		assertTrue(Arrays.equals(new byte[] { 2 }, entries.get("styles/style.css").getSha1Digest()));
+
+		// Contents of deployed resources are only known to the server
+		try {
+			entries.get("styles/style.css").getInputStream();
+			fail("Expected IOException");
+		}
+		catch (IOException e) {
+			// Expected
+		}
+	}
+
+	public void testDeployedArchiveLocalFiles() throws Exception {
+		File file = File.createTempFile("deployed", null);
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(new byte[] { 1, 2, 3 });
+			out.close();
+
+			Map<String, File> localFiles = new LinkedHashMap<String, File>();
+			localFiles.put("index.jsp", file);
+			localFiles.put("changed.jsp", file);
+			List<DeployedResourceEntry> resources = new ArrayList<DeployedResourceEntry>();
+			resources.add(new DeployedResourceEntry(new byte[] { 1 }, 3, "index.jsp", file.lastModified()));
+			resources.add(new DeployedResourceEntry(new byte[] { 2 }, 3, "changed.jsp",
+					DeployedResourceEntry.STALE_TIME_STAMP));
+			resources.add(new DeployedResourceEntry(new byte[] { 3 }, 3, "missing.jsp", file.lastModified()));
+
+			ApplicationPatch patch = new ApplicationPatch();
+			patch.rename("index.jsp", "home.jsp");
+			Map<String, Entry> entries = getEntries(patch.apply(ApplicationPatch.getDeployedArchive("app",
+					resources, localFiles)));
+
+			// Unchanged local files are read if the server does not match the
+			// resource
+			InputStream in = entries.get("home.jsp").getInputStream();
+			try {
+				assertEquals(1, in.read());
+			}
+			finally {
+				in.close();
+			}
+
+			// Resources patched on the server only, or without a local file,
+			// are refused
+			for (String name : Arrays.asList("changed.jsp", "missing.jsp")) {
+				try {
+					entries.get(name).getInputStream().close();
+					fail("Expected IOException for " + name);
+				}
+				catch (IOException e) {
+					assertTrue(e.getMessage().contains(name));
+				}
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	protected static List<String> getNames(ApplicationArchive archive) {
+		return new ArrayList<String>(getEntries(archive).keySet());
+	}
+
+	protected static Map<String, Entry> getEntries(ApplicationArchive archive) {
+		Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+		for (Entry entry : archive.getEntries()) {
+			entries.put(entry.getName(), entry);
+		}
+		return entries;
+	}
+
+	protected static ApplicationArchive createArchive() {
+		final List<Entry> entries = new ArrayList<Entry>();
+		entries.add(new TestEntry("WEB-INF/", null));
+		entries.add(new TestEntry("WEB-INF/web.xml", "<web-app/>"));
+		entries.add(new TestEntry("index.jsp", "<html/>"));
+		entries.add(new TestEntry("css/", null));
+		entries.add(new TestEntry("css/style.css", "a"));
+		return new ApplicationArchive() {
+
+			public String getFilename() {
+				return "test.war";
+			}
+
+			public Iterable<Entry> getEntries() {
+				return entries;
+			}
+		};
+	}
+
+	static class TestEntry implements Entry {
+
+		private final String name;
+
+		private final String content;
+
+		private final byte[] sha1;
+
+		TestEntry(String name, String content) {
+			this.name = name;
+			this.content = content;
+			this.sha1 = content != null ? name.getBytes() : null;
+		}
+
+		public boolean isDirectory() {
+			return content == null;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getSize() {
+			return content != null ? content.length() : -1;
+		}
+
+		public byte[] getSha1Digest() {
+			return sha1;
+		}
+
+		public InputStream getInputStream() throws IOException {
+			return content != null ? new ByteArrayInputStream(content.getBytes()) : null;
+		}
+	}
+}
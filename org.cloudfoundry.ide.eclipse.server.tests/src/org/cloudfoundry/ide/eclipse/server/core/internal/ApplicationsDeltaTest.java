@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
+import org.cloudfoundry.client.lib.domain.CloudEntity.Meta;
+
+public class ApplicationsDeltaTest extends TestCase {
+
+	private static CloudApplication createApplication(String name, UUID guid, long updated, AppState state) {
+		CloudApplication application = new CloudApplication(new Meta(guid, new Date(0), new Date(updated)), name);
+		application.setState(state);
+		return application;
+	}
+
+	public void testFullDelta() throws Exception {
+		ApplicationsDelta delta = ApplicationsDelta.compute(null,
+				Arrays.asList(createApplication("app1", UUID.randomUUID(), 1, AppState.STARTED)));
+		assertTrue(delta.isFull());
+		assertFalse(delta.isEmpty());
+		assertEquals(Collections.singleton("app1"), delta.getAdded());
+		assertEquals(1, delta.getApplications().size());
+	}
+
+	public void testIncrementalDelta() throws Exception {
+		UUID guid1 = UUID.randomUUID();
+		UUID guid2 = UUID.randomUUID();
+		UUID guid3 = UUID.randomUUID();
+		ApplicationsDelta first = ApplicationsDelta.compute(null, Arrays.asList(
+				createApplication("app1", guid1, 1, AppState.STARTED),
+				createApplication("app2", guid2, 1, AppState.STARTED)));
+
+		ApplicationsDelta unchanged = ApplicationsDelta.compute(first, Arrays.asList(
+				createApplication("app1", guid1, 1, AppState.STARTED),
+				createApplication("app2", guid2, 1, AppState.STARTED)));
+		assertFalse(unchanged.isFull());
+		assertTrue(unchanged.isEmpty());
+
+		ApplicationsDelta delta = ApplicationsDelta.compute(unchanged, Arrays.asList(
+				createApplication("app1", guid1, 1, AppState.STOPPED),
+				createApplication("app3", guid3, 1, AppState.STARTED)));
+		assertEquals(Collections.singleton("app3"), delta.getAdded());
+		assertEquals(Collections.singleton("app1"), delta.getChanged());
+		assertEquals(Collections.singleton("app2"), delta.getRemoved());
+		assertEquals(3, delta.getAffected().size());
+	}
+
+}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.CloudFoundryOperations;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.BaseClientRequest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.ClientRequestExecutor;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.ClientRequestFuture;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+public class ClientRequestExecutorTest extends TestCase {
+
+	private ClientRequestExecutor executor;
+
+	@Override
+	protected void setUp() throws Exception {
+		executor = new ClientRequestExecutor("test", 2);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		executor.shutdown();
+	}
+
+	public void testResult() throws Exception {
+		RecordingCallback<String> callback = new RecordingCallback<String>();
+		ClientRequestFuture<String> future = executor.submit(new TestRequest(0, "result"), null, callback);
+
+		assertEquals("result", future.get(5, TimeUnit.SECONDS));
+		assertEquals("result", future.getResult(null));
+		assertTrue(future.isDone());
+		assertFalse(future.isCancelled());
+
+		callback.await();
+		assertEquals("result", callback.result.get());
+		assertNull(callback.error.get());
+	}
+
+	public void testErrorPropagation() throws Exception {
+		RecordingCallback<String> callback = new RecordingCallback<String>();
+		TestRequest request = new TestRequest(Integer.MAX_VALUE, "result");
+		ClientRequestFuture<String> future = executor.submit(request, null, callback);
+
+		try {
+			future.getResult(null);
+			fail("Expected request to fail");
+		}
+		catch (CoreException e) {
+			assertEquals(TestRequest.ERROR_MESSAGE, e.getMessage());
+		}
+
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("Expected request to fail");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof CoreException);
+		}
+
+		callback.await();
+		assertNull(callback.result.get());
+		assertTrue(callback.error.get() instanceof CoreException);
+
+		// Not reattempted, as the request does not specify a wait interval
+		assertEquals(1, request.attempts.get());
+	}
+
+	public void testReattempt() throws Exception {
+		TestRequest request = new TestRequest(2, "result");
+		request.waitInterval = 10;
+		ClientRequestFuture<String> future = executor.submit(request, null, null);
+
+		assertEquals("result", future.get(5, TimeUnit.SECONDS));
+		assertEquals(3, request.attempts.get());
+	}
+
+	public void testCancelRunningRequest() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		TestRequest request = new TestRequest(0, "result") {
+			@Override
+			protected String doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
+				started.countDown();
+				while (!progress.isCanceled()) {
+					try {
+						Thread.sleep(10);
+					}
+					catch (InterruptedException e) {
+						break;
+					}
+				}
+				throw new OperationCanceledException();
+			}
+		};
+		RecordingCallback<String> callback = new RecordingCallback<String>();
+		IProgressMonitor monitor = new NullProgressMonitor();
+		ClientRequestFuture<String> future = executor.submit(request, monitor, callback);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		assertTrue(future.cancel(true));
+		assertTrue(future.isCancelled());
+		assertTrue(future.isDone());
+		assertTrue(monitor.isCanceled());
+		assertFalse(future.cancel(true));
+
+		try {
+			future.getResult(null);
+			fail("Expected request to be cancelled");
+		}
+		catch (OperationCanceledException e) {
+			// Expected
+		}
+
+		try {
+			future.get();
+			fail("Expected request to be cancelled");
+		}
+		catch (CancellationException e) {
+			// Expected
+		}
+
+		callback.await();
+		assertTrue(callback.error.get() instanceof OperationCanceledException);
+	}
+
+	public void testCancelStopsReattempts() throws Exception {
+		TestRequest request = new TestRequest(Integer.MAX_VALUE, "result");
+		request.waitInterval = 50;
+		ClientRequestFuture<String> future = executor.submit(request, null, null);
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (request.attempts.get() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		future.cancel(true);
+		int attempts = request.attempts.get();
+
+		Thread.sleep(200);
+		assertTrue(request.attempts.get() <= attempts + 1);
+	}
+
+	public void testCompletedRequestNotCancelled() throws Exception {
+		ClientRequestFuture<String> future = executor.submit(new TestRequest(0, "result"), null, null);
+		assertEquals("result", future.get(5, TimeUnit.SECONDS));
+
+		assertFalse(future.cancel(true));
+		assertFalse(future.isCancelled());
+		assertEquals("result", future.getResult(null));
+	}
+
+	/**
+	 * Request that fails a given number of times before returning a result.
+	 */
+	static class TestRequest extends BaseClientRequest<String> {
+
+		static final String ERROR_MESSAGE = "Request failed";
+
+		final AtomicInteger attempts = new AtomicInteger();
+
+		final int failures;
+
+		final String result;
+
+		long waitInterval = -1;
+
+		TestRequest(int failures, String result) {
+			super("Test request");
+			this.failures = failures;
+			this.result = result;
+		}
+
+		@Override
+		protected String doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
+			if (attempts.incrementAndGet() <= failures) {
+				throw CloudErrorUtil.toCoreException(ERROR_MESSAGE);
+			}
+			return result;
+		}
+
+		@Override
+		protected long getWaitInterval(Throwable exception, SubMonitor monitor) throws CoreException {
+			return waitInterval;
+		}
+
+		@Override
+		protected CloudFoundryOperations getClient(IProgressMonitor monitor) throws CoreException {
+			return (CloudFoundryOperations) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class[] { CloudFoundryOperations.class }, new InvocationHandler() {
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							return null;
+						}
+					});
+		}
+	}
+
+	static class RecordingCallback<T> implements ClientRequestExecutor.Callback<T> {
+
+		final AtomicReference<T> result = new AtomicReference<T>();
+
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		public void onSuccess(T value) {
+			result.set(value);
+			done.countDown();
+		}
+
+		public void onFailure(Throwable t) {
+			error.set(t);
+			done.countDown();
+		}
+
+		void await() throws InterruptedException {
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+		}
+	}
+}
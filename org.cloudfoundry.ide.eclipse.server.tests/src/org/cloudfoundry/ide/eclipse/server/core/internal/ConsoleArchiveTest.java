@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.server.ui.internal.console.ConsoleArchive;
+import org.eclipse.ui.console.MessageConsole;
+
+public class ConsoleArchiveTest extends TestCase {
+
+	private File folder;
+
+	private TestArchive archive;
+
+	@Override
+	protected void setUp() throws Exception {
+		folder = File.createTempFile("consoleArchiveTest", "");
+		folder.delete();
+		archive = new TestArchive(new MessageConsole("server - app#0", null), folder);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		archive.dispose();
+	}
+
+	public void testFolderName() throws Exception {
+		String name = TestArchive.folderName(new MessageConsole("server - app#0", null));
+		assertEquals(name, TestArchive.folderName(new MessageConsole("server - app#0", null)));
+		assertFalse(name.equals(TestArchive.folderName(new MessageConsole("server - app#1", null))));
+		assertFalse(name.equals(TestArchive.folderName(new MessageConsole("server - app_0", null))));
+		assertTrue(name, name.matches("[\\w.-]+"));
+	}
+
+	public void testArchiveSegments() throws Exception {
+		assertEquals(0, archive.getSegmentCount());
+
+		archive.archive("first\n");
+		archive.archive("second\n");
+		archive.writePending();
+
+		assertEquals(2, archive.getSegmentCount());
+		assertEquals("first\n", archive.readSegment(0));
+		assertEquals("second\n", archive.readSegment(1));
+		assertNull(archive.readSegment(2));
+		assertEquals(2, folder.listFiles().length);
+	}
+
+	public void testOldestSegmentsDeleted() throws Exception {
+		int count = ConsoleArchive.MAX_SEGMENTS + 5;
+		for (int i = 0; i < count; i++) {
+			archive.archive("segment " + i);
+		}
+		archive.writePending();
+
+		assertEquals(ConsoleArchive.MAX_SEGMENTS, archive.getSegmentCount());
+		assertEquals("segment 5", archive.readSegment(0));
+		assertEquals("segment " + (count - 1), archive.readSegment(ConsoleArchive.MAX_SEGMENTS - 1));
+		assertEquals(ConsoleArchive.MAX_SEGMENTS, folder.listFiles().length);
+	}
+
+	public void testClear() throws Exception {
+		archive.archive("first\n");
+		archive.writePending();
+		archive.archive("trimmed before clear\n");
+		archive.clear();
+		archive.writePending();
+
+		assertEquals(0, archive.getSegmentCount());
+		assertEquals(0, folder.listFiles().length);
+
+		archive.archive("after clear\n");
+		archive.writePending();
+		assertEquals(1, archive.getSegmentCount());
+		assertEquals("after clear\n", archive.readSegment(0));
+	}
+
+	public void testDispose() throws Exception {
+		archive.archive("first\n");
+		archive.writePending();
+		archive.dispose();
+
+		assertEquals(0, archive.getSegmentCount());
+		assertFalse(folder.exists());
+
+		// Content trimmed after the console is removed is not archived
+		archive.archive("after dispose\n");
+		archive.writePending();
+		assertFalse(folder.exists());
+	}
+
+	/**
+	 * Archive written to a given folder, without listening to a console.
+	 */
+	static class TestArchive extends ConsoleArchive {
+
+		TestArchive(MessageConsole console, File folder) {
+			super(console, folder);
+		}
+
+		static String folderName(MessageConsole console) {
+			return ConsoleArchive.getFolderName(console);
+		}
+
+		@Override
+		protected void archive(String content) {
+			super.archive(content);
+		}
+
+		@Override
+		protected void scheduleWrite() {
+			// Written by the test
+		}
+
+		@Override
+		protected void clear() {
+			super.clear();
+		}
+
+		@Override
+		protected void writePending() {
+			super.writePending();
+		}
+	}
+}
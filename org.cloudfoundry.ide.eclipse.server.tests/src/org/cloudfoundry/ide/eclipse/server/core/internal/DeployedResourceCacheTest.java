@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.DeployedResourceCache.CachedDeployedApplication;
+import org.cloudfoundry.ide.eclipse.server.core.internal.DeployedResourceCache.DeployedResourceEntry;
+
+public class DeployedResourceCacheTest extends TestCase {
+
+	private static final String SPACE = "https://api.example.com/org/space";
+
+	private File indexFile;
+
+	private File localFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		indexFile = File.createTempFile("deployedResources", ".idx");
+		indexFile.delete();
+		localFile = File.createTempFile("deployedResource", ".txt");
+		FileOutputStream out = new FileOutputStream(localFile);
+		try {
+			out.write(new byte[] { 1, 2, 3 });
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		indexFile.delete();
+		localFile.delete();
+	}
+
+	public void testSaveAndLoad() throws Exception {
+		CachedDeployedApplication app = new CachedDeployedApplication(SPACE, "testapp");
+		byte[] sha1 = new byte[20];
+		Arrays.fill(sha1, (byte) 7);
+
+		DeployedResourceCache cache = new DeployedResourceCache();
+		cache.add(app, new DeployedResourceEntry(sha1, 3, "WEB-INF/web.xml", localFile.lastModified()));
+		cache.save(indexFile);
+		assertTrue(indexFile.exists());
+
+		DeployedResourceCache restored = new DeployedResourceCache();
+		restored.load(indexFile);
+		DeployedResourceEntry entry = restored.getEntry(app, "WEB-INF/web.xml");
+		assertNotNull(entry);
+		assertEquals(3, entry.getFileSize());
+		assertEquals(localFile.lastModified(), entry.getLastModified());
+		assertTrue(Arrays.equals(sha1, entry.getSha1()));
+		assertNull(restored.getEntry(app, "index.html"));
+		assertNull(restored.getEntry(new CachedDeployedApplication(SPACE, "otherapp"), "WEB-INF/web.xml"));
+	}
+
+	public void testIsCurrent() throws Exception {
+		DeployedResourceEntry entry = new DeployedResourceEntry(new byte[20], 3, "index.html",
+				localFile.lastModified());
+		assertTrue(entry.isCurrent(localFile));
+
+		localFile.setLastModified(localFile.lastModified() - 10000);
+		assertFalse(entry.isCurrent(localFile));
+
+		assertFalse(new DeployedResourceEntry(new byte[20], 3, "index.html").isCurrent(localFile));
+	}
+
+	public void testStaleEntryIsNeverCurrent() throws Exception {
+		DeployedResourceEntry entry = new DeployedResourceEntry(new byte[20], 3, "index.html",
+				DeployedResourceEntry.STALE_TIME_STAMP);
+		assertFalse(entry.isCurrent(localFile));
+	}
+
+	public void testApplicationsInDifferentSpaces() throws Exception {
+		CachedDeployedApplication app = new CachedDeployedApplication(SPACE, "testapp");
+		CachedDeployedApplication otherSpaceApp = new CachedDeployedApplication(SPACE + "2", "testapp");
+		CachedDeployedApplication noSpaceApp = new CachedDeployedApplication(null, "testapp");
+		assertFalse(app.equals(otherSpaceApp));
+
+		DeployedResourceCache cache = new DeployedResourceCache();
+		cache.add(app, new DeployedResourceEntry(new byte[] { 1 }, 3, "index.html"));
+		cache.add(otherSpaceApp, new DeployedResourceEntry(new byte[] { 2 }, 3, "index.html"));
+		cache.add(noSpaceApp, new DeployedResourceEntry(new byte[] { 3 }, 3, "index.html"));
+		cache.save(indexFile);
+
+		DeployedResourceCache restored = new DeployedResourceCache();
+		restored.load(indexFile);
+		assertTrue(Arrays.equals(new byte[] { 1 }, restored.getEntry(app, "index.html").getSha1()));
+		assertTrue(Arrays.equals(new byte[] { 2 }, restored.getEntry(otherSpaceApp, "index.html").getSha1()));
+		assertTrue(Arrays.equals(new byte[] { 3 }, restored.getEntry(noSpaceApp, "index.html").getSha1()));
+
+		restored.removeApplication(otherSpaceApp);
+		assertNotNull(restored.getEntry(app, "index.html"));
+		assertNull(restored.getEntry(otherSpaceApp, "index.html"));
+	}
+
+	public void testRetainEntries() throws Exception {
+		CachedDeployedApplication app = new CachedDeployedApplication(SPACE, "testapp");
+		DeployedResourceCache cache = new DeployedResourceCache();
+		cache.add(app, new DeployedResourceEntry(new byte[20], 3, "index.html"));
+		cache.add(app, new DeployedResourceEntry(new byte[20], 3, "deleted.html"));
+		cache.save(indexFile);
+
+		cache.retainEntries(app, Arrays.asList("index.html", "new.html"));
+		assertNotNull(cache.getEntry(app, "index.html"));
+		assertNull(cache.getEntry(app, "deleted.html"));
+
+		// Pruned entries are saved
+		cache.save(indexFile);
+		DeployedResourceCache restored = new DeployedResourceCache();
+		restored.load(indexFile);
+		assertNotNull(restored.getEntry(app, "index.html"));
+		assertNull(restored.getEntry(app, "deleted.html"));
+	}
+
+	public void testRemoveApplication() throws Exception {
+		CachedDeployedApplication app = new CachedDeployedApplication(SPACE, "testapp");
+		CachedDeployedApplication otherApp = new CachedDeployedApplication(SPACE, "otherapp");
+		DeployedResourceCache cache = new DeployedResourceCache();
+		cache.add(app, new DeployedResourceEntry(new byte[20], 3, "index.html"));
+		cache.add(otherApp, new DeployedResourceEntry(new byte[20], 3, "index.html"));
+		cache.save(indexFile);
+
+		cache.removeApplication(app);
+		cache.save(indexFile);
+
+		DeployedResourceCache restored = new DeployedResourceCache();
+		restored.load(indexFile);
+		assertNull(restored.getEntry(app, "index.html"));
+		assertNotNull(restored.getEntry(otherApp, "index.html"));
+	}
+
+	public void testLoadMissingIndex() throws Exception {
+		DeployedResourceCache cache = new DeployedResourceCache();
+		cache.load(indexFile);
+		assertNull(cache.getEntry(new CachedDeployedApplication(SPACE, "testapp"), "index.html"));
+	}
+
+}
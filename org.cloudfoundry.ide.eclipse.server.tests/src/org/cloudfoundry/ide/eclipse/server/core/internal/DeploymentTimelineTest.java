@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.DeploymentTimeline;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.DeploymentTimeline.Phase;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.DeploymentTimeline.PhaseType;
+
+public class DeploymentTimelineTest extends TestCase {
+
+	public void testPhasesAreSequential() throws Exception {
+		DeploymentTimeline timeline = new DeploymentTimeline();
+		assertTrue(timeline.isEmpty());
+
+		Phase archive = timeline.beginPhase(PhaseType.ARCHIVE);
+		Phase upload = timeline.beginPhase(PhaseType.UPLOAD);
+
+		// Beginning a phase ends the current one
+		long archiveDuration = archive.getDuration();
+		Thread.sleep(20);
+		assertEquals(archiveDuration, archive.getDuration());
+		assertTrue(upload.getDuration() >= 20);
+
+		assertFalse(timeline.isEmpty());
+		List<PhaseType> types = new ArrayList<PhaseType>();
+		for (Phase phase : timeline.getPhases()) {
+			types.add(phase.getType());
+		}
+		assertEquals(Arrays.asList(PhaseType.ARCHIVE, PhaseType.UPLOAD), types);
+	}
+
+	public void testRepeatedPhases() throws Exception {
+		DeploymentTimeline timeline = new DeploymentTimeline();
+		Phase first = timeline.beginPhase(PhaseType.UPLOAD);
+		timeline.beginPhase(PhaseType.CREATE);
+		Phase second = timeline.beginPhase(PhaseType.UPLOAD);
+		timeline.endPhase();
+
+		assertEquals(3, timeline.getPhases().size());
+		assertEquals(first.getDuration() + second.getDuration(), timeline.getDuration(PhaseType.UPLOAD));
+		assertEquals(-1, timeline.getDuration(PhaseType.STAGING));
+	}
+
+	public void testCounts() throws Exception {
+		DeploymentTimeline timeline = new DeploymentTimeline();
+		Phase matching = timeline.beginPhase(PhaseType.RESOURCE_MATCHING);
+		assertEquals(-1, matching.getFiles());
+		assertEquals(-1, matching.getBytes());
+
+		matching.setFiles(12);
+		matching.setBytes(3456);
+		timeline.complete(true);
+
+		Phase recorded = timeline.getPhases().get(0);
+		assertEquals(12, recorded.getFiles());
+		assertEquals(3456, recorded.getBytes());
+		String formatted = timeline.format(null);
+		assertTrue(formatted, formatted.contains("12"));
+		assertTrue(formatted, formatted.contains("3456"));
+	}
+
+	public void testComplete() throws Exception {
+		DeploymentTimeline timeline = new DeploymentTimeline();
+		Phase staging = timeline.beginPhase(PhaseType.STAGING);
+		timeline.complete(false);
+		assertFalse(timeline.isSucceeded());
+
+		// Completing ends the current phase and the deployment, only once
+		long duration = timeline.getDuration();
+		long stagingDuration = staging.getDuration();
+		Thread.sleep(20);
+		timeline.complete(true);
+		assertFalse(timeline.isSucceeded());
+		assertEquals(duration, timeline.getDuration());
+		assertEquals(stagingDuration, staging.getDuration());
+	}
+
+	public void testFormat() throws Exception {
+		DeploymentTimeline previous = new DeploymentTimeline();
+		previous.beginPhase(PhaseType.ARCHIVE);
+		previous.complete(true);
+
+		DeploymentTimeline timeline = new DeploymentTimeline();
+		timeline.beginPhase(PhaseType.ARCHIVE);
+		timeline.beginPhase(PhaseType.STAGING);
+		timeline.complete(true);
+
+		String[] lines = timeline.format(previous).split("\n");
+		assertEquals(3, lines.length);
+		// Compared with the previous deployment where it had the same phase
+		assertTrue(lines[0], lines[0].endsWith(")"));
+		assertTrue(lines[1], lines[1].contains(PhaseType.ARCHIVE.getLabel()));
+		assertTrue(lines[1], lines[1].endsWith(")"));
+		assertTrue(lines[2], lines[2].contains(PhaseType.STAGING.getLabel()));
+		assertFalse(lines[2], lines[2].endsWith(")"));
+
+		assertEquals(3, timeline.format(null).split("\n").length);
+		assertFalse(timeline.format(null).contains("("));
+	}
+
+	public void testFormatHistory() throws Exception {
+		assertEquals(Messages.DeploymentTimeline_NO_HISTORY, DeploymentTimeline.formatHistory(
+				new ArrayList<DeploymentTimeline>()));
+
+		DeploymentTimeline succeeded = new DeploymentTimeline();
+		succeeded.beginPhase(PhaseType.ARCHIVE);
+		succeeded.complete(true);
+
+		DeploymentTimeline failed = new DeploymentTimeline();
+		failed.beginPhase(PhaseType.UPLOAD);
+		failed.complete(false);
+
+		DeploymentTimeline last = new DeploymentTimeline();
+		last.beginPhase(PhaseType.ARCHIVE);
+		last.complete(true);
+
+		String history = DeploymentTimeline.formatHistory(Arrays.asList(succeeded, failed, last));
+		String expected = succeeded.format(null);
+		int index = history.indexOf(expected);
+		assertTrue(history, index > 0);
+		index = history.indexOf(failed.format(succeeded), index + expected.length());
+		assertTrue(history, index > 0);
+		// Compared with the last successful deployment, not the failed one
+		assertTrue(history, history.endsWith(last.format(succeeded)));
+	}
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.FileContentDecoder;
+import org.cloudfoundry.ide.eclipse.server.ui.internal.console.file.FileConsoleStream;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+public class FileConsoleStreamTest extends TestCase {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	public void testSplitCharacters() throws Exception {
+		String text = "caf\u00e9 \u20ac\ud83d\ude00\n";
+		for (int rangeSize = 1; rangeSize <= 4; rangeSize++) {
+			TestFileStream stream = new TestFileStream();
+			stream.rangeSize = rangeSize;
+			stream.append(text);
+
+			StringBuilder tailed = new StringBuilder();
+			String content;
+			while ((content = stream.next()) != null || stream.position < stream.file.length) {
+				if (content != null) {
+					tailed.append(content);
+				}
+			}
+			assertEquals("Ranges of " + rangeSize + " bytes", text, tailed.toString());
+		}
+	}
+
+	public void testContentDecodedByClient() throws Exception {
+		// Log output in Japanese and Latin-1 characters, which the client
+		// receives already decoded if the server declares UTF-8
+		String text = "\u30ed\u30b0 caf\u00e9 \u65e5\u672c\u8a9e\n\u00fc\u00df\n";
+		for (int rangeSize = 4; rangeSize <= 8; rangeSize++) {
+			TestFileStream stream = new TestFileStream();
+			stream.rangeSize = rangeSize;
+			stream.declaredCharset = UTF_8;
+			stream.append(text);
+
+			StringBuilder tailed = new StringBuilder();
+			String content;
+			while ((content = stream.next()) != null || stream.position < stream.file.length) {
+				if (content != null) {
+					tailed.append(content);
+				}
+			}
+			assertEquals("Ranges of " + rangeSize + " bytes", text, tailed.toString());
+		}
+	}
+
+	public void testPollInterval() throws Exception {
+		TestFileStream stream = new TestFileStream();
+
+		// Grows while the file does not change, up to the maximum
+		assertNull(stream.next());
+		long interval = stream.getPollInterval();
+		assertTrue(interval > 0);
+		assertNull(stream.next());
+		assertEquals(2 * interval, stream.getPollInterval());
+		for (int i = 0; i < 10; i++) {
+			assertNull(stream.next());
+		}
+		assertEquals(TestFileStream.MAX_POLL_INTERVAL, stream.getPollInterval());
+
+		// Back to the minimum as soon as the file grows
+		stream.append("line\n");
+		assertEquals("line\n", stream.next());
+		long minimum = stream.getPollInterval();
+		assertTrue(minimum > 0);
+		assertTrue(minimum < TestFileStream.MAX_POLL_INTERVAL);
+
+		// Checked again right away while more content is available
+		char[] chars = new char[TestFileStream.getMaxRangeSize() + 10];
+		Arrays.fill(chars, 'x');
+		stream.append(new String(chars));
+		assertEquals(TestFileStream.getMaxRangeSize(), stream.next().length());
+		assertEquals(0, stream.getPollInterval());
+		assertEquals(10, stream.next().length());
+		assertEquals(minimum, stream.getPollInterval());
+
+		assertNull(stream.next());
+		assertEquals(2 * minimum, stream.getPollInterval());
+	}
+
+	public void testPollIntervalOnError() throws Exception {
+		TestFileStream stream = new TestFileStream();
+		stream.append("line\n");
+		assertEquals("line\n", stream.next());
+		long minimum = stream.getPollInterval();
+
+		stream.error = true;
+		try {
+			stream.next();
+		}
+		catch (CoreException e) {
+			// Reported to the console
+		}
+		assertEquals(2 * minimum, stream.getPollInterval());
+	}
+
+	/**
+	 * Tails a file held in memory.
+	 */
+	static class TestFileStream extends FileConsoleStream {
+
+		static final long MAX_POLL_INTERVAL = 16000;
+
+		byte[] file = new byte[0];
+
+		int rangeSize = Integer.MAX_VALUE;
+
+		int position;
+
+		boolean error;
+
+		/**
+		 * Charset the server declares for the file, if any.
+		 */
+		Charset declaredCharset;
+
+		TestFileStream() {
+			super("logs/stdout.log", -1, null, "app", 0);
+		}
+
+		static int getMaxRangeSize() {
+			return MAX_RANGE_SIZE;
+		}
+
+		void append(String text) {
+			byte[] bytes = text.getBytes(UTF_8);
+			byte[] grown = Arrays.copyOf(file, file.length + bytes.length);
+			System.arraycopy(bytes, 0, grown, file.length, bytes.length);
+			file = grown;
+		}
+
+		String next() throws CoreException {
+			return getContent(null);
+		}
+
+		@Override
+		public synchronized boolean isActive() {
+			return true;
+		}
+
+		@Override
+		protected long getMaximumPollInterval() {
+			return MAX_POLL_INTERVAL;
+		}
+
+		@Override
+		protected String getFileRange(int startPosition, int endPosition, IProgressMonitor monitor)
+				throws CoreException {
+			if (error) {
+				throw CloudErrorUtil.toCoreException("Request failed");
+			}
+			int end = Math.min(file.length, startPosition + Math.min(endPosition + 1 - startPosition, rangeSize));
+			if (startPosition >= end) {
+				return "";
+			}
+			position = end;
+			return new String(file, startPosition, end - startPosition,
+					declaredCharset != null ? declaredCharset : FileContentDecoder.CONTENT_CHARSET);
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.FileContentDecoder;
+
+public class FileContentDecoderTest extends TestCase {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Characters of one to four bytes in UTF-8.
+	 */
+	private static final String TEXT = "a\u00e9\u20ac\ud83d\ude00b";
+
+	public void testBinaryContent() throws Exception {
+		byte[] bytes = new byte[256];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) i;
+		}
+		String content = new String(bytes, FileContentDecoder.CONTENT_CHARSET);
+		assertTrue(FileContentDecoder.isByteContent(content));
+		assertTrue(Arrays.equals(bytes, new FileContentDecoder(UTF_8).getBytes(content)));
+	}
+
+	public void testContentDecodedByClient() throws Exception {
+		String text = "\u65e5\u672c\u8a9e caf\u00e9";
+		assertFalse(FileContentDecoder.isByteContent(text));
+		FileContentDecoder decoder = new FileContentDecoder(UTF_8);
+		assertTrue(Arrays.equals(text.getBytes(UTF_8), decoder.getBytes(text)));
+		assertTrue(decoder.isDecodedByClient());
+
+		decoder = new FileContentDecoder(UTF_8);
+		assertEquals(text, decoder.decode(text));
+		assertEquals(text.getBytes(UTF_8).length, decoder.getByteCount());
+	}
+
+	public void testSplitCharacterDecodedByClient() throws Exception {
+		String text = "\u65e5\u672c\u8a9e";
+		byte[] bytes = text.getBytes(UTF_8);
+		FileContentDecoder decoder = new FileContentDecoder(UTF_8);
+
+		// The last character is split, and left for the next range
+		String first = decoder.decode(new String(bytes, 0, 7, UTF_8));
+		assertEquals("\u65e5\u672c", first);
+		assertEquals(6, decoder.getByteCount());
+		assertEquals("\u8a9e", decoder.decode(new String(bytes, 6, 3, UTF_8)));
+		assertEquals(3, decoder.getByteCount());
+
+		// Following ranges are decoded by the client as well
+		assertEquals("caf\u00e9", decoder.decode("caf\u00e9"));
+		assertEquals(5, decoder.getByteCount());
+	}
+
+	public void testCompleteRange() throws Exception {
+		FileContentDecoder decoder = new FileContentDecoder(UTF_8);
+		byte[] bytes = TEXT.getBytes(UTF_8);
+		assertEquals(TEXT, decoder.decode(toContent(bytes, 0, bytes.length)));
+		assertEquals(bytes.length, decoder.getByteCount());
+	}
+
+	public void testSplitCharacters() throws Exception {
+		byte[] bytes = TEXT.getBytes(UTF_8);
+		for (int split = 1; split < bytes.length; split++) {
+			FileContentDecoder decoder = new FileContentDecoder(UTF_8);
+			String first = decoder.decode(toContent(bytes, 0, split));
+			assertEquals(split, decoder.getByteCount());
+			String second = decoder.decode(toContent(bytes, split, bytes.length));
+			assertEquals(bytes.length - split, decoder.getByteCount());
+			assertEquals("Split at byte " + split, TEXT, first + second);
+		}
+	}
+
+	public void testSingleByteRanges() throws Exception {
+		byte[] bytes = TEXT.getBytes(UTF_8);
+		FileContentDecoder decoder = new FileContentDecoder(UTF_8);
+		StringBuilder decoded = new StringBuilder();
+		for (int i = 0; i < bytes.length; i++) {
+			decoded.append(decoder.decode(toContent(bytes, i, i + 1)));
+			assertEquals(1, decoder.getByteCount());
+		}
+		assertEquals(TEXT, decoded.toString());
+	}
+
+	public void testMalformedInputReplaced() throws Exception {
+		FileContentDecoder decoder = new FileContentDecoder(UTF_8);
+		byte[] bytes = new byte[] { 'a', (byte) 0xFF, 'b' };
+		assertEquals("a\ufffdb", decoder.decode(toContent(bytes, 0, bytes.length)));
+		assertEquals(3, decoder.getByteCount());
+	}
+
+	public void testReset() throws Exception {
+		byte[] bytes = TEXT.getBytes(UTF_8);
+		FileContentDecoder decoder = new FileContentDecoder(UTF_8);
+
+		// Start of the euro sign
+		assertEquals("", decoder.decode(toContent(bytes, 3, 4)));
+		decoder.reset();
+		assertEquals(0, decoder.getByteCount());
+		assertEquals("b", decoder.decode("b"));
+	}
+
+	public void testDownloadDecodedByClient() throws Exception {
+		// UTF-8 file which the server declares as such
+		byte[] file = "\u30ed\u30b0 caf\u00e9\n\u65e5\u672c\u8a9e \u00fc\u00df\n".getBytes(UTF_8);
+		for (int rangeSize = 4; rangeSize <= 8; rangeSize++) {
+			FileContentDecoder decoder = new FileContentDecoder(UTF_8);
+			ByteArrayOutputStream downloaded = new ByteArrayOutputStream();
+			int position = 0;
+			while (position < file.length) {
+				int length = Math.min(rangeSize, file.length - position);
+				byte[] bytes = decoder.getBytes(new String(file, position, length, UTF_8));
+				downloaded.write(bytes);
+				position += bytes.length;
+			}
+			assertTrue("Ranges of " + rangeSize + " bytes", Arrays.equals(file, downloaded.toByteArray()));
+		}
+	}
+
+	public void testDownloadTruncatedCharacter() throws Exception {
+		// File ending with the first byte of a character, which cannot be
+		// recovered but must not prevent reaching the end of the file
+		byte[] file = new byte[] { 'a', (byte) 0xE6 };
+		FileContentDecoder decoder = new FileContentDecoder(UTF_8);
+		byte[] bytes = decoder.getBytes(new String(file, 0, 2, UTF_8));
+		assertTrue(Arrays.equals(new byte[] { 'a' }, bytes));
+		bytes = decoder.getBytes(new String(file, 1, 1, UTF_8));
+		assertTrue(bytes.length > 0);
+	}
+
+	private static String toContent(byte[] bytes, int start, int end) {
+		return new String(bytes, start, end - start, FileContentDecoder.CONTENT_CHARSET);
+	}
+}
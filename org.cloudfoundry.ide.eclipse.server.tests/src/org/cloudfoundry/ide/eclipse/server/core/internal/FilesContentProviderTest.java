@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
+import org.cloudfoundry.ide.eclipse.server.rse.internal.FileResource;
+import org.cloudfoundry.ide.eclipse.server.rse.internal.FilesContentProvider;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+public class FilesContentProviderTest extends TestCase {
+
+	private static final String FILES = "staging_info.yml  1.2K\nrun.pid  5B\n";
+
+	private TestFilesContentProvider provider;
+
+	@Override
+	protected void setUp() throws Exception {
+		CloudApplication app = new CloudApplication("testapp", null, null, 512, 1,
+				Collections.singletonList("testapp.example.com"), null, AppState.STARTED);
+		provider = new TestFilesContentProvider(app);
+	}
+
+	public void testParseListing() throws Exception {
+		String blob = "\n  app/    -\n\nlogs/\n staging_info.yml   1.2K\r\nrun.pid\t5B\n   \n";
+		List<FileResource> files = provider.parseListing("/", blob);
+		assertEquals(4, files.size());
+
+		FileResource app = files.get(0);
+		assertEquals("app", app.getName());
+		assertTrue(app.isDirectory());
+		assertFalse(app.isFile());
+		assertEquals("testapp.example.com/0/", app.getParentPath());
+		assertEquals("testapp.example.com/0/app/", app.getAbsolutePath());
+		assertFalse(app.canWrite());
+
+		FileResource logs = files.get(1);
+		assertEquals("logs", logs.getName());
+		assertTrue(logs.isDirectory());
+		assertEquals(0, logs.getSize());
+		assertEquals(-1, logs.getMaxSize());
+
+		FileResource stagingInfo = files.get(2);
+		assertEquals("staging_info.yml", stagingInfo.getName());
+		assertFalse(stagingInfo.isDirectory());
+		assertEquals(1200, stagingInfo.getSize());
+		assertEquals("testapp.example.com/0/staging_info.yml", stagingInfo.getAbsolutePath());
+
+		FileResource pid = files.get(3);
+		assertEquals("run.pid", pid.getName());
+		assertEquals(5, pid.getSize());
+	}
+
+	public void testParseListingOfApplicationFolder() throws Exception {
+		List<FileResource> files = provider.parseListing(FilesContentProvider.APPLICATION_FOLDER, FILES);
+		assertEquals(2, files.size());
+		for (FileResource file : files) {
+			assertTrue(file.canWrite());
+			assertEquals("testapp.example.com/0/app/", file.getParentPath());
+		}
+	}
+
+	public void testParseEmptyListing() throws Exception {
+		assertTrue(provider.parseListing("/", null).isEmpty());
+		assertTrue(provider.parseListing("/", "").isEmpty());
+		assertTrue(provider.parseListing("/", " \n\n\t\n").isEmpty());
+	}
+
+	public void testListingCached() throws Exception {
+		provider.listings.put("/logs/", FILES);
+		assertEquals(2, provider.getElements("/logs", new NullProgressMonitor()).size());
+		assertEquals(2, provider.getElements("/logs/", new NullProgressMonitor()).size());
+		assertEquals(1, provider.getRequests("/logs/"));
+	}
+
+	public void testRefreshDirectory() throws Exception {
+		provider.listings.put("/logs/", FILES);
+		provider.listings.put("/tmp/", FILES);
+		provider.getElements("/logs", new NullProgressMonitor());
+		provider.getElements("/tmp", new NullProgressMonitor());
+
+		provider.listings.put("/logs/", "run.pid  5B\n");
+		provider.refresh("/logs");
+		assertEquals(1, provider.getElements("/logs", new NullProgressMonitor()).size());
+		assertEquals(2, provider.getRequests("/logs/"));
+
+		// Other directories are still cached
+		provider.getElements("/tmp", new NullProgressMonitor());
+		assertEquals(1, provider.getRequests("/tmp/"));
+	}
+
+	public void testRefreshAll() throws Exception {
+		provider.listings.put("/logs/", FILES);
+		provider.listings.put("/tmp/", FILES);
+		provider.getElements("/logs", new NullProgressMonitor());
+		provider.getElements("/tmp", new NullProgressMonitor());
+
+		provider.refresh();
+		provider.getElements("/logs", new NullProgressMonitor());
+		provider.getElements("/tmp", new NullProgressMonitor());
+		assertEquals(2, provider.getRequests("/logs/"));
+		assertEquals(2, provider.getRequests("/tmp/"));
+	}
+
+	/**
+	 * Returns listings set by the test instead of requesting them from a
+	 * server, and counts the requests for each directory.
+	 */
+	private static class TestFilesContentProvider extends FilesContentProvider {
+
+		final Map<String, String> listings = Collections.synchronizedMap(new HashMap<String, String>());
+
+		private final Map<String, Integer> requests = new HashMap<String, Integer>();
+
+		TestFilesContentProvider(CloudApplication app) {
+			super(null, app, 0);
+		}
+
+		@Override
+		protected List<FileResource> parseListing(String parent, String blob) {
+			return super.parseListing(parent, blob);
+		}
+
+		@Override
+		protected synchronized String requestListing(String parent, IProgressMonitor monitor) throws CoreException {
+			requests.put(parent, getRequests(parent) + 1);
+			return listings.get(parent);
+		}
+
+		synchronized int getRequests(String parent) {
+			Integer count = requests.get(parent);
+			return count != null ? count : 0;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.LatencyHistogram;
+
+public class LatencyHistogramTest extends TestCase {
+
+	public void testEmpty() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0.0, histogram.getMean());
+		assertEquals(0, histogram.getValueAtPercentile(99));
+	}
+
+	public void testSmallValuesAreExact() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 8; i++) {
+			histogram.record(i);
+		}
+		assertEquals(8, histogram.getCount());
+		assertEquals(3.5, histogram.getMean());
+		assertEquals(3, histogram.getValueAtPercentile(50));
+		assertEquals(7, histogram.getValueAtPercentile(100));
+		assertEquals(7, histogram.getMax());
+	}
+
+	public void testPercentilePrecision() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 10000; i++) {
+			histogram.record(i);
+		}
+		assertWithinPrecision(5000, histogram.getValueAtPercentile(50));
+		assertWithinPrecision(9000, histogram.getValueAtPercentile(90));
+		assertWithinPrecision(9900, histogram.getValueAtPercentile(99));
+		assertEquals(10000, histogram.getValueAtPercentile(100));
+		assertEquals(10000, histogram.getMax());
+	}
+
+	public void testLargeAndNegativeValues() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		histogram.record(Long.MAX_VALUE / 2);
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		assertEquals(Long.MAX_VALUE / 2, histogram.getValueAtPercentile(100));
+	}
+
+	protected static void assertWithinPrecision(long expected, long actual) {
+		assertTrue("Expected " + expected + " but was " + actual, actual >= expected
+				&& actual <= expected + expected / 8);
+	}
+}
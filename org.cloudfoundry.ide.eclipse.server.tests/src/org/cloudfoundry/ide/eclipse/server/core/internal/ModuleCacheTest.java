@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudEntity.Meta;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ModuleCache.ServerData;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
+
+/**
+ * Checks module lookups and removals of the module cache of a server with
+ * many deployed applications. Run as a Java application, with the workbench
+ * running (e.g. from a JUnit plug-in launch configuration), to measure the
+ * cost of the lookups done by module refreshes, for example with arguments
+ * <code>1000 20</code> for 20 refreshes of 1000 applications.
+ */
+public class ModuleCacheTest extends TestCase {
+
+	private static final int APPLICATION_COUNT = 1000;
+
+	private static final int REFRESH_COUNT = 20;
+
+	private String serverId;
+
+	private ServerData data;
+
+	@Override
+	protected void setUp() throws Exception {
+		serverId = "moduleCacheTest" + UUID.randomUUID();
+		data = new ServerData(createProxy(IServer.class, serverId, serverId));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		data.dispose();
+		new InstanceScope().getNode(CloudFoundryPlugin.PLUGIN_ID).remove(
+				ModuleCache.KEY_MODULE_MAPPING_LIST + ":" + serverId);
+	}
+
+	private static <T> T createProxy(Class<T> type, final String name, final String attribute) {
+		return type.cast(Proxy.newProxyInstance(ModuleCacheTest.class.getClassLoader(), new Class<?>[] { type },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (method.getName().equals("getAttribute")) {
+							return attribute;
+						}
+						if (method.getName().equals("getName") || method.getName().equals("getId")
+								|| method.getName().equals("toString")) {
+							return name;
+						}
+						if (method.getName().equals("hashCode")) {
+							return System.identityHashCode(proxy);
+						}
+						if (method.getName().equals("equals")) {
+							return proxy == args[0];
+						}
+						return null;
+					}
+				}));
+	}
+
+	private static CloudApplication createApplication(String name) {
+		return new CloudApplication(new Meta(UUID.randomUUID(), new Date(0), new Date(0)), name);
+	}
+
+	public void testLookupByLocalAndDeployedName() throws Exception {
+		CloudFoundryApplicationModule external = data.createModule(createApplication("external"));
+		assertSame(external, data.getExistingCloudModule(external));
+
+		IModule local = createProxy(IModule.class, "project", null);
+		assertNull(data.getExistingCloudModule(local));
+
+		CloudFoundryApplicationModule appModule = data.getOrCreateCloudModule(local);
+		assertEquals("project", appModule.getDeployedApplicationName());
+		assertSame(appModule, data.getExistingCloudModule(local));
+
+		data.remove(appModule);
+		assertNull(data.getExistingCloudModule(local));
+		assertSame(external, data.getExistingCloudModule(external));
+	}
+
+	public void testLookupsWithManyApplications() throws Exception {
+		List<CloudFoundryApplicationModule> modules = new ArrayList<CloudFoundryApplicationModule>();
+		for (int i = 0; i < APPLICATION_COUNT; i++) {
+			modules.add(data.createModule(createApplication("app" + i)));
+		}
+
+		for (int refresh = 0; refresh < REFRESH_COUNT; refresh++) {
+			for (CloudFoundryApplicationModule module : modules) {
+				assertSame(module, data.getExistingCloudModule(module));
+			}
+			data.removeObsoleteModules(new HashSet<CloudFoundryApplicationModule>(modules));
+		}
+
+		// Modules are returned in the order they were added
+		assertEquals(modules, new ArrayList<CloudFoundryApplicationModule>(data.getExistingCloudModules()));
+	}
+
+	public static void main(String[] args) throws Exception {
+		int applications = args.length > 0 ? Integer.parseInt(args[0]) : APPLICATION_COUNT;
+		int refreshes = args.length > 1 ? Integer.parseInt(args[1]) : REFRESH_COUNT;
+
+		String serverId = "moduleCacheBenchmark" + UUID.randomUUID();
+		ServerData data = new ServerData(createProxy(IServer.class, serverId, serverId));
+		try {
+			// Warm up, then measure
+			runBenchmark(data, applications, refreshes);
+			data.clear();
+			long time = runBenchmark(data, applications, refreshes);
+			System.out.println(String.format(Locale.ENGLISH, "%d refreshes of %d applications in %d ms: %.3f ms each",
+					refreshes, applications, time, (double) time / Math.max(1, refreshes)));
+		}
+		finally {
+			data.dispose();
+			new InstanceScope().getNode(CloudFoundryPlugin.PLUGIN_ID).remove(
+					ModuleCache.KEY_MODULE_MAPPING_LIST + ":" + serverId);
+		}
+	}
+
+	/**
+	 * Adds the given number of applications to the cache, then performs the
+	 * module lookups and removal of obsolete modules that a refresh of all
+	 * applications does, the given number of times.
+	 * @return time in milliseconds taken by the refreshes
+	 */
+	protected static long runBenchmark(ServerData data, int applications, int refreshes) {
+		List<CloudFoundryApplicationModule> modules = new ArrayList<CloudFoundryApplicationModule>();
+		for (int i = 0; i < applications; i++) {
+			modules.add(data.createModule(createApplication("app" + i)));
+		}
+
+		long start = System.nanoTime();
+		for (int refresh = 0; refresh < refreshes; refresh++) {
+			for (CloudFoundryApplicationModule module : modules) {
+				if (data.getExistingCloudModule(module) != module) {
+					throw new IllegalStateException("Module not found: " + module.getDeployedApplicationName());
+				}
+			}
+			data.removeObsoleteModules(new HashSet<CloudFoundryApplicationModule>(modules));
+		}
+		return (System.nanoTime() - start) / 1000000;
+	}
+
+	public void testRemoveUpdatesIndex() throws Exception {
+		List<CloudFoundryApplicationModule> modules = new ArrayList<CloudFoundryApplicationModule>();
+		for (int i = 0; i < APPLICATION_COUNT; i++) {
+			modules.add(data.createModule(createApplication("app" + i)));
+		}
+
+		List<CloudFoundryApplicationModule> remaining = new ArrayList<CloudFoundryApplicationModule>();
+		for (int i = 0; i < modules.size(); i++) {
+			if (i % 2 == 0) {
+				data.remove(modules.get(i));
+			}
+			else {
+				remaining.add(modules.get(i));
+			}
+		}
+
+		for (int i = 0; i < modules.size(); i++) {
+			CloudFoundryApplicationModule module = modules.get(i);
+			if (i % 2 == 0) {
+				assertNull(data.getExistingCloudModule(module));
+			}
+			else {
+				assertSame(module, data.getExistingCloudModule(module));
+			}
+		}
+		assertEquals(remaining, new ArrayList<CloudFoundryApplicationModule>(data.getExistingCloudModules()));
+
+		// Removing a module that is not cached has no effect
+		data.remove(modules.get(0));
+		assertEquals(remaining.size(), data.getExistingCloudModules().size());
+	}
+
+	public void testLocalModuleFoundAfterOtherModulesRemoved() throws Exception {
+		IModule local = createProxy(IModule.class, "project", null);
+		CloudFoundryApplicationModule appModule = data.getOrCreateCloudModule(local);
+		CloudFoundryApplicationModule external = data.createModule(createApplication("external"));
+
+		data.remove(external);
+		assertNull(data.getExistingCloudModule(external));
+		assertSame(appModule, data.getExistingCloudModule(local));
+		assertSame(appModule, data.getOrCreateCloudModule(local));
+		assertEquals(1, data.getExistingCloudModules().size());
+
+		data.clear();
+		assertNull(data.getExistingCloudModule(local));
+		assertTrue(data.getExistingCloudModules().isEmpty());
+	}
+
+}
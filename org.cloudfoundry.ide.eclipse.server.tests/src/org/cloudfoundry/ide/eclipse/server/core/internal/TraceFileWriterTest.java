@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.log.TraceFileWriter;
+
+public class TraceFileWriterTest extends TestCase {
+
+	private File folder;
+
+	private TraceFileWriter writer;
+
+	@Override
+	protected void setUp() throws Exception {
+		folder = File.createTempFile("traceFileWriterTest", "");
+		folder.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (writer != null) {
+			writer.close();
+		}
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		folder.delete();
+	}
+
+	public void testJsonFields() throws Exception {
+		writer = new TraceFileWriter(folder);
+		writer.write(1000, "OK", 200, "GET", "https://api.example.com/v2/apps", "message");
+		writer.write(2000, null, -1, null, null, null);
+		writer.flush();
+
+		List<String> lines = readLines(writer.getFile(0));
+		assertEquals(2, lines.size());
+		assertEquals("{\"time\":1000,\"status\":\"OK\",\"httpStatus\":200,\"method\":\"GET\","
+				+ "\"uri\":\"https://api.example.com/v2/apps\",\"message\":\"message\"}", lines.get(0));
+		assertEquals("{\"time\":2000,\"status\":null,\"method\":null,\"uri\":null,\"message\":null}", lines.get(1));
+	}
+
+	public void testJsonEscaping() throws Exception {
+		writer = new TraceFileWriter(folder);
+		writer.write(1000, "ERROR", 500, "POST", "uri", "a \"quoted\" C:\\path\nline\r\ttab\u0001 caf\u00e9");
+		writer.flush();
+
+		List<String> lines = readLines(writer.getFile(0));
+		assertEquals(1, lines.size());
+		assertTrue(lines.get(0), lines.get(0).endsWith(
+				"\"message\":\"a \\\"quoted\\\" C:\\\\path\\nline\\r\\ttab\\u0001 caf\u00e9\"}"));
+	}
+
+	public void testRolling() throws Exception {
+		long maxFileSize = 500;
+		writer = new TraceFileWriter(folder, maxFileSize);
+		int count = 200;
+		for (int i = 0; i < count; i++) {
+			writer.write(i, "OK", 200, "GET", "uri", "request " + i);
+		}
+		writer.flush();
+
+		assertEquals(TraceFileWriter.MAX_FILES, folder.listFiles().length);
+		assertFalse(writer.getFile(TraceFileWriter.MAX_FILES).exists());
+
+		// Entries are in order from the oldest file to the current one, and
+		// files only exceed the maximum size by their last entry
+		int last = -1;
+		for (int i = TraceFileWriter.MAX_FILES - 1; i >= 0; i--) {
+			File file = writer.getFile(i);
+			List<String> lines = readLines(file);
+			assertFalse(lines.isEmpty());
+			assertTrue(file.length() - lines.get(lines.size() - 1).length() - 1 < maxFileSize);
+			for (String line : lines) {
+				int time = Integer.parseInt(line.substring("{\"time\":".length(), line.indexOf(',')));
+				if (last >= 0) {
+					assertEquals(last + 1, time);
+				}
+				last = time;
+			}
+		}
+		assertEquals(count - 1, last);
+	}
+
+	public void testAppendToCurrentFile() throws Exception {
+		writer = new TraceFileWriter(folder);
+		writer.write(1000, "OK", 200, "GET", "uri", "first");
+		writer.close();
+
+		writer = new TraceFileWriter(folder);
+		writer.write(2000, "OK", 200, "GET", "uri", "second");
+		writer.close();
+
+		assertEquals(2, readLines(writer.getFile(0)).size());
+		assertEquals(1, folder.listFiles().length);
+	}
+
+	private static List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.TunnelPortAllocator;
+
+public class TunnelPortAllocatorTest extends TestCase {
+
+	public void testFollowsLastPort() throws Exception {
+		TunnelPortAllocator allocator = new TunnelPortAllocator(10100, 10110);
+		assertEquals(10100, allocator.getNextPort());
+		allocator.setLastPort(10100);
+		assertEquals(10101, allocator.getNextPort());
+		allocator.setLastPort(10105);
+		assertEquals(10106, allocator.getNextPort());
+	}
+
+	public void testWrapsAround() throws Exception {
+		TunnelPortAllocator allocator = new TunnelPortAllocator(10100, 10110);
+		allocator.setLastPort(10110);
+		assertEquals(10100, allocator.getNextPort());
+
+		// Ephemeral ports outside of the range
+		allocator.setLastPort(55000);
+		assertEquals(10100, allocator.getNextPort());
+	}
+
+	public void testEphemeralPort() throws Exception {
+		int port = TunnelPortAllocator.getEphemeralPort("127.0.0.1");
+		assertTrue(port > 0);
+	}
+}
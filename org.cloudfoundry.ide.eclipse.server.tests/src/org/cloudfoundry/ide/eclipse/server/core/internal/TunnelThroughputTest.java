@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.core.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.caldecott.client.Tunnel;
+import org.cloudfoundry.caldecott.client.TunnelFactory;
+import org.cloudfoundry.caldecott.client.TunnelServer;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.TunnelPortAllocator;
+import org.cloudfoundry.ide.eclipse.server.core.internal.tunnel.InstrumentedTunnelFactory;
+import org.cloudfoundry.ide.eclipse.server.core.internal.tunnel.TunnelMetrics;
+
+/**
+ * Sends data through a tunnel server to a local echo server, in place of a
+ * Caldecott application, and checks that the tunnel metrics account for all
+ * of it. Run as a Java application to benchmark the throughput of the tunnel
+ * server with larger amounts of data, for example with arguments
+ * <code>4 67108864</code> for 4 connections transferring 64 MB each.
+ */
+public class TunnelThroughputTest extends TestCase {
+
+	private static final String LOCAL_HOST = "127.0.0.1";
+
+	private static final int BUFFER_SIZE = 8192;
+
+	public void testMetrics() throws Exception {
+		TunnelMetrics metrics = new TunnelMetrics();
+		runBenchmark(2, 256 * 1024, metrics);
+
+		assertEquals(2, metrics.getConnections());
+		assertEquals(2 * 256 * 1024, metrics.getBytesSent());
+		assertEquals(2 * 256 * 1024, metrics.getBytesReceived());
+		assertEquals(2, metrics.getConnectLatency().getCount());
+		assertTrue(metrics.getWriteLatency().getCount() > 0);
+		assertEquals(0, metrics.getErrors());
+	}
+
+	public static void main(String[] args) throws Exception {
+		int connections = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int bytes = args.length > 1 ? Integer.parseInt(args[1]) : 16 * 1024 * 1024;
+
+		TunnelMetrics metrics = new TunnelMetrics();
+		long time = runBenchmark(connections, bytes, metrics);
+
+		double megabytes = (double) connections * bytes * 2 / (1024 * 1024);
+		System.out.println(String.format(Locale.ENGLISH, "%d connections, %.1f MB in %d ms: %.1f MB/s", connections,
+				megabytes, time, megabytes * 1000 / Math.max(1, time)));
+		System.out.println(String.format(Locale.ENGLISH,
+				"connect p50 %d ms, p99 %d ms; write p50 %d ms, p99 %d ms, max %d ms; %d errors", metrics
+						.getConnectLatency().getValueAtPercentile(50), metrics.getConnectLatency()
+						.getValueAtPercentile(99), metrics.getWriteLatency().getValueAtPercentile(50), metrics
+						.getWriteLatency().getValueAtPercentile(99), metrics.getWriteLatency().getMax(), metrics
+						.getErrors()));
+	}
+
+	/**
+	 * Opens the given number of connections concurrently through a tunnel
+	 * server to an echo server, and sends the given number of bytes through
+	 * each of them, reading back the echoed data.
+	 * @return time in milliseconds taken to transfer all data
+	 */
+	protected static long runBenchmark(int connections, final int bytes, TunnelMetrics metrics) throws Exception {
+		final ServerSocket echoServer = new ServerSocket(0, 50, InetAddress.getByName(LOCAL_HOST));
+		Thread echoThread = startEchoServer(echoServer);
+
+		TunnelFactory factory = new InstrumentedTunnelFactory(new SocketTunnelFactory(echoServer.getLocalPort()),
+				metrics);
+		int port = TunnelPortAllocator.getEphemeralPort(LOCAL_HOST);
+		TunnelServer tunnelServer = new TunnelServer(new InetSocketAddress(LOCAL_HOST, port), factory);
+		tunnelServer.start();
+		try {
+			long start = System.currentTimeMillis();
+			Thread[] clients = new Thread[connections];
+			final Throwable[] errors = new Throwable[connections];
+			for (int i = 0; i < connections; i++) {
+				final Socket socket = new Socket(LOCAL_HOST, port);
+				final int index = i;
+				clients[i] = new Thread(new Runnable() {
+					public void run() {
+						try {
+							transfer(socket, bytes);
+						}
+						catch (Throwable t) {
+							errors[index] = t;
+						}
+					}
+				}, "Tunnel benchmark client " + i);
+				clients[i].start();
+			}
+			for (int i = 0; i < connections; i++) {
+				clients[i].join();
+				if (errors[i] != null) {
+					throw new Exception("Transfer failed", errors[i]);
+				}
+			}
+			return System.currentTimeMillis() - start;
+		}
+		finally {
+			tunnelServer.stop();
+			echoServer.close();
+			echoThread.join();
+		}
+	}
+
+	/**
+	 * Writes the given number of bytes to the socket from a separate thread,
+	 * and reads back as many bytes, checking that they are echoed unchanged.
+	 */
+	protected static void transfer(final Socket socket, final int bytes) throws Exception {
+		final byte[] data = new byte[BUFFER_SIZE];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) i;
+		}
+		Thread writer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					OutputStream out = socket.getOutputStream();
+					for (int sent = 0; sent < bytes; sent += data.length) {
+						out.write(data, 0, Math.min(data.length, bytes - sent));
+					}
+					out.flush();
+				}
+				catch (IOException e) {
+					// Reported by the reader as missing data
+				}
+			}
+		});
+		writer.start();
+		try {
+			InputStream in = socket.getInputStream();
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int received = 0;
+			while (received < bytes) {
+				int read = in.read(buffer, 0, Math.min(buffer.length, bytes - received));
+				if (read < 0) {
+					throw new IOException("Connection closed after " + received + " of " + bytes + " bytes");
+				}
+				for (int i = 0; i < read; i++) {
+					if (buffer[i] != (byte) (received + i)) {
+						throw new IOException("Unexpected data at byte " + (received + i));
+					}
+				}
+				received += read;
+			}
+		}
+		finally {
+			writer.join();
+			socket.close();
+		}
+	}
+
+	protected static Thread startEchoServer(final ServerSocket serverSocket) {
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				while (!serverSocket.isClosed()) {
+					try {
+						final Socket socket = serverSocket.accept();
+						Thread echo = new Thread(new Runnable() {
+							public void run() {
+								try {
+									InputStream in = socket.getInputStream();
+									OutputStream out = socket.getOutputStream();
+									byte[] buffer = new byte[BUFFER_SIZE];
+									int read;
+									while ((read = in.read(buffer)) >= 0) {
+										out.write(buffer, 0, read);
+									}
+								}
+								catch (IOException e) {
+									// Connection closed
+								}
+								finally {
+									try {
+										socket.close();
+									}
+									catch (IOException e) {
+										// Ignore
+									}
+								}
+							}
+						}, "Tunnel benchmark echo");
+						echo.setDaemon(true);
+						echo.start();
+					}
+					catch (IOException e) {
+						// Server socket closed
+					}
+				}
+			}
+		}, "Tunnel benchmark echo server");
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * Creates tunnels that connect directly to a local port, in place of
+	 * tunnels through a Caldecott application.
+	 */
+	static class SocketTunnelFactory implements TunnelFactory {
+
+		private final int port;
+
+		SocketTunnelFactory(int port) {
+			this.port = port;
+		}
+
+		public Tunnel createTunnel() {
+			try {
+				return new SocketTunnel(new Socket(LOCAL_HOST, port));
+			}
+			catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	static class SocketTunnel implements Tunnel {
+
+		private final Socket socket;
+
+		SocketTunnel(Socket socket) {
+			this.socket = socket;
+		}
+
+		public void write(byte[] data) {
+			try {
+				socket.getOutputStream().write(data);
+			}
+			catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		public byte[] read(boolean retry) {
+			try {
+				byte[] buffer = new byte[BUFFER_SIZE];
+				int read = socket.getInputStream().read(buffer);
+				if (read < 0) {
+					throw new IllegalStateException("Tunnel closed");
+				}
+				return Arrays.copyOf(buffer, read);
+			}
+			catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		public void close() {
+			try {
+				socket.close();
+			}
+			catch (IOException e) {
+				// Ignore
+			}
+		}
+	}
+}
@@ -22,14 +22,30 @@ package org.cloudfoundry.ide.eclipse.server.tests;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationArchiveCacheTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationLogSessionTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationPatchTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationsDeltaTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ClientRequestExecutorTest;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryClientConnectionTest;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryProxyTest;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServerBehaviourTest;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServerTest;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServicesTest;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudUtilTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ConsoleArchiveTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.DeployedResourceCacheTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.DeploymentTimelineTest;
 import org.cloudfoundry.ide.eclipse.server.core.internal.DeploymentURLTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.FileConsoleStreamTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.FileContentDecoderTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.FilesContentProviderTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.LatencyHistogramTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ModuleCacheTest;
 import org.cloudfoundry.ide.eclipse.server.core.internal.ServerCredentialsStoreTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.TraceFileWriterTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.TunnelPortAllocatorTest;
+import org.cloudfoundry.ide.eclipse.server.core.internal.TunnelThroughputTest;
 import org.cloudfoundry.ide.eclipse.server.tests.sts.util.ManagedTestSuite;
 import org.cloudfoundry.ide.eclipse.server.tests.sts.util.StsTestUtil;
 
@@ -66,6 +82,22 @@ public class AllCloudFoundryTests {
 		suite.addTestSuite(ServerCredentialsStoreTest.class);
 		suite.addTestSuite(CloudFoundryServerTest.class);
 		suite.addTestSuite(CloudUtilTest.class);
+		suite.addTestSuite(DeployedResourceCacheTest.class);
+		suite.addTestSuite(ApplicationArchiveCacheTest.class);
+		suite.addTestSuite(ApplicationPatchTest.class);
+		suite.addTestSuite(ApplicationsDeltaTest.class);
+		suite.addTestSuite(ModuleCacheTest.class);
+		suite.addTestSuite(FileContentDecoderTest.class);
+		suite.addTestSuite(FileConsoleStreamTest.class);
+		suite.addTestSuite(FilesContentProviderTest.class);
+		suite.addTestSuite(ConsoleArchiveTest.class);
+		suite.addTestSuite(ApplicationLogSessionTest.class);
+		suite.addTestSuite(DeploymentTimelineTest.class);
+		suite.addTestSuite(ClientRequestExecutorTest.class);
+		suite.addTestSuite(TraceFileWriterTest.class);
+		suite.addTestSuite(LatencyHistogramTest.class);
+		suite.addTestSuite(TunnelPortAllocatorTest.class);
+		suite.addTestSuite(TunnelThroughputTest.class);
 
 		suite.addTestSuite(DeploymentURLTest.class);
 		suite.addTestSuite(CloudFoundryServicesTest.class);
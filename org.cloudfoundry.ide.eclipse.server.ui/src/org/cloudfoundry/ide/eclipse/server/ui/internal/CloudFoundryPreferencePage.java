@@ -19,18 +19,30 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.ui.internal;
 
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.jface.layout.GridDataFactory;
 import org.eclipse.jface.layout.GridLayoutFactory;
 import org.eclipse.jface.preference.PreferencePage;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 
+/**
+ * Root Cloud Foundry preference page, which also configures the number of
+ * applications published in parallel.
+ */
 public class CloudFoundryPreferencePage extends PreferencePage implements IWorkbenchPreferencePage {
 
+	private int publishParallelism;
+
+	private Text publishParallelismText;
+
 	public void init(IWorkbench workbench) {
 		//
 	}
@@ -45,7 +57,73 @@ public class CloudFoundryPreferencePage extends PreferencePage implements IWorkb
 		GridDataFactory.fillDefaults().grab(false, false).applyTo(serviceLabel);
 		serviceLabel.setText(Messages.CloudFoundryPreferencePage_TEXT_SELECT_CF_FEATURE);
 
+		Composite parallelismComposite = new Composite(mainArea, SWT.NONE);
+		GridLayoutFactory.fillDefaults().numColumns(2).applyTo(parallelismComposite);
+		GridDataFactory.fillDefaults().grab(true, false).applyTo(parallelismComposite);
+
+		Label publishParallelismLabel = new Label(parallelismComposite, SWT.NONE);
+		publishParallelismLabel.setText(Messages.CloudFoundryPreferencePage_LABEL_PUBLISH_PARALLELISM);
+		publishParallelismLabel.setToolTipText(Messages.CloudFoundryPreferencePage_TOOLTIP_PUBLISH_PARALLELISM);
+
+		publishParallelism = CloudFoundryPlugin.getDefault().getPublishParallelism();
+
+		publishParallelismText = new Text(parallelismComposite, SWT.BORDER);
+		GridDataFactory.fillDefaults().hint(60, SWT.DEFAULT).applyTo(publishParallelismText);
+		publishParallelismText.setText(Integer.toString(publishParallelism));
+		publishParallelismText.setToolTipText(Messages.CloudFoundryPreferencePage_TOOLTIP_PUBLISH_PARALLELISM);
+		publishParallelismText.addModifyListener(new ModifyListener() {
+
+			public void modifyText(ModifyEvent e) {
+				publishParallelism = parseParallelism(publishParallelismText.getText());
+				validate();
+			}
+		});
+
 		return mainArea;
 	}
 
+	protected void validate() {
+		boolean valid = publishParallelism > 0;
+		setErrorMessage(valid ? null : Messages.CloudFoundryPreferencePage_ERROR_INVALID_PARALLELISM);
+		setValid(valid);
+	}
+
+	/**
+	 * 
+	 * @param text
+	 * @return the number of applications, or -1 if the text is not a positive
+	 * integer
+	 */
+	protected static int parseParallelism(String text) {
+		try {
+			int parallelism = Integer.parseInt(text.trim());
+			return parallelism > 0 ? parallelism : -1;
+		}
+		catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	@Override
+	protected void performDefaults() {
+		publishParallelismText.setText(Integer.toString(CloudFoundryPlugin.DEFAULT_PUBLISH_PARALLELISM_PREFERENCE_VAL));
+		super.performDefaults();
+	}
+
+	protected void saveParallelismPreferences() {
+		CloudFoundryPlugin.getDefault().setPublishParallelism(publishParallelism);
+	}
+
+	@Override
+	protected void performApply() {
+		saveParallelismPreferences();
+		super.performApply();
+	}
+
+	@Override
+	public boolean performOk() {
+		saveParallelismPreferences();
+		return super.performOk();
+	}
+
 }
@@ -25,21 +25,30 @@ import org.eclipse.jface.layout.GridDataFactory;
 import org.eclipse.jface.layout.GridLayoutFactory;
 import org.eclipse.jface.preference.PreferencePage;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 
 /**
- * Preference page to enable/disable Cloud Foundry HTTP verbose tracing.
+ * Preference page to enable/disable Cloud Foundry HTTP verbose tracing, and to
+ * configure the sampling of traced requests and the trace file.
  */
 public class CloudFoundryTracePreferencePage extends PreferencePage implements IWorkbenchPreferencePage {
 
 	private boolean isTracingEnabled;
 
+	private int sampleRate;
+
+	private boolean isTraceFileEnabled;
+
 	public CloudFoundryTracePreferencePage() {
 		setPreferenceStore(CloudFoundryServerUiPlugin.getDefault().getPreferenceStore());
 	}
@@ -73,18 +82,80 @@ public class CloudFoundryTracePreferencePage extends PreferencePage implements I
 
 		});
 
+		Composite sampleRateComposite = new Composite(topComposite, SWT.NONE);
+		GridLayoutFactory.fillDefaults().numColumns(2).applyTo(sampleRateComposite);
+		GridDataFactory.fillDefaults().grab(true, false).applyTo(sampleRateComposite);
+
+		Label sampleRateLabel = new Label(sampleRateComposite, SWT.NONE);
+		sampleRateLabel.setText(Messages.LABEL_TRACE_SAMPLE_RATE);
+		sampleRateLabel.setToolTipText(Messages.TOOLTIP_TRACE_SAMPLE_RATE);
+
+		sampleRate = HttpTracer.getCurrent().getSampleRate();
+
+		final Text sampleRateText = new Text(sampleRateComposite, SWT.BORDER);
+		GridDataFactory.fillDefaults().hint(60, SWT.DEFAULT).applyTo(sampleRateText);
+		sampleRateText.setText(Integer.toString(sampleRate));
+		sampleRateText.setToolTipText(Messages.TOOLTIP_TRACE_SAMPLE_RATE);
+		sampleRateText.addModifyListener(new ModifyListener() {
+
+			public void modifyText(ModifyEvent e) {
+				sampleRate = parseSampleRate(sampleRateText.getText());
+				setErrorMessage(sampleRate > 0 ? null : Messages.ERROR_INVALID_TRACE_SAMPLE_RATE);
+				setValid(sampleRate > 0);
+			}
+		});
+
+		final Button enableTraceFile = new Button(topComposite, SWT.CHECK);
+		enableTraceFile.setText(Messages.LABEL_TRACE_FILE);
+		enableTraceFile.setToolTipText(Messages.TOOLTIP_TRACE_FILE);
+
+		isTraceFileEnabled = HttpTracer.getCurrent().isTraceFileEnabled();
+
+		enableTraceFile.setSelection(isTraceFileEnabled);
+
+		enableTraceFile.addSelectionListener(new SelectionAdapter() {
+
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				isTraceFileEnabled = enableTraceFile.getSelection();
+			}
+
+		});
+
 		return topComposite;
 	}
 
+	/**
+	 * 
+	 * @param text
+	 * @return the sample rate, or -1 if the text is not a positive integer
+	 */
+	protected static int parseSampleRate(String text) {
+		try {
+			int rate = Integer.parseInt(text.trim());
+			return rate > 0 ? rate : -1;
+		}
+		catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	protected void saveTracePreferences() {
+		HttpTracer tracer = HttpTracer.getCurrent();
+		tracer.setSampleRate(sampleRate);
+		tracer.enableTraceFile(isTraceFileEnabled);
+		tracer.enableTracing(isTracingEnabled);
+	}
+
 	@Override
 	protected void performApply() {
-		HttpTracer.getCurrent().enableTracing(isTracingEnabled);
+		saveTracePreferences();
 		super.performApply();
 	}
 
 	@Override
 	public boolean performOk() {
-		HttpTracer.getCurrent().enableTracing(isTracingEnabled);
+		saveTracePreferences();
 		return super.performOk();
 	}
 }
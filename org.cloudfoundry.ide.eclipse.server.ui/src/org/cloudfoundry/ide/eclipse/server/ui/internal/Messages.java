@@ -133,6 +133,8 @@ public class Messages extends NLS {
 
 	public static String ApplicationDetailsPart_ERROR_REFRESH_DEBUG_BUTTON;
 
+	public static String ApplicationDetailsPart_ERROR_SHOW_DEPLOYMENT_HISTORY;
+
 	public static String ApplicationDetailsPart_ERROR_UNABLE_REFRESH_EDITOR_STATE;
 
 	public static String ApplicationDetailsPart_ERROR_UNKNOWN;
@@ -163,6 +165,10 @@ public class Messages extends NLS {
 
 	public static String ApplicationDetailsPart_TEXT_DEBUG;
 
+	public static String ApplicationDetailsPart_TEXT_DEPLOYMENT_HISTORY;
+
+	public static String ApplicationDetailsPart_TEXT_DEPLOYMENT_HISTORY_TOOLTIP;
+
 	public static String ApplicationDetailsPart_TEXT_DISK;
 
 	public static String ApplicationDetailsPart_TEXT_DISK_LIMIT;
@@ -209,6 +215,8 @@ public class Messages extends NLS {
 
 	public static String ApplicationDetailsPart_TEXT_SET;
 
+	public static String ApplicationDetailsPart_TEXT_SHOW;
+
 	public static String ApplicationDetailsPart_TEXT_SHOW_IN_REMOTE_VIEW;
 
 	public static String ApplicationDetailsPart_TEXT_START;
@@ -265,6 +273,12 @@ public class Messages extends NLS {
 
 	public static String LABEL_ENABLE_TRACING;
 
+	public static String LABEL_TRACE_SAMPLE_RATE;
+
+	public static String LABEL_TRACE_FILE;
+
+	public static String ERROR_INVALID_TRACE_SAMPLE_RATE;
+
 	public static String LaunchTunnelCommandAction_JOB_LAUNCH;
 
 	public static String LaunchTunnelCommandAction_JOB_PROMPT;
@@ -285,6 +299,10 @@ public class Messages extends NLS {
 
 	public static String TOOLTIP_ENABLE_TRACING;
 
+	public static String TOOLTIP_TRACE_SAMPLE_RATE;
+
+	public static String TOOLTIP_TRACE_FILE;
+
 	public static String TunnelActionProvider_TEXT_DISABLE;
 
 	public static String TunnelActionProvider_TEXT_DISCONN_TUNNEL;
@@ -337,6 +355,14 @@ public class Messages extends NLS {
 
 	public static String ROUTES_SHOW_REMOVED;
 
+	public static String UpdateApplicationsInstancesCommand_ERROR_INSTANCES;
+
+	public static String UpdateApplicationsInstancesCommand_JOB_UPDATE;
+
+	public static String UpdateApplicationsInstancesCommand_TEXT_INSTANCES;
+
+	public static String UpdateApplicationsInstancesCommand_TITLE_INSTANCES;
+
 	public static String UpdatePasswordCommand_ERROR_PW_UPDATE_BODY;
 
 	public static String UpdatePasswordCommand_TEXT_PW_UPDATE;
@@ -403,6 +429,12 @@ public class Messages extends NLS {
 
 	public static String ShowConsoleEditorAction_TEXT_SHOW_CONSOLE;
 
+	public static String ShowArchivedOutputAction_TEXT;
+
+	public static String ShowArchivedOutputAction_TEXT_NO_ARCHIVE;
+
+	public static String ConsoleArchive_TEXT_ARCHIVED_CONSOLE;
+
 	public static String SERVER_WIZARD_VALIDATOR_CLICK_TO_VALIDATE;
 
 	public static String ServerHandler_QUERY_RUNTIME_EXISTS;
@@ -453,6 +485,10 @@ public class Messages extends NLS {
 
 	public static String SpringInsightSection_TEXT_SPRING_INSIGHT;
 
+	public static String StdConsoleStreamJob_TEXT_LINES_DROPPED;
+
+	public static String StopApplicationsCommand_JOB_STOP;
+
 	public static String CaldecottDisconnectAllAction_JOB_STOP;
 
 	public static String CaldecottDisconnectAllAction_TEXT_DISCON_TUNNEL;
@@ -571,8 +607,14 @@ public class Messages extends NLS {
 
 	public static String CloudFoundryEditorAction_WARNING_RESTART_APP;
 
+	public static String CloudFoundryPreferencePage_ERROR_INVALID_PARALLELISM;
+
+	public static String CloudFoundryPreferencePage_LABEL_PUBLISH_PARALLELISM;
+
 	public static String CloudFoundryPreferencePage_TEXT_SELECT_CF_FEATURE;
 
+	public static String CloudFoundryPreferencePage_TOOLTIP_PUBLISH_PARALLELISM;
+
 	public static String CloudFoundryServerStatusSection_ERROR_SERV_EDITOR;
 
 	public static String CloudFoundryServerStatusSection_TEXT_CONN_BUTTON;
@@ -841,6 +883,8 @@ public class Messages extends NLS {
 
 	public static String RepublishApplicationHandler_ERROR_REPUBLISH_FAIL;
 
+	public static String RestartApplicationsCommand_JOB_RESTART;
+
 	private static final String BUNDLE_NAME = CloudFoundryServerUiPlugin.PLUGIN_ID + ".internal.Messages"; //$NON-NLS-1$
 
 	static {
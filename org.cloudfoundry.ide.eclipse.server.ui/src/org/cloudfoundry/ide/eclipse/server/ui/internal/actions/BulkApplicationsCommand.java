@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.ui.internal.actions;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryServerBehaviour;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.handlers.HandlerUtil;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.ui.IServerModule;
+
+/**
+ * Runs an operation on all the applications selected in the Servers view at
+ * once, rather than one application at a time. Only applications of the
+ * server of the first selected application are operated on.
+ */
+public abstract class BulkApplicationsCommand extends BaseCommandHandler {
+
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		ISelection selection = HandlerUtil.getCurrentSelection(event);
+		CloudFoundryServer cloudServer = null;
+		final List<CloudFoundryApplicationModule> appModules = new ArrayList<CloudFoundryApplicationModule>();
+
+		if (selection instanceof IStructuredSelection) {
+			for (Iterator<?> it = ((IStructuredSelection) selection).iterator(); it.hasNext();) {
+				Object obj = it.next();
+				if (!(obj instanceof IServerModule)) {
+					continue;
+				}
+				IServerModule serverModule = (IServerModule) obj;
+				IModule[] module = serverModule.getModule();
+				IServer server = serverModule.getServer();
+				if (cloudServer == null) {
+					cloudServer = (CloudFoundryServer) server.loadAdapter(CloudFoundryServer.class, null);
+				}
+				if (cloudServer == null || module.length != 1 || !cloudServer.getServer().equals(server)) {
+					continue;
+				}
+				CloudFoundryApplicationModule appModule = cloudServer.getExistingCloudModule(module[0]);
+				if (appModule != null) {
+					appModules.add(appModule);
+				}
+			}
+		}
+
+		if (appModules.isEmpty()) {
+			CloudFoundryPlugin.logError("No deployed application selected to run the selected action."); //$NON-NLS-1$
+			return null;
+		}
+		if (!prepare(HandlerUtil.getActiveShell(event), appModules)) {
+			return null;
+		}
+
+		final CloudFoundryServerBehaviour behaviour = cloudServer.getBehaviour();
+		Job job = new Job(getJobName()) {
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return runOnApplications(behaviour, appModules, monitor);
+			}
+		};
+		job.schedule();
+		return null;
+	}
+
+	/**
+	 * Prompts for the input of the operation, if any. Called in the UI thread
+	 * before the operation is scheduled.
+	 * @return false if the operation should not run
+	 */
+	protected boolean prepare(Shell shell, List<CloudFoundryApplicationModule> appModules) {
+		return true;
+	}
+
+	protected abstract String getJobName();
+
+	/**
+	 * Runs the operation on the given applications.
+	 * @return status of the operation, containing the errors of the
+	 * applications it failed on
+	 */
+	protected abstract IStatus runOnApplications(CloudFoundryServerBehaviour behaviour,
+			List<CloudFoundryApplicationModule> appModules, IProgressMonitor monitor);
+
+}
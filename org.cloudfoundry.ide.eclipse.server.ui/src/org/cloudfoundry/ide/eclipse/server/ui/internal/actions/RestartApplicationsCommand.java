@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.ui.internal.actions;
+
+import java.util.List;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryServerBehaviour;
+import org.cloudfoundry.ide.eclipse.server.ui.internal.Messages;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+
+/**
+ * Restarts the applications selected in the Servers view concurrently.
+ * @see CloudFoundryServerBehaviour#restartApplications(java.util.Collection,
+ * IProgressMonitor)
+ */
+public class RestartApplicationsCommand extends BulkApplicationsCommand {
+
+	@Override
+	protected String getJobName() {
+		return Messages.RestartApplicationsCommand_JOB_RESTART;
+	}
+
+	@Override
+	protected IStatus runOnApplications(CloudFoundryServerBehaviour behaviour,
+			List<CloudFoundryApplicationModule> appModules, IProgressMonitor monitor) {
+		return behaviour.restartApplications(appModules, monitor);
+	}
+
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.ui.internal.actions;
+
+import java.util.List;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryServerBehaviour;
+import org.cloudfoundry.ide.eclipse.server.ui.internal.Messages;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.jface.dialogs.IInputValidator;
+import org.eclipse.jface.dialogs.InputDialog;
+import org.eclipse.jface.window.Window;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Sets the number of instances of the applications selected in the Servers
+ * view, which are updated concurrently.
+ * @see CloudFoundryServerBehaviour#updateApplicationInstances(java.util.Collection,
+ * int, IProgressMonitor)
+ */
+public class UpdateApplicationsInstancesCommand extends BulkApplicationsCommand {
+
+	private int instanceCount;
+
+	@Override
+	protected boolean prepare(Shell shell, List<CloudFoundryApplicationModule> appModules) {
+		InputDialog dialog = new InputDialog(shell, Messages.UpdateApplicationsInstancesCommand_TITLE_INSTANCES,
+				NLS.bind(Messages.UpdateApplicationsInstancesCommand_TEXT_INSTANCES, appModules.size()),
+				String.valueOf(appModules.get(0).getInstanceCount()), new IInputValidator() {
+					public String isValid(String newText) {
+						return parseInstanceCount(newText) > 0 ? null
+								: Messages.UpdateApplicationsInstancesCommand_ERROR_INSTANCES;
+					}
+				});
+		if (dialog.open() != Window.OK) {
+			return false;
+		}
+		instanceCount = parseInstanceCount(dialog.getValue());
+		return true;
+	}
+
+	@Override
+	protected String getJobName() {
+		return Messages.UpdateApplicationsInstancesCommand_JOB_UPDATE;
+	}
+
+	@Override
+	protected IStatus runOnApplications(CloudFoundryServerBehaviour behaviour,
+			List<CloudFoundryApplicationModule> appModules, IProgressMonitor monitor) {
+		return behaviour.updateApplicationInstances(appModules, instanceCount, monitor);
+	}
+
+	/**
+	 * 
+	 * @return instance count, or -1 if the text is not a number
+	 */
+	private static int parseInstanceCount(String text) {
+		try {
+			return Integer.parseInt(text.trim());
+		}
+		catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+}
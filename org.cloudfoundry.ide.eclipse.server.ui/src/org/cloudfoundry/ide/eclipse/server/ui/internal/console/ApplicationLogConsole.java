@@ -39,6 +39,8 @@ class ApplicationLogConsole extends CloudFoundryConsole {
 
 	public ApplicationLogConsole(MessageConsole console) {
 		super(console);
+		// Only application output is archived, not the trace console
+		ConsoleArchive.attach(console);
 	}
 
 	/**
@@ -69,6 +71,40 @@ class ApplicationLogConsole extends CloudFoundryConsole {
 		}
 	}
 
+	/**
+	 * Clears the content of the console. Application logs that were streamed
+	 * to the console before it was cleared are written again if they are part
+	 * of the recent logs shown afterwards.
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		ConsoleStream stream = getActiveStream(StandardLogContentType.APPLICATION_LOG);
+		if (stream instanceof ApplicationLogConsoleStream) {
+			((ApplicationLogConsoleStream) stream).reset();
+		}
+	}
+
+	/**
+	 * Writes the recent logs of the application, including those that were
+	 * already streamed to the console. If the application logs are streamed to
+	 * the console, streamed logs that are part of the recent logs are not
+	 * written again.
+	 * @param appModule
+	 * @param cloudServer
+	 */
+	public void showRecentLogs(CloudFoundryApplicationModule appModule, CloudFoundryServer cloudServer) {
+		ConsoleStream stream = getStream(StandardLogContentType.APPLICATION_LOG, appModule, cloudServer);
+		if (stream instanceof ApplicationLogConsoleStream) {
+			((ApplicationLogConsoleStream) stream).fetchRecentLogs();
+		}
+		else {
+			List<ApplicationLog> logs = cloudServer.getBehaviour().getRecentApplicationLogs(
+					appModule.getDeployedApplicationName());
+			writeApplicationLogs(logs, appModule, cloudServer);
+		}
+	}
+
 	public synchronized void writeApplicationLogs(List<ApplicationLog> logs, CloudFoundryApplicationModule appModule,
 			CloudFoundryServer cloudServer) {
 		if (logs != null) {
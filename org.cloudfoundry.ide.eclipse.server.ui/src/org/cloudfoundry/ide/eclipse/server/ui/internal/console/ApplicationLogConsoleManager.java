@@ -22,14 +22,11 @@ package org.cloudfoundry.ide.eclipse.server.ui.internal.console;
 
 import java.io.StringWriter;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.cloudfoundry.client.lib.domain.ApplicationLog;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
-import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryServerBehaviour;
 import org.cloudfoundry.ide.eclipse.server.core.internal.log.LogContentType;
 import org.cloudfoundry.ide.eclipse.server.core.internal.spaces.CloudFoundrySpace;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -85,7 +82,7 @@ public class ApplicationLogConsoleManager extends CloudConsoleManager {
 
 		if (serverLogTail != null) {
 			if (clear) {
-				serverLogTail.getConsole().clearConsole();
+				serverLogTail.clear();
 			}
 			serverLogTail.startTailing(type, appModule, server);
 		}
@@ -135,7 +132,7 @@ public class ApplicationLogConsoleManager extends CloudConsoleManager {
 
 			ApplicationLogConsole logConsole = (ApplicationLogConsole) serverLogTail;
 			if (clear) {
-				serverLogTail.getConsole().clearConsole();
+				serverLogTail.clear();
 			}
 
 			if (isError) {
@@ -157,11 +154,9 @@ public class ApplicationLogConsoleManager extends CloudConsoleManager {
 		ApplicationLogConsole console = getApplicationLogConsole(server, appModule, instanceIndex);
 		if (console != null) {
 			if (clear) {
-				console.getConsole().clearConsole();
+				console.clear();
 			}
-			CloudFoundryServerBehaviour behaviour = server.getBehaviour();
-			List<ApplicationLog> logs = behaviour.getRecentApplicationLogs(appModule.getDeployedApplicationName());
-			console.writeApplicationLogs(logs, appModule, server);
+			console.showRecentLogs(appModule, server);
 		}
 	}
 
@@ -20,16 +20,16 @@
 package org.cloudfoundry.ide.eclipse.server.ui.internal.console;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.cloudfoundry.client.lib.ApplicationLogListener;
 import org.cloudfoundry.client.lib.domain.ApplicationLog;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudErrorUtil;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
-import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryServerBehaviour;
+import org.cloudfoundry.ide.eclipse.server.core.internal.log.ApplicationLogSession;
 import org.cloudfoundry.ide.eclipse.server.core.internal.log.CloudLog;
 import org.cloudfoundry.ide.eclipse.server.core.internal.log.LogContentType;
 import org.cloudfoundry.ide.eclipse.server.ui.internal.Messages;
@@ -44,10 +44,12 @@ import org.eclipse.ui.console.MessageConsole;
  * streams during client callbacks, and as there may be new log types available
  * in any callback, the application log manages all the streams internally
  * rather than letting {@link CloudFoundryConsole} manage the streams.
- *
+ * <p/>
+ * Logs are received from an {@link ApplicationLogSession}, which reconnects
+ * the log stream if it fails, and delivers logs in batches. Consecutive logs
+ * of the same type in a batch are written to the console at once.
  */
-public class ApplicationLogConsoleStream extends ConsoleStream implements ApplicationLogListener {
-
+public class ApplicationLogConsoleStream extends ConsoleStream implements ApplicationLogSession.Listener {
 
 	private Map<LogContentType, ConsoleStream> logStreams = new HashMap<LogContentType, ConsoleStream>();
 
@@ -55,10 +57,16 @@ public class ApplicationLogConsoleStream extends ConsoleStream implements Applic
 
 	private CloudFoundryApplicationModule appModule;
 
+	private ApplicationLogSession session;
+
 	public ApplicationLogConsoleStream() {
 	}
 
 	public synchronized void close() {
+		if (session != null) {
+			session.stop();
+			session = null;
+		}
 		if (logStreams != null) {
 			for (Entry<LogContentType, ConsoleStream> entry : logStreams.entrySet()) {
 				entry.getValue().close();
@@ -76,9 +84,39 @@ public class ApplicationLogConsoleStream extends ConsoleStream implements Applic
 		this.console = console;
 		this.appModule = appModule;
 		this.cloudServer = cloudServer;
-		CloudFoundryServerBehaviour behaviour = cloudServer.getBehaviour();
-		behaviour.addApplicationLogListener(appModule.getDeployedApplicationName(), this);
+		if (session == null) {
+			session = new ApplicationLogSession(cloudServer.getBehaviour(), appModule.getDeployedApplicationName(),
+					this);
+			session.start();
+		}
+	}
 
+	/**
+	 * Writes the recent logs of the application, including those that were
+	 * already written. This is a long running operation.
+	 */
+	public void fetchRecentLogs() {
+		ApplicationLogSession currentSession;
+		synchronized (this) {
+			currentSession = session;
+		}
+		if (currentSession != null) {
+			currentSession.fetchRecentLogs();
+		}
+	}
+
+	/**
+	 * Forgets which logs were written, for example when the console is
+	 * cleared, so that they are written again if they are received again.
+	 */
+	public void reset() {
+		ApplicationLogSession currentSession;
+		synchronized (this) {
+			currentSession = session;
+		}
+		if (currentSession != null) {
+			currentSession.reset();
+		}
 	}
 
 	@Override
@@ -99,6 +137,11 @@ public class ApplicationLogConsoleStream extends ConsoleStream implements Applic
 		if (appLog == null) {
 			return null;
 		}
+		return new CloudLog(format(appLog.getMessage()), getContentType(appLog), server, appModule);
+
+	}
+
+	protected static LogContentType getContentType(ApplicationLog appLog) {
 		org.cloudfoundry.client.lib.domain.ApplicationLog.MessageType type = appLog.getMessageType();
 		LogContentType contentType = StandardLogContentType.APPLICATION_LOG_UNKNOWN;
 		if (type != null) {
@@ -111,9 +154,7 @@ public class ApplicationLogConsoleStream extends ConsoleStream implements Applic
 				break;
 			}
 		}
-
-		return new CloudLog(format(appLog.getMessage()), contentType, server, appModule);
-
+		return contentType;
 	}
 
 	protected static String format(String message) {
@@ -153,16 +194,30 @@ public class ApplicationLogConsoleStream extends ConsoleStream implements Applic
 		return stream;
 	}
 
-	
-	public void onMessage(ApplicationLog appLog) {
-		CloudLog log = getCloudlog(appLog, null, null);
-		if (log != null) {
+	public synchronized void onLogs(List<ApplicationLog> appLogs) {
+		// Write consecutive logs of the same type at once
+		StringBuilder content = new StringBuilder();
+		LogContentType contentType = null;
+		for (ApplicationLog appLog : appLogs) {
+			LogContentType type = getContentType(appLog);
+			if (contentType != null && !contentType.equals(type)) {
+				writeBatch(content, contentType);
+			}
+			contentType = type;
+			content.append(format(appLog.getMessage()));
+		}
+		writeBatch(content, contentType);
+	}
+
+	protected void writeBatch(StringBuilder content, LogContentType contentType) {
+		if (content.length() > 0) {
 			try {
-				write(log);
+				write(new CloudLog(content.toString(), contentType));
 			}
 			catch (CoreException e) {
 				CloudFoundryPlugin.logError(e);
 			}
+			content.setLength(0);
 		}
 	}
 
@@ -177,10 +232,6 @@ public class ApplicationLogConsoleStream extends ConsoleStream implements Applic
 		}
 	}
 
-	public void onComplete() {
-		// Nothing for now
-	}
-
 	public void onError(Throwable exception) {
 		CloudFoundryPlugin.logError(NLS.bind(Messages.ERROR_APPLICATION_LOG,
 				appModule != null ? appModule.getDeployedApplicationName() : Messages.UNKNOWN_APPLICATION,
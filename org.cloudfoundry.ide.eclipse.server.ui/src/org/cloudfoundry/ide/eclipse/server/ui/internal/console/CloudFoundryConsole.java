@@ -103,6 +103,22 @@ public class CloudFoundryConsole {
 		return stream;
 	}
 
+	/**
+	 * Clears the content of the console.
+	 */
+	public void clear() {
+		console.clearConsole();
+	}
+
+	/**
+	 *
+	 * @param type
+	 * @return stream of the given type if it was already created, or null
+	 */
+	protected synchronized ConsoleStream getActiveStream(LogContentType type) {
+		return activeStreams.get(type);
+	}
+
 	/**
 	 * Stops any further streaming of file content.
 	 */
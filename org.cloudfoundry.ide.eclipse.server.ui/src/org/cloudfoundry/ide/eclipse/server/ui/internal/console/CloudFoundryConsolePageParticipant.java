@@ -55,6 +55,11 @@ public class CloudFoundryConsolePageParticipant implements IConsolePageParticipa
 
 		IToolBarManager manager = page.getSite().getActionBars().getToolBarManager();
 		manager.appendToGroup(IConsoleConstants.LAUNCH_GROUP, closeAction);
+
+		ConsoleArchive archive = ConsoleArchive.getArchive(console);
+		if (archive != null) {
+			manager.appendToGroup(IConsoleConstants.OUTPUT_GROUP, new ShowArchivedOutputAction(archive));
+		}
 	}
 
 }
@@ -0,0 +1,485 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.ui.internal.console;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudErrorUtil;
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
+import org.cloudfoundry.ide.eclipse.server.ui.internal.CloudFoundryServerUiPlugin;
+import org.cloudfoundry.ide.eclipse.server.ui.internal.Messages;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.ui.console.ConsolePlugin;
+import org.eclipse.ui.console.IConsole;
+import org.eclipse.ui.console.IConsoleListener;
+import org.eclipse.ui.console.IConsoleManager;
+import org.eclipse.ui.console.MessageConsole;
+
+/**
+ * Bounds the memory used by an application console. Once the console
+ * document reaches {@link #HIGH_WATER_MARK} characters, the console trims its
+ * oldest content down to {@link #LOW_WATER_MARK} characters. The trimmed
+ * content is not lost: it is compressed into a segment file in the plug-in
+ * state location, and archived segments can be paged back in, one at a time,
+ * in a separate console.
+ * <p/>
+ * At most {@link #MAX_SEGMENTS} segments are kept per console, after which the
+ * oldest segment is deleted. Segments are deleted when the console is
+ * removed, as they are only meant to be available for the current session.
+ * Segments left over from a previous session, for example if Eclipse was not
+ * shut down cleanly, are deleted when the first archive is attached.
+ */
+public class ConsoleArchive {
+
+	/**
+	 * Number of characters in the console at which old content is archived.
+	 */
+	public static final int HIGH_WATER_MARK = 1000000;
+
+	/**
+	 * Number of characters left in the console after archiving old content.
+	 */
+	public static final int LOW_WATER_MARK = 750000;
+
+	public static final int MAX_SEGMENTS = 20;
+
+	static final String ATTRIBUTE_ARCHIVE = "org.cloudfoundry.ide.eclipse.server.ConsoleArchive"; //$NON-NLS-1$
+
+	private static final String ARCHIVE_FOLDER = "console-archive"; //$NON-NLS-1$
+
+	private static final String SEGMENT_PREFIX = "segment-"; //$NON-NLS-1$
+
+	private static final String SEGMENT_EXTENSION = ".txt.gz"; //$NON-NLS-1$
+
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final MessageConsole console;
+
+	private final File folder;
+
+	/**
+	 * Archived segment files, oldest first.
+	 */
+	private final LinkedList<File> segments = new LinkedList<File>();
+
+	/**
+	 * Trimmed content not yet written to a segment file.
+	 */
+	private final List<String> pending = new ArrayList<String>();
+
+	private int nextSegmentId;
+
+	/**
+	 * Incremented when the console is cleared, such that content trimmed
+	 * before the console was cleared is not archived.
+	 */
+	private int generation;
+
+	/**
+	 * Index of the segment shown in the archive console, or -1 if none is
+	 * shown.
+	 */
+	private int shownSegment = -1;
+
+	private MessageConsole archiveConsole;
+
+	private boolean disposed;
+
+	/**
+	 * Whether segments of previous sessions were deleted.
+	 */
+	private static boolean previousSessionsDeleted;
+
+	private final Job writeJob;
+
+	private final IDocumentListener documentListener = new IDocumentListener() {
+
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			// The console trims its content, or clears it, by removing text
+			// from the start of the document.
+			if (event.getOffset() == 0 && event.getLength() > 0 && event.getText().length() == 0) {
+				IDocument document = event.getDocument();
+				if (event.getLength() >= document.getLength()) {
+					clear();
+				}
+				else {
+					try {
+						archive(document.get(0, event.getLength()));
+					}
+					catch (BadLocationException e) {
+						CloudFoundryPlugin.logError(e);
+					}
+				}
+			}
+		}
+
+		public void documentChanged(DocumentEvent event) {
+			// ignore
+		}
+	};
+
+	private final IConsoleListener consoleListener = new IConsoleListener() {
+
+		public void consolesAdded(IConsole[] consoles) {
+			// ignore
+		}
+
+		public void consolesRemoved(IConsole[] consoles) {
+			for (IConsole removed : consoles) {
+				if (removed == console) {
+					dispose();
+				}
+				else if (removed == getArchiveConsole()) {
+					synchronized (ConsoleArchive.this) {
+						archiveConsole = null;
+						shownSegment = -1;
+					}
+				}
+			}
+		}
+	};
+
+	protected ConsoleArchive(MessageConsole console, File folder) {
+		this.console = console;
+		this.folder = folder;
+		writeJob = new Job(NLS.bind("Archiving {0}", console.getName())) { //$NON-NLS-1$
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				writePending();
+				return Status.OK_STATUS;
+			}
+		};
+		writeJob.setSystem(true);
+	}
+
+	/**
+	 * Sets a retention policy on the given console, unless it already has
+	 * one.
+	 * @param console
+	 * @return archive of the console. Never null.
+	 */
+	public static synchronized ConsoleArchive attach(MessageConsole console) {
+		ConsoleArchive archive = getArchive(console);
+		if (archive == null) {
+			File root = CloudFoundryServerUiPlugin.getDefault().getStateLocation().append(ARCHIVE_FOLDER).toFile();
+			if (!previousSessionsDeleted) {
+				previousSessionsDeleted = true;
+				File[] folders = root.listFiles();
+				if (folders != null) {
+					for (File folder : folders) {
+						deleteFolder(folder);
+					}
+				}
+			}
+			archive = new ConsoleArchive(console, new File(root, getFolderName(console)));
+			archive.init();
+			console.setAttribute(ATTRIBUTE_ARCHIVE, archive);
+		}
+		return archive;
+	}
+
+	/**
+	 * 
+	 * @param console
+	 * @return archive of the given console, or null if the console has no
+	 * retention policy.
+	 */
+	public static ConsoleArchive getArchive(IConsole console) {
+		if (console instanceof MessageConsole) {
+			Object archive = ((MessageConsole) console).getAttribute(ATTRIBUTE_ARCHIVE);
+			if (archive instanceof ConsoleArchive) {
+				return (ConsoleArchive) archive;
+			}
+		}
+		return null;
+	}
+
+	protected void init() {
+		// Segments left over from a previous console of the same name are no
+		// longer relevant
+		deleteFolder(folder);
+		console.setWaterMarks(LOW_WATER_MARK, HIGH_WATER_MARK);
+		console.getDocument().addDocumentListener(documentListener);
+		ConsolePlugin.getDefault().getConsoleManager().addConsoleListener(consoleListener);
+	}
+
+	/**
+	 * 
+	 * @return number of archived segments that can be paged in.
+	 */
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * Reads an archived segment.
+	 * @param index of the segment, where 0 is the oldest segment
+	 * @return content of the segment
+	 * @throws CoreException if the segment could not be read
+	 */
+	public String readSegment(int index) throws CoreException {
+		File segment;
+		synchronized (this) {
+			if (index < 0 || index >= segments.size()) {
+				return null;
+			}
+			segment = segments.get(index);
+		}
+		Reader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(segment)),
+					ENCODING));
+			StringBuilder content = new StringBuilder();
+			char[] buffer = new char[BUFFER_SIZE];
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				content.append(buffer, 0, read);
+			}
+			return content.toString();
+		}
+		catch (IOException e) {
+			throw CloudErrorUtil.toCoreException(e);
+		}
+		finally {
+			close(reader);
+		}
+	}
+
+	/**
+	 * Shows the archived segment preceding the one currently shown in the
+	 * archive console, starting with the most recent segment, and wrapping
+	 * around to the most recent segment after the oldest. Only one segment is
+	 * loaded in memory at a time.
+	 * @return true if a segment was shown, false if there is no archived
+	 * content.
+	 * @throws CoreException if the segment could not be read
+	 */
+	public boolean showPreviousSegment() throws CoreException {
+		int index;
+		int count;
+		synchronized (this) {
+			count = segments.size();
+			if (count == 0) {
+				return false;
+			}
+			index = shownSegment > 0 && shownSegment < count ? shownSegment - 1 : count - 1;
+		}
+
+		String content = readSegment(index);
+		if (content == null) {
+			return false;
+		}
+
+		// The console name shows the segment, so each segment is shown in a
+		// new console that replaces the previous one
+		MessageConsole pageConsole = new MessageConsole(NLS.bind(Messages.ConsoleArchive_TEXT_ARCHIVED_CONSOLE,
+				new Object[] { console.getName(), index + 1, count }), null);
+		pageConsole.getDocument().set(content);
+
+		MessageConsole previous;
+		synchronized (this) {
+			shownSegment = index;
+			previous = archiveConsole;
+			archiveConsole = pageConsole;
+		}
+
+		IConsoleManager manager = ConsolePlugin.getDefault().getConsoleManager();
+		manager.addConsoles(new IConsole[] { pageConsole });
+		if (previous != null) {
+			manager.removeConsoles(new IConsole[] { previous });
+		}
+		manager.showConsoleView(pageConsole);
+		return true;
+	}
+
+	/**
+	 * Deletes all archived segments, and removes the archive console.
+	 */
+	public void dispose() {
+		MessageConsole toRemove;
+		synchronized (this) {
+			if (disposed) {
+				return;
+			}
+			disposed = true;
+			pending.clear();
+			segments.clear();
+			toRemove = archiveConsole;
+			archiveConsole = null;
+		}
+		writeJob.cancel();
+		console.getDocument().removeDocumentListener(documentListener);
+		IConsoleManager manager = ConsolePlugin.getDefault().getConsoleManager();
+		manager.removeConsoleListener(consoleListener);
+		if (toRemove != null) {
+			manager.removeConsoles(new IConsole[] { toRemove });
+		}
+		synchronized (this) {
+			deleteFolder(folder);
+		}
+	}
+
+	protected synchronized MessageConsole getArchiveConsole() {
+		return archiveConsole;
+	}
+
+	protected synchronized void archive(String content) {
+		if (disposed) {
+			return;
+		}
+		pending.add(content);
+		scheduleWrite();
+	}
+
+	/**
+	 * Writes pending content to segment files in the background.
+	 */
+	protected void scheduleWrite() {
+		writeJob.schedule();
+	}
+
+	/**
+	 * Invoked when the console is cleared, in which case its archived content
+	 * is discarded as well.
+	 */
+	protected synchronized void clear() {
+		generation++;
+		pending.clear();
+		for (File segment : segments) {
+			segment.delete();
+		}
+		segments.clear();
+		shownSegment = -1;
+	}
+
+	protected void writePending() {
+		while (true) {
+			String content;
+			File segment;
+			int segmentGeneration;
+			synchronized (this) {
+				if (pending.isEmpty() || disposed) {
+					return;
+				}
+				content = pending.remove(0);
+				segmentGeneration = generation;
+				if (!folder.exists()) {
+					folder.mkdirs();
+				}
+				segment = new File(folder, SEGMENT_PREFIX + (nextSegmentId++) + SEGMENT_EXTENSION);
+			}
+
+			Writer writer = null;
+			boolean written = false;
+			try {
+				writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(segment), BUFFER_SIZE),
+						ENCODING);
+				writer.write(content);
+				writer.close();
+				writer = null;
+				written = true;
+			}
+			catch (IOException e) {
+				CloudFoundryPlugin.logError("Failed to archive console content to " + segment + " due to - " //$NON-NLS-1$ //$NON-NLS-2$
+						+ e.getMessage(), e);
+			}
+			finally {
+				close(writer);
+			}
+
+			synchronized (this) {
+				if (!written || disposed || segmentGeneration != generation) {
+					segment.delete();
+					continue;
+				}
+				segments.add(segment);
+				while (segments.size() > MAX_SEGMENTS) {
+					segments.removeFirst().delete();
+					if (shownSegment >= 0) {
+						shownSegment--;
+					}
+				}
+			}
+		}
+	}
+
+	protected static void deleteFolder(File folder) {
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		folder.delete();
+	}
+
+	/**
+	 * 
+	 * @return name of the folder holding the segments of the given console.
+	 * Application consoles are looked up by name, so the same application
+	 * console always maps to the same folder.
+	 */
+	protected static String getFolderName(MessageConsole console) {
+		StringBuilder name = new StringBuilder();
+		for (char c : console.getName().toCharArray()) {
+			name.append(Character.isLetterOrDigit(c) || c == '-' || c == '.' ? c : '_');
+		}
+		// Names that only differ by replaced characters get different folders
+		name.append('-').append(Integer.toHexString(console.getName().hashCode()));
+		return name.toString();
+	}
+
+	protected static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			}
+			catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.ui.internal.console;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
+import org.cloudfoundry.ide.eclipse.server.ui.internal.Messages;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+
+/**
+ * Pages in the archived output of a console, one segment at a time, going
+ * back in time on each run.
+ */
+public class ShowArchivedOutputAction extends Action {
+
+	private final ConsoleArchive archive;
+
+	public ShowArchivedOutputAction(ConsoleArchive archive) {
+		this.archive = archive;
+		setText(Messages.ShowArchivedOutputAction_TEXT);
+		setToolTipText(Messages.ShowArchivedOutputAction_TEXT);
+		setImageDescriptor(PlatformUI.getWorkbench().getSharedImages()
+				.getImageDescriptor(ISharedImages.IMG_TOOL_BACK));
+	}
+
+	@Override
+	public void run() {
+		try {
+			if (!archive.showPreviousSegment()) {
+				MessageDialog.openInformation(Display.getCurrent().getActiveShell(),
+						Messages.ShowArchivedOutputAction_TEXT, Messages.ShowArchivedOutputAction_TEXT_NO_ARCHIVE);
+			}
+		}
+		catch (CoreException e) {
+			CloudFoundryPlugin.logError(e);
+		}
+	}
+}
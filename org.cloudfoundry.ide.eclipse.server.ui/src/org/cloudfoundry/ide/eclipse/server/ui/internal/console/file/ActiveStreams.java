@@ -24,8 +24,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.eclipse.core.runtime.jobs.Job;
-
 /**
  * All the active streams for a given application instance that contribute
  * content to the same application console.
@@ -43,16 +41,6 @@ class ActiveStreams {
 		activeStreams.clear();
 	}
 
-	public synchronized void startTailing(List<IConsoleJob> jobs) {
-		if (jobs == null) {
-			return;
-		}
-
-		for (IConsoleJob job : jobs) {
-			startTailing(job);
-		}
-	}
-
 	public synchronized boolean contains(IConsoleJob job) {
 		if (job == null) {
 			return false;
@@ -73,7 +61,7 @@ class ActiveStreams {
 	}
 
 	/**
-	 * Adds a console job, but does not schedule it.
+	 * Adds a console job, but does not start it.
 	 * @param job to add
 	 */
 	public synchronized void addJob(IConsoleJob job) {
@@ -90,13 +78,4 @@ class ActiveStreams {
 
 	}
 
-	/**
-	 * 
-	 * @param job to add. Will add, initialise and schedule the job.
-	 */
-	protected void startTailing(IConsoleJob job) {
-		addJob(job);
-		((Job) job).schedule();
-	}
-
 }
\ No newline at end of file
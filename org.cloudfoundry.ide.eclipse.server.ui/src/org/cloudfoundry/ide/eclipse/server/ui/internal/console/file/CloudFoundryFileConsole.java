@@ -25,11 +25,10 @@ import java.util.List;
 import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
+import org.cloudfoundry.ide.eclipse.server.ui.internal.console.ConsoleArchive;
+import org.cloudfoundry.ide.eclipse.server.ui.internal.console.file.TailingMultiplexer.TailedStream;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.ui.console.IOConsoleOutputStream;
 import org.eclipse.ui.console.MessageConsole;
@@ -43,20 +42,22 @@ import org.eclipse.ui.console.MessageConsole;
  * Eclipse component that wishes to write something to the console related to
  * the deployed application instance).
  * <p/>
- * The tailing console jobs for remote log files work on the principle of a
- * self-scheduling,which continues to schedule itself to check for new content
- * in remote files whose content are streamed to the console.
+ * The tailing console jobs for remote log files are polled by the tailing
+ * multiplexer of the server, which checks them for new content in remote
+ * files whose content are streamed to the console, at an interval decided by
+ * each stream.
  * <p/>
  * The console job is passed a console content , which contains a list of files,
  * each wrapped around a streaming abstraction, that need to be polled during
  * the active life of the job. The console job itself does not know how to
  * stream the file contents, and it delegates to the file streaming abstraction
  * to actually write to the console. The role of the console job is to decided
- * when to schedule itself, when to stop, and manage the console output streams.
+ * when to be polled again, when to stop, and manage the console output
+ * streams.
  * 
  * <p/>
- * The job continues to run (i.e. schedule itself) after some interval until it
- * is told to stop by the CF server controller, most likely under these
+ * The job continues to be polled after some interval until it is told to stop
+ * by the CF server controller, most likely under these
  * conditions:
  * <p/>
  * 1. The application is stopped
@@ -92,14 +93,29 @@ class CloudFoundryFileConsole extends JobChangeAdapter {
 
 	private ActiveStreams activeStreams;
 
-	/** How frequently to check for log changes; defaults to 3 seconds */
+	/**
+	 * How frequently to check for log changes, for streams that do not adapt
+	 * their own poll interval; defaults to 3 seconds
+	 */
 	private static long POLL_INTERVAL = 3000;
 
 	private final MessageConsole console;
 
-	public CloudFoundryFileConsole(CloudFoundryApplicationModule app, MessageConsole console) {
+	private final TailingMultiplexer multiplexer;
+
+	/**
+	 * 
+	 * @param app
+	 * @param console
+	 * @param multiplexer polls the tailed file streams. Typically shared by
+	 * all the consoles of the same server.
+	 */
+	public CloudFoundryFileConsole(CloudFoundryApplicationModule app, MessageConsole console,
+			TailingMultiplexer multiplexer) {
 		this.app = app;
 		this.console = console;
+		this.multiplexer = multiplexer;
+		ConsoleArchive.attach(console);
 	}
 
 	protected ActiveStreams getActiveStreams() {
@@ -121,8 +137,20 @@ class CloudFoundryFileConsole extends JobChangeAdapter {
 		if (consoleContents == null) {
 			return;
 		}
-		List<IConsoleJob> jobs = getJobs(consoleContents);
-		getActiveStreams().startTailing(jobs);
+		startJobs(getJobs(consoleContents));
+	}
+
+	/**
+	 * Adds the given jobs to the active streams, and starts polling them.
+	 */
+	protected void startJobs(List<ConsoleStreamJob> jobs) {
+		if (jobs == null) {
+			return;
+		}
+		for (ConsoleStreamJob job : jobs) {
+			getActiveStreams().addJob(job);
+			job.start();
+		}
 	}
 
 	/**
@@ -130,6 +158,9 @@ class CloudFoundryFileConsole extends JobChangeAdapter {
 	 */
 	public synchronized void stop() {
 		getActiveStreams().close();
+		// Close the output streams of the file streams without waiting for
+		// them to be polled
+		multiplexer.refresh();
 	}
 
 	static String getConsoleName(CloudFoundryApplicationModule app) {
@@ -177,13 +208,13 @@ class CloudFoundryFileConsole extends JobChangeAdapter {
 		}
 	}
 
-	protected List<IConsoleJob> getJobs(List<ICloudFoundryConsoleStream> consoleContents) {
+	protected List<ConsoleStreamJob> getJobs(List<ICloudFoundryConsoleStream> consoleContents) {
 		if (consoleContents == null) {
 			return null;
 		}
-		List<IConsoleJob> jobs = new ArrayList<IConsoleJob>();
+		List<ConsoleStreamJob> jobs = new ArrayList<ConsoleStreamJob>();
 		for (ICloudFoundryConsoleStream stream : consoleContents) {
-			IConsoleJob job = createConsoleJob(stream);
+			ConsoleStreamJob job = createConsoleJob(stream);
 			if (job != null) {
 				jobs.add(job);
 			}
@@ -191,9 +222,9 @@ class CloudFoundryFileConsole extends JobChangeAdapter {
 		return jobs;
 	}
 
-	protected IConsoleJob createConsoleJob(ICloudFoundryConsoleStream stream) {
+	protected ConsoleStreamJob createConsoleJob(ICloudFoundryConsoleStream stream) {
 		IOConsoleOutputStream outputStream = console.newOutputStream();
-		IConsoleJob job = null;
+		ConsoleStreamJob job = null;
 		if (outputStream != null) {
 			job = new ConsoleStreamJob(app.getDeployedApplicationName() + " - " + stream.getContentType().getId(), //$NON-NLS-1$
 					stream);
@@ -245,23 +276,35 @@ class CloudFoundryFileConsole extends JobChangeAdapter {
 	 * {@link ICloudFoundryConsoleStream}.
 	 *
 	 */
-	class ConsoleStreamJob extends Job implements IConsoleJob {
+	class ConsoleStreamJob implements IConsoleJob, TailedStream {
 
 		protected final ICloudFoundryConsoleStream content;
 
+		private final String name;
+
 		public ConsoleStreamJob(String name, ICloudFoundryConsoleStream content) {
-			super(name);
+			this.name = name;
 			this.content = content;
-			setSystem(true);
 		}
 
-		protected boolean isActive() {
+		public boolean isActive() {
 			return activeStreams.contains(this) && content.isActive();
 		}
 
-		@Override
-		protected synchronized IStatus run(IProgressMonitor monitor) {
+		/**
+		 * Starts polling the stream for content to write to the console.
+		 */
+		public void start() {
+			multiplexer.add(this);
+		}
 
+		public void close() {
+			content.close();
+		}
+
+		public synchronized long poll(IProgressMonitor monitor) {
+
+			long nextPoll = -1;
 			if (!isActive()) {
 				content.close();
 			}
@@ -287,10 +330,11 @@ class CloudFoundryFileConsole extends JobChangeAdapter {
 					}
 				}
 
-				// re-schedule even if an error is thrown, as the stream may
+				// poll again even if an error is thrown, as the stream may
 				// want to attempt again regardless of error.
 				if (isActive()) {
-					schedule(POLL_INTERVAL);
+					nextPoll = content instanceof FileConsoleStream ? ((FileConsoleStream) content).getPollInterval()
+							: POLL_INTERVAL;
 				}
 
 				// Fetch next ordered content that should follow the current
@@ -302,12 +346,11 @@ class CloudFoundryFileConsole extends JobChangeAdapter {
 
 					if (nextContent != null) {
 
-						List<IConsoleJob> jobs = getJobs(nextContent);
-						activeStreams.startTailing(jobs);
+						startJobs(getJobs(nextContent));
 					}
 				}
 			}
-			return Status.OK_STATUS;
+			return nextPoll;
 
 		}
 
@@ -320,5 +363,10 @@ class CloudFoundryFileConsole extends JobChangeAdapter {
 		public IContentType getContentType() {
 			return content.getContentType();
 		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
 	}
 }
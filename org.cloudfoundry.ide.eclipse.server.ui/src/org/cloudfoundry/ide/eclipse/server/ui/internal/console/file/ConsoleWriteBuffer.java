@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.ui.internal.console.file;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.cloudfoundry.ide.eclipse.server.ui.internal.Messages;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Buffers messages written to a console stream by any number of threads,
+ * until a single consumer drains them in batches. Adding a message does not
+ * lock.
+ * <p/>
+ * The buffer holds up to a fixed number of characters. A message that does
+ * not fit is rejected, and the writer may either wait for the consumer to
+ * make space, or drop the message, in which case its lines are counted, and
+ * reported in the next batch.
+ */
+class ConsoleWriteBuffer {
+
+	private final Queue<String> messages = new ConcurrentLinkedQueue<String>();
+
+	private final AtomicInteger bufferedChars = new AtomicInteger();
+
+	private final AtomicLong droppedLines = new AtomicLong();
+
+	private final int capacity;
+
+	/**
+	 * 
+	 * @param capacity maximum number of characters buffered. A message longer
+	 * than the capacity is accepted only if the buffer is empty.
+	 */
+	ConsoleWriteBuffer(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Adds a message if there is enough space for it.
+	 * @param message
+	 * @return true if added, false if the buffer is full.
+	 */
+	boolean offer(String message) {
+		int length = message.length();
+		int current;
+		do {
+			current = bufferedChars.get();
+			if (current > 0 && current + length > capacity) {
+				return false;
+			}
+		}
+		while (!bufferedChars.compareAndSet(current, current + length));
+		messages.add(message);
+		return true;
+	}
+
+	/**
+	 * Counts the lines of a message that could not be buffered.
+	 * @param message
+	 */
+	void drop(String message) {
+		int lines = 0;
+		for (int i = 0; i < message.length(); i++) {
+			if (message.charAt(i) == '\n') {
+				lines++;
+			}
+		}
+		if (lines == 0 || message.charAt(message.length() - 1) != '\n') {
+			lines++;
+		}
+		droppedLines.addAndGet(lines);
+	}
+
+	/**
+	 * Waits until space is made by the consumer, or the given time elapses.
+	 * @param timeout in milliseconds
+	 * @throws InterruptedException
+	 */
+	synchronized void awaitSpace(long timeout) throws InterruptedException {
+		if (bufferedChars.get() > 0) {
+			wait(timeout);
+		}
+	}
+
+	/**
+	 * Removes buffered messages, in the order they were added, up to the
+	 * given number of characters. At least one message is removed if the
+	 * buffer is not empty.
+	 * @param maxChars
+	 * @return the removed messages, with any dropped lines reported first, or
+	 * null if there is nothing to write.
+	 */
+	String drain(int maxChars) {
+		StringBuilder batch = new StringBuilder();
+		long dropped = droppedLines.getAndSet(0);
+		int drained = 0;
+		String message;
+		while ((drained == 0 || drained + nextLength() <= maxChars) && (message = messages.poll()) != null) {
+			batch.append(message);
+			drained += message.length();
+		}
+		if (drained > 0) {
+			bufferedChars.addAndGet(-drained);
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+		if (dropped > 0) {
+			batch.insert(0, NLS.bind(Messages.StdConsoleStreamJob_TEXT_LINES_DROPPED, dropped) + '\n');
+		}
+		return batch.length() > 0 ? batch.toString() : null;
+	}
+
+	/**
+	 * 
+	 * @return true if there is nothing to write.
+	 */
+	boolean isEmpty() {
+		return messages.isEmpty() && droppedLines.get() == 0;
+	}
+
+	private int nextLength() {
+		String next = messages.peek();
+		return next != null ? next.length() : 0;
+	}
+}
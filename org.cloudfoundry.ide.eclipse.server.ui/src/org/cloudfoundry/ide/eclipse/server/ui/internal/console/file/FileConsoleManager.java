@@ -49,6 +49,11 @@ public class FileConsoleManager extends CloudConsoleManager {
 
 	Map<String, CloudFoundryFileConsole> consoleByUri;
 
+	/**
+	 * Polls the tailed files of all the consoles of a server, by server ID.
+	 */
+	private final Map<String, TailingMultiplexer> multiplexerByServer = new HashMap<String, TailingMultiplexer>();
+
 	private final IConsoleListener listener = new IConsoleListener() {
 
 		public void consolesAdded(IConsole[] consoles) {
@@ -111,7 +116,7 @@ public class FileConsoleManager extends CloudConsoleManager {
 		}
 	}
 
-	protected CloudFoundryFileConsole getCloudFoundryConsole(CloudFoundryServer server,
+	protected synchronized CloudFoundryFileConsole getCloudFoundryConsole(CloudFoundryServer server,
 			CloudFoundryApplicationModule appModule, int instanceIndex) {
 		String appUrl = getConsoleId(server.getServer(), appModule, instanceIndex);
 		CloudFoundryFileConsole serverLogTail = consoleByUri.get(appUrl);
@@ -119,12 +124,22 @@ public class FileConsoleManager extends CloudConsoleManager {
 
 			MessageConsole appConsole = getApplicationConsole(server, appModule, instanceIndex);
 
-			serverLogTail = new CloudFoundryFileConsole(appModule, appConsole);
+			serverLogTail = new CloudFoundryFileConsole(appModule, appConsole, getTailingMultiplexer(server));
 			consoleByUri.put(getConsoleId(server.getServer(), appModule, instanceIndex), serverLogTail);
 		}
 		return serverLogTail;
 	}
 
+	protected synchronized TailingMultiplexer getTailingMultiplexer(CloudFoundryServer server) {
+		String serverId = server.getServer().getId();
+		TailingMultiplexer multiplexer = multiplexerByServer.get(serverId);
+		if (multiplexer == null) {
+			multiplexer = new TailingMultiplexer(server.getServer().getName());
+			multiplexerByServer.put(serverId, multiplexer);
+		}
+		return multiplexer;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -173,21 +188,46 @@ public class FileConsoleManager extends CloudConsoleManager {
 		}
 	}
 
-	public void stopConsole(IServer server, CloudFoundryApplicationModule appModule, int instanceIndex) {
+	public synchronized void stopConsole(IServer server, CloudFoundryApplicationModule appModule, int instanceIndex) {
 		String appUrl = getConsoleId(server, appModule, instanceIndex);
 		CloudFoundryFileConsole serverLogTail = consoleByUri.get(appUrl);
 		if (serverLogTail != null) {
 			serverLogTail.stop();
 			consoleByUri.remove(appUrl);
+			disposeUnusedTailingMultiplexer(server);
 		}
 	}
 
-	public void stopConsoles() {
+	/**
+	 * Disposes the tailing multiplexer of the given server, if none of the
+	 * consoles of the server are left, so that its job and threads do not
+	 * outlive them. A new multiplexer is created if a console of the server
+	 * is started again.
+	 */
+	protected synchronized void disposeUnusedTailingMultiplexer(IServer server) {
+		String serverPrefix = server.getId() + "/"; //$NON-NLS-1$
+		for (String consoleId : consoleByUri.keySet()) {
+			if (consoleId.startsWith(serverPrefix)) {
+				return;
+			}
+		}
+		TailingMultiplexer multiplexer = multiplexerByServer.remove(server.getId());
+		if (multiplexer != null) {
+			multiplexer.dispose();
+		}
+	}
+
+	public synchronized void stopConsoles() {
 		for (Entry<String, CloudFoundryFileConsole> tailEntry : consoleByUri.entrySet()) {
 			tailEntry.getValue().stop();
 		}
 		consoleByUri.clear();
 
+		for (TailingMultiplexer multiplexer : multiplexerByServer.values()) {
+			multiplexer.dispose();
+		}
+		multiplexerByServer.clear();
+
 	}
 
 	public static MessageConsole getApplicationConsole(CloudFoundryServer server,
@@ -19,12 +19,14 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.ui.internal.console.file;
 
+import java.nio.charset.Charset;
 import java.util.List;
 
 import org.cloudfoundry.client.lib.CloudFoundryException;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudErrorUtil;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.FileContentDecoder;
 import org.cloudfoundry.ide.eclipse.server.ui.internal.Messages;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -37,6 +39,9 @@ import org.eclipse.core.runtime.IProgressMonitor;
  */
 public class FileConsoleStream extends CloudFoundryConsoleStream {
 
+	/**
+	 * Offset in bytes of the next content to fetch from the file.
+	 */
 	protected int tailingOffset = 0;
 
 	private final String path;
@@ -47,6 +52,28 @@ public class FileConsoleStream extends CloudFoundryConsoleStream {
 
 	private static final IContentType FILE_CONTENT_TYPE = new FileStreamContentType();
 
+	/**
+	 * Maximum number of bytes fetched from the file at once.
+	 */
+	protected static final int MAX_RANGE_SIZE = 64 * 1024;
+
+	/**
+	 * Poll interval while the file is growing.
+	 */
+	private static final long MIN_POLL_INTERVAL = 1000;
+
+	private static final long MAX_POLL_INTERVAL = 30000;
+
+	private final FileContentDecoder decoder = new FileContentDecoder(Charset.forName("UTF-8")); //$NON-NLS-1$
+
+	private long pollInterval = MIN_POLL_INTERVAL;
+
+	/**
+	 * Number of bytes fetched from the file in the last request. Zero if no
+	 * new content was available.
+	 */
+	private int lastRangeSize;
+
 	/**
 	 * 
 	 * @param path relative path of content resource, relative to the
@@ -88,12 +115,46 @@ public class FileConsoleStream extends CloudFoundryConsoleStream {
 		return MAX_COUNT;
 	}
 
+	/**
+	 * 
+	 * @return maximum time in milliseconds to wait before checking an idle
+	 * file for new content.
+	 */
+	protected long getMaximumPollInterval() {
+		return MAX_POLL_INTERVAL;
+	}
+
+	/**
+	 * Returns the time to wait before checking the file for new content
+	 * again. The file is checked again right away if the last request did not
+	 * fetch all the available content, and frequently while it grows. While
+	 * the file does not change, or cannot be fetched, the interval doubles on
+	 * each check, up to {@link #getMaximumPollInterval()}.
+	 * @return time in milliseconds until the next check
+	 */
+	public synchronized long getPollInterval() {
+		return pollInterval;
+	}
+
+	protected synchronized void adjustPollInterval() {
+		if (lastRangeSize >= MAX_RANGE_SIZE) {
+			pollInterval = 0;
+		}
+		else if (lastRangeSize > 0) {
+			pollInterval = MIN_POLL_INTERVAL;
+		}
+		else {
+			pollInterval = Math.min(getMaximumPollInterval(), Math.max(MIN_POLL_INTERVAL, pollInterval * 2));
+		}
+	}
+
 	protected String getContent(IProgressMonitor monitor) throws CoreException {
 
 		if (!isActive()) {
 			return null;
 		}
 
+		lastRangeSize = 0;
 		try {
 			String content = getContentFromFile(monitor);
 
@@ -101,9 +162,11 @@ public class FileConsoleStream extends CloudFoundryConsoleStream {
 			// stream should only terminate if N number of errors are met in
 			// a row.
 			attemptsRemaining = getMaximumErrorCount();
+			adjustPollInterval();
 			return content;
 		}
 		catch (CoreException ce) {
+			adjustPollInterval();
 			CloudFoundryException cfe = ce.getCause() instanceof CloudFoundryException ? (CloudFoundryException) ce
 					.getCause() : null;
 
@@ -126,7 +189,11 @@ public class FileConsoleStream extends CloudFoundryConsoleStream {
 
 	/**
 	 * Get content from the file from the client starting from the current
-	 * offset.
+	 * offset. At most {@link #MAX_RANGE_SIZE} bytes are fetched at once, and
+	 * the offset is advanced by the number of bytes fetched. The file is
+	 * decoded as UTF-8, and a character split between two requests is only
+	 * returned once all its bytes have been fetched, see
+	 * {@link FileContentDecoder}.
 	 * @param monitor
 	 * @return content from the file starting from the current offset. It may be
 	 * null if there is no more content available.
@@ -135,17 +202,31 @@ public class FileConsoleStream extends CloudFoundryConsoleStream {
 	 */
 	protected String getContentFromFile(IProgressMonitor monitor) throws CoreException {
 		try {
-			String content = server.getBehaviour().getFile(appName, instanceIndex, path, tailingOffset, monitor);
-			if (content != null) {
-				tailingOffset += content.length();
+			String content = getFileRange(tailingOffset, tailingOffset + MAX_RANGE_SIZE - 1, monitor);
+			if (content == null) {
+				return null;
 			}
-			return content;
+			content = decoder.decode(content);
+			lastRangeSize = decoder.getByteCount();
+			tailingOffset += lastRangeSize;
+			return content.length() > 0 ? content : null;
 		}
 		catch (CloudFoundryException cfex) {
 			throw new CoreException(CloudFoundryPlugin.getErrorStatus(cfex));
 		}
 	}
 
+	/**
+	 * 
+	 * @param startPosition first byte of the range
+	 * @param endPosition last byte of the range, inclusive
+	 * @return content of the given range of the file, as returned by the
+	 * client
+	 */
+	protected String getFileRange(int startPosition, int endPosition, IProgressMonitor monitor) throws CoreException {
+		return server.getBehaviour().getFile(appName, instanceIndex, path, startPosition, endPosition, monitor);
+	}
+
 	/**
 	 * Handling error has two options:
 	 * 
@@ -90,6 +90,14 @@ public class StagingFileConsoleStream extends FileConsoleStream {
 		return 60;
 	}
 
+	/**
+	 * Staging output must appear promptly, and the waiting progress shown on
+	 * retries assumes frequent checks.
+	 */
+	protected long getMaximumPollInterval() {
+		return 3000;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -25,24 +25,51 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Display;
 
+/**
+ * Writes local standard out or error messages to the console. Messages are
+ * buffered, and written in batches by the job, such that many messages
+ * written in a short time result in few job runs and console writes.
+ * <p/>
+ * If messages are written faster than they are displayed, writers that are
+ * not in the UI thread wait briefly for the job to catch up. If the buffer is
+ * still full, the message is dropped, and the number of dropped lines is
+ * written to the console instead.
+ */
 class StdConsoleStreamJob extends Job implements IConsoleJob {
 
-	private String toStream;
+	/**
+	 * Maximum number of characters buffered.
+	 */
+	private static final int BUFFER_CAPACITY = 1024 * 1024;
+
+	/**
+	 * Maximum number of characters written to the console at once.
+	 */
+	private static final int MAX_BATCH_SIZE = 64 * 1024;
+
+	/**
+	 * Maximum time a writer waits for space in a full buffer.
+	 */
+	private static final long FULL_BUFFER_WAIT = 500;
+
+	private final ConsoleWriteBuffer buffer = new ConsoleWriteBuffer(BUFFER_CAPACITY);
 
 	private LocalConsoleStream content;
 
 	public StdConsoleStreamJob(LocalConsoleStream content) {
 		super(content.getContentType().getId());
 		this.content = content;
+		setSystem(true);
 	}
 
 	protected IStatus run(IProgressMonitor monitor) {
 
-		if (toStream != null) {
+		String batch;
+		while ((batch = buffer.drain(MAX_BATCH_SIZE)) != null) {
 			try {
-				content.write(toStream);
-				toStream = null;
+				content.write(batch);
 			}
 			catch (CoreException e) {
 				CloudFoundryPlugin.logError(
@@ -54,10 +81,36 @@ class StdConsoleStreamJob extends Job implements IConsoleJob {
 	}
 
 	public void write(String message) {
-		this.toStream = message;
-		if (this.toStream != null) {
-			schedule();
+		if (message == null) {
+			return;
+		}
+		if (!buffer.offer(message)) {
+			// Never block the UI thread
+			if (Display.getCurrent() == null) {
+				schedule();
+				long waitUntil = System.currentTimeMillis() + FULL_BUFFER_WAIT;
+				try {
+					while (!buffer.offer(message)) {
+						long remaining = waitUntil - System.currentTimeMillis();
+						if (remaining <= 0) {
+							buffer.drop(message);
+							break;
+						}
+						buffer.awaitSpace(remaining);
+					}
+				}
+				catch (InterruptedException e) {
+					buffer.drop(message);
+					Thread.currentThread().interrupt();
+				}
+			}
+			else {
+				buffer.drop(message);
+			}
 		}
+		// Scheduling a job that is already waiting has no effect, and a
+		// running job is run again, so the buffer is always drained.
+		schedule();
 	}
 
 	public void close() {
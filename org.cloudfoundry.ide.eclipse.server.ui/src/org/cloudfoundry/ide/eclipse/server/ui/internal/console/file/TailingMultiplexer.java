@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2014 Pivotal Software, Inc. 
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Apache License, 
+ * Version 2.0 (the "License); you may not use this file except in compliance 
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.ui.internal.console.file;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Polls all the tailed streams of the consoles of one Cloud Foundry server
+ * from a single job, instead of one self-scheduling job per stream.
+ * <p/>
+ * Each stream decides when it should be polled next. The job runs when the
+ * next stream is due, and hands all due streams to a bounded pool of threads
+ * that fetch their content and write it to their console. Therefore the
+ * number of jobs does not grow with the number of application instances being
+ * tailed, and at most {@link #MAX_CONCURRENT_REQUESTS} requests are sent to
+ * the server at the same time.
+ * <p/>
+ * A stream is not polled again until its previous poll completes.
+ */
+class TailingMultiplexer extends Job {
+
+	/**
+	 * Maximum number of streams polled concurrently.
+	 */
+	public static final int MAX_CONCURRENT_REQUESTS = 4;
+
+	private static final long KEEP_ALIVE = 60;
+
+	/**
+	 * Stream polled by the multiplexer.
+	 */
+	interface TailedStream {
+
+		/**
+		 * 
+		 * @return true if the stream should still be polled. Inactive streams
+		 * are closed and removed without further polling.
+		 */
+		public boolean isActive();
+
+		/**
+		 * Fetches new content and writes it to the console. Invoked in a
+		 * polling thread.
+		 * @param monitor
+		 * @return time in milliseconds until the stream should be polled
+		 * again, or -1 if the stream should no longer be polled
+		 */
+		public long poll(IProgressMonitor monitor);
+
+		public void close();
+	}
+
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+	private final ThreadPoolExecutor pool;
+
+	private final IProgressMonitor pollMonitor = new NullProgressMonitor();
+
+	/**
+	 * Time at which the job is next expected to run, or
+	 * {@link Long#MAX_VALUE} if it is not scheduled.
+	 */
+	private long nextRunTime = Long.MAX_VALUE;
+
+	/**
+	 * 
+	 * @param name typically the server name
+	 */
+	public TailingMultiplexer(final String name) {
+		super(name);
+		setSystem(true);
+		pool = new ThreadPoolExecutor(MAX_CONCURRENT_REQUESTS, MAX_CONCURRENT_REQUESTS, KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "Cloud Foundry log tailing (" + name + ") " //$NON-NLS-1$ //$NON-NLS-2$
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		pool.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Adds a stream, which is polled right away.
+	 * @param stream
+	 */
+	public void add(TailedStream stream) {
+		synchronized (entries) {
+			entries.add(new Entry(stream));
+		}
+		runAt(System.currentTimeMillis());
+	}
+
+	/**
+	 * Removes and closes streams that are no longer active without waiting for
+	 * them to be due.
+	 */
+	public void refresh() {
+		runAt(System.currentTimeMillis());
+	}
+
+	/**
+	 * Stops polling and closes all the streams. Streams that are being polled
+	 * complete their current poll.
+	 */
+	public void dispose() {
+		pollMonitor.setCanceled(true);
+		cancel();
+		pool.shutdown();
+		List<Entry> disposed;
+		synchronized (entries) {
+			disposed = new ArrayList<Entry>(entries);
+			entries.clear();
+		}
+		for (Entry entry : disposed) {
+			entry.stream.close();
+		}
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		List<Entry> due = new ArrayList<Entry>();
+		List<TailedStream> inactive = new ArrayList<TailedStream>();
+		long nextPollTime = Long.MAX_VALUE;
+
+		synchronized (entries) {
+			nextRunTime = Long.MAX_VALUE;
+			long now = System.currentTimeMillis();
+			for (Iterator<Entry> it = entries.iterator(); it.hasNext();) {
+				Entry entry = it.next();
+				if (entry.polling) {
+					continue;
+				}
+				if (!entry.stream.isActive()) {
+					it.remove();
+					inactive.add(entry.stream);
+				}
+				else if (entry.nextPollTime <= now) {
+					entry.polling = true;
+					due.add(entry);
+				}
+				else {
+					nextPollTime = Math.min(nextPollTime, entry.nextPollTime);
+				}
+			}
+		}
+
+		for (TailedStream stream : inactive) {
+			stream.close();
+		}
+
+		for (Entry entry : due) {
+			try {
+				pool.execute(new Poll(entry));
+			}
+			catch (RejectedExecutionException e) {
+				// Disposed
+				return Status.CANCEL_STATUS;
+			}
+		}
+
+		if (nextPollTime != Long.MAX_VALUE) {
+			runAt(nextPollTime);
+		}
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * Ensures the job runs no later than the given time.
+	 */
+	protected void runAt(long time) {
+		if (pollMonitor.isCanceled()) {
+			return;
+		}
+		synchronized (entries) {
+			// Job scheduling requests are ignored while the job is waiting,
+			// and the last request wins while it is running, so only request
+			// earlier runs.
+			if (time >= nextRunTime) {
+				return;
+			}
+			nextRunTime = time;
+			long delay = Math.max(0, time - System.currentTimeMillis());
+			if (getState() == Job.SLEEPING) {
+				wakeUp(delay);
+			}
+			else {
+				schedule(delay);
+			}
+		}
+	}
+
+	protected void polled(Entry entry, long delay) {
+		long nextPollTime;
+		synchronized (entries) {
+			entry.polling = false;
+			if (delay < 0) {
+				entries.remove(entry);
+				return;
+			}
+			nextPollTime = System.currentTimeMillis() + delay;
+			entry.nextPollTime = nextPollTime;
+		}
+		runAt(nextPollTime);
+	}
+
+	static class Entry {
+
+		final TailedStream stream;
+
+		long nextPollTime;
+
+		boolean polling;
+
+		Entry(TailedStream stream) {
+			this.stream = stream;
+		}
+	}
+
+	class Poll implements Runnable {
+
+		private final Entry entry;
+
+		Poll(Entry entry) {
+			this.entry = entry;
+		}
+
+		public void run() {
+			long delay = -1;
+			try {
+				delay = entry.stream.poll(pollMonitor);
+			}
+			catch (RuntimeException e) {
+				CloudFoundryPlugin.logError("Failed to poll console stream " + entry.stream + " due to - " //$NON-NLS-1$ //$NON-NLS-2$
+						+ e.getMessage(), e);
+			}
+			finally {
+				polled(entry, delay);
+			}
+		}
+	}
+}
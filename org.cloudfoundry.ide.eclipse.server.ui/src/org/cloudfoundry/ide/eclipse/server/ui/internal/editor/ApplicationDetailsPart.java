@@ -38,6 +38,7 @@ import org.cloudfoundry.ide.eclipse.server.core.internal.application.ManifestPar
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryServerBehaviour;
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.DeploymentInfoWorkingCopy;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.DeploymentTimeline;
 import org.cloudfoundry.ide.eclipse.server.core.internal.debug.CloudFoundryProperties;
 import org.cloudfoundry.ide.eclipse.server.core.internal.debug.DebugCommand;
 import org.cloudfoundry.ide.eclipse.server.core.internal.debug.DebugCommandBuilder;
@@ -800,6 +801,30 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 			}
 		});
 
+		createLabel(client, Messages.ApplicationDetailsPart_TEXT_DEPLOYMENT_HISTORY, SWT.CENTER);
+		Button showDeploymentHistory = createGeneralPushButton(client, Messages.ApplicationDetailsPart_TEXT_SHOW);
+		showDeploymentHistory.setToolTipText(Messages.ApplicationDetailsPart_TEXT_DEPLOYMENT_HISTORY_TOOLTIP);
+		showDeploymentHistory.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent e) {
+				showDeploymentHistory();
+			}
+		});
+
+	}
+
+	/**
+	 * Prints the timelines of the deployments of the application to its
+	 * console.
+	 */
+	protected void showDeploymentHistory() {
+		try {
+			CloudFoundryApplicationModule appModule = getExistingApplication();
+			String history = DeploymentTimeline.formatHistory(appModule.getDeploymentHistory());
+			CloudFoundryPlugin.getCallback().printToConsole(cloudServer, appModule, history + '\n', false, false);
+		}
+		catch (CoreException ce) {
+			logApplicationModuleFailureError(Messages.ApplicationDetailsPart_ERROR_SHOW_DEPLOYMENT_HISTORY);
+		}
 	}
 
 	private void createGeneralSectionRestartRequired(Composite parent) {
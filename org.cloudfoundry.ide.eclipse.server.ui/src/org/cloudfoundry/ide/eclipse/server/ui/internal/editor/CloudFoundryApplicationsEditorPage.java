@@ -19,14 +19,19 @@
  ********************************************************************************/
 package org.cloudfoundry.ide.eclipse.server.ui.internal.editor;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.cloudfoundry.client.lib.domain.CloudService;
+import org.cloudfoundry.ide.eclipse.server.core.internal.ApplicationChangeEvent;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudServerEvent;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudServerListener;
+import org.cloudfoundry.ide.eclipse.server.core.internal.RefreshHandler;
 import org.cloudfoundry.ide.eclipse.server.core.internal.ServerEventHandler;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.ClientRequestExecutor;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.CloudFoundryApplicationModule;
 import org.cloudfoundry.ide.eclipse.server.ui.internal.CloudFoundryImages;
 import org.cloudfoundry.ide.eclipse.server.ui.internal.Messages;
 import org.cloudfoundry.ide.eclipse.server.ui.internal.actions.RefreshApplicationEditorAction;
@@ -39,6 +44,8 @@ import org.eclipse.jface.dialogs.IMessageProvider;
 import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.ui.IPartListener2;
+import org.eclipse.ui.IWorkbenchPartReference;
 import org.eclipse.ui.forms.ManagedForm;
 import org.eclipse.ui.forms.widgets.FormToolkit;
 import org.eclipse.ui.forms.widgets.ScrolledForm;
@@ -65,6 +72,10 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 
 	private ServerListener serverListener;
 
+	private EditorVisibilityListener visibilityListener;
+
+	private boolean refreshClientRegistered;
+
 	private List<CloudService> services;
 
 	private ScrolledForm sform;
@@ -93,6 +104,11 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 		serverListener = new ServerListener();
 		ServerEventHandler.getDefault().addServerListener(serverListener);
 		getServer().getOriginal().addServerListener(serverListener);
+
+		// Server refresh only runs while the editor is visible
+		setRefreshClient(true);
+		visibilityListener = new EditorVisibilityListener();
+		getSite().getPage().addPartListener(visibilityListener);
 	}
 
 	@Override
@@ -100,6 +116,12 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 		ServerEventHandler.getDefault().removeServerListener(serverListener);
 		getServer().getOriginal().removeServerListener(serverListener);
 
+		if (visibilityListener != null) {
+			getSite().getPage().removePartListener(visibilityListener);
+			visibilityListener = null;
+		}
+		setRefreshClient(false);
+
 		if (mform != null) {
 			mform.dispose();
 			mform = null;
@@ -107,6 +129,22 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 		super.dispose();
 	};
 
+	protected void setRefreshClient(boolean register) {
+		if (register == refreshClientRegistered || cloudServer == null || cloudServer.getBehaviour() == null) {
+			return;
+		}
+		RefreshHandler refreshHandler = cloudServer.getBehaviour().getRefreshHandler();
+		if (refreshHandler != null) {
+			if (register) {
+				refreshHandler.addRefreshClient();
+			}
+			else {
+				refreshHandler.removeRefreshClient();
+			}
+			refreshClientRegistered = register;
+		}
+	}
+
 	public CloudFoundryServer getCloudServer() {
 		return cloudServer;
 	}
@@ -185,20 +223,76 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 		this.applicationMemoryChoices = applicationMemoryChoices;
 	}
 
+	private class EditorVisibilityListener implements IPartListener2 {
+
+		protected boolean isEditor(IWorkbenchPartReference partRef) {
+			return partRef.getPart(false) == getSite().getPart();
+		}
+
+		public void partVisible(IWorkbenchPartReference partRef) {
+			if (isEditor(partRef)) {
+				setRefreshClient(true);
+			}
+		}
+
+		public void partHidden(IWorkbenchPartReference partRef) {
+			if (isEditor(partRef)) {
+				setRefreshClient(false);
+			}
+		}
+
+		public void partActivated(IWorkbenchPartReference partRef) {
+			// Nothing
+		}
+
+		public void partBroughtToTop(IWorkbenchPartReference partRef) {
+			// Nothing
+		}
+
+		public void partClosed(IWorkbenchPartReference partRef) {
+			// Nothing
+		}
+
+		public void partDeactivated(IWorkbenchPartReference partRef) {
+			// Nothing
+		}
+
+		public void partOpened(IWorkbenchPartReference partRef) {
+			// Nothing
+		}
+
+		public void partInputChanged(IWorkbenchPartReference partRef) {
+			// Nothing
+		}
+	}
+
 	private class ServerListener implements CloudServerListener, IServerListener {
+
+		/**
+		 * True if rows were updated for changed applications since the last
+		 * server refresh event.
+		 */
+		private volatile boolean applicationsUpdated;
+
 		public void serverChanged(final CloudServerEvent event) {
-			if (event.getType() == CloudServerEvent.EVENT_UPDATE_SERVICES) {
-				// refresh services
-				try {
-					setServices(cloudServer.getBehaviour().getServices(null));
-				}
-				catch (CoreException e) {
-					// FIXME: error handling
-				}
+			if (event instanceof ApplicationChangeEvent) {
+				applicationsUpdated = true;
+				refreshApplication(((ApplicationChangeEvent) event).getApplicationName());
+				return;
+			}
+
+			// A module refresh that fires application change events is
+			// followed by a server refresh event. Changed applications are
+			// already shown, so only the details need to be refreshed.
+			if (event.getType() == CloudServerEvent.EVENT_SERVER_REFRESHED && applicationsUpdated) {
+				applicationsUpdated = false;
+				refreshDetails();
+				return;
 			}
 
 			// ignore EVENT_UPDATE_INSTANCES as refresh will be called after
-			// instances are updated
+			// instances are updated. Refreshing also updates the services, for
+			// example on EVENT_UPDATE_SERVICES.
 			if (event.getType() != CloudServerEvent.EVENT_UPDATE_INSTANCES) {
 				refresh(cloudServer.getServer());
 			}
@@ -211,34 +305,113 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 			}
 		}
 
-		private void refresh(final IServer server) {
+		private void refresh(IServer server) {
+			CloudFoundryServer cloudServer = server != null ? (CloudFoundryServer) server.loadAdapter(
+					CloudFoundryServer.class, null) : null;
+			if (cloudServer == null) {
+				refreshUI(null, Status.OK_STATUS);
+				return;
+			}
+
+			// Services are requested in a request thread of the server, so
+			// that the UI thread does not wait for the server
+			cloudServer.getBehaviour().getServicesAsync(null,
+					new ClientRequestExecutor.Callback<List<CloudService>>() {
+
+						public void onSuccess(List<CloudService> result) {
+							refreshUI(result, Status.OK_STATUS);
+						}
+
+						public void onFailure(Throwable error) {
+							if (error instanceof CoreException) {
+								refreshUI(null, ((CoreException) error).getStatus());
+							}
+						}
+					});
+		}
+
+		/**
+		 * Refreshes the editor with the given services, or reports the given
+		 * error status if the services could not be obtained.
+		 */
+		private void refreshUI(final List<CloudService> updatedServices, final IStatus status) {
 
 			UIJob job = new UIJob(Messages.CloudFoundryApplicationsEditorPage_JOB_REFRESH) {
 
 				@Override
 				public IStatus runInUIThread(IProgressMonitor monitor) {
-					try {
-						if (server != null) {
-							CloudFoundryServer cloudServer = (CloudFoundryServer) server.loadAdapter(
-									CloudFoundryServer.class, monitor);
-							if (cloudServer != null) {
-								setServices(cloudServer.getBehaviour().getServices(monitor));
-							}
-						}
+					if (!status.isOK()) {
+						return status;
+					}
+					if (updatedServices != null) {
+						setServices(updatedServices);
+					}
+
+					if (mform != null && mform.getForm() != null && !mform.getForm().isDisposed()) {
+						masterDetailsBlock.refreshUI(RefreshArea.ALL);
+					}
+					return Status.OK_STATUS;
+				}
+			};
+
+			job.schedule();
+
+		}
 
-						if (mform != null && mform.getForm() != null && !mform.getForm().isDisposed()) {
-							masterDetailsBlock.refreshUI(RefreshArea.ALL);
+		/**
+		 * Updates the table row of the module of the given application, and
+		 * the details if the module is selected. The whole table is refreshed
+		 * if the application was added or removed.
+		 */
+		private void refreshApplication(final String appName) {
+			UIJob job = new UIJob(Messages.CloudFoundryApplicationsEditorPage_JOB_REFRESH) {
+
+				@Override
+				public IStatus runInUIThread(IProgressMonitor monitor) {
+					if (mform == null || mform.getForm() == null || mform.getForm().isDisposed()) {
+						return Status.OK_STATUS;
+					}
+					IModule module = null;
+					try {
+						CloudFoundryApplicationModule appModule = cloudServer.getExistingCloudModule(appName);
+						if (appModule != null && appModule.getApplication() != null) {
+							module = appModule.getLocalModule();
 						}
 					}
 					catch (CoreException e) {
 						return e.getStatus();
 					}
+
+					TableViewer viewer = masterDetailsBlock.getMasterPart().getApplicationsViewer();
+					Object input = viewer.getInput();
+					if (module == null || !(input instanceof Object[])
+							|| !Arrays.asList((Object[]) input).contains(module)) {
+						masterDetailsBlock.refreshUI(RefreshArea.ALL);
+					}
+					else {
+						viewer.update(module, null);
+						if (module.equals(masterDetailsBlock.getCurrentModule())) {
+							masterDetailsBlock.refreshUI(RefreshArea.DETAIL);
+						}
+					}
 					return Status.OK_STATUS;
 				}
 			};
-
 			job.schedule();
+		}
+
+		private void refreshDetails() {
+			UIJob job = new UIJob(Messages.CloudFoundryApplicationsEditorPage_JOB_REFRESH) {
 
+				@Override
+				public IStatus runInUIThread(IProgressMonitor monitor) {
+					if (mform != null && mform.getForm() != null && !mform.getForm().isDisposed()) {
+						masterDetailsBlock.refreshUI(RefreshArea.DETAIL);
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			job.schedule();
 		}
 	}
 
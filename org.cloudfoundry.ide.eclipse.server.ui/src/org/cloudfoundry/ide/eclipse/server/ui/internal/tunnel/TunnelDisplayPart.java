@@ -22,12 +22,17 @@ package org.cloudfoundry.ide.eclipse.server.ui.internal.tunnel;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.server.core.internal.CloudFoundryServer;
+import org.cloudfoundry.ide.eclipse.server.core.internal.client.LatencyHistogram;
 import org.cloudfoundry.ide.eclipse.server.core.internal.client.TunnelBehaviour;
 import org.cloudfoundry.ide.eclipse.server.core.internal.tunnel.CaldecottTunnelDescriptor;
+import org.cloudfoundry.ide.eclipse.server.core.internal.tunnel.TunnelMetrics;
 import org.cloudfoundry.ide.eclipse.server.ui.internal.CloudFoundryImages;
 import org.cloudfoundry.ide.eclipse.server.ui.internal.Messages;
 import org.cloudfoundry.ide.eclipse.server.ui.internal.TableResizeHelper;
@@ -52,6 +57,7 @@ import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Table;
@@ -59,8 +65,25 @@ import org.eclipse.swt.widgets.TableColumn;
 
 public class TunnelDisplayPart {
 
+	/**
+	 * Interval in milliseconds at which the tunnel metrics are refreshed.
+	 */
+	private static final int REFRESH_INTERVAL = 1000;
+
 	private TableViewer servicesViewer;
 
+	/**
+	 * Bytes transferred per second by each tunnel, over the last refresh
+	 * interval.
+	 */
+	private final Map<CaldecottTunnelDescriptor, Long> throughput = new HashMap<CaldecottTunnelDescriptor, Long>();
+
+	/**
+	 * Total bytes transferred by each tunnel, and the time, at the last
+	 * refresh.
+	 */
+	private final Map<CaldecottTunnelDescriptor, long[]> lastSamples = new HashMap<CaldecottTunnelDescriptor, long[]>();
+
 	private final Shell shell;
 
 	private final CloudFoundryServer cloudServer;
@@ -74,7 +97,8 @@ public class TunnelDisplayPart {
 	}
 
 	enum ViewColumn {
-		ServiceName(100), Vendor(100), Name(100), UserName(100), Password(100), Port(50);
+		ServiceName(100), Vendor(100), Name(100), UserName(100), Password(100), Port(50), Connections(80), Sent(80),
+		Received(80), Throughput(80), Latency(80), Errors(50);
 		private int width;
 
 		private ViewColumn(int width) {
@@ -133,11 +157,59 @@ public class TunnelDisplayPart {
 
 		setInput();
 
-		
+		scheduleRefresh();
+
 		return tableArea;
 
 	}
 
+	/**
+	 * Refreshes the tunnel metrics shown in the table at a regular interval,
+	 * until the table is disposed.
+	 */
+	protected void scheduleRefresh() {
+		Display display = servicesViewer.getControl().getDisplay();
+		display.timerExec(REFRESH_INTERVAL, new Runnable() {
+
+			public void run() {
+				if (servicesViewer.getControl().isDisposed()) {
+					return;
+				}
+				updateThroughput();
+				servicesViewer.refresh();
+				scheduleRefresh();
+			}
+		});
+	}
+
+	protected void updateThroughput() {
+		Object input = servicesViewer.getInput();
+		if (!(input instanceof Collection)) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		for (Object element : (Collection<?>) input) {
+			CaldecottTunnelDescriptor descriptor = (CaldecottTunnelDescriptor) element;
+			TunnelMetrics metrics = descriptor.getMetrics();
+			long total = metrics.getBytesSent() + metrics.getBytesReceived();
+			long[] last = lastSamples.get(descriptor);
+			if (last != null && now > last[1]) {
+				throughput.put(descriptor, (total - last[0]) * 1000 / (now - last[1]));
+			}
+			lastSamples.put(descriptor, new long[] { total, now });
+		}
+	}
+
+	protected static String formatBytes(long bytes) {
+		if (bytes < 1024) {
+			return bytes + " B"; //$NON-NLS-1$
+		}
+		else if (bytes < 1024 * 1024) {
+			return String.format(Locale.ENGLISH, "%.1f KB", bytes / 1024.0); //$NON-NLS-1$
+		}
+		return String.format(Locale.ENGLISH, "%.1f MB", bytes / (1024.0 * 1024.0)); //$NON-NLS-1$
+	}
+
 	protected void setInput() {
 
 		Collection<CaldecottTunnelDescriptor> cache = null;
@@ -247,6 +319,29 @@ public class TunnelDisplayPart {
 					case Name:
 						result = descriptor.getDatabaseName();
 						break;
+					case Connections:
+						TunnelMetrics metrics = descriptor.getMetrics();
+						result = metrics.getActiveConnections() + " / " + metrics.getConnections(); //$NON-NLS-1$
+						break;
+					case Sent:
+						result = formatBytes(descriptor.getMetrics().getBytesSent());
+						break;
+					case Received:
+						result = formatBytes(descriptor.getMetrics().getBytesReceived());
+						break;
+					case Throughput:
+						Long bytesPerSecond = throughput.get(descriptor);
+						result = formatBytes(bytesPerSecond != null ? bytesPerSecond : 0) + "/s"; //$NON-NLS-1$
+						break;
+					case Latency:
+						// Median connect and write latencies
+						LatencyHistogram connect = descriptor.getMetrics().getConnectLatency();
+						LatencyHistogram write = descriptor.getMetrics().getWriteLatency();
+						result = connect.getValueAtPercentile(50) + " / " + write.getValueAtPercentile(50) + " ms"; //$NON-NLS-1$ //$NON-NLS-2$
+						break;
+					case Errors:
+						result = descriptor.getMetrics().getErrors() + ""; //$NON-NLS-1$
+						break;
 					}
 				}
 			}